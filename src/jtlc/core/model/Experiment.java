@@ -27,6 +27,8 @@ import java.util.stream.Collectors;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Point;
 import jtlc.core.processing.AnalysisProcessing.Axis;
+import jtlc.core.processing.ImagePreprocessing;
+import jtlc.core.processing.ImagePreview;
 
 /**
  * TLC experiment model.
@@ -39,6 +41,9 @@ public class Experiment implements Serializable {
     private ImagePlus sourceImage;
     // Processed Image
     private ImagePlus processedImage;
+    // Lazy images (decoded from project file on access)
+    private transient LazyImage sourceLoader;
+    private transient LazyImage processedLoader;
     // Cut Points
     private Pair<Point,Point> cutPoints;
     // Samples
@@ -67,6 +72,7 @@ public class Experiment implements Serializable {
      */
     private File file;
     private boolean saved;
+    private transient boolean changed;
     
     /**
      * Empty Experiment Constructor.
@@ -110,9 +116,9 @@ public class Experiment implements Serializable {
      */
     public Experiment(Experiment other) {
         if (other.hasSourceImage())
-            sourceImage = other.sourceImage.duplicate();
+            sourceImage = other.getSourceImage().duplicate();
         if (other.hasProcessedImage())
-            processedImage = other.processedImage.duplicate();
+            processedImage = other.getProcessedImage().duplicate();
         if (other.hasCutPoints())
             cutPoints = new Pair(new Point(other.cutPoints.getFirst()), new Point(other.cutPoints.getSecond()));
         flipAxis = other.flipAxis;
@@ -139,6 +145,12 @@ public class Experiment implements Serializable {
      * Clear current experiment data.
      */
     public void clear() {
+        changed = true;
+        // Drop preprocessed variants and previews
+        ImagePreprocessing.invalidate(peekSourceImage());
+        ImagePreprocessing.invalidate(peekProcessedImage());
+        ImagePreview.invalidate(peekSourceImage());
+        ImagePreview.invalidate(peekProcessedImage());
         // Clear source image
         if (sourceImage != null) {
             sourceImage.flush();
@@ -149,6 +161,9 @@ public class Experiment implements Serializable {
             processedImage.flush();
             processedImage = null;
         }
+        // Clear lazy images
+        sourceLoader = null;
+        processedLoader = null;
         // Clear subsamples
         if (subSamples != null) {
             subSamples.forEach(s -> s.clear());
@@ -167,14 +182,51 @@ public class Experiment implements Serializable {
         saved = false;
     }
     
+    /**
+     * Release experiment and samples images.
+     * Keeps all analysis data (points, means, peaks and comments).
+     */
+    public void releaseImages() {
+        ImagePreprocessing.invalidate(peekSourceImage());
+        ImagePreprocessing.invalidate(peekProcessedImage());
+        ImagePreview.invalidate(peekSourceImage());
+        ImagePreview.invalidate(peekProcessedImage());
+        if (sourceImage != null) {
+            sourceImage.flush();
+            sourceImage = null;
+        }
+        if (processedImage != null) {
+            processedImage.flush();
+            processedImage = null;
+        }
+        sourceLoader = null;
+        processedLoader = null;
+        if (subSamples != null)
+            subSamples.forEach(s -> s.releaseImages());
+    }
+    
     /**
      * Set experiment source image.
      * @param ip experiment source image
      */
     public void setSourceImage(ImagePlus ip) {
+        changed = true;
         if (ip == null)
             throw new NullPointerException("Source image can't be null");
         sourceImage = ip;
+        sourceLoader = null;
+    }
+    
+    /**
+     * Set experiment lazy source image, the image is built on first access.
+     * @param loader experiment lazy source image
+     */
+    public void setSourceImageLoader(LazyImage loader) {
+        changed = true;
+        if (loader == null)
+            throw new NullPointerException("Source image can't be null");
+        sourceImage = null;
+        sourceLoader = loader;
     }
     
     /**
@@ -182,6 +234,9 @@ public class Experiment implements Serializable {
      * @return experiment source image
      */
     public ImagePlus getSourceImage() {
+        // Lazy image, not kept by the experiment
+        if (sourceImage == null && sourceLoader != null)
+            return sourceLoader.get();
         return sourceImage;
     }
     
@@ -190,7 +245,7 @@ public class Experiment implements Serializable {
      * @return true/false
      */
     public boolean hasSourceImage() {
-        return sourceImage != null;
+        return sourceImage != null || sourceLoader != null;
     }
     
     /**
@@ -198,6 +253,7 @@ public class Experiment implements Serializable {
      * @param comments split step comments
      */
     public void setSplitComments(String comments) {
+        changed = true;
         splitComments = comments;
     }
     
@@ -222,6 +278,7 @@ public class Experiment implements Serializable {
      * @param comments rotation step comments
      */
     public void setRotationComments(String comments) {
+        changed = true;
         rotationComments = comments;
     }
     
@@ -246,6 +303,7 @@ public class Experiment implements Serializable {
      * @param comments cut step comments
      */
     public void setCutComments(String comments) {
+        changed = true;
         cutComments = comments;
     }
     
@@ -270,6 +328,7 @@ public class Experiment implements Serializable {
      * @param comments experiment source image comments
      */
     public void setSourceImageComments(String comments) {
+        changed = true;
         sourceComments = comments;
     }
     
@@ -302,6 +361,7 @@ public class Experiment implements Serializable {
      * @param dataComments experiment sample-data comments
      */
     public void setDataComments(String dataComments) {
+        changed = true;
         this.dataComments = dataComments;
     }
     
@@ -318,6 +378,7 @@ public class Experiment implements Serializable {
      * @param comparationComments experiment samples comparation comments
      */
     public void setComparationComments(String comparationComments) {
+        changed = true;
         this.comparationComments = comparationComments;
     }
     
@@ -342,6 +403,7 @@ public class Experiment implements Serializable {
      * @param date experiment analysis date
      */
     public void setAnalysisDate(Date date) {
+        changed = true;
         if (date == null)
             throw new NullPointerException("Analysis date can't be null");
         analysisDate = date;
@@ -360,6 +422,7 @@ public class Experiment implements Serializable {
      * @param date experiment sample date
      */
     public void setSampleDate(Date date) {
+        changed = true;
         if (date == null)
             throw new NullPointerException("Sample date can't be null");
         sampleDate = date;
@@ -378,6 +441,7 @@ public class Experiment implements Serializable {
      * @param name new experiment name
      */
     public void setName(String name) {
+        changed = true;
         experimentName = name;
     }
     
@@ -394,6 +458,7 @@ public class Experiment implements Serializable {
      * @param description current experiment description
      */
     public void setDescription(String description) {
+        changed = true;
         experimentDescription = description;
     }
     
@@ -410,9 +475,29 @@ public class Experiment implements Serializable {
      * @param ip processed source image
      */
     public void setProcessedImage(ImagePlus ip) {
+        changed = true;
         if (ip == null)
             throw new NullPointerException("Processed image can't be null");
+        // Drop preprocessed variants of old processed image
+        if (peekProcessedImage() != ip)
+            ImagePreprocessing.invalidate(peekProcessedImage());
         processedImage = ip;
+        processedLoader = null;
+    }
+    
+    /**
+     * Set experiment lazy processed image, the image is built on first access.
+     * @param loader experiment lazy processed image
+     */
+    public void setProcessedImageLoader(LazyImage loader) {
+        changed = true;
+        if (loader == null)
+            throw new NullPointerException("Processed image can't be null");
+        // Drop preprocessed variants of old processed image
+        if (peekProcessedImage() != loader.peek())
+            ImagePreprocessing.invalidate(peekProcessedImage());
+        processedImage = null;
+        processedLoader = loader;
     }
     
     /**
@@ -420,6 +505,9 @@ public class Experiment implements Serializable {
      * @return image plus (processed source image)
      */
     public ImagePlus getProcessedImage() {
+        // Lazy image, not kept by the experiment
+        if (processedImage == null && processedLoader != null)
+            return processedLoader.get();
         return processedImage;
     }
     
@@ -427,7 +515,10 @@ public class Experiment implements Serializable {
      * Clear experiment source processed image.
      */
     public void clearProcessedImage() {
+        changed = true;
+        ImagePreprocessing.invalidate(peekProcessedImage());
         processedImage = null;
+        processedLoader = null;
     }
     
     /**
@@ -435,7 +526,7 @@ public class Experiment implements Serializable {
      * @return true/false
      */
     public boolean hasProcessedImage() {
-        return processedImage != null;
+        return processedImage != null || processedLoader != null;
     }
     
     /**
@@ -451,6 +542,10 @@ public class Experiment implements Serializable {
      * @param axis flip axis combination
      */
     public void setFlipAxis(Axis axis) {
+        changed = true;
+        // Processed image depends on flip axis
+        if (flipAxis != axis)
+            ImagePreprocessing.invalidate(peekProcessedImage());
         flipAxis = axis;
     }
     
@@ -467,6 +562,10 @@ public class Experiment implements Serializable {
      * @param angle current rotation angle
      */
     public void setRotationAngle(Double angle) {
+        changed = true;
+        // Processed image depends on rotation angle
+        if (rotationAngle == null || !rotationAngle.equals(angle))
+            ImagePreprocessing.invalidate(peekProcessedImage());
         rotationAngle = angle;
     }
     
@@ -475,8 +574,11 @@ public class Experiment implements Serializable {
      * @param points pair of points (upper,lower)
      */
     public void setCutPoints(Pair<Point,Point> points) {
+        changed = true;
         if (points == null)
             throw new NullPointerException("Cut points can't be null");
+        // Processed image depends on cut points
+        ImagePreprocessing.invalidate(peekProcessedImage());
         cutPoints = points;
     }
     
@@ -486,10 +588,13 @@ public class Experiment implements Serializable {
      * @param lower lower point
      */
     public void setCutPoints(Point upper, Point lower) {
+        changed = true;
         if (upper == null)
             throw new NullPointerException("Upper cut point can't be null");
         if (lower == null)
             throw new NullPointerException("Lower cut point can't be null");
+        // Processed image depends on cut points
+        ImagePreprocessing.invalidate(peekProcessedImage());
         cutPoints = new Pair<>(upper,lower);
     }
     
@@ -514,6 +619,7 @@ public class Experiment implements Serializable {
      * @param sample sample to add
      */
     public void addSample(Sample sample) {
+        changed = true;
         if (subSamples == null)
             subSamples = new LinkedList<>();
         // Set correct peak id
@@ -550,6 +656,7 @@ public class Experiment implements Serializable {
      * @param samples samples collection to add
      */
     public void setSamples(List<Sample> samples) {
+        changed = true;
         if (samples == null)
             throw new NullPointerException("Samples can't be null");
         subSamples = samples;
@@ -567,6 +674,7 @@ public class Experiment implements Serializable {
      * Remove all experiment samples.
      */
     public void removeAllSamples() {
+        changed = true;
         if (subSamples != null) {
             subSamples.forEach(s -> s.clear());
             subSamples.clear();
@@ -613,4 +721,54 @@ public class Experiment implements Serializable {
     public void setSaved(boolean saved) {
         this.saved = saved;
     }
+    
+    /**
+     * Check if experiment data (or its samples) changed since loaded/saved.
+     * @return true/false
+     */
+    public boolean isChanged() {
+        return changed || (subSamples != null && subSamples.stream().anyMatch(Sample::isChanged));
+    }
+    
+    /**
+     * Set experiment changed status, also of its samples (cleared when loaded/saved).
+     * @param changed true/false
+     */
+    public void setChanged(boolean changed) {
+        this.changed = changed;
+        if (subSamples != null)
+            subSamples.forEach(s -> s.setChanged(changed));
+    }
+    
+    /**
+     * Get lazy source image.
+     * @return lazy source image or null if the image was set
+     */
+    public LazyImage getSourceImageLoader() {
+        return sourceLoader;
+    }
+    
+    /**
+     * Get lazy processed image.
+     * @return lazy processed image or null if the image was set
+     */
+    public LazyImage getProcessedImageLoader() {
+        return processedLoader;
+    }
+    
+    /**
+     * Get source image only if built (lazy image not built on access)
+     * @return source image or null
+     */
+    public ImagePlus peekSourceImage() {
+        return (sourceImage == null && sourceLoader != null)? sourceLoader.peek() : sourceImage;
+    }
+    
+    /**
+     * Get processed image only if built (lazy image not built on access)
+     * @return processed image or null
+     */
+    public ImagePlus peekProcessedImage() {
+        return (processedImage == null && processedLoader != null)? processedLoader.peek() : processedImage;
+    }
 }
\ No newline at end of file
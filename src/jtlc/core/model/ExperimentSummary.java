@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.model;
+
+import java.io.File;
+import java.util.Date;
+
+/**
+ * TLC experiment summary.
+ * Project file metadata and thumbnail, enough to show the project in the
+ * explorer without loading the experiment.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ExperimentSummary {
+    // Project file
+    private final File file;
+    // Project file last modified time and size (when summary was read)
+    private final long fileModified;
+    private final long fileSize;
+    // Experiment name and description
+    private final String name;
+    private final String description;
+    // Experiment dates
+    private final Date sampleDate;
+    private final Date analysisDate;
+    // Thumbnail image (encoded, can be null)
+    private final byte[] thumbnail;
+    
+    /**
+     * Create experiment summary.
+     * @param file project file
+     * @param fileModified project file last modified time
+     * @param fileSize project file size
+     * @param name experiment name
+     * @param description experiment description
+     * @param sampleDate experiment sample date
+     * @param analysisDate experiment analysis date
+     * @param thumbnail encoded thumbnail image (can be null)
+     */
+    public ExperimentSummary(File file, long fileModified, long fileSize, String name, String description, Date sampleDate, Date analysisDate, byte[] thumbnail) {
+        this.file = file;
+        this.fileModified = fileModified;
+        this.fileSize = fileSize;
+        this.name = name;
+        this.description = description;
+        this.sampleDate = sampleDate;
+        this.analysisDate = analysisDate;
+        this.thumbnail = thumbnail;
+    }
+    
+    /**
+     * Get project file.
+     * @return project file
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Get project file last modified time (when summary was read).
+     * @return last modified time
+     */
+    public long getFileModified() {
+        return fileModified;
+    }
+    
+    /**
+     * Get project file size (when summary was read).
+     * @return file size
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+    
+    /**
+     * Check if the project file changed since summary was read.
+     * @return true/false
+     */
+    public boolean isOutdated() {
+        return file.lastModified() != fileModified || file.length() != fileSize;
+    }
+    
+    /**
+     * Get experiment name.
+     * @return experiment name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Get experiment description.
+     * @return experiment description
+     */
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Get experiment sample date.
+     * @return sample date
+     */
+    public Date getSampleDate() {
+        return sampleDate;
+    }
+    
+    /**
+     * Get experiment analysis date.
+     * @return analysis date
+     */
+    public Date getAnalysisDate() {
+        return analysisDate;
+    }
+    
+    /**
+     * Get encoded thumbnail image (JPEG).
+     * @return thumbnail bytes or null
+     */
+    public byte[] getThumbnail() {
+        return thumbnail;
+    }
+    
+    /**
+     * Check if has thumbnail image.
+     * @return true/false
+     */
+    public boolean hasThumbnail() {
+        return thumbnail != null;
+    }
+}
\ No newline at end of file
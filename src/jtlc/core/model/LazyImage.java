@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.model;
+
+import ij.ImagePlus;
+import java.awt.Rectangle;
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.function.Supplier;
+
+/**
+ * Lazy model image.
+ * The image is built (decoded from the project file, cut from other image...)
+ * on first access and kept by a soft reference, so its pixels can be reclaimed
+ * under memory pressure and built again when needed. Images must not be
+ * modified in place, changes are lost when the image is rebuilt.
+ * The image origin (project file entry or crop of its parent image) is kept,
+ * so an unchanged image is saved again without encoding it.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class LazyImage implements Supplier<ImagePlus> {
+    // Image builder
+    private final Supplier<ImagePlus> builder;
+    // Built image
+    private SoftReference<ImagePlus> image;
+    // Image origin: project file and entry, or crop of parent image (or none)
+    private final File file;
+    private final String entry;
+    private final Rectangle crop;
+    
+    /**
+     * Create lazy image
+     * @param builder image builder
+     */
+    public LazyImage(Supplier<ImagePlus> builder) {
+        this(builder, null);
+    }
+    
+    /**
+     * Create lazy image with an already built image
+     * @param builder image builder
+     * @param image current built image (can be null)
+     */
+    public LazyImage(Supplier<ImagePlus> builder, ImagePlus image) {
+        this(builder, image, null, null, null);
+    }
+    
+    /**
+     * Create lazy image decoded from a project file entry
+     * @param builder image builder
+     * @param image current built image (can be null)
+     * @param file project file
+     * @param entry image entry name
+     */
+    public LazyImage(Supplier<ImagePlus> builder, ImagePlus image, File file, String entry) {
+        this(builder, image, file, entry, null);
+    }
+    
+    /**
+     * Create lazy image cut from its parent image
+     * @param builder image builder
+     * @param image current built image (can be null)
+     * @param crop crop rectangle over parent image
+     */
+    public LazyImage(Supplier<ImagePlus> builder, ImagePlus image, Rectangle crop) {
+        this(builder, image, null, null, new Rectangle(crop));
+    }
+    
+    /**
+     * Get project file of an image decoded from a file entry
+     * @return project file or null
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Get project file entry of an image decoded from a file entry
+     * @return entry name or null
+     */
+    public String getEntry() {
+        return entry;
+    }
+    
+    /**
+     * Get crop rectangle of an image cut from its parent image
+     * @return crop rectangle copy or null
+     */
+    public Rectangle getCrop() {
+        return (crop != null)? new Rectangle(crop) : null;
+    }
+    
+    /**
+     * Get image, building it if necessary
+     * @return image
+     */
+    @Override
+    public synchronized ImagePlus get() {
+        ImagePlus img = peek();
+        if (img == null) {
+            img = builder.get();
+            image = new SoftReference<>(img);
+        }
+        return img;
+    }
+    
+    /**
+     * Get image only if already built
+     * @return image or null
+     */
+    public synchronized ImagePlus peek() {
+        return (image != null)? image.get() : null;
+    }
+    
+    /**
+     * Drop built image
+     */
+    public synchronized void release() {
+        image = null;
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Create lazy image
+     * @param builder image builder
+     * @param image current built image (can be null)
+     * @param file project file (or null)
+     * @param entry project file entry (or null)
+     * @param crop crop rectangle (or null)
+     */
+    private LazyImage(Supplier<ImagePlus> builder, ImagePlus image, File file, String entry, Rectangle crop) {
+        this.builder = builder;
+        this.image = (image != null)? new SoftReference<>(image) : null;
+        this.file = file;
+        this.entry = entry;
+        this.crop = crop;
+    }
+}
\ No newline at end of file
@@ -45,6 +45,8 @@ public class Peak {
     private Pair<Float,Float> maximum;
     // Peak height pos-value
     private Pair<Float,Float> height;
+    // Changed since loaded/saved
+    private boolean changed;
     
     /**
      * Create new empty limits.
@@ -122,6 +124,7 @@ public class Peak {
      * @param id 
      */
     public void setId(int id) {
+        changed = true;
         this.id = id;
     }
     
@@ -138,6 +141,7 @@ public class Peak {
      * @param position 
      */
     public void setPosition(int position) {
+        changed = true;
         this.position = position;
     }
 
@@ -154,6 +158,7 @@ public class Peak {
      * @param name 
      */
     public void setName(String name) {
+        changed = true;
         this.name = name;
     }
 
@@ -170,6 +175,7 @@ public class Peak {
      * @param peak 
      */
     public void setLimits(Pair<Float,Float> peak) {
+        changed = true;
         this.limits = peak;
     }
     
@@ -194,6 +200,7 @@ public class Peak {
      * @param baseline 
      */
     public void setBaseline(List<Pair<Float, Float>> baseline) {
+        changed = true;
         this.baseline = baseline;
     }
     
@@ -218,6 +225,7 @@ public class Peak {
      * @param surface 
      */
     public void setSurface(Float surface) {
+        changed = true;
         this.surface = surface;
     }
     
@@ -242,6 +250,7 @@ public class Peak {
      * @param relativeSurface 
      */
     public void setRelativeSurface(Float relativeSurface) {
+        changed = true;
         this.relativeSurface = relativeSurface;
     }
     
@@ -266,6 +275,7 @@ public class Peak {
      * @param maximum 
      */
     public void setMaximum(Pair<Float,Float> maximum) {
+        changed = true;
         this.maximum = maximum;
     }
     
@@ -290,6 +300,7 @@ public class Peak {
      * @param height 
      */
     public void setHeight(Pair<Float,Float> height) {
+        changed = true;
         this.height = height;
     }
     
@@ -310,4 +321,20 @@ public class Peak {
         return "Name: " + name + " Position: " + position + " Limits: " + limits + " Baseline: " + baseline + "\n"
             + "Surface: " + surface + " Relative: " + relativeSurface + " Maximum: " + maximum + " Height: "+ height;
     }
+    
+    /**
+     * Check if peak data changed since loaded/saved.
+     * @return true/false
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+    
+    /**
+     * Set peak changed status (cleared when loaded/saved).
+     * @param changed true/false
+     */
+    public void setChanged(boolean changed) {
+        this.changed = changed;
+    }
 }
@@ -20,8 +20,9 @@ import java.util.List;
 import ij.ImagePlus;
 import java.util.LinkedList;
 import java.util.stream.Collectors;
-import jtlc.main.common.Pair;
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Point;
+import jtlc.main.common.ProfileIndex;
 
 /**
  * TLC experiment sample.
@@ -36,12 +37,19 @@ public class Sample {
     private ImagePlus sourceImage;
     // Processed Sample Image
     private ImagePlus processedImage;
+    // Lazy images (decoded from project file or cut from experiment image on access)
+    private LazyImage sourceLoader;
+    private LazyImage processedLoader;
+    // Changed since loaded/saved
+    private boolean changed;
     // Solvent front Point (in sample image pixels)
     private int frontPoint;
     // Sample Seed Point (in sample image pixels)
     private int seedPoint;
     // Image GrayScale-Inverted Image Mean
-    private List<Pair<Float,Float>> sampleMean;
+    private DensityProfile sampleMean;
+    // Image Mean range queries index (built on demand)
+    private ProfileIndex sampleMeanIndex;
     // Sample Image Mean Peaks
     private List<Peak> samplePeaks;
     // Sample ID
@@ -101,13 +109,13 @@ public class Sample {
      */
     public Sample(Sample other) {
         if (other.hasSourceImage())
-            sourceImage = other.sourceImage.duplicate();
+            sourceImage = other.getSourceImage().duplicate();
         if (other.hasProcessedImage())
-            processedImage = other.processedImage.duplicate();
+            processedImage = other.getProcessedImage().duplicate();
         if (other.hasLimits())
             limits = new Point(other.limits);
         if (other.hasMean())
-            sampleMean = other.sampleMean.stream().map(Pair::new).collect(Collectors.toList());
+            sampleMean = new DensityProfile(other.sampleMean);
         if (other.hasPeaks())
             samplePeaks = other.samplePeaks.stream().map(Peak::new).collect(Collectors.toList());
         frontPoint = other.frontPoint;
@@ -125,6 +133,7 @@ public class Sample {
      * Clear Current Sample data.
      */
     public void clear() {
+        changed = true;
         if (sourceImage != null) {
             sourceImage.flush();
             sourceImage = null;
@@ -133,10 +142,10 @@ public class Sample {
             processedImage.flush();
             processedImage = null;
         }
-        if (sampleMean != null) {
-            sampleMean.clear();
-            sampleMean = null;
-        }
+        sourceLoader = null;
+        processedLoader = null;
+        sampleMean = null;
+        sampleMeanIndex = null;
         if (samplePeaks != null) {
             samplePeaks.clear();
             samplePeaks = null;
@@ -151,6 +160,22 @@ public class Sample {
         totalSurface = null;
     }
     
+    /**
+     * Release sample images, keeping sample data.
+     */
+    public synchronized void releaseImages() {
+        if (sourceImage != null) {
+            sourceImage.flush();
+            sourceImage = null;
+        }
+        if (processedImage != null) {
+            processedImage.flush();
+            processedImage = null;
+        }
+        sourceLoader = null;
+        processedLoader = null;
+    }
+    
     /**
      * Get peak limits (start-end points).
      * @return 
@@ -164,6 +189,7 @@ public class Sample {
      * @param limit 
      */
     public void setLimits(Point limit) {
+        changed = true;
         this.limits = limit;
     }
     
@@ -179,15 +205,33 @@ public class Sample {
      * Set sample source image.
      * @param ip sample source image
      */
-    public void setSourceImage(ImagePlus ip) {
+    public synchronized void setSourceImage(ImagePlus ip) {
+        changed = true;
         sourceImage = ip;
+        sourceLoader = null;
+    }
+    
+    /**
+     * Set sample lazy source image, the image is built on first access.
+     * @param loader sample lazy source image
+     */
+    public synchronized void setSourceImageLoader(LazyImage loader) {
+        changed = true;
+        sourceImage = null;
+        sourceLoader = loader;
     }
     
     /**
      * Get sample source image
      * @return sample source image
      */
-    public ImagePlus getSourceImage() {
+    public synchronized ImagePlus getSourceImage() {
+        // Lazy image, not kept by the sample
+        if (sourceImage == null && sourceLoader != null) {
+            ImagePlus img = sourceLoader.get();
+            img.setTitle(sampleName);
+            return img;
+        }
         return sourceImage;
     }
     
@@ -195,39 +239,91 @@ public class Sample {
      * Check if has source sample image.
      * @return true/false
      */
-    public boolean hasSourceImage() {
-        return sourceImage != null;
+    public synchronized boolean hasSourceImage() {
+        return sourceImage != null || sourceLoader != null;
+    }
+    
+    /**
+     * Get sample lazy source image.
+     * @return lazy source image or null if the image was set
+     */
+    public synchronized LazyImage getSourceImageLoader() {
+        return sourceLoader;
+    }
+    
+    /**
+     * Get sample source image only if built (lazy image not built on access).
+     * @return source image or null
+     */
+    public synchronized ImagePlus peekSourceImage() {
+        return (sourceImage == null && sourceLoader != null)? sourceLoader.peek() : sourceImage;
     }
     
     /**
      * Set processed source sample image.
      * @param ip processed source sample image
      */
-    public void setProcessedImage(ImagePlus ip) {
+    public synchronized void setProcessedImage(ImagePlus ip) {
+        changed = true;
         processedImage = ip;
+        processedLoader = null;
+    }
+    
+    /**
+     * Set sample lazy processed image, the image is built on first access.
+     * @param loader sample lazy processed image
+     */
+    public synchronized void setProcessedImageLoader(LazyImage loader) {
+        changed = true;
+        processedImage = null;
+        processedLoader = loader;
     }
     
     /**
      * Get processed source sample image.
      * @return processed source sample image
      */
-    public ImagePlus getProcessedImage() {
+    public synchronized ImagePlus getProcessedImage() {
+        // Lazy image, not kept by the sample
+        if (processedImage == null && processedLoader != null) {
+            ImagePlus img = processedLoader.get();
+            img.setTitle(sampleName);
+            return img;
+        }
         return processedImage;
     }
     
     /**
      * Clear processed source sample image.
      */
-    public void clearProcessedImage() {
+    public synchronized void clearProcessedImage() {
+        changed = true;
         processedImage = null;
+        processedLoader = null;
     }
     
     /**
      * Check if has processed source sample image.
      * @return true/false
      */
-    public boolean hasProcessedImage() {
-        return processedImage != null;
+    public synchronized boolean hasProcessedImage() {
+        return processedImage != null || processedLoader != null;
+    }
+    
+    /**
+     * Get sample lazy processed image.
+     * @return lazy processed image or null if the image was set
+     */
+    public synchronized LazyImage getProcessedImageLoader() {
+        return processedLoader;
+    }
+    
+    /**
+     * Get sample processed image only if built (lazy image not built on access).
+     * @return processed image or null
+     */
+    public synchronized ImagePlus peekProcessedImage() {
+        return (processedImage == null && processedLoader != null)? processedLoader.peek() : processedImage;
     }
     
     /**
@@ -235,6 +331,7 @@ public class Sample {
      * @param name new sample name
      */
     public void setName(String name) {
+        changed = true;
         sampleName = name;
         if (sourceImage != null)
             sourceImage.setTitle(name);
@@ -263,6 +360,7 @@ public class Sample {
      * @param comments current sample coments
      */
     public void setComments(String comments) {
+        changed = true;
         sampleComments = comments;
     }
     
@@ -287,6 +385,7 @@ public class Sample {
      * @param comments current sample analysis comments
      */
     public void setAnalysisComments(String comments) {
+        changed = true;
         analysisComments = comments;
     }
     
@@ -311,6 +410,7 @@ public class Sample {
      * @param comments 
      */
     public void setResultsComments(String comments) {
+        changed = true;
         resultsComments = comments;
     }
     
@@ -327,6 +427,7 @@ public class Sample {
      * @param p new sample front point
      */
     public void setFrontPoint(int p) {
+        changed = true;
         frontPoint = p;
     }
     
@@ -343,6 +444,7 @@ public class Sample {
      * @param p new sample seed point
      */
     public void setSeedPoint(int p) {
+        changed = true;
         seedPoint = p;
     }
     
@@ -358,7 +460,7 @@ public class Sample {
      * Get sample processed image mean.
      * @return sample processed image mean
      */
-    public List<Pair<Float,Float>> getMean() {
+    public DensityProfile getMean() {
         return sampleMean;
     }
     
@@ -366,8 +468,20 @@ public class Sample {
      * Set sample processed image mean.
      * @param mean sample processed image mean
      */
-    public void setMean(List<Pair<Float,Float>> mean) {
+    public void setMean(DensityProfile mean) {
+        changed = true;
         sampleMean = mean;
+        sampleMeanIndex = null;
+    }
+    
+    /**
+     * Get sample processed image mean index (range sums and maximums).
+     * @return sample mean index, null if sample has no mean
+     */
+    public ProfileIndex getMeanIndex() {
+        if (sampleMeanIndex == null && sampleMean != null)
+            sampleMeanIndex = new ProfileIndex(sampleMean);
+        return sampleMeanIndex;
     }
     
     /**
@@ -382,10 +496,9 @@ public class Sample {
      * Clear sample mean.
      */
     public void clearMean() {
-        if (sampleMean != null) {
-            sampleMean.clear();
-            sampleMean = null;
-        }
+        changed = true;
+        sampleMean = null;
+        sampleMeanIndex = null;
     }
     
     /**
@@ -401,6 +514,7 @@ public class Sample {
      * @param peaks 
      */
     public void setPeaks(List<Peak> peaks) {
+        changed = true;
         this.samplePeaks = peaks;
     }
     
@@ -416,6 +530,7 @@ public class Sample {
      * Clear sample peaks list.
      */
     public void clearPeaks() {
+        changed = true;
         if (samplePeaks != null) {
             samplePeaks.clear();
             samplePeaks = null;
@@ -429,6 +544,7 @@ public class Sample {
      * @param peak peak to add
      */ 
     public void addPeak(Peak peak) {
+        changed = true;
         if (samplePeaks == null)
             samplePeaks = new LinkedList<>();
         // Set correct peak id
@@ -450,6 +566,7 @@ public class Sample {
      * @param status linked/unlinked
      */
     public void setLinked(boolean status) {
+        changed = true;
         linked = status;
     }
     
@@ -466,6 +583,7 @@ public class Sample {
      * @param totalSurface 
      */
     public void setTotalSurface(Float totalSurface) {
+        changed = true;
         this.totalSurface = totalSurface;
     }
     
@@ -490,6 +608,25 @@ public class Sample {
      * @param id sample 'unique' id
      */
     public void setId(int id) {
+        changed = true;
         sampleId = id;
     }
+    
+    /**
+     * Check if sample data (or its peaks) changed since loaded/saved.
+     * @return true/false
+     */
+    public boolean isChanged() {
+        return changed || (samplePeaks != null && samplePeaks.stream().anyMatch(Peak::isChanged));
+    }
+    
+    /**
+     * Set sample changed status, also of its peaks (cleared when loaded/saved).
+     * @param changed true/false
+     */
+    public void setChanged(boolean changed) {
+        this.changed = changed;
+        if (samplePeaks != null)
+            samplePeaks.forEach(p -> p.setChanged(changed));
+    }
 }
\ No newline at end of file
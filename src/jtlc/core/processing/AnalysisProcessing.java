@@ -16,10 +16,13 @@
  */
 package jtlc.core.processing;
 
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Point;
+import jtlc.main.common.ProfileIndex;
 //
 import ij.ImagePlus;
+import jtlc.core.processing.ImagePreprocessing.Variant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -27,7 +30,6 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
-import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 import jtlc.assets.Assets;
 import jtlc.core.model.Peak;
@@ -40,6 +42,12 @@ import jtlc.core.model.Sample;
  * @author Baldani Sergio - Tardivo Cristian
  */
 public class AnalysisProcessing {
+    // Peak detection engine used by searchPeaks
+    private static volatile PeakDetector peakDetector = new ProminencePeakDetector();
+    // Profile extraction engine (null for full width mean)
+    private static volatile ProfileExtractor profileExtractor = null;
+    // Background subtraction radius before computing samples means (0 disabled)
+    private static volatile double backgroundRadius = 0;
     
     /**
      * Axis Enumeration.
@@ -59,36 +67,33 @@ public class AnalysisProcessing {
      * @return pair of points (delimits the cutting area)
      */
     public static Pair<Point,Point> searchCutPoints(ImagePlus ip) {
-        // Clone orignal image
-        ImagePlus img = ip.duplicate();
-        // Convert and pre-process image
-        ImageProcessing.gaussianBlur(img, 8);
-        ImageProcessing.toGrayScale(img);
-        ImageProcessing.invertImage(img);
-        ImageProcessing.imageThreshold(img);
+        // Shared pre-processed image (blurred, gray, inverted and thresholded)
+        ImagePlus img = ImagePreprocessing.get(ip, Variant.THRESHOLD_8);
+        // Source plate is searched only once, don't keep its full size variants
+        ImagePreprocessing.invalidate(ip);
         // Compute image X and Y mean (no inverted-no relative)
-        List<Pair<Float,Float>> xMeans = computeMean(img, Axis.AXIS_Y, false, false);
-        List<Pair<Float,Float>> yMeans = computeMean(img, Axis.AXIS_X, false, false);
+        DensityProfile xMeans = computeMean(img, Axis.AXIS_Y, false, false);
+        DensityProfile yMeans = computeMean(img, Axis.AXIS_X, false, false);
         // Initial values
         float x1 = 0, x2 = img.getWidth(), y1 = 0, y2 = img.getHeight();
         // Search 
-        for (Pair<Float,Float> p: xMeans.subList(0, xMeans.size() / 2))
-            if (p.getSecond() > 175)
-                x1 = p.getFirst();
+        for (int i = 0; i < xMeans.size() / 2; i++)
+            if (xMeans.getY(i) > 175)
+                x1 = xMeans.getX(i);
         //
-        for (Pair<Float,Float> p: xMeans.subList((xMeans.size() / 2), xMeans.size()))
-            if (p.getSecond() > 175) {
-                x2 = p.getFirst();
+        for (int i = xMeans.size() / 2; i < xMeans.size(); i++)
+            if (xMeans.getY(i) > 175) {
+                x2 = xMeans.getX(i);
                 break;
             }        
         // Axis Y
-        for (Pair<Float,Float> p: yMeans.subList(0, yMeans.size() / 2))
-            if (p.getSecond() > 175)
-                y1 = p.getFirst();
+        for (int i = 0; i < yMeans.size() / 2; i++)
+            if (yMeans.getY(i) > 175)
+                y1 = yMeans.getX(i);
         //
-        for (Pair<Float,Float> p: yMeans.subList((yMeans.size() / 2), yMeans.size()))
-            if (p.getSecond() > 175) {
-                y2 = p.getFirst();
+        for (int i = yMeans.size() / 2; i < yMeans.size(); i++)
+            if (yMeans.getY(i) > 175) {
+                y2 = yMeans.getX(i);
                 break;
             }
         //
@@ -110,33 +115,33 @@ public class AnalysisProcessing {
         float ys2 = fy2;
         boolean status = false;
         // Axis X 
-        for (Pair<Float,Float> p: xMeans.subList(0, xMeans.size() / 2)) {
-            if (p.getSecond() < 5 && !status) {
-                xs1 = p.getFirst() + fx1;
+        for (int i = 0; i < xMeans.size() / 2; i++) {
+            if (xMeans.getY(i) < 5 && !status) {
+                xs1 = xMeans.getX(i) + fx1;
                 status = true;
             }
-            if (p.getSecond() > 5 && status)
+            if (xMeans.getY(i) > 5 && status)
                 break;
         }
         //
-        for (Pair<Float,Float> p: xMeans.subList((xMeans.size() / 2), xMeans.size())) {
-            if (p.getSecond() < 5)
-                xs2 = fx2 - (img.getWidth() - p.getFirst());
+        for (int i = xMeans.size() / 2; i < xMeans.size(); i++) {
+            if (xMeans.getY(i) < 5)
+                xs2 = fx2 - (img.getWidth() - xMeans.getX(i));
         }
         // Axis Y
         status = false;
-        for (Pair<Float,Float> p: yMeans.subList(0, yMeans.size() / 2)) {
-            if (p.getSecond() < 5 && !status) {
-                ys1 = p.getFirst() + fy1;
+        for (int i = 0; i < yMeans.size() / 2; i++) {
+            if (yMeans.getY(i) < 5 && !status) {
+                ys1 = yMeans.getX(i) + fy1;
                 status = true;
             }
-            if (p.getSecond() > 5 && status)
+            if (yMeans.getY(i) > 5 && status)
                 break;
         }
         //
-        for (Pair<Float,Float> p: yMeans.subList((yMeans.size() / 2), yMeans.size()))
-            if (p.getSecond() < 5)
-                ys2 = fy2 - (img.getHeight() - p.getFirst());
+        for (int i = yMeans.size() / 2; i < yMeans.size(); i++)
+            if (yMeans.getY(i) < 5)
+                ys2 = fy2 - (img.getHeight() - yMeans.getX(i));
         //
         fx1 = Math.round(xs1 + (xMeans.size() * 0.5f) / 100);
         fy1 = Math.round(ys1 + (yMeans.size() * 0.5f) / 100);
@@ -155,26 +160,21 @@ public class AnalysisProcessing {
      * @return list of samples (with sample start-end point or limit)
      */
     public static List<Sample> searchSamples(ImagePlus ip) {
-        ImagePlus img = ip.duplicate();
-        ImageProcessing.gaussianBlur(img, 8);
-        ImageProcessing.toGrayScale(img);
-        ImageProcessing.invertImage(img);
-        ImageProcessing.imageThreshold(img);
+        ImagePlus img = ImagePreprocessing.get(ip, Variant.THRESHOLD_8);
         List<Pair<Integer,Integer>> edgeImageMean = computeCrush(img, Axis.AXIS_Y, false);
         List<Point> samples = searchBinaryAreas(edgeImageMean);        
         return validateSamples(img, samples).stream().map(Sample::new).collect(Collectors.toList());
     }
     
     /**
-     * Compute GrayScale-Inverted Image Mean between relative values [0..1].
+     * Compute GrayScale-Inverted Image Mean between relative values [0..1],
+     * over the image background if background subtraction is enabled.
      * @param ip image as ImagePlus object
-     * @return list of pair (float,float) as x-y cordinated values
+     * @return profile with x-y cordinated values
      */
-    public static List<Pair<Float,Float>> computeGIM(ImagePlus ip) {
-        ImagePlus img = ip.duplicate();
-        ImageProcessing.toGrayScale(img);
-        ImageProcessing.invertImage(img);
-        return computeMean(img, Axis.AXIS_X, true, true);
+    public static DensityProfile computeGIM(ImagePlus ip) {
+        ImagePlus img = ImagePreprocessing.get(ip, (backgroundRadius > 0)? Variant.BACKGROUND : Variant.GRAY_INVERTED);
+        return computeProfile(img);
     }
     
     /**
@@ -183,17 +183,71 @@ public class AnalysisProcessing {
      * @return list of pair (float,float) of peak start-end x-axis value
      */
     public static List<Peak> searchPeaks(ImagePlus ip) {
-        ImagePlus img = ip.duplicate();
-        ImageProcessing.gaussianBlur(img, 10.0f);
-        ImageProcessing.toGrayScale(img);
-        ImageProcessing.invertImage(img);
-        List<Pair<Float,Float>> mean = AnalysisProcessing.computeMean(img, Axis.AXIS_X, true, true);
-        List<Pair<Float,Float>> areas = AnalysisProcessing.searchAreas(mean);
+        ImagePlus img = ImagePreprocessing.get(ip, Variant.BLUR_10);
+        DensityProfile mean = AnalysisProcessing.computeProfile(img);
+        List<Pair<Float,Float>> areas = peakDetector.searchAreas(mean);
         List<Pair<Float,Float>> validAreas = AnalysisProcessing.validateAreas(mean, areas);
         // Retrun the list of peaks
         return validAreas.stream().map(Peak::new).collect(Collectors.toList());
     }
     
+    /**
+     * Get peak detection engine used to search peaks.
+     * @return current peak detector
+     */
+    public static PeakDetector getPeakDetector() {
+        return peakDetector;
+    }
+    
+    /**
+     * Set peak detection engine used to search peaks.
+     * @param detector peak detector
+     */
+    public static void setPeakDetector(PeakDetector detector) {
+        if (detector == null)
+            throw new IllegalArgumentException("Invalid peak detector");
+        peakDetector = detector;
+    }
+    
+    /**
+     * Get profile extraction engine used to compute samples means.
+     * @return current profile extractor (null for full width mean)
+     */
+    public static ProfileExtractor getProfileExtractor() {
+        return profileExtractor;
+    }
+    
+    /**
+     * Set profile extraction engine used to compute samples means.
+     * @param extractor profile extractor (null for full width mean)
+     */
+    public static void setProfileExtractor(ProfileExtractor extractor) {
+        profileExtractor = extractor;
+    }
+    
+    /**
+     * Get background subtraction radius used to compute samples means.
+     * @return sliding paraboloid radius (0 if disabled)
+     */
+    public static double getBackgroundRadius() {
+        return backgroundRadius;
+    }
+    
+    /**
+     * Set background subtraction radius used to compute samples means.
+     * Background corrected images are cached by sample image, so they are
+     * dropped when the radius changes.
+     * @param radius sliding paraboloid radius (0 to disable)
+     */
+    public static void setBackgroundRadius(double radius) {
+        if (radius < 0 || Double.isNaN(radius))
+            throw new IllegalArgumentException("Invalid background radius: " + radius);
+        if (radius != backgroundRadius) {
+            backgroundRadius = radius;
+            ImagePreprocessing.clear();
+        }
+    }
+    
     /**
      * Search peak baseline points
      * @param sample Original sample
@@ -210,7 +264,7 @@ public class AnalysisProcessing {
      * @param areas integration areas to validate.
      * @return list of pair (float,float) of peak start-end x-axis value
      */
-    public static List<Pair<Float,Float>> validateAreas(List<Pair<Float,Float>> fn, float[] areas) {
+    public static List<Pair<Float,Float>> validateAreas(DensityProfile fn, float[] areas) {
         // Convert input
         List<Pair<Float,Float>> pAreas = new LinkedList<>();
         for (int i = 0; i < areas.length - 1; i += 2)
@@ -227,49 +281,34 @@ public class AnalysisProcessing {
      */
     public static Float integratePeak(Sample sample, Peak peak) {
         // Get data
-        List<Pair<Float,Float>> mean = sample.getMean();
+        DensityProfile mean = sample.getMean();
+        ProfileIndex index = sample.getMeanIndex();
         Pair<Float,Float> limits = peak.getLimits();
         List<Pair<Float,Float>> baseline = peak.getBaseline();
-        // Max X-Value
-        float max_x = mean.get(mean.size() - 1).getFirst();
         // Round relativized indexs
-        int i = Math.round(((mean.size() - 1) * (limits.getFirst() / max_x)));
-        int j = Math.round(((mean.size() - 1) * (limits.getSecond() / max_x)));
-        // Function Points
-        Pair<Float,Float> iP = mean.get(i);
-        Pair<Float,Float> jP = mean.get(j);
+        int i = mean.indexOf(limits.getFirst());
+        int j = mean.indexOf(limits.getSecond());
         // Y-values
-        float y1 = iP.getSecond();
-        float y2 = jP.getSecond();
+        float y1 = mean.getY(i);
+        float y2 = mean.getY(j);
         // X-values
-        float x1 = iP.getFirst();
-        float x2 = jP.getFirst();
+        float x1 = mean.getX(i);
+        float x2 = mean.getX(j);
         // Peak surface sum
         float peakSurface = 0;
         // for each inner area
         for (Pair<Float,Float> inner: baseline) {
             // Round relativized indexs
-            int k = Math.round(((mean.size() - 1) * (inner.getFirst() / max_x)));
-            int l = Math.round(((mean.size() - 1) * (inner.getSecond() / max_x)));
-            // Get Function values between these inner points
-            List<Pair<Float, Float>> fnValues = mean.subList(k, l);
-            // Inner area sum
-            float innerSurface = 0;
-            // For all values in the sub-function
-            for (Pair<Float,Float> value: fnValues) {
-                // Function values
-                float vx = value.getFirst();
-                float vy = value.getSecond();
-                // Base-line value
-                float bv = lineEval(x1, x2, y1, y2, vx);
-                // Single 'rectangle' area
-                float simpleSurface = vy - bv;
-                // Check for valid surface
-                if (simpleSurface < 0) System.err.println("area negativa :( (loggear mensajes)");
-                // Sum current sub-area
-                innerSurface += (simpleSurface < 0)? 0 : simpleSurface;
-            }
-            peakSurface += innerSurface;
+            int k = mean.indexOf(inner.getFirst());
+            int l = mean.indexOf(inner.getSecond());
+            // Inner area sum, function values between these inner points over
+            // base-line (inner points are the base-line crosses, so the curve
+            // is never under the base-line between them)
+            float innerSurface = (float)index.area(k, l, x1, x2, y1, y2);
+            // Check for valid surface
+            if (innerSurface < 0) System.err.println("area negativa :( (loggear mensajes)");
+            // Sum current sub-area
+            peakSurface += (innerSurface < 0)? 0 : innerSurface;
         }
         return peakSurface;
     }
@@ -301,22 +340,16 @@ public class AnalysisProcessing {
      */
     public static Pair<Float,Float> computeMaximum(Sample sample, Peak peak) {
         // Get data
-        List<Pair<Float,Float>> mean = sample.getMean();
+        DensityProfile mean = sample.getMean();
         Pair<Float,Float> limits = peak.getLimits();
-        // Max X-Value
-        float max_x = mean.get(mean.size() - 1).getFirst();
         // Round relativized indexs
-        int i = Math.round(((mean.size() - 1) * (limits.getFirst() / max_x)));
-        int j = Math.round(((mean.size() - 1) * (limits.getSecond() / max_x)));
-        // Get Maximun y-value between [i-j]
-        OptionalDouble opMax = mean.subList(i, j).stream().mapToDouble(p -> p.getSecond()).max();
+        int i = mean.indexOf(limits.getFirst());
+        int j = mean.indexOf(limits.getSecond());
         // If exist maximun value
-        if (opMax.isPresent()) {
-            double max = opMax.getAsDouble();
-            // filter elements by max-y value
-            List<Pair<Float, Float>> maxs = mean.subList(i, j).stream().filter(p -> p.getSecond() == max).collect(Collectors.toList());
-            // return mid-element of maxs values (because list can have more than one x-value max-y)
-            return maxs.get(maxs.size() / 2);
+        if (i < j) {
+            // Get mid-element of maxs values between [i-j] (because can have more than one x-value max-y)
+            int k = sample.getMeanIndex().maximum(i, j);
+            return new Pair<>(mean.getX(k), mean.getY(k));
         }
         // if no maximum found
         return new Pair<>(Float.NaN, Float.NaN);
@@ -330,11 +363,9 @@ public class AnalysisProcessing {
      */
     public static Pair<Float,Float> computeHeight(Sample sample, Peak peak) {
         // Get data
-        List<Pair<Float,Float>> mean = sample.getMean();
+        DensityProfile mean = sample.getMean();
         Pair<Float,Float> maximum = peak.getMaximum();
         List<Pair<Float,Float>> baseline = peak.getBaseline();
-        // Max X-Value
-        float max_x = mean.get(mean.size() - 1).getFirst();
         // X-Pos of maximum value
         Float maxPos = maximum.getFirst();
         // Y-Value of maximum value
@@ -349,11 +380,11 @@ public class AnalysisProcessing {
             float x1 = point.getFirst();
             float x2 = point.getSecond();
             // Round relativized indexs
-            int i = Math.round(((mean.size() - 1) * (x1 / max_x)));
-            int j = Math.round(((mean.size() - 1) * (x2 / max_x)));
+            int i = mean.indexOf(x1);
+            int j = mean.indexOf(x2);
             // Get base y values
-            float y1 = mean.get(i).getSecond();
-            float y2 = mean.get(j).getSecond();
+            float y1 = mean.getY(i);
+            float y2 = mean.getY(j);
             // Evaluate baseline
             float baseValue = lineEval(x1, x2, y1, y2, maxPos);
             // Compute peak height
@@ -413,36 +444,33 @@ public class AnalysisProcessing {
      * @param area integration area to validate.
      * @return list of pair (float,float) of peak start-end x-axis value
      */
-    private static List<Pair<Float,Float>> validateArea(List<Pair<Float,Float>> fn, Pair<Float,Float> area) {
+    private static List<Pair<Float,Float>> validateArea(DensityProfile fn, Pair<Float,Float> area) {
         // Max X-Value
-        float max_x = fn.get(fn.size() - 1).getFirst();
+        float max_x = fn.getMaxX();
         // Check for valid areas (don't cut the curve)
         List<Pair<Float,Float>> points = new LinkedList<>();
         // Round relativized indexs
-        int i = Math.round(((fn.size() - 1) * (area.getFirst() / max_x)));
-        int j = Math.round(((fn.size() - 1) * (area.getSecond() / max_x)));
-        // Function Points
-        Pair<Float,Float> iP = fn.get(i);
-        Pair<Float,Float> jP = fn.get(j);
+        int i = fn.indexOf(area.getFirst());
+        int j = fn.indexOf(area.getSecond());
         // Y-values
-        float y1 = iP.getSecond();
-        float y2 = jP.getSecond();
+        float y1 = fn.getY(i);
+        float y2 = fn.getY(j);
         // X-values
-        float x1 = iP.getFirst();
-        float x2 = jP.getFirst();
+        float x1 = fn.getX(i);
+        float x2 = fn.getX(j);
         // for all indexs between integration area
         Pair<Float,Float> p = null;
         for (int x = i; x <= j; x++) {
             // Evalue line equation between two points at x
-            Pair<Float,Float> xP = fn.get(x);
-            float yLine = lineEval(x1, x2, y1, y2, xP.getFirst());
-            float yCurve = xP.getSecond();
+            float xValue = fn.getX(x);
+            float yLine = lineEval(x1, x2, y1, y2, xValue);
+            float yCurve = fn.getY(x);
             // start point
             if (yLine <= yCurve && p == null)
-                p = new Pair<>(fn.get(x).getFirst(), null);
+                p = new Pair<>(xValue, null);
             // end point
             if ((yLine >= yCurve || x == j) && p != null) {
-                p.setSecond(fn.get(x).getFirst());
+                p.setSecond(xValue);
                 points.add(p);
                 p = null;
             }
@@ -461,9 +489,9 @@ public class AnalysisProcessing {
      * @param areas integration areas to validate.
      * @return list of pair (float,float) of peak start-end x-axis value
      */
-    private static List<Pair<Float,Float>> validateAreas(List<Pair<Float,Float>> fn, List<Pair<Float,Float>> areas) {
+    private static List<Pair<Float,Float>> validateAreas(DensityProfile fn, List<Pair<Float,Float>> areas) {
         // Max X-Value
-        float max_x = fn.get(fn.size() - 1).getFirst();
+        float max_x = fn.getMaxX();
         // Init areas if empty, and try to validate it
         if (areas.isEmpty()) areas.add(new Pair<>(0f, max_x));
         // Check for valid areas (don't cut the curve)
@@ -471,32 +499,29 @@ public class AnalysisProcessing {
         // For each area
         for (Pair<Float,Float> pair: areas) {
             // Round relativized indexs
-            int i = Math.round(((fn.size() - 1) * (pair.getFirst() / max_x)));
-            int j = Math.round(((fn.size() - 1) * (pair.getSecond() / max_x)));
-            // Function Points
-            Pair<Float,Float> iP = fn.get(i);
-            Pair<Float,Float> jP = fn.get(j);
+            int i = fn.indexOf(pair.getFirst());
+            int j = fn.indexOf(pair.getSecond());
             // Y-values
-            float y1 = iP.getSecond();
-            float y2 = jP.getSecond();
+            float y1 = fn.getY(i);
+            float y2 = fn.getY(j);
             // X-values
-            float x1 = iP.getFirst();
-            float x2 = jP.getFirst();
+            float x1 = fn.getX(i);
+            float x2 = fn.getX(j);
             // Avoid empty areas
             if (x1 == x2) continue;
             // for all indexs between integration area
             Pair<Float,Float> p = null;
             for (int x = i; x <= j; x++) {
                 // Evalue line equation between two points at x
-                Pair<Float,Float> xP = fn.get(x);
-                float yLine = lineEval(x1, x2, y1, y2, xP.getFirst());
-                float yCurve = xP.getSecond();
+                float xValue = fn.getX(x);
+                float yLine = lineEval(x1, x2, y1, y2, xValue);
+                float yCurve = fn.getY(x);
                 // start point
                 if (yLine <= yCurve && p == null)
-                    p = new Pair<>(fn.get(x).getFirst(), null);
+                    p = new Pair<>(xValue, null);
                 // end point
                 if ((yLine >= yCurve || x == j) && p != null) {
-                    p.setSecond(fn.get(x).getFirst());
+                    p.setSecond(xValue);
                     points.add(p);
                     p = null;
                 }
@@ -523,19 +548,14 @@ public class AnalysisProcessing {
         if (img.getType() != ImagePlus.GRAY8)
             throw new IllegalArgumentException("Invalid Image");
         //
-        int[][] imgArray = ImageProcessing.getImageArray(img);
-        int size = (axis == Axis.AXIS_X)? img.getHeight() : img.getWidth();
-        int length = (axis == Axis.AXIS_X)? img.getWidth() : img.getHeight();
-        int sum = 0;
+        // Rows sums for axis-x, columns sums for axis-y
+        Pair<long[],long[]> projections = ImageProcessing.getImageProjections(img);
+        long[] sums = (axis == Axis.AXIS_X)? projections.getFirst() : projections.getSecond();
+        int size = sums.length;
         List<Pair<Integer,Integer>> result = new ArrayList<>(size);
         //
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < length; j++) {
-                sum += (axis == Axis.AXIS_X)? imgArray[j][i] : imgArray[i][j];
-            }
-            result.add(new Pair<>(((inverted)? (size - 1) - i : i), (sum > 0)? 1 : 0));
-            sum = 0;
-        }
+        for (int i = 0; i < size; i++)
+            result.add(new Pair<>(((inverted)? (size - 1) - i : i), (sums[i] > 0)? 1 : 0));
         // If inverted mean, reverse list (to fix ascending index order)
         if (inverted)
             Collections.reverse(result);
@@ -548,33 +568,39 @@ public class AnalysisProcessing {
      * @param axis mean axis axis-x -> vertical axis-y -> horizontal 
      * @param inverted invert process bottom-up to top-down
      * @param relative compute relative indexs between [0..1]
-     * @return list of pair float,float as position-value (like a evaluated function)
+     * @return profile with position-value (like a evaluated function)
      */
-    private static List<Pair<Float,Float>> computeMean(ImagePlus img, Axis axis, boolean inverted, boolean relative) {
+    private static DensityProfile computeMean(ImagePlus img, Axis axis, boolean inverted, boolean relative) {
         if (axis != Axis.AXIS_X && axis != Axis.AXIS_Y)
             throw new IllegalArgumentException("Invalid Axis");
         //
-        int[][] imgArray = ImageProcessing.getImageArray(img);
-        int size = (axis == Axis.AXIS_X)? img.getHeight() : img.getWidth();
+        // Rows sums for axis-x, columns sums for axis-y
+        Pair<long[],long[]> projections = ImageProcessing.getImageProjections(img);
+        long[] sums = (axis == Axis.AXIS_X)? projections.getFirst() : projections.getSecond();
+        int size = sums.length;
         int length = (axis == Axis.AXIS_X)? img.getWidth() : img.getHeight();
-        float mean = 0;
-        List<Pair<Float,Float>> result = new ArrayList<>(size);
+        float[] result = new float[size];
         //
         for (int i = 0; i < size; i++) {
-            for (int j = 0; j < length; j++) {
-                mean += (axis == Axis.AXIS_X)? imgArray[j][i] : imgArray[i][j];
-            }
-            float index = (inverted)? (size - 1) - i : i;
-            index = (relative)? index / (size - 1) : index;
-            result.add(new Pair<>(index, mean / length));
-            mean = 0;
+            // If inverted mean, save reversed (to keep ascending index order)
+            result[(inverted)? (size - 1) - i : i] = (float) sums[i] / length;
         }
-        // If inverted mean, reverse list (to fix ascending index order)
-        if (inverted)
-            Collections.reverse(result);
-        return result;
+        return (relative)? DensityProfile.relative(result) : new DensityProfile(result, 0f, 1.0);
     }
         
+    /**
+     * Compute sample profile with current profile extractor, or full width
+     * inverted and relative mean if not set
+     * @param img gray-inverted sample image
+     * @return profile with position-value (like a evaluated function)
+     */
+    private static DensityProfile computeProfile(ImagePlus img) {
+        ProfileExtractor extractor = profileExtractor;
+        if (extractor != null)
+            return extractor.extract(img);
+        return computeMean(img, Axis.AXIS_X, true, true);
+    }
+    
     /**
      * Search one-valued areas of a binary function.
      * @param fn binary function to process
@@ -621,165 +647,6 @@ public class AnalysisProcessing {
         return result;
     }
     
-    /**
-     * Search integration areas or function peaks.
-     * @param fn generic function to process (relative or not)
-     * @return list of pair with star-end area position
-     */
-    private static List<Pair<Float,Float>> searchAreas(List<Pair<Float,Float>> fn) {
-        // Comparator to sort in crescent order the  points list resultant
-        Comparator orderCmp = (Comparator<Point>) (Point p1, Point p2) -> {
-            if (p1.getX() > p2.getX()) return 1;
-            if (p1.getX() < p2.getX()) return -1;
-            return 0;
-        };
-        // Clone function values
-        List<Pair<Float, Float>> values = fn.stream().map(Pair::new).collect(Collectors.toList());
-        // Result List
-        List<Point> indexs = new LinkedList<>();
-        // Local Max value and position
-        float maxLocal = 0;
-        int maxPos = 0;
-        // Left Min value and position
-        float minA = 255;
-        int minAPos = 0;
-        // Rigth Min value and position
-        float minB = 255;
-        int minBPos = 0;
-        // Parameters
-        int MAX_PEAKS_COUNT = 10;
-        float MIN_PEAK_HEIGHT = 30.0f;
-        int SIZE = values.size();
-        // Limit search to N peaks
-        for (int peaks = 0; peaks < MAX_PEAKS_COUNT; peaks ++) {
-            // Search maximum overall
-            for (int i = 0; i < SIZE; i++) {
-                Pair<Float,Float> p = values.get(i);
-                if (p.getSecond() > maxLocal) {
-                    maxLocal = p.getSecond();
-                    maxPos = i;
-                }
-            }
-            // Stop search at lower peak
-            if (maxLocal <= MIN_PEAK_HEIGHT)
-                break;
-            // Search Left Minimun/Inflection Point
-            for (int i = maxPos - 1; i > 1; i--) {
-                Pair<Float,Float> p = values.get(i);
-                if (p.getSecond() < minA) {
-                        minA = p.getSecond();
-                        minAPos = i;
-                } else {
-                    Pair<Float,Float> pa = values.get(i - 1);
-                    Pair<Float,Float> pb = values.get(i + 1);
-                    if (pa.getSecond() > minA && pb.getSecond() > minA)
-                        if (Math.abs(lineSlope(i - 1, i + 1, pa.getSecond(), pb.getSecond())) > 0.05)
-                            break;
-                }
-            }
-            // Refine search of left point
-            for (int i = minAPos + 1; i < maxPos; i ++) {
-                Pair<Float,Float> aux = values.get(i);
-                // According to line slope (line between 2 points)
-                if (Math.abs(lineSlope(minAPos, i, minA, aux.getSecond())) > 0.075) {
-                    minAPos = i - 1;
-                    break;
-                }
-            }
-            // Search Rigth Minimun/Inflection Point
-            for (int i = maxPos + 1; i < SIZE - 2; i++) {
-                Pair<Float,Float> p = values.get(i);
-                if (p.getSecond() < minB) {
-                    minB = p.getSecond();
-                    minBPos = i;
-                } else {
-                    Pair<Float,Float> pa = values.get(i - 1);
-                    Pair<Float,Float> pb = values.get(i + 1);
-                    if (pa.getSecond() > minB && pb.getSecond() > minB)
-                        if (Math.abs(lineSlope(i - 1, i + 1, pa.getSecond(), pb.getSecond())) < 0.3)
-                            break;
-                }
-            }
-            // Refine search of rigth point
-            for (int i = minBPos - 1; i > maxPos; i--) {
-                Pair<Float,Float> aux = values.get(i);
-                // According to line slope (line between 2 points)
-                if (Math.abs(lineSlope(i, minBPos, aux.getSecond(), minB)) > 0.075) {
-                    minBPos = i + 1;
-                    break;
-                }
-            }
-            // fix
-            minAPos++; minBPos--;
-            // Check final positions
-            minAPos = (minAPos < 0)? 0 : ((minAPos < SIZE)? minAPos : SIZE - 1);
-            minBPos = (minBPos < 0)? 0 : ((minBPos < SIZE)? minBPos : SIZE - 1);
-            // Save values
-            indexs.add(new Point(minAPos, minBPos));
-            // Clear Current peak
-            for (int i = minAPos - 0; i < minBPos + 0; i++)
-                values.get(i).setSecond(0.0f);
-            // Restart Values
-            maxLocal = 0;
-            maxPos = 0;
-            minA = 255;
-            minAPos = 0;
-            minB = 255;
-            minBPos = 0;
-        }
-        // Remove Closest Points
-        indexs.removeIf((Point p) -> Math.abs(p.getX() - p.getY()) <= 10);
-        // Oder List
-        Collections.sort(indexs, orderCmp);
-        // Clear Intersections
-        int oldSize;
-        do {
-            oldSize = indexs.size();
-            // Search of intersected areas
-            for (int i = 0; i < indexs.size() - 1; i += 2) { 
-                Point p1 = indexs.get(i);
-                Point p2 = indexs.get(i + 1);
-                if (p2.getX() <  p1.getY()) {
-                    // Remove points in conflict
-                    indexs.remove(p1);
-                    indexs.remove(p2);
-                    // Add Super Point
-                    indexs.add(new Point(p1.getX(),p2.getY()));
-                }
-            }
-            // Re-Order List
-            Collections.sort(indexs, orderCmp); 
-        } while(oldSize != indexs.size());
-        /*
-        // Join similar areas
-        do {
-            oldSize = result.size();
-            // Search of intersected areas
-            for (int i = 0; i < result.size() - 1; i += 2) { 
-                Point p1 = result.get(i);
-                Point p2 = result.get(i + 1);
-                // Areas Spaccing < 2
-                if (Math.abs(p2.getFirst() -  p1.getSecond()) < 2) {
-                    Float v1 = fn.get(p1.getSecond()).getValue();
-                    Float v2 = fn.get(p2.getFirst()).getValue();
-                    // Smilar Values
-                    if (Math.abs(v1 - v2) < 10) {
-                        // Remove points in conflict
-                        result.remove(p1);
-                        result.remove(p2);
-                        // Add Super Point
-                        result.add(new Point(p1.getFirst(),p2.getSecond()));
-                    }
-                }
-            }
-            // Re-Order List
-            Collections.sort(result, orderCmp); 
-        } while(oldSize != result.size());
-        */
-        // Return converted results
-        return  indexs.stream().map(p -> new Pair<Float,Float>(values.get(p.getX()).getFirst(), values.get(p.getY()).getFirst())).collect(Collectors.toList());
-    }
-    
     /**
      * Slop/Gradient of a Straight Line.
      * @param x1 left x-coordinate of the line
@@ -788,7 +655,7 @@ public class AnalysisProcessing {
      * @param y2 right y-coordinate of the line
      * @return slope of the line defined by the coordinates
      */
-    private static float lineSlope(float x1, float x2, float y1, float y2) {
+    static float lineSlope(float x1, float x2, float y1, float y2) {
         if (x1 != x2)
             return (y2 - y1) / (x1 - x2);
         System.err.println("lineSlope: x1 == x2 (division por cero)");
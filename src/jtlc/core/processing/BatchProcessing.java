@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.ImagePlus;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+//
+import jtlc.assets.Assets;
+import jtlc.main.common.Point;
+import jtlc.core.model.Experiment;
+import jtlc.core.model.Peak;
+import jtlc.core.model.Sample;
+import jtlc.core.processing.AnalysisProcessing.Axis;
+import jtlc.core.reports.Reporter;
+import jtlc.core.storage.ImageStore;
+import jtlc.core.storage.ModelSaver;
+
+/**
+ * Headless batch analysis.
+ * Runs the whole plate pipeline (cut, rotate, split, mean, peaks and
+ * integration) over a folder of images without any view, using a
+ * bounded pool of workers (one plate per worker).
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class BatchProcessing {
+    
+    /**
+     * Batch pipeline stages enumeration.
+     */
+    public static enum Stage {
+        LOAD, CUT_POINTS, CUT, ROTATE, SAMPLES, SPLIT, GIM, PEAKS, BASELINE, INTEGRATION, SAVE;
+    }
+    
+    // Accepted image extensions
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".tif", ".tiff", ".bmp", ".gif"};
+    // Error logger
+    private static final Logger LOG = LoggerFactory.getLogger(BatchProcessing.class);
+    // Workers count
+    private final int workers;
+    // Rotation angle and flip axis applied to every plate
+    private double rotationAngle;
+    private Axis flipAxis;
+    // Per-stage accumulated time (nanoseconds)
+    private final EnumMap<Stage,LongAdder> stageTimes;
+    // Processed and failed plates
+    private final AtomicInteger processed;
+    private final AtomicInteger failed;
+    // Total wall time (nanoseconds)
+    private long wallTime;
+    
+    /**
+     * Create batch processor with one worker per available core.
+     */
+    public BatchProcessing() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create batch processor.
+     * @param workers number of plates processed concurrently
+     */
+    public BatchProcessing(int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("Invalid workers count: " + workers);
+        this.workers = workers;
+        this.rotationAngle = 0.0;
+        this.flipAxis = Axis.NONE;
+        this.processed = new AtomicInteger();
+        this.failed = new AtomicInteger();
+        this.stageTimes = new EnumMap<>(Stage.class);
+        for (Stage stage: Stage.values())
+            stageTimes.put(stage, new LongAdder());
+    }
+    
+    /**
+     * Set rotation and flip applied to all plates (default no rotation).
+     * @param angle rotation angle in degrees
+     * @param axis flip axis combination
+     */
+    public void setTransform(double angle, Axis axis) {
+        rotationAngle = angle;
+        flipAxis = (axis != null)? axis : Axis.NONE;
+    }
+    
+    /**
+     * Process all images in a folder.
+     * Writes one .jtlc project per plate and a combined CSV report into the output folder.
+     * @param input folder with plates images
+     * @param output folder to write projects and reports
+     * @return list of processed experiments (images released, analysis data kept)
+     */
+    public List<Experiment> processFolder(File input, File output) {
+        // List images, sorted by name to keep a stable report order
+        File[] files = input.listFiles((File dir, String name) -> isImage(name));
+        if (files == null)
+            throw new IllegalArgumentException("Invalid input folder: " + input);
+        Arrays.sort(files);
+        // Check output folder
+        if (!output.isDirectory() && !output.mkdirs())
+            throw new IllegalArgumentException("Invalid output folder: " + output);
+        // Bounded worker pool (caller runs when queue is full, keeps memory bounded)
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<Experiment>> results = new ArrayList<>(files.length);
+        long start = System.nanoTime();
+        try {
+            // Submit one task per plate
+            for (File file: files)
+                results.add(pool.submit(() -> processPlate(file, output)));
+            // Collect in submission order
+            List<Experiment> experiments = new ArrayList<>(files.length);
+            for (Future<Experiment> result: results) {
+                try {
+                    Experiment experiment = result.get();
+                    if (experiment != null)
+                        experiments.add(experiment);
+                } catch (ExecutionException ex) {
+                    // Plate failed with an error (not caught by the plate task)
+                    LOG.error("Batch plate processing error", ex.getCause());
+                    failed.incrementAndGet();
+                }
+            }
+            // Combined report
+            File report = new File(output, "batch-report.csv");
+            if (!new Reporter().saveExperimentsCSVReport(experiments, report))
+                LOG.error("Error saving batch report : " + report);
+            return experiments;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        } finally {
+            pool.shutdownNow();
+            wallTime = System.nanoTime() - start;
+        }
+    }
+    
+    /**
+     * Run the full pipeline for one plate image and save it as project.
+     * @param file plate image file
+     * @param output folder to write the project file
+     * @return processed experiment (images released) or null if can't be processed or saved
+     */
+    public Experiment processPlate(File file, File output) {
+        try {
+            String name = file.getName().replaceFirst("\\.[^.]+$", "");
+            // Load source image
+            ImagePlus source = time(Stage.LOAD, () -> ImageStore.openImage(file.getPath()));
+            if (source == null) {
+                LOG.error("Can't open plate image : " + file);
+                failed.incrementAndGet();
+                return null;
+            }
+            Experiment experiment = new Experiment(name, file.getName(), new Date(), new Date());
+            experiment.setSourceImage(source);
+            // Cut points and cut
+            experiment.setCutPoints(time(Stage.CUT_POINTS, () -> AnalysisProcessing.searchCutPoints(source)));
+            // Flip and rotation (only if requested, in the same pass as cut)
+            if (flipAxis == Axis.NONE && rotationAngle == 0.0) {
+                experiment.setProcessedImage(time(Stage.CUT, () -> ImageProcessing.cutImage(source, experiment.getCutPoints())));
+            } else {
+                experiment.setProcessedImage(time(Stage.ROTATE, () -> ImageProcessing.transformImage(source, experiment.getCutPoints(), flipAxis, rotationAngle)));
+                experiment.setFlipAxis(flipAxis);
+                experiment.setRotationAngle(rotationAngle);
+            }
+            // Search samples
+            ImagePlus plate = experiment.getProcessedImage();
+            List<Sample> samples = time(Stage.SAMPLES, () -> AnalysisProcessing.searchSamples(plate));
+            for (Sample sample: samples)
+                experiment.addSample(sample);
+            // Samples analysis
+            int number = 1;
+            for (Sample sample: experiment.getAllSamples()) {
+                sample.setName(Assets.getString("SAMPLE_NUMBER", number++));
+                analyzeSample(plate, sample);
+            }
+            // Save project
+            File project = new File(output, name + ".jtlc");
+            boolean saved = time(Stage.SAVE, () -> ModelSaver.saveExperiment(experiment, project));
+            // Release images, keep data for reports
+            experiment.releaseImages();
+            // Lost project counts as failed plate
+            if (!saved) {
+                LOG.error("Error saving batch project : " + project);
+                failed.incrementAndGet();
+                return null;
+            }
+            processed.incrementAndGet();
+            return experiment;
+        } catch (RuntimeException ex) {
+            LOG.error("Error processing plate : " + file, ex);
+            failed.incrementAndGet();
+            return null;
+        }
+    }
+    
+    /**
+     * Split, compute mean, search and integrate peaks of one sample.
+     * Same steps that the controller does with default (unchanged) values.
+     * @param plate experiment processed image
+     * @param sample sample to analyze (only with limits)
+     */
+    private void analyzeSample(ImagePlus plate, Sample sample) {
+        // Split sample image
+        Point limits = sample.getLimits();
+        ImagePlus img = time(Stage.SPLIT, () -> ImageProcessing.cutImage(plate, new Point(limits.getX(), 0), new Point(limits.getY(), plate.getHeight())));
+        sample.setSourceImage(img);
+        sample.setFrontPoint(0);
+        sample.setSeedPoint(img.getHeight());
+        // Processed image (default front and seed points)
+        sample.setProcessedImage(time(Stage.SPLIT, () -> ImageProcessing.cutImage(img, new Point(0, sample.getFrontPoint()), new Point(img.getWidth(), sample.getSeedPoint()))));
+        // Sample mean
+        sample.setMean(time(Stage.GIM, () -> AnalysisProcessing.computeGIM(sample.getProcessedImage())));
+        // Peaks and baselines
+        List<Peak> peaks = time(Stage.PEAKS, () -> AnalysisProcessing.searchPeaks(sample.getProcessedImage()));
+        long start = System.nanoTime();
+        for (Peak peak: peaks) {
+            peak.setBaseline(AnalysisProcessing.searchBaseline(sample, peak));
+            sample.addPeak(peak);
+        }
+        stageTimes.get(Stage.BASELINE).add(System.nanoTime() - start);
+        if (!sample.hasPeaks())
+            return;
+        // Integration, maximum and heights
+        start = System.nanoTime();
+        for (Peak peak: sample.getPeaks()) {
+            peak.setSurface(AnalysisProcessing.integratePeak(sample, peak));
+            peak.setMaximum(AnalysisProcessing.computeMaximum(sample, peak));
+            peak.setHeight(AnalysisProcessing.computeHeight(sample, peak));
+        }
+        // Remove empty surface peaks
+        sample.getPeaks().removeIf(p -> p.getSurface() == 0);
+        // Set Peaks Id's and Names
+        List<Peak> valid = sample.getPeaks();
+        for (int i = 0; i < valid.size(); i++) {
+            Peak peak = valid.get(i);
+            peak.setId(i);
+            peak.setName(Assets.getString("PEAK", i + 1));
+            peak.setPosition(i + 1);
+        }
+        // Total and relative surfaces
+        sample.setTotalSurface(AnalysisProcessing.computeTotalSurface(sample));
+        if (sample.getTotalSurface() != 0)
+            for (Peak peak: valid)
+                peak.setRelativeSurface(AnalysisProcessing.relativizeSurface(sample, peak));
+        else
+            LOG.warn("Sample without peaks surface : " + sample.getName());
+        stageTimes.get(Stage.INTEGRATION).add(System.nanoTime() - start);
+    }
+    
+    /**
+     * Run and time a pipeline stage.
+     * @param stage stage to account
+     * @param task stage work
+     * @return stage result
+     */
+    private <T> T time(Stage stage, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            stageTimes.get(stage).add(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Check if a file name is a supported image.
+     * @param name file name
+     * @return true/false
+     */
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String ext: IMAGE_EXTENSIONS)
+            if (lower.endsWith(ext))
+                return true;
+        return false;
+    }
+    
+    /**
+     * Get accumulated time of a stage (all workers).
+     * @param stage pipeline stage
+     * @return time in milliseconds
+     */
+    public double getStageTime(Stage stage) {
+        return stageTimes.get(stage).sum() / 1e6;
+    }
+    
+    /**
+     * Get number of correctly processed plates.
+     * @return processed plates
+     */
+    public int getProcessedCount() {
+        return processed.get();
+    }
+    
+    /**
+     * Get number of plates that can't be processed.
+     * @return failed plates
+     */
+    public int getFailedCount() {
+        return failed.get();
+    }
+    
+    /**
+     * Get processed plates per second (wall time).
+     * @return plates/sec
+     */
+    public double getThroughput() {
+        return (wallTime > 0)? processed.get() / (wallTime / 1e9) : 0;
+    }
+    
+    /**
+     * Batch timing report as text.
+     * @return report with throughput and per-stage times
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Plates: %d processed, %d failed, %d workers%n", processed.get(), failed.get(), workers));
+        sb.append(String.format(Locale.ROOT, "Wall time: %.1f s (%.2f plates/sec)%n", wallTime / 1e9, getThroughput()));
+        long total = stageTimes.values().stream().mapToLong(LongAdder::sum).sum();
+        for (Stage stage: Stage.values()) {
+            long nanos = stageTimes.get(stage).sum();
+            double percent = (total > 0)? nanos * 100.0 / total : 0;
+            double perPlate = (processed.get() > 0)? nanos / 1e6 / processed.get() : 0;
+            sb.append(String.format(Locale.ROOT, "  %-12s %10.1f ms  %8.1f ms/plate  %5.1f %%%n", stage, nanos / 1e6, perPlate, percent));
+        }
+        return sb.toString();
+    }
+}
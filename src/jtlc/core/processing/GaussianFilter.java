@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import java.util.stream.IntStream;
+
+/**
+ * Separable Gaussian blur for 8-bit and 32-bit (gray) images.
+ * Bands of rows and strips of columns are filtered in parallel on the
+ * common pool, with the same kernels, edge handling and large sigma
+ * downscaling as ImageJ, so results are equal to ImageJ blurGaussian.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class GaussianFilter {
+    // Largest sigma blurred at full resolution (same as ImageJ)
+    private static final double MAX_FULL_SIGMA = 8.5;
+    // Minimum sigma of downscaled lines
+    private static final double MIN_DOWNSCALED_SIGMA = 4.0;
+    // Upscaling kernel radius (downscaled pixels)
+    private static final int UPSCALE_K_RADIUS = 2;
+    // Columns strip width of vertical pass
+    private static final int STRIP = 16;
+    // Minimum image pixels count to split work across cores
+    private static final int PARALLEL_PIXELS = 1 << 18;
+    
+    /**
+     * Check if an image can be blurred by this filter
+     * @param ip image processor
+     * @return true for 8-bit and 32-bit images
+     */
+    public static boolean isSupported(ImageProcessor ip) {
+        return ip instanceof ByteProcessor || ip instanceof FloatProcessor;
+    }
+    
+    /**
+     * Apply Gaussian Blur filter to image
+     * Overwrites the original (be careful)
+     * @param ip 8-bit or 32-bit image processor
+     * @param sigma blur sigma-level
+     */
+    public static void blur(ImageProcessor ip, double sigma) {
+        if (!isSupported(ip))
+            throw new IllegalArgumentException("Invalid Image 8-bit or 32-bit image");
+        int width = ip.getWidth();
+        int height = ip.getHeight();
+        if (sigma <= 0 || width == 0 || height == 0)
+            return;
+        // Float data (32-bit images are blurred in place)
+        float[] data;
+        if (ip instanceof FloatProcessor) {
+            data = (float[]) ip.getPixels();
+        } else {
+            byte[] pixels = (byte[]) ip.getPixels();
+            data = new float[pixels.length];
+            for (int i = 0; i < pixels.length; i++)
+                data[i] = pixels[i] & 0xff;
+        }
+        // Kernel accuracy (same as ImageJ)
+        double accuracy = (ip instanceof ByteProcessor)? 0.002 : 0.0002;
+        blurRows(data, width, height, new LineFilter(sigma, accuracy, width));
+        blurColumns(data, width, height, new LineFilter(sigma, accuracy, height));
+        // Back to 8-bit (rounded)
+        if (ip instanceof ByteProcessor) {
+            byte[] pixels = (byte[]) ip.getPixels();
+            for (int i = 0; i < pixels.length; i++) {
+                float value = data[i] + 0.5f;
+                if (value < 0f) value = 0f;
+                if (value > 255f) value = 255f;
+                pixels[i] = (byte) (int) value;
+            }
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Blur each image row (bands of rows in parallel)
+     * @param data image data
+     * @param width image width
+     * @param height image height
+     * @param filter rows line filter
+     */
+    private static void blurRows(float[] data, int width, int height, LineFilter filter) {
+        int bands = bands(width, height, height);
+        IntStream.range(0, bands).parallel().forEach(b -> {
+            float[] line = new float[width];
+            float[][] caches = filter.createCaches();
+            for (int y = (b * height) / bands; y < ((b + 1) * height) / bands; y++) {
+                System.arraycopy(data, y * width, line, 0, width);
+                filter.apply(line, data, y * width, caches);
+            }
+        });
+    }
+    
+    /**
+     * Blur each image column. Columns are read and written in strips of
+     * rows, and strips are processed in parallel.
+     * @param data image data
+     * @param width image width
+     * @param height image height
+     * @param filter columns line filter
+     */
+    private static void blurColumns(float[] data, int width, int height, LineFilter filter) {
+        int strips = (width + STRIP - 1) / STRIP;
+        int bands = bands(width, height, strips);
+        IntStream.range(0, bands).parallel().forEach(b -> {
+            float[][] lines = new float[STRIP][height];
+            float[] result = new float[height];
+            float[][] caches = filter.createCaches();
+            for (int s = (b * strips) / bands; s < ((b + 1) * strips) / bands; s++) {
+                int from = s * STRIP;
+                int count = Math.min(STRIP, width - from);
+                // Gather strip columns
+                for (int y = 0; y < height; y++)
+                    for (int x = 0; x < count; x++)
+                        lines[x][y] = data[y * width + from + x];
+                // Blur strip columns
+                for (int x = 0; x < count; x++) {
+                    filter.apply(lines[x], result, 0, caches);
+                    System.arraycopy(result, 0, lines[x], 0, height);
+                }
+                // Scatter strip columns
+                for (int y = 0; y < height; y++)
+                    for (int x = 0; x < count; x++)
+                        data[y * width + from + x] = lines[x][y];
+            }
+        });
+    }
+    
+    /**
+     * Work bands count to process an image in parallel
+     * @param width image width
+     * @param height image height
+     * @param units work units count (rows or strips)
+     * @return bands count
+     */
+    private static int bands(int width, int height, int units) {
+        return ((long) width * height < PARALLEL_PIXELS)? 1 : Math.max(1, Math.min(units, Runtime.getRuntime().availableProcessors()));
+    }
+    
+    /**
+     * Gaussian blur of lines of a given length (same arithmetic as ImageJ).
+     * Lines are convolved at full resolution, or for large sigmas
+     * downscaled, convolved and upscaled again.
+     */
+    private static class LineFilter {
+        // Lines length
+        private final int length;
+        // Downscaling factor (1 for full resolution)
+        private final int reduceBy;
+        // Downscaled line length (including borders)
+        private final int newLength;
+        // Full resolution index of first downscaled pixel
+        private final int unscaled0;
+        // Gaussian kernel and edges running sums
+        private final float[][] gaussKernel;
+        // Downscaling and upscaling kernels
+        private final float[] downscaleKernel;
+        private final float[] upscaleKernel;
+    
+        /**
+         * Create line filter
+         * @param sigma gaussian sigma
+         * @param accuracy kernel values cut off
+         * @param length lines length
+         */
+        private LineFilter(double sigma, double accuracy, int length) {
+            this.length = length;
+            boolean doDownscaling = sigma > MAX_FULL_SIGMA;
+            this.reduceBy = doDownscaling? Math.min((int) Math.floor(sigma / MIN_DOWNSCALED_SIGMA), length) : 1;
+            double sigmaGauss = doDownscaling? Math.sqrt(sigma * sigma / (reduceBy * reduceBy) - 1. / 3. - 1. / 4.) : sigma;
+            this.newLength = doDownscaling? (length + reduceBy - 1) / reduceBy + 2 * (UPSCALE_K_RADIUS + 1) : length;
+            this.unscaled0 = -(UPSCALE_K_RADIUS + 1) * reduceBy;
+            this.gaussKernel = makeGaussianKernel(sigmaGauss, accuracy, newLength);
+            this.downscaleKernel = doDownscaling? makeDownscaleKernel(reduceBy) : null;
+            this.upscaleKernel = doDownscaling? makeUpscaleKernel(reduceBy) : null;
+        }
+    
+        /**
+         * Create work buffers for downscaled lines
+         * @return work buffers (one per thread)
+         */
+        private float[][] createCaches() {
+            return (reduceBy > 1)? new float[][]{new float[newLength], new float[newLength]} : null;
+        }
+    
+        /**
+         * Blur a line
+         * @param line line values (not modified)
+         * @param pixels output array
+         * @param offset output index of first value
+         * @param caches work buffers
+         */
+        private void apply(float[] line, float[] pixels, int offset, float[][] caches) {
+            if (reduceBy == 1) {
+                convolveLine(line, pixels, gaussKernel, 0, length, offset);
+            } else {
+                downscaleLine(line, caches[0]);
+                convolveLine(caches[0], caches[1], gaussKernel, 1, newLength - 1, 0);
+                upscaleLine(caches[1], pixels, offset);
+            }
+        }
+    
+        /**
+         * Downscale a line, averaging with a smooth kernel
+         * (out of line values are the edge values)
+         * @param input line values
+         * @param cache downscaled line
+         */
+        private void downscaleLine(float[] input, float[] cache) {
+            float[] kernel = downscaleKernel;
+            int p = unscaled0 - reduceBy * 3 / 2;
+            int pLast = length - 1;
+            for (int xout = -1; xout <= newLength; xout++) {
+                float sum0 = 0, sum1 = 0, sum2 = 0;
+                for (int x = 0; x < reduceBy; x++, p++) {
+                    float v = input[(p < 0)? 0 : (p > pLast)? pLast : p];
+                    sum0 += v * kernel[x + 2 * reduceBy];
+                    sum1 += v * kernel[x + reduceBy];
+                    sum2 += v * kernel[x];
+                }
+                if (xout > 0)
+                    cache[xout - 1] += sum0;
+                if (xout >= 0 && xout < newLength)
+                    cache[xout] += sum1;
+                if (xout + 1 < newLength)
+                    cache[xout + 1] = sum2;
+            }
+        }
+    
+        /**
+         * Upscale a downscaled line (cubic interpolation)
+         * @param input downscaled line
+         * @param pixels output array
+         * @param offset output index of first value
+         */
+        private void upscaleLine(float[] input, float[] pixels, int offset) {
+            float[] kernel = upscaleKernel;
+            int p = offset;
+            for (int xout = 0; xout < length; xout++, p++) {
+                int xin = (xout - unscaled0 + reduceBy - 1) / reduceBy;
+                int x = reduceBy - 1 - (xout - unscaled0 + reduceBy - 1) % reduceBy;
+                pixels[p] = input[xin - 2] * kernel[x] + input[xin - 1] * kernel[x + reduceBy] +
+                        input[xin] * kernel[x + 2 * reduceBy] + input[xin + 1] * kernel[x + 3 * reduceBy];
+            }
+        }
+    
+        /**
+         * Convolve a line with the kernel, out of line values are the
+         * edge values
+         * @param input line values
+         * @param pixels output array
+         * @param kernel gaussian kernel and edges running sums
+         * @param writeFrom first output position
+         * @param writeTo last output position (exclusive)
+         * @param offset output index of position 0
+         */
+        private static void convolveLine(float[] input, float[] pixels, float[][] kernel, int writeFrom, int writeTo, int offset) {
+            int length = input.length;
+            float first = input[0];
+            float last = input[length - 1];
+            float[] kern = kernel[0];
+            float kern0 = kern[0];
+            float[] kernSum = kernel[1];
+            int kRadius = kern.length;
+            int firstPart = (kRadius < length)? kRadius : length;
+            int p = offset + writeFrom;
+            int i = writeFrom;
+            // Near first edge
+            for (; i < firstPart; i++, p++) {
+                float result = input[i] * kern0;
+                result += kernSum[i] * first;
+                if (i + kRadius > length)
+                    result += kernSum[length - i - 1] * last;
+                for (int k = 1; k < kRadius; k++) {
+                    float v = 0;
+                    if (i - k >= 0) v += input[i - k];
+                    if (i + k < length) v += input[i + k];
+                    result += kern[k] * v;
+                }
+                pixels[p] = result;
+            }
+            // Inside
+            int iEndInside = (length - kRadius < writeTo)? length - kRadius : writeTo;
+            for (; i < iEndInside; i++, p++) {
+                float result = input[i] * kern0;
+                for (int k = 1; k < kRadius; k++)
+                    result += kern[k] * (input[i - k] + input[i + k]);
+                pixels[p] = result;
+            }
+            // Near last edge
+            for (; i < writeTo; i++, p++) {
+                float result = input[i] * kern0;
+                if (i < kRadius)
+                    result += kernSum[i] * first;
+                if (i + kRadius >= length)
+                    result += kernSum[length - i - 1] * last;
+                for (int k = 1; k < kRadius; k++) {
+                    float v = 0;
+                    if (i - k >= 0) v += input[i - k];
+                    if (i + k < length) v += input[i + k];
+                    result += kern[k] * v;
+                }
+                pixels[p] = result;
+            }
+        }
+    
+        /**
+         * Create a gaussian kernel (one side) and his running sums for
+         * edges, smoothly going to zero at the end
+         * @param sigma gaussian sigma
+         * @param accuracy kernel values cut off
+         * @param maxRadius maximum kernel radius (line length)
+         * @return kernel and running sums
+         */
+        private static float[][] makeGaussianKernel(double sigma, double accuracy, int maxRadius) {
+            int kRadius = (int) Math.ceil(sigma * Math.sqrt(-2 * Math.log(accuracy))) + 1;
+            if (maxRadius < 50) maxRadius = 50;
+            if (kRadius > maxRadius) kRadius = maxRadius;
+            float[][] kernel = new float[2][kRadius];
+            for (int i = 0; i < kRadius; i++)
+                kernel[0][i] = (float) (Math.exp(-0.5 * i * i / sigma / sigma));
+            // Smooth edge of the kernel
+            if (kRadius < maxRadius && kRadius > 3) {
+                double sqrtSlope = Double.MAX_VALUE;
+                int r = kRadius;
+                while (r > kRadius / 2) {
+                    r--;
+                    double a = Math.sqrt(kernel[0][r]) / (kRadius - r);
+                    if (a < sqrtSlope)
+                        sqrtSlope = a;
+                    else
+                        break;
+                }
+                for (int r1 = r + 2; r1 < kRadius; r1++)
+                    kernel[0][r1] = (float) ((kRadius - r1) * (kRadius - r1) * sqrtSlope * sqrtSlope);
+            }
+            // Normalize
+            double sum;
+            if (kRadius < maxRadius) {
+                sum = kernel[0][0];
+                for (int i = 1; i < kRadius; i++)
+                    sum += 2 * kernel[0][i];
+            } else {
+                sum = sigma * Math.sqrt(2 * Math.PI);
+            }
+            double rsum = 0.5 + 0.5 * kernel[0][0] / sum;
+            for (int i = 0; i < kRadius; i++) {
+                double v = (kernel[0][i] / sum);
+                kernel[0][i] = (float) v;
+                rsum -= v;
+                kernel[1][i] = (float) rsum;
+            }
+            return kernel;
+        }
+    
+        /**
+         * Create downscaling kernel (smooth average of 3 downscaled pixels)
+         * @param unitLength downscaling factor
+         * @return downscaling kernel
+         */
+        private static float[] makeDownscaleKernel(int unitLength) {
+            int mid = unitLength * 3 / 2;
+            float[] kernel = new float[3 * unitLength];
+            for (int i = 0; i <= unitLength / 2; i++) {
+                double x = i / (double) unitLength;
+                float v = (float) ((0.75 - x * x) / unitLength);
+                kernel[mid - i] = v;
+                kernel[mid + i] = v;
+            }
+            for (int i = unitLength / 2 + 1; i < (unitLength * 3 + 1) / 2; i++) {
+                double x = i / (double) unitLength;
+                float v = (float) ((0.125 + 0.5 * (x - 1) * (x - 2)) / unitLength);
+                kernel[mid - i] = v;
+                kernel[mid + i] = v;
+            }
+            return kernel;
+        }
+    
+        /**
+         * Create upscaling kernel (cubic, 4 downscaled pixels)
+         * @param unitLength downscaling factor
+         * @return upscaling kernel
+         */
+        private static float[] makeUpscaleKernel(int unitLength) {
+            float[] kernel = new float[4 * unitLength];
+            int mid = 2 * unitLength;
+            kernel[0] = 0;
+            for (int i = 0; i < unitLength; i++) {
+                double x = i / (double) unitLength;
+                float v = (float) ((2. / 3. - x * x * (1 - 0.5 * x)));
+                kernel[mid + i] = v;
+                kernel[mid - i] = v;
+            }
+            for (int i = unitLength; i < 2 * unitLength; i++) {
+                double x = i / (double) unitLength;
+                float v = (float) ((2. - x) * (2. - x) * (2. - x) / 6.);
+                kernel[mid + i] = v;
+                kernel[mid - i] = v;
+            }
+            return kernel;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.ImagePlus;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shared preprocessing stage for analysis images.
+ * Builds once per image the grayscale-inverted, background corrected,
+ * blurred and thresholded variants used by the analysis methods, and keeps
+ * them while the source image is alive. Returned images are shared: never modify them.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ImagePreprocessing {
+    
+    /**
+     * Preprocessed image variants.
+     */
+    public static enum Variant {
+        GRAY_INVERTED, BACKGROUND, BLUR_8, BLUR_10, THRESHOLD_8
+    }
+    
+    // Cached variants by source image (weak keys, compared by identity)
+    private static final Map<ImagePlus,Variants> CACHE = new WeakHashMap<>();
+    
+    /**
+     * Get a preprocessed variant of an image (computed only once).
+     * @param img source image as ImagePlus object
+     * @param variant image variant
+     * @return shared preprocessed image (read only)
+     */
+    public static ImagePlus get(ImagePlus img, Variant variant) {
+        Variants variants;
+        synchronized (CACHE) {
+            variants = CACHE.get(img);
+            // Drop variants if source pixels were replaced
+            if (variants == null || variants.pixels != img.getProcessor().getPixels()) {
+                variants = new Variants(img.getProcessor().getPixels());
+                CACHE.put(img, variants);
+            }
+        }
+        return variants.get(img, variant);
+    }
+    
+    /**
+     * Drop all cached variants of an image.
+     * @param img source image
+     */
+    public static void invalidate(ImagePlus img) {
+        if (img == null) return;
+        synchronized (CACHE) {
+            CACHE.remove(img);
+        }
+    }
+    
+    /**
+     * Drop all cached variants.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+    
+    /**
+     * Variants of a single source image.
+     */
+    private static class Variants {
+        // Source pixels used to build the variants
+        private final Object pixels;
+        // Built variants
+        private final EnumMap<Variant,ImagePlus> images = new EnumMap<>(Variant.class);
+    
+        /**
+         * Create empty variants
+         * @param pixels source image pixels
+         */
+        private Variants(Object pixels) {
+            this.pixels = pixels;
+        }
+    
+        /**
+         * Get or build a variant
+         * @param src source image
+         * @param variant image variant
+         * @return preprocessed image
+         */
+        private synchronized ImagePlus get(ImagePlus src, Variant variant) {
+            ImagePlus img = images.get(variant);
+            if (img != null)
+                return img;
+            switch (variant) {
+                case GRAY_INVERTED:
+                    img = src.duplicate();
+                    ImageProcessing.toGrayScale(img);
+                    ImageProcessing.invertImage(img);
+                    break;
+                case BACKGROUND:
+                    img = get(src, Variant.GRAY_INVERTED).duplicate();
+                    ImageProcessing.subtractBackground(img, AnalysisProcessing.getBackgroundRadius());
+                    break;
+                case BLUR_8:
+                    img = get(src, Variant.GRAY_INVERTED).duplicate();
+                    ImageProcessing.gaussianBlur(img, 8);
+                    break;
+                case BLUR_10:
+                    img = get(src, Variant.GRAY_INVERTED).duplicate();
+                    ImageProcessing.gaussianBlur(img, 10.0f);
+                    break;
+                case THRESHOLD_8:
+                    img = get(src, Variant.BLUR_8).duplicate();
+                    ImageProcessing.imageThreshold(img);
+                    break;
+            }
+            images.put(variant, img);
+            return img;
+        }
+    }
+}
\ No newline at end of file
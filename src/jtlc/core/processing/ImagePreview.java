@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import ij.process.ImageProcessor;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+//
+import jtlc.core.processing.AnalysisProcessing.Axis;
+
+/**
+ * Shared preview images cache for view panels.
+ * Keeps a multi-resolution pyramid of each image (levels of half size,
+ * built by averaging) and the previews built from them, keyed by image
+ * identity and preview transformation (flip, rotation and size). A preview
+ * is built from the smallest level not smaller than the preview, and
+ * flipped or rotated previews from the cached preview, so resizing or
+ * rotating the preview of a large scan only processes a screen sized
+ * image. Least recently used images are dropped when the
+ * cache exceeds its memory budget. Returned images are shared: never
+ * modify them.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ImagePreview {
+    
+    // Cache memory budget (bytes)
+    private static final long BUDGET = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 8);
+    // Cached levels and previews, least recently used first
+    private static final LinkedHashMap<Key,ImagePlus> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    // Cached images size (bytes)
+    private static long cacheSize = 0;
+    
+    /**
+     * Get image preview fitted to the given size, keeping his aspect ratio
+     * @param img source image
+     * @param width max preview width (unbounded if &lt;= 0)
+     * @param height max preview height (unbounded if &lt;= 0)
+     * @return shared preview image (read only)
+     */
+    public static ImagePlus get(ImagePlus img, int width, int height) {
+        return get(img, Axis.NONE, 0.0, width, height);
+    }
+    
+    /**
+     * Get flipped and rotated image preview fitted to the given size, like
+     * fitting the image, flipping, rotating (enlarging canvas) and fitting
+     * the result again.
+     * @param img source image
+     * @param axis flip axis
+     * @param angle rotation angle in degrees
+     * @param width max preview width (unbounded if &lt;= 0)
+     * @param height max preview height (unbounded if &lt;= 0)
+     * @return shared preview image (read only)
+     */
+    public static ImagePlus get(ImagePlus img, Axis axis, double angle, int width, int height) {
+        if (width <= 0 && height <= 0)
+            return img;
+        boolean transformed = axis != Axis.NONE || angle % 360.0 != 0.0;
+        Key key = new Key(img, (transformed? axis.name() + ":" + angle + ":" : "") + width + "x" + height);
+        ImagePlus preview = lookup(key);
+        if (preview != null)
+            return preview;
+        if (!transformed) {
+            // Fit smallest level not smaller than the box
+            preview = fit(getLevel(img, fitScale(img.getWidth(), img.getHeight(), width, height)), width, height);
+        } else {
+            // Flip, rotate and fit again the box preview
+            preview = fit(ImageTransform.transform(get(img, width, height), null, axis, angle, true), width, height);
+        }
+        store(key, preview);
+        return preview;
+    }
+    
+    /**
+     * Get the smallest pyramid level of an image not smaller than a scale.
+     * Levels are half size copies of the previous level (level 0 is the image).
+     * @param img source image
+     * @param scale requested scale (between 0 and 1)
+     * @return shared level image (read only)
+     */
+    public static ImagePlus getLevel(ImagePlus img, double scale) {
+        // Level of the scale (not smaller than requested)
+        int level = 0;
+        while (scale > 0 && scale * (2 << level) <= 1.0 && (img.getWidth() >> (level + 1)) > 0 && (img.getHeight() >> (level + 1)) > 0)
+            level++;
+        if (level == 0)
+            return img;
+        Key key = new Key(img, "level:" + level);
+        ImagePlus result = lookup(key);
+        if (result != null)
+            return result;
+        // Nearest larger cached level (or source image)
+        ImagePlus base = img;
+        int baseLevel = 0;
+        for (int i = level - 1; i > 0 && base == img; i--) {
+            ImagePlus cached = lookup(new Key(img, "level:" + i));
+            if (cached != null) {
+                base = cached;
+                baseLevel = i;
+            }
+        }
+        // Reduce averaging pixels blocks
+        result = new ImagePlus(img.getTitle(), reduce(base.getProcessor(), 1 << (level - baseLevel)));
+        store(key, result);
+        return result;
+    }
+    
+    /**
+     * Drop all cached levels and previews of an image.
+     * @param img source image
+     */
+    public static void invalidate(ImagePlus img) {
+        if (img == null) return;
+        synchronized (CACHE) {
+            Iterator<Map.Entry<Key,ImagePlus>> it = CACHE.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key,ImagePlus> entry = it.next();
+                if (entry.getKey().source.get() == img) {
+                    cacheSize -= sizeOf(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Drop all cached levels and previews.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cacheSize = 0;
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Scale to fit an image size into a box
+     * @param width image width
+     * @param height image height
+     * @param maxWidth box width (unbounded if &lt;= 0)
+     * @param maxHeight box height (unbounded if &lt;= 0)
+     * @return scale
+     */
+    private static double fitScale(int width, int height, int maxWidth, int maxHeight) {
+        double scaleW = (maxWidth > 0)? (double) maxWidth / width : Double.MAX_VALUE;
+        double scaleH = (maxHeight > 0)? (double) maxHeight / height : Double.MAX_VALUE;
+        return Math.min(scaleW, scaleH);
+    }
+    
+    /**
+     * Reduce image size by an integer factor, averaging each block of pixels
+     * in one pass (rows in parallel). RGB and 8-bit images are reduced
+     * directly, other types use ImageJ binning.
+     * @param ip image processor
+     * @param factor reduction factor
+     * @return reduced image processor
+     */
+    private static ImageProcessor reduce(ImageProcessor ip, int factor) {
+        int width = ip.getWidth() / factor;
+        int height = ip.getHeight() / factor;
+        if (!(ip instanceof ColorProcessor) && !(ip instanceof ByteProcessor))
+            return ip.bin(factor);
+        boolean color = ip instanceof ColorProcessor;
+        int stride = ip.getWidth();
+        int area = factor * factor;
+        int[] rgbPixels = color? (int[]) ip.getPixels() : null;
+        byte[] grayPixels = color? null : (byte[]) ip.getPixels();
+        int[] rgb = color? new int[width * height] : null;
+        byte[] gray = color? null : new byte[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            // Block sums of one reduced row
+            int[] sums = new int[color? width * 3 : width];
+            for (int row = y * factor; row < (y + 1) * factor; row++) {
+                int i = row * stride;
+                for (int x = 0; x < width; x++) {
+                    for (int end = i + factor; i < end; i++) {
+                        if (color) {
+                            int c = rgbPixels[i];
+                            sums[x * 3] += (c >> 16) & 0xff;
+                            sums[x * 3 + 1] += (c >> 8) & 0xff;
+                            sums[x * 3 + 2] += c & 0xff;
+                        } else {
+                            sums[x] += grayPixels[i] & 0xff;
+                        }
+                    }
+                }
+            }
+            for (int x = 0; x < width; x++) {
+                if (color)
+                    rgb[y * width + x] = 0xff000000 | (sums[x * 3] / area) << 16 | (sums[x * 3 + 1] / area) << 8 | (sums[x * 3 + 2] / area);
+                else
+                    gray[y * width + x] = (byte) (sums[x] / area);
+            }
+        });
+        if (color)
+            return new ColorProcessor(width, height, rgb);
+        return new ByteProcessor(width, height, gray, ip.getColorModel());
+    }
+    
+    /**
+     * Resize image to fit into a box, keeping his aspect ratio
+     * @param img image to resize
+     * @param width box width (unbounded if &lt;= 0)
+     * @param height box height (unbounded if &lt;= 0)
+     * @return resized image
+     */
+    private static ImagePlus fit(ImagePlus img, int width, int height) {
+        double scale = fitScale(img.getWidth(), img.getHeight(), width, height);
+        int w = Math.max(1, (int) (img.getWidth() * scale));
+        int h = Math.max(1, (int) (img.getHeight() * scale));
+        synchronized (img) {
+            ImageProcessor ip = img.getProcessor();
+            ip.setInterpolationMethod(ImageProcessor.BILINEAR);
+            return new ImagePlus(img.getTitle(), ip.resize(w, h));
+        }
+    }
+    
+    /**
+     * Get cached image
+     * @param key image key
+     * @return cached image or null
+     */
+    private static ImagePlus lookup(Key key) {
+        synchronized (CACHE) {
+            return CACHE.get(key);
+        }
+    }
+    
+    /**
+     * Cache image, dropping least recently used images over the budget
+     * @param key image key
+     * @param img image to cache
+     */
+    private static void store(Key key, ImagePlus img) {
+        long size = sizeOf(img);
+        if (size > BUDGET)
+            return;
+        synchronized (CACHE) {
+            ImagePlus old = CACHE.put(key, img);
+            cacheSize += size - ((old != null)? sizeOf(old) : 0);
+            Iterator<Map.Entry<Key,ImagePlus>> it = CACHE.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key,ImagePlus> entry = it.next();
+                // Collected source images and least recently used images
+                if (entry.getKey().source.get() == null || (cacheSize > BUDGET && entry.getKey() != key)) {
+                    cacheSize -= sizeOf(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Image size in memory
+     * @param img image
+     * @return size in bytes
+     */
+    private static long sizeOf(ImagePlus img) {
+        return (long) img.getWidth() * img.getHeight() * img.getStackSize() * img.getBytesPerPixel();
+    }
+    
+    /**
+     * Cache key, source image identity (and current pixels) and transformation.
+     * Source image is weakly referenced, cached images never keep it alive.
+     */
+    private static class Key {
+        // Source image and pixels
+        private final WeakReference<ImagePlus> source;
+        private final WeakReference<Object> pixels;
+        // Transformation
+        private final String transform;
+        // Key hash
+        private final int hash;
+    
+        /**
+         * Create key
+         * @param img source image
+         * @param transform transformation
+         */
+        private Key(ImagePlus img, String transform) {
+            this.source = new WeakReference<>(img);
+            this.pixels = new WeakReference<>(img.getProcessor().getPixels());
+            this.transform = transform;
+            this.hash = System.identityHashCode(img) * 31 + transform.hashCode();
+        }
+    
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            Object img = source.get();
+            return img != null && img == key.source.get() && pixels.get() == key.pixels.get() && Objects.equals(transform, key.transform);
+        }
+    }
+}
\ No newline at end of file
@@ -19,9 +19,13 @@ package jtlc.core.processing;
 import jtlc.main.common.Point;
 import jtlc.core.processing.AnalysisProcessing.Axis;
 import ij.ImagePlus;
+import ij.plugin.filter.BackgroundSubtracter;
+import ij.process.ByteProcessor;
 import ij.process.ImageConverter;
 import ij.process.ImageProcessor;
 import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.stream.IntStream;
 import jtlc.main.common.Pair;
 
 /**
@@ -31,6 +35,8 @@ import jtlc.main.common.Pair;
  * @author Baldani Sergio - Tardivo Cristian
  */
 public class ImageProcessing {
+    // Minimum image pixels count to split projections rows across cores
+    private static final int PARALLEL_PROJECTION_PIXELS = 1 << 22;
     
     /**
      * Conver ImagePlus image to GrayScale image
@@ -51,6 +57,35 @@ public class ImageProcessing {
         return img.getProcessor().getIntArray();
     }
     
+    /**
+     * Compute ImagePlus image rows and columns pixels sums in a single
+     * row-major pass. 8-bit images are read directly from the pixels array,
+     * big images are splitted in bands of rows processed in parallel.
+     * @param img ImagePlus to process
+     * @return pair of arrays (rows sums, columns sums)
+     */
+    public static Pair<long[],long[]> getImageProjections(ImagePlus img) {
+        ImageProcessor ip = img.getProcessor();
+        int width = ip.getWidth();
+        int height = ip.getHeight();
+        long[] rows = new long[height];
+        long[] cols = new long[width];
+        // Rows bands count
+        int bands = ((long) width * height < PARALLEL_PROJECTION_PIXELS)? 1 : Math.min(height, Runtime.getRuntime().availableProcessors());
+        if (bands <= 1) {
+            projectRows(ip, 0, height, rows, cols);
+        } else {
+            // Each band has his own columns sums (rows sums don't overlap)
+            long[][] partials = new long[bands][width];
+            IntStream.range(0, bands).parallel().forEach(b -> projectRows(ip, (b * height) / bands, ((b + 1) * height) / bands, rows, partials[b]));
+            // Merge columns sums
+            for (long[] partial: partials)
+                for (int x = 0; x < width; x++)
+                    cols[x] += partial[x];
+        }
+        return new Pair<>(rows, cols);
+    }
+    
     /**
      * Invert ImagePlus image colors
      * Overwrites the original (be careful)
@@ -98,7 +133,24 @@ public class ImageProcessing {
      * @param sigma blur sigma-level
      */
     public static void gaussianBlur(ImagePlus img, float sigma) {
-        img.getProcessor().blurGaussian(sigma);
+        ImageProcessor ip = img.getProcessor();
+        // Gray images, parallel separable blur
+        if (GaussianFilter.isSupported(ip))
+            GaussianFilter.blur(ip, sigma);
+        else
+            ip.blurGaussian(sigma);
+    }
+    
+    /**
+     * Subtract image background (ImageJ sliding paraboloid), for images
+     * with dark background (bright objects)
+     * Overwrites the original (be careful)
+     * @param img ImagePlus object
+     * @param radius paraboloid curvature radius (bigger than objects radius)
+     */
+    public static void subtractBackground(ImagePlus img, double radius) {
+        // Subtracter instance by call (keeps passes state)
+        new BackgroundSubtracter().rollingBallBackground(img.getProcessor(), radius, false, false, true, true, true);
     }
     
     /**
@@ -121,16 +173,21 @@ public class ImageProcessing {
      * @return processed ImagePlus object
      */
     public static ImagePlus cutImage(ImagePlus img, Point upper, Point lower) {
-        // Compute Values
-        int x = upper.getX();
-        int y = upper.getY();
-        int width = lower.getX() - x;
-        int height = lower.getY() - y;
-        // Cut Image
-        img.setRoi(x, y, width, height);
-        ImagePlus result = new ImagePlus(img.getTitle(),img.getProcessor().crop());
-        img.deleteRoi();
-        return result;
+        return ImageTransform.transform(img, toRectangle(upper, lower), Axis.NONE, 0.0, false);
+    }
+    
+    /**
+     * Cut ImagePlus image to the ROI delimited by two points, then flip and
+     * rotate (in degrees) it resizing his canvas, all in a single pass
+     * Return new transformed ImagePlus
+     * @param img ImagePlus object
+     * @param points upper and lower cut points
+     * @param axis Axis to flip or axis combinations
+     * @param angle degrees to rotate
+     * @return processed ImagePlus object
+     */
+    public static ImagePlus transformImage(ImagePlus img, Pair<Point,Point> points, Axis axis, double angle) {
+        return ImageTransform.transform(img, toRectangle(points.getFirst(), points.getSecond()), axis, angle, true);
     }
     
     /**
@@ -149,6 +206,26 @@ public class ImageProcessing {
             img.setProcessor(img.getProcessor().resize(width, (int)(width * ((double) img.getHeight() / img.getWidth()))));
     }
     
+    /**
+     * Create a reduced copy of ImagePlus image (averaging pixels), keeping
+     * his aspect ratio, with the largest side of at most size pixels
+     * Return new scaled ImagePlus
+     * @param img ImagePlus object
+     * @param size max width/height
+     * @return scaled ImagePlus object
+     */
+    public static ImagePlus thumbnailImage(ImagePlus img, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(img.getWidth(), img.getHeight()));
+        int width = Math.max(1, (int) Math.round(img.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(img.getHeight() * scale));
+        // Resize uses processor roi (image can be shared between threads)
+        synchronized (img) {
+            ImageProcessor ip = img.getProcessor();
+            ip.setInterpolationMethod(ImageProcessor.BILINEAR);
+            return new ImagePlus(img.getTitle(), ip.resize(width, height, true));
+        }
+    }
+    
     /**
      * Rotate (in degrees) and resize ImagePlus image
      * Return new rotated and resized ImagePlus
@@ -158,52 +235,9 @@ public class ImageProcessing {
      * @return processed ImagePlus object
      */
     public static ImagePlus rotateImage(ImagePlus img, double angle, boolean resize) {
-        ImagePlus result = img.duplicate();
-        ImageProcessor ip = result.getProcessor();
-        // Convert always to positive angle
-        float fangle = (float) (angle + Math.ceil(-angle / 360.0) * 360.0);
-        // Exact Rotations
-        int spin = (int)(fangle / 90.0f);
-        // Right rotation
-        if (spin > 0) {
-            ip.setInterpolationMethod(ImageProcessor.BILINEAR);
-            for (int i = 0; i < spin; i++) {
-                result.setProcessor(ip.rotateRight());
-                ip = result.getProcessor();
-            }
-        }
-        // Calculate Rotation Excess
-        float excess = (fangle - (90.0f * (float)spin));
-        // Excess Rotations
-        if (excess != 0.0) {
-            // Generic Rotation With Canvas Resizing
-            int IH = result.getHeight();
-            int IW = result.getWidth();
-            // Final Width
-            double NWL = IW * Math.cos(Math.toRadians(excess));
-            double NWR = IH * Math.sin(Math.toRadians(excess));
-            int NW = (int) Math.floor((NWL + NWR) + 0.5);
-            // Final Height
-            double NHL = IW * Math.sin(Math.toRadians(excess));
-            double NHU = IH * Math.cos(Math.toRadians(excess));
-            int NH = (int) Math.floor((NHL + NHU) + 0.5);
-            // Max size (width or hegiht)
-            int maxSize = (NW > NH)? NW : NH;
-            // Square Resize
-            if (resize)
-                ip = resizeCanvas(ip, maxSize, maxSize, (maxSize - IW) / 2, (maxSize - IH) / 2, Color.WHITE);
-            // Rotation
-            ip.setInterpolationMethod(ImageProcessor.BILINEAR);
-            ip.setBackgroundValue(-1);  // White
-            ip.rotate(excess);
-            // Final Resize Canvas
-            if (resize)
-                ip = resizeCanvas(ip, NW, NH, (NW - maxSize) / 2, (NH - maxSize) / 2, Color.WHITE);                
-            result.setProcessor(ip);
-        }
-        return result;
+        return ImageTransform.transform(img, null, Axis.NONE, angle, resize);
     }
-        
+    
     /**
      * Resize Image Canvas
      * @param ip  Original ImageProcessor
@@ -229,17 +263,7 @@ public class ImageProcessing {
      * @return processed ImagePlus object
      */
     public static ImagePlus flipImage(ImagePlus img, Axis axis) {
-        ImagePlus result = img.duplicate();
-        ImageProcessor ip = result.getProcessor();
-        ip.setInterpolate(false);
-        switch(axis) {
-            case NONE : break; // No flip
-            case AXIS_X : ip.flipHorizontal();break;
-            case AXIS_Y : ip.flipVertical();break;
-            case AXIS_XY: ip.flipHorizontal();ip.flipVertical();break;
-            case AXIS_YX: ip.flipVertical();ip.flipHorizontal();break;
-        }
-        return result;
+        return ImageTransform.transform(img, null, axis, 0.0, false);
     }
     
     /**
@@ -271,4 +295,55 @@ public class ImageProcessing {
         ip.setRoi(0, ystart, img.getWidth(), yend);
         ip.fill();
     }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Rectangle delimited by two points
+     * @param upper upper left point
+     * @param lower lower right point
+     * @return rectangle
+     */
+    private static Rectangle toRectangle(Point upper, Point lower) {
+        return new Rectangle(upper.getX(), upper.getY(), lower.getX() - upper.getX(), lower.getY() - upper.getY());
+    }
+    
+    /**
+     * Accumulate rows and columns pixels sums for rows between [from..to)
+     * @param ip ImageProcessor to read
+     * @param from first row
+     * @param to last row (exclusive)
+     * @param rows rows sums output
+     * @param cols columns sums output (accumulated)
+     */
+    private static void projectRows(ImageProcessor ip, int from, int to, long[] rows, long[] cols) {
+        int width = ip.getWidth();
+        // Fast path, 8-bit pixels
+        if (ip instanceof ByteProcessor) {
+            byte[] pixels = (byte[]) ip.getPixels();
+            for (int y = from; y < to; y++) {
+                int offset = y * width;
+                long sum = 0;
+                for (int x = 0; x < width; x++) {
+                    int v = pixels[offset + x] & 0xff;
+                    sum += v;
+                    cols[x] += v;
+                }
+                rows[y] = sum;
+            }
+            return;
+        }
+        // Other image types, same values as getIntArray
+        for (int y = from; y < to; y++) {
+            long sum = 0;
+            for (int x = 0; x < width; x++) {
+                int v = ip.get(x, y);
+                sum += v;
+                cols[x] += v;
+            }
+            rows[y] = sum;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import ij.process.ImageProcessor;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.stream.IntStream;
+//
+import jtlc.core.processing.AnalysisProcessing.Axis;
+
+/**
+ * Geometric transformations engine (cut, flip and rotation).
+ * Cut, flips and right angle rotations are an exact remapping of pixels,
+ * copied in one tiled pass from the source image into the output image.
+ * Other angles are resampled (bilinear, same as ImageJ rotate) straight
+ * from the source image into the final canvas, without intermediate
+ * copies. RGB and 8-bit images are transformed here, other image types
+ * fall back to ImageJ operations.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ImageTransform {
+    // Tiles side (pixels) of exact remapping
+    private static final int TILE = 64;
+    // Minimum output pixels count to split rows across cores
+    private static final int PARALLEL_PIXELS = 1 << 20;
+    
+    /**
+     * Cut, flip and rotate (in degrees) ImagePlus image in a single pass.
+     * Same result as cut, flip and rotate the image one after another.
+     * Return new transformed ImagePlus
+     * @param img ImagePlus object
+     * @param roi image area to transform (null for the whole image)
+     * @param axis axis to flip or axis combinations
+     * @param angle degrees to rotate
+     * @param resize resize or not image canvas while rotating
+     * @return processed ImagePlus object
+     */
+    public static ImagePlus transform(ImagePlus img, Rectangle roi, Axis axis, double angle, boolean resize) {
+        ImageProcessor ip = img.getProcessor();
+        // Area inside the image (same as ImageJ roi)
+        Rectangle bounds = new Rectangle(0, 0, ip.getWidth(), ip.getHeight());
+        if (roi == null || (roi = roi.intersection(bounds)).isEmpty())
+            roi = bounds;
+        // Other image types
+        if (!(ip instanceof ColorProcessor) && !(ip instanceof ByteProcessor))
+            return new ImagePlus(img.getTitle(), legacyTransform(img, roi, axis, angle, resize));
+        // Transformed image (i,j) pixel is source pixels[offset + i * dx + j * dy]
+        int width = roi.width;
+        int height = roi.height;
+        int dx = 1;
+        int dy = ip.getWidth();
+        int offset = roi.y * dy + roi.x;
+        // Flip
+        if (axis == Axis.AXIS_X || axis == Axis.AXIS_XY || axis == Axis.AXIS_YX) {
+            offset += (width - 1) * dx;
+            dx = -dx;
+        }
+        if (axis == Axis.AXIS_Y || axis == Axis.AXIS_XY || axis == Axis.AXIS_YX) {
+            offset += (height - 1) * dy;
+            dy = -dy;
+        }
+        // Convert always to positive angle
+        float fangle = (float) (angle + Math.ceil(-angle / 360.0) * 360.0);
+        // Exact Rotations (right)
+        int spin = (int)(fangle / 90.0f);
+        for (int i = 0; i < spin; i++) {
+            offset += (height - 1) * dy;
+            int ndx = -dy;
+            dy = dx;
+            dx = ndx;
+            int nwidth = height;
+            height = width;
+            width = nwidth;
+        }
+        // Calculate Rotation Excess
+        float excess = (fangle - (90.0f * (float)spin));
+        ImageProcessor result;
+        if (excess == 0.0f)
+            result = remap(ip, offset, dx, dy, width, height);
+        else
+            result = rotate(ip, offset, dx, dy, width, height, excess, resize);
+        return new ImagePlus(img.getTitle(), result);
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Copy remapped source pixels into a new image, in parallel bands of rows
+     * @param ip source image processor
+     * @param offset source index of first pixel
+     * @param dx source index step of next column
+     * @param dy source index step of next row
+     * @param width output width
+     * @param height output height
+     * @return remapped image processor
+     */
+    private static ImageProcessor remap(ImageProcessor ip, int offset, int dx, int dy, int width, int height) {
+        ImageProcessor result = ip.createProcessor(width, height);
+        Object source = ip.getPixels();
+        Object pixels = result.getPixels();
+        int bands = bands(width, height);
+        IntStream.range(0, bands).parallel().forEach(b -> remapRows(source, pixels, offset, dx, dy, width, (b * height) / bands, ((b + 1) * height) / bands));
+        return result;
+    }
+    
+    /**
+     * Copy remapped source pixels for rows between [from..to).
+     * Rows are copied whole when source rows are contiguous, otherwise by
+     * tiles so reads and writes stay in cache.
+     * @param source source pixels
+     * @param pixels output pixels
+     * @param offset source index of first pixel
+     * @param dx source index step of next column
+     * @param dy source index step of next row
+     * @param width output width
+     * @param from first row
+     * @param to last row (exclusive)
+     */
+    private static void remapRows(Object source, Object pixels, int offset, int dx, int dy, int width, int from, int to) {
+        // Contiguous rows (cut and vertical flip)
+        if (dx == 1) {
+            for (int y = from; y < to; y++)
+                System.arraycopy(source, offset + y * dy, pixels, y * width, width);
+            return;
+        }
+        int[] rgbSource = (source instanceof int[])? (int[]) source : null;
+        int[] rgbPixels = (source instanceof int[])? (int[]) pixels : null;
+        byte[] graySource = (source instanceof byte[])? (byte[]) source : null;
+        byte[] grayPixels = (source instanceof byte[])? (byte[]) pixels : null;
+        for (int ty = from; ty < to; ty += TILE) {
+            int tyEnd = Math.min(ty + TILE, to);
+            for (int tx = 0; tx < width; tx += TILE) {
+                int txEnd = Math.min(tx + TILE, width);
+                for (int y = ty; y < tyEnd; y++) {
+                    int s = offset + tx * dx + y * dy;
+                    int end = y * width + txEnd;
+                    if (rgbSource != null) {
+                        for (int d = y * width + tx; d < end; d++, s += dx)
+                            rgbPixels[d] = rgbSource[s];
+                    } else {
+                        for (int d = y * width + tx; d < end; d++, s += dx)
+                            grayPixels[d] = graySource[s];
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Rotate remapped source pixels into a new image, same as ImageJ rotation
+     * (bilinear) of the image centered on a white canvas
+     * @param ip source image processor
+     * @param offset source index of first pixel
+     * @param dx source index step of next column
+     * @param dy source index step of next row
+     * @param width remapped image width
+     * @param height remapped image height
+     * @param angle degrees to rotate (clockwise)
+     * @param resize resize or not image canvas
+     * @return rotated image processor
+     */
+    private static ImageProcessor rotate(ImageProcessor ip, int offset, int dx, int dy, int width, int height, float angle, boolean resize) {
+        // Canvas and output sizes
+        int canvasWidth = width;
+        int canvasHeight = height;
+        int outWidth = width;
+        int outHeight = height;
+        if (resize) {
+            // Final Width
+            double NWL = width * Math.cos(Math.toRadians(angle));
+            double NWR = height * Math.sin(Math.toRadians(angle));
+            outWidth = (int) Math.floor((NWL + NWR) + 0.5);
+            // Final Height
+            double NHL = width * Math.sin(Math.toRadians(angle));
+            double NHU = height * Math.cos(Math.toRadians(angle));
+            outHeight = (int) Math.floor((NHL + NHU) + 0.5);
+            // Square canvas, max size (width or hegiht)
+            canvasWidth = canvasHeight = Math.max(outWidth, outHeight);
+        }
+        ImageProcessor result = ip.createProcessor(outWidth, outHeight);
+        // Image offset inside canvas and canvas offset inside output
+        Rectangle image = new Rectangle((canvasWidth - width) / 2, (canvasHeight - height) / 2, width, height);
+        Rectangle canvas = new Rectangle((outWidth - canvasWidth) / 2, (outHeight - canvasHeight) / 2, canvasWidth, canvasHeight);
+        // Canvas color (white) and outside canvas color (ImageJ background -1)
+        ImageProcessor white = ip.createProcessor(1, 1);
+        white.setColor(Color.WHITE);
+        white.fill();
+        int fill = white.get(0, 0);
+        int background = (ip instanceof ColorProcessor)? -1 : 0;
+        int bands = bands(outWidth, outHeight);
+        int rows = outHeight;
+        IntStream.range(0, bands).parallel().forEach(b -> rotateRows(ip.getPixels(), result.getPixels(), offset, dx, dy, image, canvas, result.getWidth(), angle, fill, background, (b * rows) / bands, ((b + 1) * rows) / bands));
+        return result;
+    }
+    
+    /**
+     * Resample rotated pixels for output rows between [from..to).
+     * Same arithmetic as ImageJ bilinear rotation, source pixels outside
+     * the image are the canvas color.
+     * @param source source pixels
+     * @param pixels output pixels
+     * @param offset source index of first pixel
+     * @param dx source index step of next column
+     * @param dy source index step of next row
+     * @param image image bounds inside canvas
+     * @param canvas canvas bounds inside output
+     * @param width output width
+     * @param angle degrees to rotate (clockwise)
+     * @param fill canvas pixel value
+     * @param background outside canvas pixel value
+     * @param from first row
+     * @param to last row (exclusive)
+     */
+    private static void rotateRows(Object source, Object pixels, int offset, int dx, int dy, Rectangle image, Rectangle canvas, int width, double angle, int fill, int background, int from, int to) {
+        int[] rgbSource = (source instanceof int[])? (int[]) source : null;
+        int[] rgbPixels = (source instanceof int[])? (int[]) pixels : null;
+        byte[] graySource = (source instanceof byte[])? (byte[]) source : null;
+        byte[] grayPixels = (source instanceof byte[])? (byte[]) pixels : null;
+        // Rotation around canvas center
+        double centerX = (canvas.width - 1) / 2.0;
+        double centerY = (canvas.height - 1) / 2.0;
+        double angleRadians = -angle / (180.0 / Math.PI);
+        double ca = Math.cos(angleRadians);
+        double sa = Math.sin(angleRadians);
+        double tmp1 = centerY * sa - centerX * ca;
+        double tmp2 = -centerX * sa - centerY * ca;
+        double xlimit = canvas.width - 1.0, xlimit2 = canvas.width - 1.001;
+        double ylimit = canvas.height - 1.0, ylimit2 = canvas.height - 1.001;
+        for (int y = from; y < to; y++) {
+            int index = y * width;
+            // Canvas coordinates
+            int cy = y - canvas.y;
+            double tmp3 = tmp1 - cy * sa + centerX;
+            double tmp4 = tmp2 + cy * ca + centerY;
+            for (int x = 0; x < width; x++, index++) {
+                int cx = x - canvas.x;
+                double xs = cx * ca + tmp3;
+                double ys = cx * sa + tmp4;
+                // Outside canvas
+                if (xs < -0.01 || xs >= canvas.width || ys < -0.01 || ys >= canvas.height) {
+                    if (rgbPixels != null)
+                        rgbPixels[index] = background;
+                    else
+                        grayPixels[index] = (byte) background;
+                    continue;
+                }
+                if (xs < 0.0) xs = 0.0;
+                if (xs >= xlimit) xs = xlimit2;
+                if (ys < 0.0) ys = 0.0;
+                if (ys >= ylimit) ys = ylimit2;
+                int xbase = (int) xs;
+                int ybase = (int) ys;
+                double xFraction = xs - xbase;
+                double yFraction = ys - ybase;
+                // Four neighbours (image coordinates)
+                int i = xbase - image.x;
+                int j = ybase - image.y;
+                int lowerLeft, lowerRight, upperLeft, upperRight;
+                if (i >= 0 && j >= 0 && i + 1 < image.width && j + 1 < image.height) {
+                    int s = offset + i * dx + j * dy;
+                    lowerLeft = pixel(rgbSource, graySource, s);
+                    lowerRight = pixel(rgbSource, graySource, s + dx);
+                    upperLeft = pixel(rgbSource, graySource, s + dy);
+                    upperRight = pixel(rgbSource, graySource, s + dx + dy);
+                } else {
+                    lowerLeft = pixel(rgbSource, graySource, offset, dx, dy, image, i, j, fill);
+                    lowerRight = pixel(rgbSource, graySource, offset, dx, dy, image, i + 1, j, fill);
+                    upperLeft = pixel(rgbSource, graySource, offset, dx, dy, image, i, j + 1, fill);
+                    upperRight = pixel(rgbSource, graySource, offset, dx, dy, image, i + 1, j + 1, fill);
+                }
+                if (rgbPixels != null) {
+                    int r = interpolate(lowerLeft >> 16, lowerRight >> 16, upperLeft >> 16, upperRight >> 16, xFraction, yFraction);
+                    int g = interpolate(lowerLeft >> 8, lowerRight >> 8, upperLeft >> 8, upperRight >> 8, xFraction, yFraction);
+                    int bl = interpolate(lowerLeft, lowerRight, upperLeft, upperRight, xFraction, yFraction);
+                    rgbPixels[index] = 0xff000000 | (r << 16) | (g << 8) | bl;
+                } else {
+                    grayPixels[index] = (byte) interpolate(lowerLeft, lowerRight, upperLeft, upperRight, xFraction, yFraction);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Bilinear interpolation of an 8-bit channel
+     * @param lowerLeft (x,y) value (lower byte)
+     * @param lowerRight (x+1,y) value (lower byte)
+     * @param upperLeft (x,y+1) value (lower byte)
+     * @param upperRight (x+1,y+1) value (lower byte)
+     * @param xFraction horizontal fraction
+     * @param yFraction vertical fraction
+     * @return interpolated value (rounded)
+     */
+    private static int interpolate(int lowerLeft, int lowerRight, int upperLeft, int upperRight, double xFraction, double yFraction) {
+        lowerLeft &= 0xff;
+        lowerRight &= 0xff;
+        upperLeft &= 0xff;
+        upperRight &= 0xff;
+        double upperAverage = upperLeft + xFraction * (upperRight - upperLeft);
+        double lowerAverage = lowerLeft + xFraction * (lowerRight - lowerLeft);
+        return (int) (lowerAverage + yFraction * (upperAverage - lowerAverage) + 0.5) & 0xff;
+    }
+    
+    /**
+     * Get source pixel value
+     * @param rgb RGB pixels (or null)
+     * @param gray 8-bit pixels (or null)
+     * @param index pixel index
+     * @return pixel value
+     */
+    private static int pixel(int[] rgb, byte[] gray, int index) {
+        return (rgb != null)? rgb[index] : gray[index] & 0xff;
+    }
+    
+    /**
+     * Get remapped image pixel value, or canvas value outside the image
+     * @param rgb RGB pixels (or null)
+     * @param gray 8-bit pixels (or null)
+     * @param offset source index of first pixel
+     * @param dx source index step of next column
+     * @param dy source index step of next row
+     * @param image image bounds inside canvas
+     * @param i image column
+     * @param j image row
+     * @param fill canvas pixel value
+     * @return pixel value
+     */
+    private static int pixel(int[] rgb, byte[] gray, int offset, int dx, int dy, Rectangle image, int i, int j, int fill) {
+        if (i < 0 || j < 0 || i >= image.width || j >= image.height)
+            return fill;
+        return pixel(rgb, gray, offset + i * dx + j * dy);
+    }
+    
+    /**
+     * Rows bands count to process an image in parallel
+     * @param width image width
+     * @param height image height
+     * @return bands count
+     */
+    private static int bands(int width, int height) {
+        return ((long) width * height < PARALLEL_PIXELS)? 1 : Math.min(height, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Cut, flip and rotate using ImageJ operations (16-bit and 32-bit images)
+     * @param img ImagePlus object
+     * @param roi image area to transform
+     * @param axis axis to flip or axis combinations
+     * @param angle degrees to rotate
+     * @param resize resize or not image canvas while rotating
+     * @return processed ImageProcessor
+     */
+    private static ImageProcessor legacyTransform(ImagePlus img, Rectangle roi, Axis axis, double angle, boolean resize) {
+        ImageProcessor ip;
+        // Cut Image (roi is image state, image can be shared between threads)
+        synchronized (img) {
+            img.setRoi(roi);
+            ip = img.getProcessor().crop();
+            img.deleteRoi();
+        }
+        // Flip
+        ip.setInterpolate(false);
+        if (axis == Axis.AXIS_X || axis == Axis.AXIS_XY || axis == Axis.AXIS_YX)
+            ip.flipHorizontal();
+        if (axis == Axis.AXIS_Y || axis == Axis.AXIS_XY || axis == Axis.AXIS_YX)
+            ip.flipVertical();
+        // Convert always to positive angle
+        float fangle = (float) (angle + Math.ceil(-angle / 360.0) * 360.0);
+        // Exact Rotations
+        int spin = (int)(fangle / 90.0f);
+        for (int i = 0; i < spin; i++)
+            ip = ip.rotateRight();
+        // Calculate Rotation Excess
+        float excess = (fangle - (90.0f * (float)spin));
+        // Excess Rotations
+        if (excess != 0.0) {
+            // Generic Rotation With Canvas Resizing
+            int IH = ip.getHeight();
+            int IW = ip.getWidth();
+            // Final Width
+            double NWL = IW * Math.cos(Math.toRadians(excess));
+            double NWR = IH * Math.sin(Math.toRadians(excess));
+            int NW = (int) Math.floor((NWL + NWR) + 0.5);
+            // Final Height
+            double NHL = IW * Math.sin(Math.toRadians(excess));
+            double NHU = IH * Math.cos(Math.toRadians(excess));
+            int NH = (int) Math.floor((NHL + NHU) + 0.5);
+            // Max size (width or hegiht)
+            int maxSize = (NW > NH)? NW : NH;
+            // Square Resize
+            if (resize)
+                ip = ImageProcessing.resizeCanvas(ip, maxSize, maxSize, (maxSize - IW) / 2, (maxSize - IH) / 2, Color.WHITE);
+            // Rotation
+            ip.setInterpolationMethod(ImageProcessor.BILINEAR);
+            ip.setBackgroundValue(-1);  // White
+            ip.rotate(excess);
+            // Final Resize Canvas
+            if (resize)
+                ip = ImageProcessing.resizeCanvas(ip, NW, NH, (NW - maxSize) / 2, (NH - maxSize) / 2, Color.WHITE);
+        }
+        return ip;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import jtlc.core.model.Peak;
+import jtlc.core.model.Sample;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Pair;
+
+/**
+ * Incremental sample analysis, for live results while peaks limits are
+ * edited. Updates are debounced and computed in a background thread, only
+ * peaks whose limits changed since the last update are integrated again
+ * (relative surfaces are always updated, the total surface changes).
+ * Results are delivered to the listener on the event dispatch thread,
+ * outdated results are dropped.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class IncrementalAnalysis {
+    // Wait for more changes before computing (ms)
+    private static final long DEBOUNCE = 40;
+    // Shared analysis worker (single thread, updates never overlap)
+    private static final ScheduledExecutorService WORKER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "jtlc-live-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Working sample (mean and mean index only)
+    private final Sample sample;
+    // Results listener
+    private final Consumer<List<Peak>> listener;
+    // Computed peaks by limits (worker thread only)
+    private Map<Pair<Float,Float>,Peak> computed = Collections.emptyMap();
+    // Limits to compute and scheduled update
+    private float[] pending;
+    private ScheduledFuture<?> scheduled;
+    // Last requested update
+    private volatile long version;
+    
+    /**
+     * Create incremental analysis of a sample mean.
+     * @param mean sample mean
+     * @param listener results listener, called on event dispatch thread
+     */
+    public IncrementalAnalysis(DensityProfile mean, Consumer<List<Peak>> listener) {
+        this.sample = new Sample();
+        this.sample.setMean(mean);
+        this.listener = listener;
+    }
+    
+    /**
+     * Request analysis of new peaks limits, replacing pending one.
+     * @param limits peaks start-end x-values (pairs, as slider thumbs)
+     */
+    public synchronized void update(float[] limits) {
+        pending = limits.clone();
+        long current = ++version;
+        if (scheduled != null)
+            scheduled.cancel(false);
+        scheduled = WORKER.schedule(() -> compute(current), DEBOUNCE, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Cancel pending update, no more results are delivered until next update.
+     */
+    public synchronized void cancel() {
+        version++;
+        if (scheduled != null)
+            scheduled.cancel(false);
+        scheduled = null;
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Compute pending limits peaks (worker thread)
+     * @param current update to compute
+     */
+    private void compute(long current) {
+        float[] limits;
+        synchronized (this) {
+            limits = pending;
+        }
+        if (limits == null || current != version) return;
+        DensityProfile mean = sample.getMean();
+        Map<Pair<Float,Float>,Peak> peaks = new HashMap<>();
+        List<Peak> ordered = new ArrayList<>(limits.length / 2);
+        float total = 0;
+        for (int i = 0; i < limits.length - 1; i += 2) {
+            Pair<Float,Float> key = new Pair<>(limits[i], limits[i + 1]);
+            // Avoid empty peaks
+            if (mean.indexOf(key.getFirst()) >= mean.indexOf(key.getSecond())) continue;
+            // Reuse unchanged peaks
+            Peak peak = computed.get(key);
+            if (peak == null) {
+                peak = new Peak(new Pair<>(key));
+                peak.setBaseline(AnalysisProcessing.searchBaseline(sample, peak));
+                peak.setSurface(AnalysisProcessing.integratePeak(sample, peak));
+                peak.setMaximum(AnalysisProcessing.computeMaximum(sample, peak));
+                peak.setHeight(AnalysisProcessing.computeHeight(sample, peak));
+            }
+            peaks.put(key, peak);
+            ordered.add(peak);
+            total += peak.getSurface();
+            // Newer update requested
+            if (current != version) return;
+        }
+        computed = peaks;
+        // Relative surfaces (on peaks copies, delivered to the listener)
+        sample.setTotalSurface(total);
+        List<Peak> results = new ArrayList<>(ordered.size());
+        for (Peak peak: ordered) {
+            Peak result = new Peak(peak);
+            result.setPosition(results.size() + 1);
+            result.setRelativeSurface((total > 0)? AnalysisProcessing.relativizeSurface(sample, peak) : 0f);
+            results.add(result);
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (current == version)
+                listener.accept(results);
+        });
+    }
+}
\ No newline at end of file
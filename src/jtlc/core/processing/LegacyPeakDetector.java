@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Pair;
+import jtlc.main.common.Point;
+
+/**
+ * Legacy peak detection (original jTLC search).
+ * Searchs up to 10 peaks, one at a time from the global maximum, walking
+ * to both sides until the slope flattens, and clearing each found peak.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class LegacyPeakDetector implements PeakDetector {
+    
+    /**
+     * Search integration areas or function peaks.
+     * @param fn generic function to process (relative or not)
+     * @return list of pair with star-end area position
+     */
+    @Override
+    public List<Pair<Float,Float>> searchAreas(DensityProfile fn) {
+        // Comparator to sort in crescent order the  points list resultant
+        Comparator orderCmp = (Comparator<Point>) (Point p1, Point p2) -> {
+            if (p1.getX() > p2.getX()) return 1;
+            if (p1.getX() < p2.getX()) return -1;
+            return 0;
+        };
+        // Clone function values
+        DensityProfile values = new DensityProfile(fn);
+        // Result List
+        List<Point> indexs = new LinkedList<>();
+        // Local Max value and position
+        float maxLocal = 0;
+        int maxPos = 0;
+        // Left Min value and position
+        float minA = 255;
+        int minAPos = 0;
+        // Rigth Min value and position
+        float minB = 255;
+        int minBPos = 0;
+        // Parameters
+        int MAX_PEAKS_COUNT = 10;
+        float MIN_PEAK_HEIGHT = 30.0f;
+        int SIZE = values.size();
+        // Limit search to N peaks
+        for (int peaks = 0; peaks < MAX_PEAKS_COUNT; peaks ++) {
+            // Search maximum overall
+            for (int i = 0; i < SIZE; i++) {
+                float y = values.getY(i);
+                if (y > maxLocal) {
+                    maxLocal = y;
+                    maxPos = i;
+                }
+            }
+            // Stop search at lower peak
+            if (maxLocal <= MIN_PEAK_HEIGHT)
+                break;
+            // Search Left Minimun/Inflection Point
+            for (int i = maxPos - 1; i > 1; i--) {
+                float y = values.getY(i);
+                if (y < minA) {
+                        minA = y;
+                        minAPos = i;
+                } else {
+                    float ya = values.getY(i - 1);
+                    float yb = values.getY(i + 1);
+                    if (ya > minA && yb > minA)
+                        if (Math.abs(AnalysisProcessing.lineSlope(i - 1, i + 1, ya, yb)) > 0.05)
+                            break;
+                }
+            }
+            // Refine search of left point
+            for (int i = minAPos + 1; i < maxPos; i ++) {
+                // According to line slope (line between 2 points)
+                if (Math.abs(AnalysisProcessing.lineSlope(minAPos, i, minA, values.getY(i))) > 0.075) {
+                    minAPos = i - 1;
+                    break;
+                }
+            }
+            // Search Rigth Minimun/Inflection Point
+            for (int i = maxPos + 1; i < SIZE - 2; i++) {
+                float y = values.getY(i);
+                if (y < minB) {
+                    minB = y;
+                    minBPos = i;
+                } else {
+                    float ya = values.getY(i - 1);
+                    float yb = values.getY(i + 1);
+                    if (ya > minB && yb > minB)
+                        if (Math.abs(AnalysisProcessing.lineSlope(i - 1, i + 1, ya, yb)) < 0.3)
+                            break;
+                }
+            }
+            // Refine search of rigth point
+            for (int i = minBPos - 1; i > maxPos; i--) {
+                // According to line slope (line between 2 points)
+                if (Math.abs(AnalysisProcessing.lineSlope(i, minBPos, values.getY(i), minB)) > 0.075) {
+                    minBPos = i + 1;
+                    break;
+                }
+            }
+            // fix
+            minAPos++; minBPos--;
+            // Check final positions
+            minAPos = (minAPos < 0)? 0 : ((minAPos < SIZE)? minAPos : SIZE - 1);
+            minBPos = (minBPos < 0)? 0 : ((minBPos < SIZE)? minBPos : SIZE - 1);
+            // Save values
+            indexs.add(new Point(minAPos, minBPos));
+            // Clear Current peak
+            for (int i = minAPos - 0; i < minBPos + 0; i++)
+                values.setY(i, 0.0f);
+            // Restart Values
+            maxLocal = 0;
+            maxPos = 0;
+            minA = 255;
+            minAPos = 0;
+            minB = 255;
+            minBPos = 0;
+        }
+        // Remove Closest Points
+        indexs.removeIf((Point p) -> Math.abs(p.getX() - p.getY()) <= 10);
+        // Oder List
+        Collections.sort(indexs, orderCmp);
+        // Clear Intersections
+        int oldSize;
+        do {
+            oldSize = indexs.size();
+            // Search of intersected areas
+            for (int i = 0; i < indexs.size() - 1; i += 2) { 
+                Point p1 = indexs.get(i);
+                Point p2 = indexs.get(i + 1);
+                if (p2.getX() <  p1.getY()) {
+                    // Remove points in conflict
+                    indexs.remove(p1);
+                    indexs.remove(p2);
+                    // Add Super Point
+                    indexs.add(new Point(p1.getX(),p2.getY()));
+                }
+            }
+            // Re-Order List
+            Collections.sort(indexs, orderCmp); 
+        } while(oldSize != indexs.size());
+        /*
+        // Join similar areas
+        do {
+            oldSize = result.size();
+            // Search of intersected areas
+            for (int i = 0; i < result.size() - 1; i += 2) { 
+                Point p1 = result.get(i);
+                Point p2 = result.get(i + 1);
+                // Areas Spaccing < 2
+                if (Math.abs(p2.getFirst() -  p1.getSecond()) < 2) {
+                    Float v1 = fn.get(p1.getSecond()).getValue();
+                    Float v2 = fn.get(p2.getFirst()).getValue();
+                    // Smilar Values
+                    if (Math.abs(v1 - v2) < 10) {
+                        // Remove points in conflict
+                        result.remove(p1);
+                        result.remove(p2);
+                        // Add Super Point
+                        result.add(new Point(p1.getFirst(),p2.getSecond()));
+                    }
+                }
+            }
+            // Re-Order List
+            Collections.sort(result, orderCmp); 
+        } while(oldSize != result.size());
+        */
+        // Return converted results
+        return  indexs.stream().map(p -> new Pair<Float,Float>(values.getX(p.getX()), values.getX(p.getY()))).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import java.util.List;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Pair;
+
+/**
+ * Peak detection engine interface
+ * Searchs the integration areas (peaks) of a sample density profile,
+ * selected implementation is used by AnalysisProcessing.searchPeaks
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public interface PeakDetector {
+    
+    /**
+     * Available peak detection methods.
+     */
+    public static enum Method {
+        PROMINENCE, LEGACY;
+        
+        /**
+         * Create a detector of this method
+         * @return new peak detector
+         */
+        public PeakDetector create() {
+            return (this == LEGACY)? new LegacyPeakDetector() : new ProminencePeakDetector();
+        }
+    }
+    
+    /**
+     * Search integration areas or function peaks.
+     * @param fn generic function to process (relative or not)
+     * @return list of pair with star-end area position, in ascending order
+     */
+    public List<Pair<Float,Float>> searchAreas(DensityProfile fn);
+}
\ No newline at end of file
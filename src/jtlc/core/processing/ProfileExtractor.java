@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Pair;
+
+/**
+ * Lane densitometry profile extraction along a centerline.
+ * Each image row is sampled across a band of configurable width, centered
+ * on the lane centerline at that row and normal to it (sub-pixel positions,
+ * bilinear interpolation), and optionally only where a lane mask is set.
+ * Profile keeps one value per image row (bottom-up, relative x-values) like
+ * the full width mean, so profile positions still match image rows.
+ * Almost vertical centerlines without mask are a single pass over the band
+ * pixels (each pixel read once), big images are splitted in bands of rows
+ * processed in parallel.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ProfileExtractor {
+    // Image size to process rows in parallel (pixels)
+    private static final int PARALLEL_PIXELS = 1 << 20;
+    // Rows by block to search the lane centerline, and rows step in a block
+    private static final int CENTERLINE_BLOCK = 16;
+    private static final int CENTERLINE_STEP = 4;
+    // Band width relative to image width (0..1]
+    private final float bandWidth;
+    
+    /**
+     * Create profile extractor
+     * @param bandWidth band width relative to lane image width (0..1]
+     */
+    public ProfileExtractor(float bandWidth) {
+        if (!(bandWidth > 0 && bandWidth <= 1))
+            throw new IllegalArgumentException("Invalid band width: " + bandWidth);
+        this.bandWidth = bandWidth;
+    }
+    
+    /**
+     * Get band width
+     * @return band width relative to lane image width
+     */
+    public float getBandWidth() {
+        return bandWidth;
+    }
+    
+    /**
+     * Extract profile along the searched lane centerline, without mask
+     * @param img lane image (gray-inverted)
+     * @return profile with relative x-values
+     */
+    public DensityProfile extract(ImagePlus img) {
+        return extract(img, searchCenterline(img), null);
+    }
+    
+    /**
+     * Extract profile along a lane centerline
+     * @param img lane image (gray-inverted)
+     * @param centerline centerline points as x-y image coordinates (pixels
+     * centers at integer values), linear between points and constant after
+     * the ends; null for the image vertical center line
+     * @param mask lane mask (same size as image, non-zero pixels are
+     * sampled) or null to sample all band pixels
+     * @return profile with relative x-values
+     */
+    public DensityProfile extract(ImagePlus img, List<Pair<Float,Float>> centerline, ImageProcessor mask) {
+        ImageProcessor ip = img.getProcessor();
+        if (!(ip instanceof ByteProcessor))
+            ip = ip.convertToByte(true);
+        int width = ip.getWidth();
+        int height = ip.getHeight();
+        byte[] pixels = (byte[]) ip.getPixels();
+        // Mask pixels
+        byte[] maskPixels = null;
+        if (mask != null) {
+            if (mask.getWidth() != width || mask.getHeight() != height)
+                throw new IllegalArgumentException("Mask size don't match image size");
+            maskPixels = (byte[]) ((mask instanceof ByteProcessor)? mask : mask.convertToByte(false)).getPixels();
+        }
+        float[] centers = rowsCenters(centerline, width, height);
+        int samples = Math.max(1, Math.round(bandWidth * width));
+        float[] result = new float[height];
+        // Rows bands count
+        int bands = ((long) width * height < PARALLEL_PIXELS)? 1 : Math.min(height, Runtime.getRuntime().availableProcessors());
+        byte[] maskRows = maskPixels;
+        IntStream.range(0, bands).parallel().forEach(b -> sampleRows(pixels, maskRows, width, centers, samples, result, (b * height) / bands, ((b + 1) * height) / bands));
+        return DensityProfile.relative(result);
+    }
+    
+    /**
+     * Search lane centerline as the straight line that best fits the
+     * centroids of blocks of rows with spots (block contrast over a quarter
+     * of the highest one), weighted by squared block contrast. Spots in a
+     * short range of rows give a vertical line through their centroid, and
+     * lanes without density the image vertical center line.
+     * @param img lane image (gray-inverted)
+     * @return centerline top and bottom points as x-y image coordinates
+     */
+    public static List<Pair<Float,Float>> searchCenterline(ImagePlus img) {
+        ImageProcessor ip = img.getProcessor();
+        if (!(ip instanceof ByteProcessor))
+            ip = ip.convertToByte(true);
+        int width = ip.getWidth();
+        int height = ip.getHeight();
+        byte[] pixels = (byte[]) ip.getPixels();
+        int blocks = (height + CENTERLINE_BLOCK - 1) / CENTERLINE_BLOCK;
+        // Blocks centroids and contrasts
+        double[] centroids = new double[blocks];
+        double[] contrasts = new double[blocks];
+        long[] columns = new long[width];
+        double highest = 0;
+        for (int n = 0; n < blocks; n++) {
+            int from = n * CENTERLINE_BLOCK;
+            int to = Math.min(height, from + CENTERLINE_BLOCK);
+            // Block columns sums
+            Arrays.fill(columns, 0);
+            for (int y = from; y < to; y += CENTERLINE_STEP) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++)
+                    columns[x] += pixels[offset + x] & 0xff;
+            }
+            long min = Long.MAX_VALUE, max = 0;
+            for (long c: columns) {
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            // Block centroid over half contrast
+            long half = (min + max) / 2;
+            double mass = 0, moment = 0;
+            for (int x = 0; x < width; x++) {
+                if (columns[x] <= half) continue;
+                mass += columns[x] - half;
+                moment += (double) x * (columns[x] - half);
+            }
+            if (mass <= 0) continue;
+            centroids[n] = moment / mass;
+            contrasts[n] = max - min;
+            highest = Math.max(highest, contrasts[n]);
+        }
+        // Weighted least squares sums (x = a + b * y) of blocks with spots
+        double sw = 0, sy = 0, sx = 0, syy = 0, sxy = 0;
+        double top = Double.MAX_VALUE, bottom = -Double.MAX_VALUE;
+        for (int n = 0; n < blocks; n++) {
+            if (highest <= 0 || contrasts[n] < highest / 4) continue;
+            double weight = contrasts[n] * contrasts[n];
+            double cx = centroids[n];
+            double cy = n * CENTERLINE_BLOCK + (CENTERLINE_BLOCK - 1) / 2.0;
+            sw += weight; sy += weight * cy; sx += weight * cx;
+            syy += weight * cy * cy; sxy += weight * cy * cx;
+            top = Math.min(top, cy);
+            bottom = Math.max(bottom, cy);
+        }
+        List<Pair<Float,Float>> line = new ArrayList<>(2);
+        if (sw <= 0) {
+            // Image vertical center line
+            line.add(new Pair<>((width - 1) / 2f, 0f));
+            line.add(new Pair<>((width - 1) / 2f, (float)(height - 1)));
+        } else if (bottom - top < height / 4) {
+            // Vertical line through spots centroid
+            line.add(new Pair<>((float)(sx / sw), 0f));
+            line.add(new Pair<>((float)(sx / sw), (float)(height - 1)));
+        } else {
+            double b = (sw * sxy - sy * sx) / (sw * syy - sy * sy);
+            double a = (sx - b * sy) / sw;
+            line.add(new Pair<>((float) a, 0f));
+            line.add(new Pair<>((float)(a + b * (height - 1)), (float)(height - 1)));
+        }
+        return line;
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Centerline x-value of each row (linear between points)
+     * @param centerline centerline points or null
+     * @param width image width
+     * @param height image height
+     * @return rows centers
+     */
+    private static float[] rowsCenters(List<Pair<Float,Float>> centerline, int width, int height) {
+        float[] centers = new float[height];
+        if (centerline == null || centerline.isEmpty()) {
+            Arrays.fill(centers, (width - 1) / 2f);
+            return centers;
+        }
+        // Points in ascending y order
+        List<Pair<Float,Float>> points = new ArrayList<>(centerline);
+        points.sort((p1, p2) -> Float.compare(p1.getSecond(), p2.getSecond()));
+        int k = 0;
+        for (int y = 0; y < height; y++) {
+            while (k < points.size() - 1 && points.get(k + 1).getSecond() <= y)
+                k++;
+            Pair<Float,Float> p1 = points.get(k);
+            Pair<Float,Float> p2 = points.get(Math.min(k + 1, points.size() - 1));
+            if (y <= p1.getSecond() || p1.getSecond().equals(p2.getSecond()))
+                centers[y] = p1.getFirst();
+            else if (y >= p2.getSecond())
+                centers[y] = p2.getFirst();
+            else
+                centers[y] = p1.getFirst() + (p2.getFirst() - p1.getFirst()) * (y - p1.getSecond()) / (p2.getSecond() - p1.getSecond());
+        }
+        return centers;
+    }
+    
+    /**
+     * Sample band mean of rows between [from-to), stored bottom-up. Band is
+     * across the centerline (normal to it), rows where the band ends are less
+     * than half row away (almost vertical centerline) only interpolate
+     * between columns.
+     * @param pixels image pixels
+     * @param mask mask pixels or null
+     * @param width image width
+     * @param centers rows centers
+     * @param samples samples by row (band width in pixels)
+     * @param result profile values
+     * @param from first row
+     * @param to last row (exclusive)
+     */
+    private static void sampleRows(byte[] pixels, byte[] mask, int width, float[] centers, int samples, float[] result, int from, int to) {
+        int height = centers.length;
+        int last = width - 1;
+        for (int y = from; y < to; y++) {
+            // Centerline slope (x by y) and band direction (unit normal)
+            float slope = (centers[Math.min(y + 1, height - 1)] - centers[Math.max(y - 1, 0)]) / Math.max(1, Math.min(y + 1, height - 1) - Math.max(y - 1, 0));
+            float norm = (float) Math.sqrt(1 + slope * slope);
+            float nx = 1 / norm;
+            float ny = -slope / norm;
+            float half = (samples - 1) / 2f;
+            float value;
+            // Band ends less than half row away from the row, horizontal band
+            if (Math.abs(ny) * half < 0.5f && mask == null) {
+                int offset = y * width;
+                // First sample position, pixel and interpolation weight
+                float start = centers[y] - half;
+                int x0 = (int) Math.floor(start);
+                float f = start - x0;
+                // Inner pixels are shared by two consecutive samples
+                long inner = sumRow(pixels, offset, x0 + 1, x0 + samples - 1, last);
+                int first = pixels[offset + clamp(x0, last)] & 0xff;
+                int end = pixels[offset + clamp(x0 + samples, last)] & 0xff;
+                value = ((1 - f) * (first + inner) + f * (inner + end)) / samples;
+            } else {
+                // Bilinear samples along the band
+                value = sampleBand(pixels, mask, width, height, centers[y] - half * nx, y - half * ny, nx, ny, samples);
+            }
+            result[(height - 1) - y] = value;
+        }
+    }
+    
+    /**
+     * Mean of bilinear samples along a band (only masked ones)
+     * @param pixels image pixels
+     * @param mask mask pixels or null
+     * @param width image width
+     * @param height image height
+     * @param px first sample x-position
+     * @param py first sample y-position
+     * @param nx x-step between samples
+     * @param ny y-step between samples
+     * @param samples samples count
+     * @return samples mean (0 if no sample is masked)
+     */
+    private static float sampleBand(byte[] pixels, byte[] mask, int width, int height, float px, float py, float nx, float ny, int samples) {
+        float maxX = width - 1, maxY = height - 1;
+        float sum = 0;
+        int count = 0;
+        for (int k = 0; k < samples; k++, px += nx, py += ny) {
+            // Clamped position (nearest image pixel out of the image)
+            float cx = (px < 0)? 0 : (px > maxX)? maxX : px;
+            float cy = (py < 0)? 0 : (py > maxY)? maxY : py;
+            int x0 = (int) cx;
+            int y0 = (int) cy;
+            float fx = cx - x0;
+            float fy = cy - y0;
+            int r0 = y0 * width;
+            if (mask != null && mask[((fy < 0.5f)? r0 : r0 + width) + ((fx < 0.5f)? x0 : x0 + 1)] == 0) continue;
+            int r1 = (y0 < height - 1)? r0 + width : r0;
+            int c1 = (x0 < width - 1)? x0 + 1 : x0;
+            int a = pixels[r0 + x0] & 0xff, b = pixels[r0 + c1] & 0xff;
+            int c = pixels[r1 + x0] & 0xff, d = pixels[r1 + c1] & 0xff;
+            float top = a + fx * (b - a);
+            float bottom = c + fx * (d - c);
+            sum += top + fy * (bottom - top);
+            count++;
+        }
+        return (count > 0)? sum / count : 0;
+    }
+    
+    /**
+     * Sum of row pixels between [from-to], pixels out of the image are
+     * the nearest image pixel
+     * @param pixels image pixels
+     * @param offset row offset
+     * @param from first pixel index
+     * @param to last pixel index (inclusive)
+     * @param last last pixel index of the row
+     * @return pixels sum
+     */
+    private static long sumRow(byte[] pixels, int offset, int from, int to, int last) {
+        if (from > to) return 0;
+        long sum = 0;
+        // Pixels out of the image
+        if (from < 0)
+            sum += (long)(Math.min(to, -1) - from + 1) * (pixels[offset] & 0xff);
+        if (to > last)
+            sum += (long)(to - Math.max(from, last + 1) + 1) * (pixels[offset + last] & 0xff);
+        // Pixels in the image
+        int end = offset + Math.min(to, last);
+        for (int i = offset + Math.max(from, 0); i <= end; i++)
+            sum += pixels[i] & 0xff;
+        return sum;
+    }
+    
+    /**
+     * Clamp pixel index to image limits
+     * @param x pixel index
+     * @param last last pixel index
+     * @return clamped index
+     */
+    private static int clamp(int x, int last) {
+        return (x < 0)? 0 : (x > last)? last : x;
+    }
+}
\ No newline at end of file
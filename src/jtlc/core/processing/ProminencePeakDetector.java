@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import java.util.ArrayList;
+import java.util.List;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Pair;
+
+/**
+ * Linear time peak detection, based on peaks prominence.
+ * Candidate peaks are the derivative sign changes of the profile, each one
+ * measured by his prominence (height over the lowest point that separates
+ * it from a higher peak). High and prominent peaks are kept, without limit
+ * of peaks count, and their sides are walked down to the foot of the peak
+ * without crossing the valley to the next kept peak, so areas never
+ * intersect.
+ * Every step is a single pass over the profile.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ProminencePeakDetector implements PeakDetector {
+    // Minimum peak height (density value)
+    private static final float MIN_PEAK_HEIGHT = 30.0f;
+    // Minimum peak prominence (density value over his highest base)
+    private static final float MIN_PEAK_PROMINENCE = 5.0f;
+    // Neighbours slope that ends the left and right peak sides walk
+    private static final float LEFT_STOP_SLOPE = 0.05f;
+    private static final float RIGHT_STOP_SLOPE = 0.3f;
+    // Slope of a line from the foot that starts the peak (value by index)
+    private static final float FOOT_SLOPE = 0.075f;
+    // Minimum peak width (indexs)
+    private static final int MIN_PEAK_WIDTH = 10;
+    
+    @Override
+    public List<Pair<Float,Float>> searchAreas(DensityProfile fn) {
+        float[] y = fn.getValues();
+        int size = fn.size();
+        List<Pair<Float,Float>> result = new ArrayList<>();
+        // Candidate peaks
+        int[] peaks = new int[(size + 1) / 2 + 1];
+        int count = searchMaxima(y, size, peaks);
+        // Lowest point to the nearest higher peak (each side)
+        int[] leftBases = searchBases(y, size, peaks, count, true);
+        int[] rightBases = searchBases(y, size, peaks, count, false);
+        // Keep high and prominent peaks
+        int[] selected = new int[count];
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            float height = y[peaks[k]];
+            float base = Math.max((leftBases[k] < 0)? -Float.MAX_VALUE : y[leftBases[k]], (rightBases[k] < 0)? -Float.MAX_VALUE : y[rightBases[k]]);
+            float prominence = height - ((base == -Float.MAX_VALUE)? height : base);
+            if (height > MIN_PEAK_HEIGHT && prominence >= MIN_PEAK_PROMINENCE)
+                selected[n++] = peaks[k];
+        }
+        // Peaks sides, between the valleys to the previous and next peaks
+        int from = 0;
+        for (int k = 0; k < n; k++) {
+            int peak = selected[k];
+            int to = (k + 1 < n)? searchValley(y, peak, selected[k + 1]) : size - 1;
+            int left = searchFoot(y, peak, from, -1);
+            int right = searchFoot(y, peak, to, 1);
+            from = to;
+            // Refine search of left point (according to line slope)
+            for (int i = left + 1; i < peak; i++) {
+                if (Math.abs(y[i] - y[left]) / (i - left) > FOOT_SLOPE) {
+                    left = i - 1;
+                    break;
+                }
+            }
+            // Refine search of rigth point (according to line slope)
+            for (int i = right - 1; i > peak; i--) {
+                if (Math.abs(y[right] - y[i]) / (right - i) > FOOT_SLOPE) {
+                    right = i + 1;
+                    break;
+                }
+            }
+            // Exclude feet points
+            left++; right--;
+            // Remove narrow peaks
+            if (right - left > MIN_PEAK_WIDTH)
+                result.add(new Pair<>(fn.getX(left), fn.getX(right)));
+        }
+        return result;
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Search local maxima (derivative changes from positive to negative),
+     * flat maxima are centered. Profile ends are maxima if the profile goes
+     * down from them.
+     * @param y profile values
+     * @param size values count
+     * @param peaks output maxima positions (ascending)
+     * @return maxima count
+     */
+    private static int searchMaxima(float[] y, int size, int[] peaks) {
+        int count = 0;
+        int i = 0;
+        while (i < size) {
+            // Flat run [i..j]
+            int j = i;
+            while (j + 1 < size && y[j + 1] == y[i])
+                j++;
+            boolean leftLower = (i == 0) || y[i - 1] < y[i];
+            boolean rightLower = (j == size - 1) || y[j + 1] < y[j];
+            if (leftLower && rightLower && !(i == 0 && j == size - 1))
+                peaks[count++] = (i + j) / 2;
+            i = j + 1;
+        }
+        return count;
+    }
+    
+    /**
+     * Search for each peak the lowest point between it and the nearest
+     * higher (or equal) peak to one side, or the profile end. Uses a stack of
+     * descending peaks, so each point and peak is processed once.
+     * @param y profile values
+     * @param size values count
+     * @param peaks peaks positions (ascending)
+     * @param count peaks count
+     * @param left search to the left side (or to the right side)
+     * @return bases positions (-1 if the peak is at the profile end)
+     */
+    private static int[] searchBases(float[] y, int size, int[] peaks, int count, boolean left) {
+        int[] bases = new int[count];
+        // Stack of peaks and lowest point between each peak and the previous
+        int[] stack = new int[count];
+        int[] gaps = new int[count];
+        int top = -1;
+        int step = left? 1 : -1;
+        int pos = left? 0 : size - 1;
+        // Lowest point since the last stacked peak
+        int lowest = -1;
+        for (int n = 0; n < count; n++) {
+            int k = left? n : count - 1 - n;
+            int peak = peaks[k];
+            for (; pos != peak; pos += step)
+                if (lowest < 0 || y[pos] < y[lowest])
+                    lowest = pos;
+            pos = peak + step;
+            // Lower peaks are crossed (profile end peaks have no gap)
+            while (top >= 0 && y[peaks[stack[top]]] <= y[peak]) {
+                if (gaps[top] >= 0 && (lowest < 0 || y[gaps[top]] < y[lowest]))
+                    lowest = gaps[top];
+                top--;
+            }
+            bases[k] = lowest;
+            // Stack peak
+            top++;
+            stack[top] = k;
+            gaps[top] = lowest;
+            lowest = -1;
+        }
+        return bases;
+    }
+    
+    /**
+     * Search the lowest point between two peaks
+     * @param y profile values
+     * @param from first peak position
+     * @param to second peak position
+     * @return valley position
+     */
+    private static int searchValley(float[] y, int from, int to) {
+        int valley = from;
+        for (int i = from + 1; i < to; i++)
+            if (y[i] < y[valley])
+                valley = i;
+        return valley;
+    }
+    
+    /**
+     * Walk a peak side down to his foot: lowest point before the profile
+     * rises again (same stop rules as legacy search), or the bound is reached
+     * @param y profile values
+     * @param peak peak position
+     * @param bound last position to walk (inclusive)
+     * @param step walk direction (-1 left, 1 right)
+     * @return foot position
+     */
+    private static int searchFoot(float[] y, int peak, int bound, int step) {
+        int foot = peak;
+        for (int i = peak + step; i != bound + step; i += step) {
+            if (y[i] < y[foot]) {
+                foot = i;
+            } else if (i > 0 && i < y.length - 1 && y[i - 1] > y[foot] && y[i + 1] > y[foot]) {
+                // Slope between neighbours
+                float slope = Math.abs((y[i + 1] - y[i - 1]) / 2);
+                if ((step < 0 && slope > LEFT_STOP_SLOPE) || (step > 0 && slope < RIGHT_STOP_SLOPE))
+                    break;
+            }
+        }
+        return foot;
+    }
+}
\ No newline at end of file
@@ -160,6 +160,23 @@ public class Reporter {
         return true;
     }
     
+    /**
+     * Create a combined CSV Text report file for many experiments
+     * @param experiments experiments to report
+     * @param file file to write
+     * @return success or error
+     */
+    public boolean saveExperimentsCSVReport(List<Experiment> experiments, File file) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(file))) {
+            for (Experiment experiment: experiments)
+                pw.print(createExperimentCSVReport(experiment) + "\r\n=======\r\n");
+        } catch (IOException ex) {
+            System.err.println("Can't create experiments csv file " + file.toString());
+            return false;
+        }
+        return true;
+    }
+    
     /**
      * Generate Experiment CSV Text report as string
      * @param experiment exmperient to process
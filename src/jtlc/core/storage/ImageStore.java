@@ -22,13 +22,19 @@ import ij.io.FileSaver;
 import ij.io.Opener;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 /**
  * Image Storage Manipulation.
@@ -61,6 +67,23 @@ public class ImageStore {
         return image;
     }
     
+    /**
+     * Load Image from a project "zip" file entry, generate ImagePlus object
+     * @param zip zip file
+     * @param entry image entry name
+     * @param name image name
+     * @return ImagePlus - image object
+     * @throws IOException 
+     */
+    public static ImagePlus openImage(File zip, String entry, String name) throws IOException {
+        try (ZipFile zif = new ZipFile(zip, ZipFile.OPEN_READ)) {
+            ZipEntry zie = zif.getEntry(entry);
+            if (zie == null)
+                throw new FileNotFoundException(entry + " not found in " + zip);
+            return openImage(zif.getInputStream(zie), name);
+        }
+    }
+    
     /**
      * Save Any Image as JPG
      * @param img ImagePlus image object to save
@@ -80,12 +103,25 @@ public class ImageStore {
      * @throws IOException
      */
     public static ByteArrayOutputStream saveImage(ImagePlus img, int quality) throws IOException {
-        // JpgWritter
-        ImageWriter jpgWriter = ImageIO.getImageWritersByFormatName("jpg").next();
         // Result Stream
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // ImageOutputStream
-        ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream);
+        saveImage(img, quality, outputStream);
+        outputStream.close();
+        return outputStream;
+    }
+    
+    /**
+     * Save ImagePlus as JPEG to OutputStream (stream is not closed)
+     * @param img Image to save
+     * @param quality jpeg quality (0..100)
+     * @param outputStream destination stream
+     * @throws IOException
+     */
+    public static void saveImage(ImagePlus img, int quality, OutputStream outputStream) throws IOException {
+        // JpgWritter
+        ImageWriter jpgWriter = ImageIO.getImageWritersByFormatName("jpg").next();
+        // ImageOutputStream (memory cached, no temp files)
+        ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream);
         // JpgParams
         ImageWriteParam jpgWriteParam = jpgWriter.getDefaultWriteParam();
         jpgWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
@@ -100,8 +136,33 @@ public class ImageStore {
         // Close and dispose streams
         jpgWriter.dispose();
         imageOutputStream.close();
-        outputStream.close();
-        return outputStream;
+    }
+    
+    /**
+     * Save ImagePlus as PNG (lossless) to OutputStream (stream is not closed)
+     * @param img Image to save
+     * @param outputStream destination stream
+     * @throws IOException
+     */
+    public static void savePngImage(ImagePlus img, OutputStream outputStream) throws IOException {
+        // PngWritter
+        ImageWriter pngWriter = ImageIO.getImageWritersByFormatName("png").next();
+        // ImageOutputStream (memory cached, no temp files)
+        ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream);
+        // PngParams, mid deflate level is much faster than default and almost same size
+        ImageWriteParam pngWriteParam = pngWriter.getDefaultWriteParam();
+        if (pngWriteParam.canWriteCompressed()) {
+            pngWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            pngWriteParam.setCompressionQuality(0.5f);
+        }
+        //
+        IIOImage iioImage = new IIOImage(img.getBufferedImage(), null, null);
+        // Write Image
+        pngWriter.setOutput(imageOutputStream);
+        pngWriter.write(null, iioImage, pngWriteParam);
+        // Close and dispose streams
+        pngWriter.dispose();
+        imageOutputStream.close();
     }
     
     /**
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Memory-mapped project archive reader.
+ * Maps a whole project zip file and reads its central directory, STORED
+ * entries (images, binary means) are exposed as read-only buffer views of
+ * the mapping without copying them to the heap; DEFLATED entries (xml) are
+ * inflated on read. Intended for read-only analytics over many projects:
+ * the mapping is released by the garbage collector, not on close.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class MappedArchive implements Closeable {
+    // Zip records signatures
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    // Zip records fixed sizes
+    private static final int END_SIZE = 22;
+    private static final int CENTRAL_SIZE = 46;
+    private static final int LOCAL_SIZE = 30;
+    // Archive file
+    private final File file;
+    // Archive file channel and whole file mapping
+    private final FileChannel channel;
+    private final MappedByteBuffer mapping;
+    // Archive entries by name
+    private final Map<String,Entry> entries;
+    
+    /**
+     * Open and map archive file, reads its entries
+     * @param file archive file
+     * @throws IOException if can't be mapped or is not a valid (non zip64) archive
+     */
+    public MappedArchive(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new ZipException("Archive too large to be mapped: " + file);
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            entries = readEntries();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Get archive file
+     * @return archive file
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Get entries names, in archive order
+     * @return entries names
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+    
+    /**
+     * Check if archive has an entry
+     * @param name entry name
+     * @return true/false
+     */
+    public boolean hasEntry(String name) {
+        return entries.containsKey(name);
+    }
+    
+    /**
+     * Check if an entry is stored without compression (read without copy)
+     * @param name entry name
+     * @return true/false
+     * @throws IOException if entry not found
+     */
+    public boolean isStored(String name) throws IOException {
+        return getEntry(name).method == Entry.STORED;
+    }
+    
+    /**
+     * Get entry data as read-only buffer (big-endian, as any new buffer).
+     * STORED entries are views of the mapping, DEFLATED ones are inflated
+     * to a heap buffer.
+     * @param name entry name
+     * @return entry data
+     * @throws IOException if entry not found or invalid
+     */
+    public ByteBuffer getBuffer(String name) throws IOException {
+        Entry entry = getEntry(name);
+        ByteBuffer data = getData(entry);
+        if (entry.method == Entry.STORED)
+            return data;
+        // Inflate whole entry
+        byte[] result = new byte[entry.size];
+        try (InputStream input = inflate(data)) {
+            int read = 0;
+            for (int n = 0; n != -1 && read < result.length; read += n)
+                n = input.read(result, read, result.length - read);
+            if (read < result.length)
+                throw new ZipException("Truncated entry: " + name);
+        }
+        return ByteBuffer.wrap(result).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Get entry data as input stream (inflated while read if needed)
+     * @param name entry name
+     * @return entry input stream
+     * @throws IOException if entry not found or invalid
+     */
+    public InputStream getInputStream(String name) throws IOException {
+        Entry entry = getEntry(name);
+        ByteBuffer data = getData(entry);
+        return (entry.method == Entry.STORED)? new BufferInputStream(data) : inflate(data);
+    }
+    
+    /**
+     * Close archive file (buffers already returned remain valid)
+     * @throws IOException 
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Read central directory entries
+     * @return entries by name
+     * @throws IOException 
+     */
+    private Map<String,Entry> readEntries() throws IOException {
+        // End of central directory record (before an optional comment)
+        int end = -1;
+        for (int i = mapping.limit() - END_SIZE; i >= Math.max(0, mapping.limit() - END_SIZE - 0xFFFF); i--) {
+            if (mapping.getInt(i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0)
+            throw new ZipException("Zip end header not found: " + file);
+        int count = Short.toUnsignedInt(mapping.getShort(end + 10));
+        long offset = Integer.toUnsignedLong(mapping.getInt(end + 16));
+        if (count == 0xFFFF || offset == 0xFFFFFFFFL)
+            throw new ZipException("Zip64 archives not supported: " + file);
+        // Central directory headers
+        Map<String,Entry> result = new LinkedHashMap<>(count * 2);
+        int position = (int) offset;
+        for (int i = 0; i < count; i++) {
+            if (position + CENTRAL_SIZE > end || mapping.getInt(position) != CENTRAL_SIGNATURE)
+                throw new ZipException("Invalid zip central directory: " + file);
+            int method = Short.toUnsignedInt(mapping.getShort(position + 10));
+            long compressed = Integer.toUnsignedLong(mapping.getInt(position + 20));
+            long size = Integer.toUnsignedLong(mapping.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(mapping.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(mapping.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(mapping.getShort(position + 32));
+            long local = Integer.toUnsignedLong(mapping.getInt(position + 42));
+            if (compressed == 0xFFFFFFFFL || size > Integer.MAX_VALUE || local == 0xFFFFFFFFL)
+                throw new ZipException("Zip64 archives not supported: " + file);
+            if (position + CENTRAL_SIZE + nameLength > end)
+                throw new ZipException("Invalid zip central directory: " + file);
+            // Entry name (utf-8)
+            byte[] name = new byte[nameLength];
+            ByteBuffer names = mapping.duplicate();
+            names.position(position + CENTRAL_SIZE);
+            names.get(name);
+            result.put(new String(name, StandardCharsets.UTF_8), new Entry(method, (int) local, (int) compressed, (int) size));
+            position += CENTRAL_SIZE + nameLength + extraLength + commentLength;
+        }
+        return result;
+    }
+    
+    /**
+     * Get entry by name
+     * @param name entry name
+     * @return archive entry
+     * @throws IOException if not found
+     */
+    private Entry getEntry(String name) throws IOException {
+        Entry entry = entries.get(name);
+        if (entry == null)
+            throw new ZipException("Entry not found: " + name + " in " + file);
+        if (entry.method != Entry.STORED && entry.method != Entry.DEFLATED)
+            throw new ZipException("Unsupported compression method " + entry.method + ": " + name);
+        return entry;
+    }
+    
+    /**
+     * Get entry raw (maybe compressed) data as view of the mapping
+     * @param entry archive entry
+     * @return read-only data view
+     * @throws IOException if local header is invalid
+     */
+    private ByteBuffer getData(Entry entry) throws IOException {
+        int local = entry.offset;
+        if (local + LOCAL_SIZE > mapping.limit() || mapping.getInt(local) != LOCAL_SIGNATURE)
+            throw new ZipException("Invalid zip local header: " + file);
+        int start = local + LOCAL_SIZE + Short.toUnsignedInt(mapping.getShort(local + 26)) + Short.toUnsignedInt(mapping.getShort(local + 28));
+        if (start + (long) entry.compressed > mapping.limit())
+            throw new ZipException("Truncated zip entry data: " + file);
+        ByteBuffer data = mapping.duplicate();
+        data.position(start);
+        data.limit(start + entry.compressed);
+        return data.slice().asReadOnlyBuffer();
+    }
+    
+    /**
+     * Inflate raw deflated data
+     * @param data deflated data
+     * @return inflated input stream (releases inflater on close)
+     */
+    private static InputStream inflate(ByteBuffer data) {
+        Inflater inflater = new Inflater(true);
+        // Extra dummy byte needed by raw inflater
+        InputStream input = new SequenceInputStream(new BufferInputStream(data), new ByteArrayInputStream(new byte[1]));
+        return new InflaterInputStream(input, inflater) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                inflater.end();
+            }
+        };
+    }
+    
+    /**
+     * Archive entry (central directory data)
+     */
+    private static class Entry {
+        // Compression methods
+        static final int STORED = 0;
+        static final int DEFLATED = 8;
+        // Entry compression method, local header offset and sizes
+        final int method;
+        final int offset;
+        final int compressed;
+        final int size;
+        
+        Entry(int method, int offset, int compressed, int size) {
+            this.method = method;
+            this.offset = offset;
+            this.compressed = compressed;
+            this.size = size;
+        }
+    }
+    
+    /**
+     * Input stream over a buffer (not copied)
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public int read() {
+            return buffer.hasRemaining()? buffer.get() & 0xFF : -1;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+        
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+        
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
\ No newline at end of file
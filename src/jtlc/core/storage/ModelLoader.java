@@ -17,36 +17,43 @@
 package jtlc.core.storage;
 
 
+import ij.ImagePlus;
+import java.awt.Rectangle;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 //
 import jtlc.core.processing.AnalysisProcessing.Axis;
+import jtlc.core.processing.ImageProcessing;
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Point;
 import jtlc.core.model.Experiment;
+import jtlc.core.model.ExperimentSummary;
+import jtlc.core.model.LazyImage;
 import jtlc.core.model.Peak;
 import jtlc.core.model.Sample;
 
@@ -59,24 +66,98 @@ import jtlc.core.model.Sample;
 public class ModelLoader {
     // Experiment xml data file
     private static final String EXPERIMENT_FILE = "experiment.xml";
+    // Experiment summary xml file (explorer metadata)
+    private static final String SUMMARY_FILE = "summary.xml";
+    // Thumbnail max width/height (projects without summary)
+    private static final int THUMBNAIL_SIZE = 200;
+    // XML streaming input factory (per thread, without DTDs)
+    private static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    });
     // Error logger
     private static final Logger LOG = LoggerFactory.getLogger(ModelLoader.class);
     
     /**
-     * Load All experiments in a folder
-     * @param folder folder to explore
-     * @return list of experiments in the folder
+     * Load project summary (explorer metadata and thumbnail) without loading
+     * the experiment. Projects saved without summary are read from experiment
+     * data, decoding only the source image to build the thumbnail.
+     * @param file project file
+     * @return experiment summary or null if can't be loaded
      */
-    public static List<Experiment> loadExperiments(File folder) {
-        // List files, filter by extension .jtlc
-        File[] files = folder.listFiles((File file, String name) -> name.endsWith(".jtlc"));
-        // Experiments list result
-        List<Experiment> experiments = new LinkedList<>();
-        // Load all projects in the folder
-        for (File file : files)
-            if (!file.isDirectory() && file.isFile())
-                experiments.add(ModelLoader.loadExperiment(file));
-        return experiments;
+    public static ExperimentSummary loadSummary(File file) {
+        // File state before reading
+        long modified = file.lastModified();
+        long length = file.length();
+        // Projects ZIP
+        try (ZipFile zif = new ZipFile(file, ZipFile.OPEN_READ)) {
+            // Summary or Experiment XML Data
+            ZipEntry zie = zif.getEntry(SUMMARY_FILE);
+            boolean summary = zie != null;
+            if (!summary)
+                zie = zif.getEntry(EXPERIMENT_FILE);
+            // Name, Description, Dates and Thumbnail (or Source Image) paths
+            String name, description, sampleDate = null, analysisDate = null, thumbnailPath = null, imagePath = null;
+            try (InputStream is = zif.getInputStream(zie)) {
+                XMLStreamReader xml = createReader(is);
+                try {
+                    name = optional(xml, "name");
+                    description = optional(xml, "description");
+                    if (summary) {
+                        sampleDate = attribute(xml, "sample-date");
+                        analysisDate = attribute(xml, "analysis-date");
+                        thumbnailPath = xml.getAttributeValue(null, "thumbnail");
+                    } else {
+                        // Experiment data, read until dates and images
+                        while (imagePath == null && xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                            if (xml.getLocalName().equals("dates")) {
+                                sampleDate = attribute(xml, "sample-date");
+                                analysisDate = attribute(xml, "analysis-date");
+                            }
+                            if (xml.getLocalName().equals("images"))
+                                imagePath = optional(xml, "source-image");
+                            skipElement(xml);
+                        }
+                    }
+                } finally {
+                    xml.close();
+                }
+            }
+            DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ROOT);
+            // Thumbnail
+            byte[] thumbnail = null;
+            if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
+                ZipEntry zimage = zif.getEntry(thumbnailPath);
+                if (zimage != null) {
+                    try (InputStream inputs = zif.getInputStream(zimage)) {
+                        thumbnail = readBytes(inputs);
+                    }
+                }
+            } else if (imagePath != null && !imagePath.isEmpty()) {
+                ZipEntry zimage = zif.getEntry(imagePath);
+                if (zimage != null) {
+                    ImagePlus img = ImageStore.openImage(zif.getInputStream(zimage), "source-image");
+                    thumbnail = ImageStore.saveImage(ImageProcessing.thumbnailImage(img, THUMBNAIL_SIZE), 85).toByteArray();
+                    img.flush();
+                }
+            }
+            return new ExperimentSummary(file, modified, length, name, description, df.parse(sampleDate), df.parse(analysisDate), thumbnail);
+        } catch (IOException | XMLStreamException | ParseException | RuntimeException ex) {
+            LOG.error("Error loading project summary : " + file, ex);
+        }
+        // summary can't be correctly loaded
+        return null;
+    }
+    
+    /**
+     * Load Projects Experiment zip file, images are decoded lazily
+     * @param file file path to load
+     * @return loaded experiment
+     */
+    public static Experiment loadExperiment(File file) {
+        return loadExperiment(file, true);
     }
     
     /**
@@ -85,323 +166,578 @@ public class ModelLoader {
      * Load Projects Images (and samples split images)
      * Load Samples Means and other data
      * @param file file path to load
+     * @param lazy decode images on first access (from the file) or now
      * @return loaded experiment
      */    
-    public static Experiment loadExperiment(File file) {
+    public static Experiment loadExperiment(File file, boolean lazy) {
         // Projects ZIP
         try (ZipFile zif = new ZipFile(file, ZipFile.OPEN_READ)) {
-            // Experiment XML Data
-            ZipEntry zie = zif.getEntry(EXPERIMENT_FILE);
-            // XML file input stream
-            try (InputStream is = zif.getInputStream(zie)) {
-                // Result Experiment
-                Experiment model = new Experiment();
-                // Document Builder-Parser
-                DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-                DocumentBuilder db = dbf.newDocumentBuilder();
-                Document doc = db.parse(is);
-                // Experiment Node
-                Element experiment =  doc.getDocumentElement();
-                // Name
-                model.setName(experiment.getAttribute("name"));
-                // Description
-                model.setDescription(experiment.getAttribute("description"));
-                // Dates
-                Node dates = experiment.getElementsByTagName("dates").item(0);
-                NamedNodeMap attributes = dates.getAttributes();
-                DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ROOT);
-                // Analysis Date
-                Node date = attributes.getNamedItem("analysis-date");
-                model.setAnalysisDate(df.parse(date.getNodeValue()));
-                // Experiment Date
-                date = attributes.getNamedItem("sample-date");
-                model.setSampleDate(df.parse(date.getNodeValue()));
-                // Images
-                NodeList images = experiment.getElementsByTagName("images");
-                if (images.getLength() > 0) {
-                    Node image = images.item(0);
-                    NamedNodeMap imagesPath = image.getAttributes();
+            return readProject(entries(zif), file, lazy? ImageLoad.LAZY : ImageLoad.NOW);
+        } catch (NullPointerException | IllegalArgumentException | IOException | XMLStreamException ex) {
+            LOG.error("Error reading project zip file : " + file, ex);
+        } catch (ParseException ex) {
+            LOG.error("Error parsing Date", ex);
+        }
+        // experiment can't be correctly loaded
+        return null;
+    }
+    
+    /**
+     * Load Projects Experiment data only (no images) for analytics
+     * The project file is memory-mapped, binary means are decoded straight
+     * from the mapping so heap use doesn't grow with images or zip streams.
+     * @param file file path to load
+     * @return loaded experiment without images or null if can't be loaded
+     */
+    public static Experiment loadExperimentData(File file) {
+        // Mapped Projects ZIP
+        try (MappedArchive archive = new MappedArchive(file)) {
+            return readProject(entries(archive), file, ImageLoad.SKIP);
+        } catch (NullPointerException | IllegalArgumentException | IOException | XMLStreamException ex) {
+            LOG.error("Error reading project zip file : " + file, ex);
+        } catch (ParseException ex) {
+            LOG.error("Error parsing Date", ex);
+        }
+        // experiment can't be correctly loaded
+        return null;
+    }
+    
+    /**
+     * Read project experiment xml and samples data
+     * @param entries project entries
+     * @param file project file
+     * @param images images loading
+     * @return loaded experiment
+     * @throws IOException
+     * @throws XMLStreamException
+     * @throws ParseException 
+     */
+    private static Experiment readProject(Entries entries, File file, ImageLoad images) throws IOException, XMLStreamException, ParseException {
+        // XML file input stream
+        try (InputStream is = entries.open(EXPERIMENT_FILE)) {
+            // Result Experiment
+            Experiment model = new Experiment();
+            // Streaming reader, positioned at experiment element
+            XMLStreamReader xml = createReader(is);
+            try {
+                readExperiment(xml, model, entries, file, images);
+            } finally {
+                xml.close();
+            }
+            // Experiment file/save status
+            model.setSaved(true);
+            model.setFile(file);
+            model.setChanged(false);
+            // return loaded experiment
+            return model;
+        }
+    }
+    
+    /**
+     * Create XML streaming reader positioned at the root element
+     * @param input XML input stream
+     * @return XML reader
+     * @throws XMLStreamException 
+     */
+    private static XMLStreamReader createReader(InputStream input) throws XMLStreamException {
+        XMLStreamReader xml = FACTORY.get().createXMLStreamReader(input);
+        xml.nextTag();
+        return xml;
+    }
+    
+    /**
+     * Read Experiment element (reader at its start)
+     * @param xml XML reader
+     * @param model experiment to fill
+     * @param entries project entries
+     * @param file project file
+     * @param images images loading
+     * @throws XMLStreamException
+     * @throws IOException
+     * @throws ParseException 
+     */
+    private static void readExperiment(XMLStreamReader xml, Experiment model, Entries entries, File file, ImageLoad images) throws XMLStreamException, IOException, ParseException {
+        // Format version (1 if not present)
+        String version = xml.getAttributeValue(null, "version");
+        if (version != null && Integer.valueOf(version) > ModelSaver.FORMAT_VERSION)
+            LOG.warn("Project file format version " + version + " is newer than supported: " + file);
+        // Name and Description
+        model.setName(attribute(xml, "name"));
+        model.setDescription(attribute(xml, "description"));
+        // Experiment Data
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (xml.getLocalName()) {
+                case "dates": {
+                    DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ROOT);
+                    model.setAnalysisDate(df.parse(attribute(xml, "analysis-date")));
+                    model.setSampleDate(df.parse(attribute(xml, "sample-date")));
+                    skipElement(xml);
+                    break;
+                }
+                case "images": {
                     // Source Image
-                    Node sourceImagePath = imagesPath.getNamedItem("source-image");
-                    if (sourceImagePath != null) {
-                        String imagePath = sourceImagePath.getNodeValue();
-                        ZipEntry zimage = zif.getEntry(imagePath);
-                        if (zimage != null) {
-                            InputStream inputs = zif.getInputStream(zimage);                        
-                            model.setSourceImage(ImageStore.openImage(inputs, "source-image"));
-                        }
+                    String imagePath = xml.getAttributeValue(null, "source-image");
+                    if (imagePath != null && images != ImageLoad.SKIP && entries.contains(imagePath)) {
+                        if (images == ImageLoad.LAZY)
+                            model.setSourceImageLoader(lazyImage(file, imagePath, "source-image", null));
+                        else
+                            model.setSourceImage(ImageStore.openImage(entries.open(imagePath), "source-image"));
                     }
                     // Processed Image
-                    Node processedImagePath = imagesPath.getNamedItem("processed-image");
-                    if (processedImagePath != null) {
-                        String imagePath = processedImagePath.getNodeValue();
-                        ZipEntry zimage = zif.getEntry(imagePath);
-                        if (zimage != null) {
-                            InputStream inputs = zif.getInputStream(zimage);                        
-                            model.setProcessedImage(ImageStore.openImage(inputs, "processed-image"));
-                        }                        
+                    imagePath = xml.getAttributeValue(null, "processed-image");
+                    if (imagePath != null && images != ImageLoad.SKIP && entries.contains(imagePath)) {
+                        if (images == ImageLoad.LAZY)
+                            model.setProcessedImageLoader(lazyImage(file, imagePath, "processed-image", null));
+                        else
+                            model.setProcessedImage(ImageStore.openImage(entries.open(imagePath), "processed-image"));
                     }
+                    skipElement(xml);
+                    break;
                 }
-                // Parameters
-                NodeList parameters = experiment.getElementsByTagName("parameters");
-                if (parameters.getLength() > 0) {
-                    Node param = parameters.item(0);
-                    attributes = param.getAttributes();
-                    // Rotation Angle
-                    model.setRotationAngle(Double.valueOf(attributes.getNamedItem("rotation-angle").getNodeValue()));
-                    // Flip Axis
-                    String savedFlip = attributes.getNamedItem("rotation-flip").getNodeValue();
-                    Axis flip = Axis.valueOf(savedFlip);
-                    model.setFlipAxis(flip);
-                    // Data
-                    Node other = parameters.item(0);                    
-                    List<Node> parametersNodes = filterNodes(other.getChildNodes(), Node.ELEMENT_NODE);
-                    for (Node item : parametersNodes) {
+                case "parameters": {
+                    // Rotation Angle and Flip Axis
+                    model.setRotationAngle(Double.valueOf(attribute(xml, "rotation-angle")));
+                    model.setFlipAxis(Axis.valueOf(attribute(xml, "rotation-flip")));
+                    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
                         // Cut-Points
-                        if (item.getNodeName().equals("cut-points")) {
-                            attributes = item.getAttributes();
-                            int lx = Integer.valueOf(attributes.getNamedItem("lower-x").getNodeValue());
-                            int ly = Integer.valueOf(attributes.getNamedItem("lower-y").getNodeValue());
-                            int ux = Integer.valueOf(attributes.getNamedItem("upper-x").getNodeValue());
-                            int uy = Integer.valueOf(attributes.getNamedItem("upper-y").getNodeValue());
+                        if (xml.getLocalName().equals("cut-points")) {
+                            int lx = Integer.valueOf(attribute(xml, "lower-x"));
+                            int ly = Integer.valueOf(attribute(xml, "lower-y"));
+                            int ux = Integer.valueOf(attribute(xml, "upper-x"));
+                            int uy = Integer.valueOf(attribute(xml, "upper-y"));
                             model.setCutPoints(new Point(ux, uy), new Point(lx, ly));
-                            continue;
                         }
                         // Step-Comments
-                        if (item.getNodeName().equals("step-comments")) {
-                            attributes = item.getAttributes();
-                            // Cut step comments
-                            Node nit = attributes.getNamedItem("cut");
-                            model.setCutComments((nit != null)? nit.getNodeValue() : "");
-                            // Rotation step comments
-                            nit = attributes.getNamedItem("rotation");
-                            model.setRotationComments((nit != null)? nit.getNodeValue() : "");
-                            // Source step comments
-                            nit = attributes.getNamedItem("source");
-                            model.setSourceImageComments((nit != null)? nit.getNodeValue() : "");
-                            // Split step comments
-                            nit = attributes.getNamedItem("split");
-                            model.setSplitComments((nit != null)? nit.getNodeValue() : "");
-                            // Data step comments
-                            nit = attributes.getNamedItem("data");
-                            model.setDataComments((nit != null)? nit.getNodeValue() : "");
-                            // Comparation step comments
-                            nit = attributes.getNamedItem("comparation");
-                            model.setComparationComments((nit != null)? nit.getNodeValue() : "");
+                        if (xml.getLocalName().equals("step-comments")) {
+                            model.setCutComments(optional(xml, "cut"));
+                            model.setRotationComments(optional(xml, "rotation"));
+                            model.setSourceImageComments(optional(xml, "source"));
+                            model.setSplitComments(optional(xml, "split"));
+                            model.setDataComments(optional(xml, "data"));
+                            model.setComparationComments(optional(xml, "comparation"));
                         }
+                        skipElement(xml);
                     }
+                    break;
                 }
-                // Samples
-                NodeList samples = experiment.getElementsByTagName("samples");
-                if (samples.getLength() > 0) {
-                    Node item = samples.item(0);
-                    attributes = item.getAttributes();
-                    int size = Integer.valueOf(attributes.getNamedItem("length").getNodeValue());
-                    //
-                    List<Node> sampleNodes = filterNodes(item.getChildNodes(), Node.ELEMENT_NODE);
-                    if (sampleNodes.size() != size)
-                        System.err.println("Experiment XML error: Invalid Samples List Length");
-                    //
+                case "samples": {
+                    int size = Integer.valueOf(attribute(xml, "length"));
                     ArrayList<Sample> samplesList = new ArrayList<>(size);
-                    //
-                    for (Node node: sampleNodes) {
-                        Sample sample = new Sample();
-                        // Id
-                        attributes = node.getAttributes();
-                        sample.setId(Integer.valueOf(attributes.getNamedItem("id").getNodeValue()));
-                        // Data
-                        List<Node> sampleData = filterNodes(node.getChildNodes(), Node.ELEMENT_NODE);
-                        for (Node dataNode : sampleData) {
-                            // Images
-                            if (dataNode.getNodeName().equals("images")) {
-                                attributes = dataNode.getAttributes();
-                                // Source Image
-                                Node simage = attributes.getNamedItem("source-image");
-                                if (simage != null) {
-                                    String imagePath = simage.getNodeValue();
-                                    ZipEntry zimage = zif.getEntry(imagePath);
-                                    InputStream inputs = zif.getInputStream(zimage);
-                                    sample.setSourceImage(ImageStore.openImage(inputs, "source-image"));
-                                }
-                                // Processed Image
-                                Node pimage = attributes.getNamedItem("processed-image");
-                                if (pimage != null) {
-                                    String imagePath = pimage.getNodeValue();
-                                    ZipEntry zimage = zif.getEntry(imagePath);
-                                    InputStream inputs = zif.getInputStream(zimage);
-                                    sample.setProcessedImage(ImageStore.openImage(inputs, "processed-image"));
-                                }
-                            }
-                            // Parameters
-                            if (dataNode.getNodeName().equals("parameters")) {
-                                attributes = dataNode.getAttributes();
-                                sample.setName(attributes.getNamedItem("name").getNodeValue());
-                                sample.setFrontPoint(Integer.valueOf(attributes.getNamedItem("front-point").getNodeValue()));
-                                sample.setSeedPoint(Integer.valueOf(attributes.getNamedItem("seed-point").getNodeValue()));
-                                Node area = attributes.getNamedItem("area");
-                                if (area != null)
-                                    sample.setTotalSurface(Float.valueOf(area.getNodeValue()));
-                                sample.setLinked(Boolean.valueOf(attributes.getNamedItem("linked").getNodeValue()));
-                                int start = Integer.valueOf(attributes.getNamedItem("start").getNodeValue());
-                                int end = Integer.valueOf(attributes.getNamedItem("end").getNodeValue());
-                                sample.setLimits(new Point(start, end));
-                            }
-                            // Comments
-                            if (dataNode.getNodeName().equals("comments")) {
-                                attributes = dataNode.getAttributes();
-                                sample.setAnalysisComments(attributes.getNamedItem("analysis").getNodeValue());
-                                sample.setComments(attributes.getNamedItem("sample").getNodeValue());
-                                sample.setResultsComments(attributes.getNamedItem("results").getNodeValue());
-                            }
-                            // Mean
-                            if (dataNode.getNodeName().equals("mean")) {
-                                attributes = dataNode.getAttributes();
-                                String fpath = attributes.getNamedItem("file").getNodeValue();
-                                ZipEntry zfile = zif.getEntry(fpath);
-                                InputStream inputs = zif.getInputStream(zfile);
-                                sample.setMean(loadMean(inputs));
-                            }
-                            // Peaks
-                            if (dataNode.getNodeName().equals("peaks")) {
-                                attributes = dataNode.getAttributes();
-                                size = Integer.valueOf(attributes.getNamedItem("length").getNodeValue());
-                                List<Node> peaksNodes = filterNodes(dataNode.getChildNodes(), Node.ELEMENT_NODE);
-                                if (peaksNodes.size() != size)
-                                    System.err.println("Experiment XML error: Invalid Peaks List Length");
-                                List<Peak> peekList = new ArrayList<>(size);
-                                for (Node peakNode: peaksNodes) {
-                                    if (!peakNode.getNodeName().equals("peak")) {
-                                        System.err.println("Experiment XML error: Invalid Peek point node");
-                                        break;
-                                    }
-                                    Peak peak = new Peak();
-                                    // Peak id
-                                    attributes = peakNode.getAttributes();
-                                    int id = Integer.valueOf(attributes.getNamedItem("id").getNodeValue());
-                                    peak.setId(id);
-                                    // Peak Data
-                                    List<Node> peakData = filterNodes(peakNode.getChildNodes(), Node.ELEMENT_NODE);
-                                    for (Node pdata: peakData) {
-                                        // Peak Parameters
-                                        if (pdata.getNodeName().equals("parameters")) {
-                                            attributes = pdata.getAttributes();
-                                            // Peak name
-                                            peak.setName(attributes.getNamedItem("name").getNodeValue());
-                                            // Peak start point
-                                            float start = Float.valueOf(attributes.getNamedItem("start").getNodeValue());
-                                            float end = Float.valueOf(attributes.getNamedItem("end").getNodeValue());
-                                            peak.setLimits(new Pair<>(start, end));
-                                            // Peak area
-                                            Node area = attributes.getNamedItem("area");
-                                            if (area != null)
-                                                peak.setSurface(Float.valueOf(area.getNodeValue()));
-                                            // Peak relative area
-                                            Node relative = attributes.getNamedItem("relative-area");
-                                            if (relative != null)
-                                                peak.setRelativeSurface(Float.valueOf(relative.getNodeValue()));
-                                            // Peak position
-                                            peak.setPosition(Integer.valueOf(attributes.getNamedItem("position").getNodeValue()));
-                                        }
-                                        // Peak Baseline
-                                        if (pdata.getNodeName().equals("baseline")) {
-                                            attributes = pdata.getAttributes();
-                                            size = Integer.valueOf(attributes.getNamedItem("length").getNodeValue());
-                                            List<Node> baselineNode = filterNodes(pdata.getChildNodes(), Node.ELEMENT_NODE);
-                                            if (baselineNode.size() != size)
-                                                System.err.println("Experiment XML error: Invalid Baseline List Length");
-                                            List<Pair<Float,Float>> baselineList = new ArrayList<>(size);
-                                            for (Node line: baselineNode) {
-                                                if (!line.getNodeName().equals("line"))
-                                                    System.err.println("Experiment XML error: Invalid baseline line node");
-                                                else {
-                                                    attributes = line.getAttributes();
-                                                    float start = Float.valueOf(attributes.getNamedItem("start").getNodeValue());
-                                                    float end = Float.valueOf(attributes.getNamedItem("end").getNodeValue());
-                                                    baselineList.add(new Pair<>(start, end));
-                                                }
-                                            }
-                                            peak.setBaseline(baselineList);
-                                        }
-                                        // Peak Maximum
-                                        if (pdata.getNodeName().equals("maximum")) {
-                                            attributes = pdata.getAttributes();
-                                            float position = Float.valueOf(attributes.getNamedItem("position").getNodeValue());
-                                            float value = Float.valueOf(attributes.getNamedItem("value").getNodeValue());
-                                            // Save peak maximum
-                                            peak.setMaximum(new Pair<>(position, value));
-                                        }
-                                        // Peak Height
-                                        if (pdata.getNodeName().equals("height")) {
-                                            attributes = pdata.getAttributes();
-                                            float position = Float.valueOf(attributes.getNamedItem("position").getNodeValue());
-                                            float value = Float.valueOf(attributes.getNamedItem("value").getNodeValue());
-                                            // Save peak height
-                                            peak.setHeight(new Pair<>(position, value));
-                                        }
-                                    }
-                                    // Save loaded peak
-                                    peekList.add(peak);
-                                }
-                                sample.setPeaks(peekList);
-                            }
-                        }
+                    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
                         // Add Sample
+                        Sample sample = readSample(xml, model, entries, file, images);
                         samplesList.add(sample.getId(), sample);
                     }
+                    if (samplesList.size() != size)
+                        System.err.println("Experiment XML error: Invalid Samples List Length");
                     // Add all samples
                     model.setSamples(samplesList);
+                    break;
                 }
-                // Experiment file/save status
-                model.setSaved(true);
-                model.setFile(file);
-                // return loaded experiment
-                return model;
+                default:
+                    skipElement(xml);
             }
-        } catch (NullPointerException | IOException | SAXException | ParserConfigurationException ex) {
-            LOG.error("Error reading project zip file : " + file, ex);
-        } catch (ParseException ex) {
-            LOG.error("Error parsing Date", ex);
         }
-        // experiment can't be correctly loaded
-        return null;
     }
     
     /**
-     * Filter NodeList by node type
-     * @param nodes NodeList to filter
-     * @param typee filtered NodeType
-     * @return List of filtered nodes
+     * Read Sample element (reader at its start)
+     * @param xml XML reader
+     * @param model sample experiment
+     * @param entries project entries
+     * @param file project file
+     * @param images images loading
+     * @return loaded sample
+     * @throws XMLStreamException
+     * @throws IOException 
      */
-    private static List<Node> filterNodes(NodeList nodes, int type) {
-        List<Node> result = new LinkedList<>();
-        for (Node node = nodes.item(0); node != null; node = node.getNextSibling()) {
-            if (node.getNodeType() == type)
-                result.add(node);
+    private static Sample readSample(XMLStreamReader xml, Experiment model, Entries entries, File file, ImageLoad images) throws XMLStreamException, IOException {
+        Sample sample = new Sample();
+        // Id
+        sample.setId(Integer.valueOf(attribute(xml, "id")));
+        // Data
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (xml.getLocalName()) {
+                case "images": {
+                    // Source Image
+                    String imagePath = xml.getAttributeValue(null, "source-image");
+                    if (imagePath != null && images != ImageLoad.SKIP) {
+                        if (images == ImageLoad.LAZY)
+                            sample.setSourceImageLoader(lazyImage(file, imagePath, "source-image", null));
+                        else
+                            sample.setSourceImage(ImageStore.openImage(entries.open(imagePath), "source-image"));
+                    }
+                    // Processed Image
+                    imagePath = xml.getAttributeValue(null, "processed-image");
+                    if (imagePath != null && images != ImageLoad.SKIP) {
+                        if (images == ImageLoad.LAZY)
+                            sample.setProcessedImageLoader(lazyImage(file, imagePath, "processed-image", null));
+                        else
+                            sample.setProcessedImage(ImageStore.openImage(entries.open(imagePath), "processed-image"));
+                    }
+                    // Images as crops (version 2), built on first access
+                    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        if (images == ImageLoad.SKIP) {
+                            skipElement(xml);
+                            continue;
+                        }
+                        Pair<Point,Point> points = loadCrop(xml);
+                        Rectangle rect = new Rectangle(points.getFirst().getX(), points.getFirst().getY(),
+                                points.getSecond().getX() - points.getFirst().getX(), points.getSecond().getY() - points.getFirst().getY());
+                        // Source image, crop of experiment processed image
+                        if (xml.getLocalName().equals("source-crop"))
+                            sample.setSourceImageLoader(new LazyImage(() -> ImageProcessing.cutImage(model.getProcessedImage(), points), null, rect));
+                        // Processed image, crop of sample source image
+                        if (xml.getLocalName().equals("processed-crop"))
+                            sample.setProcessedImageLoader(new LazyImage(() -> ImageProcessing.cutImage(sample.getSourceImage(), points), null, rect));
+                        skipElement(xml);
+                    }
+                    break;
+                }
+                case "parameters": {
+                    sample.setName(attribute(xml, "name"));
+                    sample.setFrontPoint(Integer.valueOf(attribute(xml, "front-point")));
+                    sample.setSeedPoint(Integer.valueOf(attribute(xml, "seed-point")));
+                    String area = xml.getAttributeValue(null, "area");
+                    if (area != null)
+                        sample.setTotalSurface(Float.valueOf(area));
+                    sample.setLinked(Boolean.valueOf(attribute(xml, "linked")));
+                    int start = Integer.valueOf(attribute(xml, "start"));
+                    int end = Integer.valueOf(attribute(xml, "end"));
+                    sample.setLimits(new Point(start, end));
+                    skipElement(xml);
+                    break;
+                }
+                case "comments": {
+                    sample.setAnalysisComments(attribute(xml, "analysis"));
+                    sample.setComments(attribute(xml, "sample"));
+                    sample.setResultsComments(attribute(xml, "results"));
+                    skipElement(xml);
+                    break;
+                }
+                case "mean": {
+                    String meanPath = attribute(xml, "file");
+                    // Binary profile (version 3) or text
+                    if (ProfileCodec.ENCODING.equals(xml.getAttributeValue(null, "encoding")))
+                        sample.setMean(ProfileCodec.decode(entries.read(meanPath)));
+                    else
+                        sample.setMean(loadMean(entries.open(meanPath)));
+                    skipElement(xml);
+                    break;
+                }
+                case "peaks": {
+                    int size = Integer.valueOf(attribute(xml, "length"));
+                    List<Peak> peekList = new ArrayList<>(size);
+                    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        if (!xml.getLocalName().equals("peak")) {
+                            System.err.println("Experiment XML error: Invalid Peek point node");
+                            skipElement(xml);
+                            continue;
+                        }
+                        // Save loaded peak
+                        peekList.add(readPeak(xml));
+                    }
+                    if (peekList.size() != size)
+                        System.err.println("Experiment XML error: Invalid Peaks List Length");
+                    sample.setPeaks(peekList);
+                    break;
+                }
+                default:
+                    skipElement(xml);
+            }
         }
-        return result;    
+        return sample;
+    }
+    
+    /**
+     * Read Peak element (reader at its start)
+     * @param xml XML reader
+     * @return loaded peak
+     * @throws XMLStreamException 
+     */
+    private static Peak readPeak(XMLStreamReader xml) throws XMLStreamException {
+        Peak peak = new Peak();
+        // Peak id
+        peak.setId(Integer.valueOf(attribute(xml, "id")));
+        // Peak Data
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (xml.getLocalName()) {
+                case "parameters": {
+                    // Peak name and limits
+                    peak.setName(attribute(xml, "name"));
+                    float start = Float.valueOf(attribute(xml, "start"));
+                    float end = Float.valueOf(attribute(xml, "end"));
+                    peak.setLimits(new Pair<>(start, end));
+                    // Peak area
+                    String area = xml.getAttributeValue(null, "area");
+                    if (area != null)
+                        peak.setSurface(Float.valueOf(area));
+                    // Peak relative area
+                    String relative = xml.getAttributeValue(null, "relative-area");
+                    if (relative != null)
+                        peak.setRelativeSurface(Float.valueOf(relative));
+                    // Peak position
+                    peak.setPosition(Integer.valueOf(attribute(xml, "position")));
+                    skipElement(xml);
+                    break;
+                }
+                case "baseline": {
+                    int size = Integer.valueOf(attribute(xml, "length"));
+                    List<Pair<Float,Float>> baselineList = new ArrayList<>(size);
+                    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        if (!xml.getLocalName().equals("line")) {
+                            System.err.println("Experiment XML error: Invalid baseline line node");
+                        } else {
+                            float start = Float.valueOf(attribute(xml, "start"));
+                            float end = Float.valueOf(attribute(xml, "end"));
+                            baselineList.add(new Pair<>(start, end));
+                        }
+                        skipElement(xml);
+                    }
+                    if (baselineList.size() != size)
+                        System.err.println("Experiment XML error: Invalid Baseline List Length");
+                    peak.setBaseline(baselineList);
+                    break;
+                }
+                case "maximum": {
+                    float position = Float.valueOf(attribute(xml, "position"));
+                    float value = Float.valueOf(attribute(xml, "value"));
+                    // Save peak maximum
+                    peak.setMaximum(new Pair<>(position, value));
+                    skipElement(xml);
+                    break;
+                }
+                case "height": {
+                    float position = Float.valueOf(attribute(xml, "position"));
+                    float value = Float.valueOf(attribute(xml, "value"));
+                    // Save peak height
+                    peak.setHeight(new Pair<>(position, value));
+                    skipElement(xml);
+                    break;
+                }
+                default:
+                    skipElement(xml);
+            }
+        }
+        return peak;
+    }
+    
+    /**
+     * Get required attribute of current element
+     * @param xml XML reader
+     * @param name attribute name
+     * @return attribute value
+     * @throws XMLStreamException if not present
+     */
+    private static String attribute(XMLStreamReader xml, String name) throws XMLStreamException {
+        String value = xml.getAttributeValue(null, name);
+        if (value == null)
+            throw new XMLStreamException("Missing attribute " + name + " in element " + xml.getLocalName(), xml.getLocation());
+        return value;
+    }
+    
+    /**
+     * Get optional attribute of current element
+     * @param xml XML reader
+     * @param name attribute name
+     * @return attribute value or empty if not present
+     */
+    private static String optional(XMLStreamReader xml, String name) {
+        String value = xml.getAttributeValue(null, name);
+        return (value != null)? value : "";
+    }
+    
+    /**
+     * Skip current element and its children (reader at its start, left at its end)
+     * @param xml XML reader
+     * @throws XMLStreamException 
+     */
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        for (int depth = 1; depth > 0;) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+    
+    /**
+     * Project zip file entries
+     * @param zif project zip
+     * @return entries access
+     */
+    private static Entries entries(ZipFile zif) {
+        return new Entries() {
+            @Override
+            public boolean contains(String name) {
+                return zif.getEntry(name) != null;
+            }
+            @Override
+            public InputStream open(String name) throws IOException {
+                ZipEntry zie = zif.getEntry(name);
+                if (zie == null)
+                    throw new ZipException("Entry not found: " + name);
+                return zif.getInputStream(zie);
+            }
+            @Override
+            public ByteBuffer read(String name) throws IOException {
+                try (InputStream input = open(name)) {
+                    return ByteBuffer.wrap(readBytes(input, zif.getEntry(name).getSize()));
+                }
+            }
+        };
+    }
+    
+    /**
+     * Mapped project archive entries
+     * @param archive mapped project archive
+     * @return entries access
+     */
+    private static Entries entries(MappedArchive archive) {
+        return new Entries() {
+            @Override
+            public boolean contains(String name) {
+                return archive.hasEntry(name);
+            }
+            @Override
+            public InputStream open(String name) throws IOException {
+                return archive.getInputStream(name);
+            }
+            @Override
+            public ByteBuffer read(String name) throws IOException {
+                return archive.getBuffer(name);
+            }
+        };
+    }
+    
+    /**
+     * Create lazy image decoded from a project file entry
+     * @param file project file
+     * @param entry image entry name
+     * @param name image name
+     * @param image current decoded image (can be null)
+     * @return lazy image
+     */
+    static LazyImage lazyImage(File file, String entry, String name, ImagePlus image) {
+        return new LazyImage(() -> {
+            try {
+                return ImageStore.openImage(file, entry, name);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, image, file, entry);
+    }
+    
+    /**
+     * Read all bytes of an InputStream
+     * @param input InputStream to read
+     * @return read bytes
+     * @throws IOException 
+     */
+    private static byte[] readBytes(InputStream input) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n = input.read(buffer); n != -1; n = input.read(buffer))
+            result.write(buffer, 0, n);
+        return result.toByteArray();
     }
     
     /**
-     * Read Mean float pair list from text/file InputStream
+     * Read all bytes of an InputStream of known size
+     * @param input InputStream to read
+     * @param size data size (-1 if unknown)
+     * @return read bytes
+     * @throws IOException 
+     */
+    private static byte[] readBytes(InputStream input, long size) throws IOException {
+        if (size < 0 || size > Integer.MAX_VALUE)
+            return readBytes(input);
+        byte[] result = new byte[(int) size];
+        new DataInputStream(input).readFully(result);
+        return result;
+    }
+    
+    /**
+     * Read crop rectangle element as cut points
+     * @param xml XML reader (at crop element start)
+     * @return upper and lower cut points
+     * @throws XMLStreamException 
+     */
+    private static Pair<Point,Point> loadCrop(XMLStreamReader xml) throws XMLStreamException {
+        int x = Integer.valueOf(attribute(xml, "x"));
+        int y = Integer.valueOf(attribute(xml, "y"));
+        int width = Integer.valueOf(attribute(xml, "width"));
+        int height = Integer.valueOf(attribute(xml, "height"));
+        return new Pair<>(new Point(x, y), new Point(x + width, y + height));
+    }
+    
+    /**
+     * Read Mean profile from text/file InputStream
      * @param input InputStream mean text "file" to read
-     * @return Sample "Mean" pair list
+     * @return Sample "Mean" profile
      * @throws IOException 
      */
-    private static List<Pair<Float, Float>> loadMean(InputStream input) throws IOException {
-        List<Pair<Float,Float>> result = new LinkedList<>();
+    private static DensityProfile loadMean(InputStream input) throws IOException {
+        float[] values = new float[1024];
+        float first = 0, last = 0;
+        int size = 0;
         // Read Lines, try-auto closeable.
         try (BufferedReader rd = new BufferedReader(new InputStreamReader(input))) {
                 for (String line = rd.readLine(); line != null; line = rd.readLine()) {
                     // Split line
-                    String[] split = line.split("\\t");
+                    int tab = line.indexOf('\t');
                     // Get float values
-                    float x = Float.valueOf(split[0]);
-                    float y = Float.valueOf(split[1]);
-                    // Save pair
-                    result.add(new Pair<>(x,y));            
+                    float x = Float.parseFloat(line.substring(0, tab));
+                    float y = Float.parseFloat(line.substring(tab + 1));
+                    // Save x-axis limits
+                    if (size == 0) first = x;
+                    last = x;
+                    // Save value
+                    if (size == values.length)
+                        values = Arrays.copyOf(values, size * 2);
+                    values[size++] = y;
                 }
             }
         // Return results
-        return result;
+        return new DensityProfile(Arrays.copyOf(values, size), first, (size > 1)? ((double)last - first) / (size - 1) : 0);
+    }
+    
+    /**
+     * Images loading on experiment load
+     */
+    private enum ImageLoad {
+        LAZY,   // Decoded on first access, from the file
+        NOW,    // Decoded while loading
+        SKIP    // Not loaded (data only)
+    }
+    
+    /**
+     * Project entries access (zip file or mapped archive)
+     */
+    private interface Entries {
+        
+        /**
+         * Check if project has an entry
+         * @param name entry name
+         * @return true/false
+         */
+        boolean contains(String name);
+        
+        /**
+         * Open entry data
+         * @param name entry name
+         * @return entry input stream
+         * @throws IOException 
+         */
+        InputStream open(String name) throws IOException;
+        
+        /**
+         * Read entry data
+         * @param name entry name
+         * @return entry data
+         * @throws IOException 
+         */
+        ByteBuffer read(String name) throws IOException;
     }
 }
\ No newline at end of file
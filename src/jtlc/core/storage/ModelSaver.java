@@ -16,39 +16,48 @@
  */
 package jtlc.core.storage;
 
+import ij.ImagePlus;
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import jtlc.assets.Assets;
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 //
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Point;
 import jtlc.core.model.Experiment;
+import jtlc.core.model.LazyImage;
 import jtlc.core.model.Peak;
 import jtlc.core.model.Sample;
+import jtlc.core.processing.ImageProcessing;
 
 /**
  * Experiment Saver.
@@ -63,12 +72,19 @@ public class ModelSaver {
     private static final String SAMPLE_FOLDER = SEPARATOR + "sample-";
     private static final String DATA_FOLDER = SEPARATOR + "data";
     // Images Files
-    private static final String SOURCE_IMAGE = "src-image.jpg";
-    private static final String PROCESSED_IMAGE = "processed-image.jpg";
-    // Mean Files
-    private static final String MEAN_FILE = "mean-values.txt";
+    private static final String SOURCE_IMAGE = "src-image.png";
+    private static final String PROCESSED_IMAGE = "processed-image.png";
+    private static final String THUMBNAIL_IMAGE = "thumbnail.jpg";
+    // Thumbnail max width/height
+    private static final int THUMBNAIL_SIZE = 200;
+    // Mean Files (binary profile)
+    private static final String MEAN_FILE = "mean-values.bin";
     // Experiment File
     private static final String EXPERIMENT_FILE = "experiment.xml";
+    // Experiment summary File (explorer metadata)
+    private static final String SUMMARY_FILE = "summary.xml";
+    // Project format version (2: lossless images, samples as crops, 3: binary means)
+    public static final int FORMAT_VERSION = 3;
     // Error logger
     private static final Logger LOG = LoggerFactory.getLogger(ModelLoader.class);
     
@@ -77,433 +93,690 @@ public class ModelSaver {
      * Project data into XML file
      * Project Images (and samples split images)
      * Samples Means and other data
+     * Images are encoded in parallel as lossless PNG and stored without
+     * compression, samples images that are crops of the experiment image are
+     * saved only as crop rectangles. The zip is written to a temporal file and
+     * then renamed to the destination, so a failed save never breaks a
+     * previous project file. Images and means not changed since the project
+     * was loaded (or last saved) are copied raw from the previous file,
+     * without decoding or encoding them again.
      * @param model Experiment to save
      * @param file file path to save
      * @return save/can't save
      */    
     public static boolean saveExperiment(Experiment model, File file) {
-        // Project ZIP
-        try (FileOutputStream fos = new FileOutputStream(file, false)) {
-            try (ZipOutputStream zos = new ZipOutputStream(fos)) {
+        // Previous project file, source of unchanged entries
+        ZipFile previous = openPrevious(model);
+        // Unchanged images, new entry name to previous entry name
+        Map<String,String> copies = reusableImages(model, previous);
+        // Samples images saved as crops
+        Map<Sample,Pair<Rectangle,Rectangle>> crops = computeCrops(model, copies);
+        // Start images encoding
+        Map<String,CompletableFuture<Pair<ByteArrayOutputStream,Long>>> images = encodeImages(model, crops, copies);
+        // Temporal file in destination folder
+        File temp = null;
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            // Project ZIP
+            try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp, false)))) {
                 // Experiment XML Data
-                ByteArrayOutputStream xmlData = generateXML(model);
+                ByteArrayOutputStream xmlData = generateXML(model, crops);
                 ZipEntry zie = new ZipEntry(EXPERIMENT_FILE);
                 zos.putNextEntry(zie);
                 xmlData.writeTo(zos);
                 zos.closeEntry();
-                // Experiment Source Image
-                if (model.hasSourceImage()) {
-                    ByteArrayOutputStream sourceImage = ImageStore.saveImage(model.getSourceImage(), 100);
-                    zie = new ZipEntry(IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE);
-                    zos.putNextEntry(zie);
-                    sourceImage.writeTo(zos);
-                    zos.closeEntry();
-                }
-                // Experiment Processed Image
-                if (model.hasProcessedImage()) {
-                    ByteArrayOutputStream processedImage = ImageStore.saveImage(model.getProcessedImage(), 100);
-                    zie = new ZipEntry(IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE);
-                    zos.putNextEntry(zie);
-                    processedImage.writeTo(zos);
-                    zos.closeEntry();
-                }
-                // Samples
+                // Experiment Summary XML Data
+                xmlData = generateSummaryXML(model);
+                zie = new ZipEntry(SUMMARY_FILE);
+                zos.putNextEntry(zie);
+                xmlData.writeTo(zos);
+                zos.closeEntry();
+                // Images, in encoding order
+                for (String name: new ArrayList<>(images.keySet()))
+                    putImage(zos, name, images);
+                // Unchanged images
+                for (Map.Entry<String,String> copy: copies.entrySet())
+                    copyEntry(zos, previous, copy.getValue(), copy.getKey());
+                // Samples Means
                 if (model.hasSamples()) {
-                    // Experiment samples
-                    List<Sample> samples = model.getAllSamples();
                     // For each sample
-                    for (Sample sample: samples) {
-                        // Source Sample Image
-                        if (sample.hasSourceImage()) {
-                            ByteArrayOutputStream sourceImage = ImageStore.saveImage(sample.getSourceImage(), 100);
-                            zie = new ZipEntry(IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + SOURCE_IMAGE);
-                            zos.putNextEntry(zie);
-                            sourceImage.writeTo(zos);
-                            zos.closeEntry();
-                        }
-                        // Processed sample Image
-                        if (sample.hasProcessedImage()) {
-                            ByteArrayOutputStream processedImage = ImageStore.saveImage(sample.getProcessedImage(), 100);
-                            zie = new ZipEntry(IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + PROCESSED_IMAGE);
-                            zos.putNextEntry(zie);
-                            processedImage.writeTo(zos);
-                            zos.closeEntry();
-                        }
-                        // Sample Mean
-                        if (sample.hasMean()) {
-                            ByteArrayOutputStream sampleMean = saveMean(sample.getMean());
-                            zie = new ZipEntry(DATA_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + MEAN_FILE);
-                            zos.putNextEntry(zie);
-                            sampleMean.writeTo(zos);
-                            zos.closeEntry();
-                        }
+                    for (Sample sample: model.getAllSamples()) {
+                        if (!sample.hasMean())
+                            continue;
+                        String name = DATA_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + MEAN_FILE;
+                        // Unchanged sample, same binary mean entry
+                        if (!sample.isChanged() && isStored(previous, name))
+                            copyEntry(zos, previous, name, name);
+                        else
+                            putMean(zos, name, sample.getMean());
                     }
                 }
             }
+            // Previous file must be closed before replacing it
+            closePrevious(previous);
+            previous = null;
+            // Images are read from the saved file from now on (lossless)
+            Runnable bind = bindImages(model, file, crops);
+            // Replace project file
+            replaceFile(temp, file);
+            bind.run();
             // Set Experiment saved/changed status
             model.setSaved(true);
             model.setFile(file);
+            model.setChanged(false);
             // Experiment was correctly saved to zip file
             return true;
-        } catch (TransformerException | IOException | ParserConfigurationException ex) {
+        } catch (IOException ex) {
             LOG.error("Error saving project zip file : " + file, ex);
+        } finally {
+            // Drop pending encodings and temporal file (on errors)
+            images.values().forEach(f -> f.cancel(false));
+            closePrevious(previous);
+            if (temp != null && temp.exists())
+                temp.delete();
         }
         // Experiment can't be correctly saved
         return false;
     }
     
     /**
-     * Generate Experiment (and Samples) XML data
+     * Open previous project file of an experiment, to copy unchanged entries
      * @param model Experiment to save
-     * @return ByteArrayOutputStream
-     * @throws TransformerException
-     * @throws ParserConfigurationException 
+     * @return previous project file or null (not saved yet or unreadable)
      */
-    private static ByteArrayOutputStream generateXML(Experiment model) throws TransformerException, ParserConfigurationException{
-        // Document Builder
-        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-        // Root Experiment
-        Document doc = docBuilder.newDocument();
-        Element experiment = doc.createElement("experiment");
-        doc.appendChild(experiment);
-        // Experiment Name
-        Attr attr = doc.createAttribute("name");
-        attr.setValue(model.getName());
-        experiment.setAttributeNode(attr);
-        // Experiment Description
-        attr = doc.createAttribute("description");
-        attr.setValue(model.getDescription());
-        experiment.setAttributeNode(attr);
-        // Dates
-        DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ROOT);
-        // Experiments Date
-        Element date = doc.createElement("dates");
-        experiment.appendChild(date);
-        // Sample experiment Date
-        attr = doc.createAttribute("sample-date");
-        attr.setValue(df.format(model.getSampleDate()));
-        date.setAttributeNode(attr);
-        // Sample Analysis Date
-        attr = doc.createAttribute("analysis-date");
-        attr.setValue(df.format(model.getAnalysisDate()));
-        date.setAttributeNode(attr);
-        // Experiment Images
-        if (model.hasSourceImage() || model.hasProcessedImage()) {
-            Element images = doc.createElement("images");
-            experiment.appendChild(images);
-            // Source Image Path
-            if (model.hasSourceImage()) {
-                attr = doc.createAttribute("source-image");
-                attr.setValue(IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE);
-                images.setAttributeNode(attr);
+    private static ZipFile openPrevious(Experiment model) {
+        File file = model.getFile();
+        if (file == null || !file.isFile())
+            return null;
+        try {
+            return new ZipFile(file);
+        } catch (IOException ex) {
+            LOG.warn("Previous project file can't be read, saving all entries : " + file, ex);
+            return null;
+        }
+    }
+    
+    /**
+     * Close previous project file (if any)
+     * @param previous previous project file or null
+     */
+    private static void closePrevious(ZipFile previous) {
+        if (previous == null)
+            return;
+        try {
+            previous.close();
+        } catch (IOException ex) {
+            LOG.warn("Error closing previous project file : " + previous.getName(), ex);
+        }
+    }
+    
+    /**
+     * Check if previous project file has an entry stored without compression
+     * @param previous previous project file or null
+     * @param name entry name
+     * @return true/false
+     */
+    private static boolean isStored(ZipFile previous, String name) {
+        if (previous == null)
+            return false;
+        ZipEntry zie = previous.getEntry(name);
+        return zie != null && zie.getMethod() == ZipEntry.STORED;
+    }
+    
+    /**
+     * Check if an image is still the lossless image entry of the previous file
+     * @param loader image loader (or null)
+     * @param previous previous project file or null
+     * @return true/false
+     */
+    private static boolean isUnchanged(LazyImage loader, ZipFile previous) {
+        return previous != null && loader != null && loader.getEntry() != null
+                && loader.getEntry().endsWith(".png")
+                && loader.getFile().getAbsoluteFile().equals(new File(previous.getName()).getAbsoluteFile())
+                && isStored(previous, loader.getEntry());
+    }
+    
+    /**
+     * Find experiment images not changed since the previous save, they are
+     * copied raw from the previous project file.
+     * @param model Experiment to save
+     * @param previous previous project file or null
+     * @return map of new entry name to previous entry name
+     */
+    private static Map<String,String> reusableImages(Experiment model, ZipFile previous) {
+        Map<String,String> copies = new LinkedHashMap<>();
+        if (previous == null)
+            return copies;
+        // Experiment Images (and explorer thumbnail)
+        LazyImage loader = model.getSourceImageLoader();
+        if (isUnchanged(loader, previous)) {
+            if (isStored(previous, IMAGE_FOLDER + SEPARATOR + THUMBNAIL_IMAGE))
+                copies.put(IMAGE_FOLDER + SEPARATOR + THUMBNAIL_IMAGE, IMAGE_FOLDER + SEPARATOR + THUMBNAIL_IMAGE);
+            copies.put(IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE, loader.getEntry());
+        }
+        loader = model.getProcessedImageLoader();
+        if (isUnchanged(loader, previous))
+            copies.put(IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE, loader.getEntry());
+        // Samples Images
+        if (model.hasSamples()) {
+            for (Sample sample: model.getAllSamples()) {
+                loader = sample.getSourceImageLoader();
+                if (isUnchanged(loader, previous))
+                    copies.put(IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + SOURCE_IMAGE, loader.getEntry());
+                loader = sample.getProcessedImageLoader();
+                if (isUnchanged(loader, previous))
+                    copies.put(IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + PROCESSED_IMAGE, loader.getEntry());
             }
-            // Processed Image Path
-            if (model.hasProcessedImage()) {
-                attr = doc.createAttribute("processed-image");
-                attr.setValue(IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE);
-                images.setAttributeNode(attr);
+        }
+        return copies;
+    }
+    
+    /**
+     * Compute samples crop rectangles. A sample source image is saved as a crop
+     * of the experiment processed image, and a processed image as a crop of the
+     * sample source, only if its pixels are exactly the same. Crops loaded from
+     * the previous file are kept without checking pixels when its parent image
+     * is unchanged, and unchanged images entries are never crops.
+     * @param model Experiment to save
+     * @param copies unchanged images entries
+     * @return map of sample to source and processed crops (null if not a crop)
+     */
+    private static Map<Sample,Pair<Rectangle,Rectangle>> computeCrops(Experiment model, Map<String,String> copies) {
+        Map<Sample,Pair<Rectangle,Rectangle>> crops = new IdentityHashMap<>();
+        if (!model.hasSamples())
+            return crops;
+        boolean plateUnchanged = copies.containsKey(IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE);
+        for (Sample sample: model.getAllSamples()) {
+            String folder = IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR;
+            Rectangle source = null;
+            Rectangle processed = null;
+            boolean sourceUnchanged = false;
+            // Source image, lane of the experiment image
+            LazyImage loader = sample.getSourceImageLoader();
+            if (plateUnchanged && loader != null && loader.getCrop() != null) {
+                source = loader.getCrop();
+                sourceUnchanged = true;
+            } else if (model.hasProcessedImage() && sample.hasSourceImage() && sample.hasLimits() && !copies.containsKey(folder + SOURCE_IMAGE)) {
+                ImagePlus plate = model.getProcessedImage();
+                Point limits = sample.getLimits();
+                Rectangle rect = new Rectangle(limits.getX(), 0, limits.getY() - limits.getX(), plate.getHeight());
+                if (isCrop(sample.getSourceImage(), plate, rect))
+                    source = rect;
             }
+            // Processed image, sample source between front and seed points
+            loader = sample.getProcessedImageLoader();
+            if (sourceUnchanged && loader != null && loader.getCrop() != null) {
+                processed = loader.getCrop();
+            } else if (source != null && sample.hasProcessedImage() && !copies.containsKey(folder + PROCESSED_IMAGE)) {
+                ImagePlus img = sample.getSourceImage();
+                Rectangle rect = new Rectangle(0, sample.getFrontPoint(), img.getWidth(), sample.getSeedPoint() - sample.getFrontPoint());
+                if (isCrop(sample.getProcessedImage(), img, rect))
+                    processed = rect;
+            }
+            crops.put(sample, new Pair<>(source, processed));
+        }
+        return crops;
+    }
+    
+    /**
+     * Check if an image is exactly a crop of other image
+     * @param img image to check
+     * @param src source image
+     * @param rect crop rectangle
+     * @return true/false
+     */
+    private static boolean isCrop(ImagePlus img, ImagePlus src, Rectangle rect) {
+        if (rect.width <= 0 || rect.height <= 0 || !new Rectangle(src.getWidth(), src.getHeight()).contains(rect))
+            return false;
+        if (img.getWidth() != rect.width || img.getHeight() != rect.height || img.getType() != src.getType())
+            return false;
+        ImagePlus crop = cutImage(src, rect);
+        return Objects.deepEquals(crop.getProcessor().getPixels(), img.getProcessor().getPixels());
+    }
+    
+    /**
+     * Cut image to crop rectangle
+     * @param img source image
+     * @param rect crop rectangle
+     * @return cropped image
+     */
+    private static ImagePlus cutImage(ImagePlus img, Rectangle rect) {
+        return ImageProcessing.cutImage(img, new Point(rect.x, rect.y), new Point(rect.x + rect.width, rect.y + rect.height));
+    }
+    
+    /**
+     * Prepare experiment images binding to the saved file, each image becomes
+     * a lazy image of its entry (or crop) keeping the current decoded image
+     * (if any, images not decoded yet are left to decode on first access).
+     * @param model saved experiment
+     * @param file project file
+     * @param crops samples crops
+     * @return binding to run once the file is in place
+     */
+    private static Runnable bindImages(Experiment model, File file, Map<Sample,Pair<Rectangle,Rectangle>> crops) {
+        List<Runnable> binds = new ArrayList<>();
+        // Experiment Images
+        if (model.hasSourceImage()) {
+            LazyImage image = ModelLoader.lazyImage(file, IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE, "source-image", model.peekSourceImage());
+            binds.add(() -> model.setSourceImageLoader(image));
         }
-        // Experiments Parameters
-        Element parameters = doc.createElement("parameters");
-        experiment.appendChild(parameters);
-        // Rotation Angle
-        attr = doc.createAttribute("rotation-angle");
-        attr.setValue(model.getRotationAngle().toString());
-        parameters.setAttributeNode(attr);
-        // Rotation Flip
-        attr = doc.createAttribute("rotation-flip");
-        attr.setValue(model.getFlipAxis().name());
-        parameters.setAttributeNode(attr);
-        // Cut Points
-        if (model.hasCutPoints()) {
-            Pair<Point,Point> points = model.getCutPoints();
-            Element cutPoints = doc.createElement("cut-points");
-            parameters.appendChild(cutPoints);
-            // upper x
-            attr = doc.createAttribute("upper-x");
-            attr.setValue(String.valueOf(points.getFirst().getX()));
-            cutPoints.setAttributeNode(attr);
-            // upper y
-            attr = doc.createAttribute("upper-y");
-            attr.setValue(String.valueOf(points.getFirst().getY()));
-            cutPoints.setAttributeNode(attr);
-            // lower x
-            attr = doc.createAttribute("lower-x");
-            attr.setValue(String.valueOf(points.getSecond().getX()));
-            cutPoints.setAttributeNode(attr);
-            // lower y
-            attr = doc.createAttribute("lower-y");
-            attr.setValue(String.valueOf(points.getSecond().getY()));
-            cutPoints.setAttributeNode(attr);
+        if (model.hasProcessedImage()) {
+            LazyImage image = ModelLoader.lazyImage(file, IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE, "processed-image", model.peekProcessedImage());
+            binds.add(() -> model.setProcessedImageLoader(image));
         }
-        // Comments
-        Element comments = doc.createElement("step-comments");
-        parameters.appendChild(comments);
-        // Source-Comments
-        attr = doc.createAttribute("source");
-        attr.setValue(model.getSourceImageComments());
-        comments.setAttributeNode(attr);
-        // Cut-Comments
-        attr = doc.createAttribute("cut");
-        attr.setValue(model.getCutComments());
-        comments.setAttributeNode(attr);
-        // Rotation-Comments
-        attr = doc.createAttribute("rotation");
-        attr.setValue(model.getRotationComments());
-        comments.setAttributeNode(attr);
-        // Split-Comments
-        attr = doc.createAttribute("split");
-        attr.setValue(model.getSplitComments());
-        comments.setAttributeNode(attr);
-        // Data-Comments
-        attr = doc.createAttribute("data");
-        attr.setValue(model.getDataComments());
-        comments.setAttributeNode(attr);
-        // Comparation-Comments
-        attr = doc.createAttribute("comparation");
-        attr.setValue(model.getComparationComments());
-        comments.setAttributeNode(attr);
-        // Samples
+        // Samples Images
         if (model.hasSamples()) {
-            List<Sample> samples = model.getAllSamples();
-            Element esamples = doc.createElement("samples");
-            experiment.appendChild(esamples);
-            // Length
-            attr = doc.createAttribute("length");
-            attr.setValue(String.valueOf(samples.size()));
-            esamples.setAttributeNode(attr);
-            // Sample
-            for (Sample s: samples) {
-                // Sample element
-                Element sample = doc.createElement("sample");
-                esamples.appendChild(sample);
-                // Sample Id
-                attr = doc.createAttribute("id");
-                attr.setValue(String.valueOf(s.getId()));
-                sample.setAttributeNode(attr);
-                // Sample Images
-                if (s.hasSourceImage() || s.hasProcessedImage()) {
-                    Element simages = doc.createElement("images");
-                    sample.appendChild(simages);
-                    // Source Image Path
-                    if (s.hasSourceImage()) {
-                        attr = doc.createAttribute("source-image");
-                        attr.setValue(IMAGE_FOLDER + SAMPLE_FOLDER + s.getId() + SEPARATOR + SOURCE_IMAGE);
-                        simages.setAttributeNode(attr);
-                    }
-                    // Processed Image Path
-                    if (s.hasProcessedImage()) {
-                        attr = doc.createAttribute("processed-image");
-                        attr.setValue(IMAGE_FOLDER + SAMPLE_FOLDER + s.getId() + SEPARATOR + PROCESSED_IMAGE);
-                        simages.setAttributeNode(attr);
-                    }
-                }
-                // Parameters
-                Element sampleParams = doc.createElement("parameters");
-                sample.appendChild(sampleParams);
-                // Sample Name
-                attr = doc.createAttribute("name");
-                attr.setValue(s.getName());
-                sampleParams.setAttributeNode(attr);
-                // Sample front point
-                attr = doc.createAttribute("front-point");
-                attr.setValue(String.valueOf(s.getFrontPoint()));
-                sampleParams.setAttributeNode(attr);
-                // Sample seed point
-                attr = doc.createAttribute("seed-point");
-                attr.setValue(String.valueOf(s.getSeedPoint()));
-                sampleParams.setAttributeNode(attr);
-                // Sample limits
-                Point limits = s.getLimits();
-                // First Value
-                attr = doc.createAttribute("start");
-                attr.setValue(String.valueOf(limits.getX()));
-                sampleParams.setAttributeNode(attr);
-                // Second Value
-                attr = doc.createAttribute("end");
-                attr.setValue(String.valueOf(limits.getY()));
-                sampleParams.setAttributeNode(attr);
-                // Sample total area
-                if (s.getTotalSurface() != null) {
-                    attr = doc.createAttribute("area");
-                    attr.setValue(String.valueOf(s.getTotalSurface()));
-                    sampleParams.setAttributeNode(attr);
+            for (Sample sample: model.getAllSamples()) {
+                Pair<Rectangle,Rectangle> crop = crops.get(sample);
+                if (sample.hasSourceImage()) {
+                    LazyImage image = (crop.getFirst() != null)?
+                            new LazyImage(() -> cutImage(model.getProcessedImage(), crop.getFirst()), sample.peekSourceImage(), crop.getFirst()) :
+                            ModelLoader.lazyImage(file, IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + SOURCE_IMAGE, "source-image", sample.peekSourceImage());
+                    binds.add(() -> sample.setSourceImageLoader(image));
                 }
-                // Sample linked to other
-                attr = doc.createAttribute("linked");
-                attr.setValue(String.valueOf(s.isLinked()));
-                sampleParams.setAttributeNode(attr);
-                // Sample comments
-                Element sampleComments = doc.createElement("comments");
-                sample.appendChild(sampleComments);
-                // Source comments
-                attr = doc.createAttribute("sample");
-                attr.setValue(s.getComments());
-                sampleComments.setAttributeNode(attr);
-                // Analysis comments
-                attr = doc.createAttribute("analysis");
-                attr.setValue(s.getAnalysisComments());
-                sampleComments.setAttributeNode(attr);
-                // Analysis Results comments
-                attr = doc.createAttribute("results");
-                attr.setValue(s.getResultsComments());
-                sampleComments.setAttributeNode(attr);
-                // Sample mean
-                if (s.hasMean()) {
-                    // Sample mean
-                    Element sampleMean = doc.createElement("mean");
-                    sample.appendChild(sampleMean);
-                    // Analysis comments
-                    attr = doc.createAttribute("file");
-                    attr.setValue(DATA_FOLDER + SAMPLE_FOLDER + s.getId() + SEPARATOR + MEAN_FILE);
-                    sampleMean.setAttributeNode(attr);
-                }
-                // Peek Points
-                if (s.hasPeaks()) {
-                    List<Peak> speaks = s.getPeaks();
-                    // Sample peaks
-                    Element samplePeaks = doc.createElement("peaks");
-                    sample.appendChild(samplePeaks);
-                    // Peaks Number
-                    attr = doc.createAttribute("length");
-                    attr.setValue(String.valueOf(speaks.size()));
-                    samplePeaks.setAttributeNode(attr);
-                    // Values
-                    for (Peak p: speaks) {
-                        // Peak
-                        Element peak = doc.createElement("peak");
-                        samplePeaks.appendChild(peak);
-                        // Peak id
-                        attr = doc.createAttribute("id");
-                        attr.setValue(String.valueOf(p.getId()));
-                        peak.setAttributeNode(attr);
-                        // Peak parameters
-                        Element peakParameters = doc.createElement("parameters");
-                        peak.appendChild(peakParameters);
-                        Pair<Float,Float> plimits = p.getLimits();
-                        // start point
-                        attr = doc.createAttribute("start");
-                        attr.setValue(String.valueOf(plimits.getFirst()));
-                        peakParameters.setAttributeNode(attr);
-                        // end point
-                        attr = doc.createAttribute("end");
-                        attr.setValue(String.valueOf(plimits.getSecond()));
-                        peakParameters.setAttributeNode(attr);
-                        // name
-                        attr = doc.createAttribute("name");
-                        attr.setValue(p.getName());
-                        peakParameters.setAttributeNode(attr);
-                        // position
-                        attr = doc.createAttribute("position");
-                        attr.setValue(String.valueOf(p.getPosition()));
-                        peakParameters.setAttributeNode(attr);
-                        // Baseline Points
-                        if (p.hasBaseline()) {
-                            List<Pair<Float,Float>> baseline = p.getBaseline();
-                            // Sample baseline
-                            Element sampleBaseline = doc.createElement("baseline");
-                            peak.appendChild(sampleBaseline);
-                            // Points Number
-                            attr = doc.createAttribute("length");
-                            attr.setValue(String.valueOf(baseline.size()));
-                            sampleBaseline.setAttributeNode(attr);
-                            // Values
-                            for (Pair<Float,Float> pbase: baseline) {
-                                // Point
-                                Element pair = doc.createElement("line");
-                                sampleBaseline.appendChild(pair);
-                                // start point
-                                attr = doc.createAttribute("start");
-                                attr.setValue(String.valueOf(pbase.getFirst()));
-                                pair.setAttributeNode(attr);
-                                // end point
-                                attr = doc.createAttribute("end");
-                                attr.setValue(String.valueOf(pbase.getSecond()));
-                                pair.setAttributeNode(attr);
-                            }
-                        }
-                        // Peaks surfaces absoultes and relatives
-                        if (p.hasSurface() && p.hasRelativeSurface()) {
-                            Float surface = p.getSurface();
-                            Float relativeSurface = p.getRelativeSurface();
-                            // absolute area
-                            attr = doc.createAttribute("area");
-                            attr.setValue(String.valueOf(surface));
-                            peakParameters.setAttributeNode(attr);
-                            // relative area
-                            attr = doc.createAttribute("relative-area");
-                            attr.setValue(String.valueOf(relativeSurface));
-                            peakParameters.setAttributeNode(attr);
-                        }
-                        // Peaks Maximum
-                        if (p.hasMaximum()) {
-                            Pair<Float, Float> maximum = p.getMaximum();
-                            // Sample local maximums
-                            Element peakMaximum = doc.createElement("maximum");
-                            peak.appendChild(peakMaximum);
-                            // position
-                            attr = doc.createAttribute("position");
-                            attr.setValue(String.valueOf(maximum.getFirst()));
-                            peakMaximum.setAttributeNode(attr);
-                            // value
-                            attr = doc.createAttribute("value");
-                            attr.setValue(String.valueOf(maximum.getSecond()));
-                            peakMaximum.setAttributeNode(attr);
-                        }
-                        // Peaks Height
-                        if (p.hasHeight()) {
-                            Pair<Float, Float> height = p.getHeight();
-                            // Sample local maximums
-                            Element peakHeight = doc.createElement("height");
-                            peak.appendChild(peakHeight);
-                            // position
-                            attr = doc.createAttribute("position");
-                            attr.setValue(String.valueOf(height.getFirst()));
-                            peakHeight.setAttributeNode(attr);
-                            // value
-                            attr = doc.createAttribute("value");
-                            attr.setValue(String.valueOf(height.getSecond()));
-                            peakHeight.setAttributeNode(attr);
-                        }
-                    }
+                if (sample.hasProcessedImage()) {
+                    LazyImage image = (crop.getSecond() != null)?
+                            new LazyImage(() -> cutImage(sample.getSourceImage(), crop.getSecond()), sample.peekProcessedImage(), crop.getSecond()) :
+                            ModelLoader.lazyImage(file, IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR + PROCESSED_IMAGE, "processed-image", sample.peekProcessedImage());
+                    binds.add(() -> sample.setProcessedImageLoader(image));
                 }
             }
         }
-        // Write the content into xml OutputStream
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        //
-        DOMSource source = new DOMSource(doc);
+        return () -> binds.forEach(Runnable::run);
+    }
+    
+    /**
+     * Start PNG encoding of all experiment images (not saved as crops and
+     * changed since previous save) in parallel
+     * @param model Experiment to save
+     * @param crops samples crops
+     * @param copies unchanged images entries
+     * @return map of zip entry name to encoded image (data and crc), in encoding order
+     */
+    private static Map<String,CompletableFuture<Pair<ByteArrayOutputStream,Long>>> encodeImages(Experiment model, Map<Sample,Pair<Rectangle,Rectangle>> crops, Map<String,String> copies) {
+        Map<String,CompletableFuture<Pair<ByteArrayOutputStream,Long>>> images = new LinkedHashMap<>();
+        // Explorer thumbnail
+        if (model.hasSourceImage() && !copies.containsKey(IMAGE_FOLDER + SEPARATOR + THUMBNAIL_IMAGE))
+            images.put(IMAGE_FOLDER + SEPARATOR + THUMBNAIL_IMAGE, encodeImage(model.getSourceImage(), true));
+        // Experiment Images
+        if (model.hasSourceImage() && !copies.containsKey(IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE))
+            images.put(IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE, encodeImage(model.getSourceImage(), false));
+        if (model.hasProcessedImage() && !copies.containsKey(IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE))
+            images.put(IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE, encodeImage(model.getProcessedImage(), false));
+        // Samples Images
+        if (model.hasSamples()) {
+            for (Sample sample: model.getAllSamples()) {
+                String folder = IMAGE_FOLDER + SAMPLE_FOLDER + sample.getId() + SEPARATOR;
+                Pair<Rectangle,Rectangle> crop = crops.get(sample);
+                if (sample.hasSourceImage() && crop.getFirst() == null && !copies.containsKey(folder + SOURCE_IMAGE))
+                    images.put(folder + SOURCE_IMAGE, encodeImage(sample.getSourceImage(), false));
+                if (sample.hasProcessedImage() && crop.getSecond() == null && !copies.containsKey(folder + PROCESSED_IMAGE))
+                    images.put(folder + PROCESSED_IMAGE, encodeImage(sample.getProcessedImage(), false));
+            }
+        }
+        return images;
+    }
+    
+    /**
+     * Encode image as PNG (or JPEG thumbnail) in background, computing its crc on the fly
+     * @param img image to encode
+     * @param thumbnail encode a reduced JPEG copy
+     * @return encoded image data and crc
+     */
+    private static CompletableFuture<Pair<ByteArrayOutputStream,Long>> encodeImage(ImagePlus img, boolean thumbnail) {
+        return CompletableFuture.supplyAsync(() -> {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            CheckedOutputStream cos = new CheckedOutputStream(data, new CRC32());
+            try {
+                if (thumbnail)
+                    ImageStore.saveImage(ImageProcessing.thumbnailImage(img, THUMBNAIL_SIZE), 85, cos);
+                else
+                    ImageStore.savePngImage(img, cos);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return new Pair<>(data, cos.getChecksum().getValue());
+        });
+    }
+    
+    /**
+     * Copy a STORED entry of the previous project file, without decoding it
+     * @param zos zip stream
+     * @param previous previous project file
+     * @param from previous entry name
+     * @param name new entry name
+     * @throws IOException 
+     */
+    private static void copyEntry(ZipOutputStream zos, ZipFile previous, String from, String name) throws IOException {
+        ZipEntry old = previous.getEntry(from);
+        // Stored entry, size and crc known from previous entry
+        ZipEntry zie = new ZipEntry(name);
+        zie.setMethod(ZipEntry.STORED);
+        zie.setSize(old.getSize());
+        zie.setCompressedSize(old.getSize());
+        zie.setCrc(old.getCrc());
+        zos.putNextEntry(zie);
+        try (InputStream is = previous.getInputStream(old)) {
+            byte[] buffer = new byte[65536];
+            for (int n = is.read(buffer); n != -1; n = is.read(buffer))
+                zos.write(buffer, 0, n);
+        }
+        zos.closeEntry();
+    }
+    
+    /**
+     * Write encoded image as STORED zip entry (waits for its encoding)
+     * @param zos zip stream
+     * @param name entry name
+     * @param images encoded images
+     * @throws IOException 
+     */
+    private static void putImage(ZipOutputStream zos, String name, Map<String,CompletableFuture<Pair<ByteArrayOutputStream,Long>>> images) throws IOException {
+        Pair<ByteArrayOutputStream,Long> image;
+        try {
+            // Release encoded data once written
+            image = images.remove(name).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            throw ex;
+        }
+        // Stored entry, size and crc needed before data
+        ZipEntry zie = new ZipEntry(name);
+        zie.setMethod(ZipEntry.STORED);
+        zie.setSize(image.getFirst().size());
+        zie.setCompressedSize(image.getFirst().size());
+        zie.setCrc(image.getSecond());
+        zos.putNextEntry(zie);
+        image.getFirst().writeTo(zos);
+        zos.closeEntry();
+    }
+    
+    /**
+     * Write mean profile as STORED binary zip entry
+     * @param zos zip stream
+     * @param name entry name
+     * @param mean sample mean
+     * @throws IOException 
+     */
+    private static void putMean(ZipOutputStream zos, String name, DensityProfile mean) throws IOException {
+        byte[] data = ProfileCodec.encode(mean);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        // Stored entry, size and crc needed before data
+        ZipEntry zie = new ZipEntry(name);
+        zie.setMethod(ZipEntry.STORED);
+        zie.setSize(data.length);
+        zie.setCompressedSize(data.length);
+        zie.setCrc(crc.getValue());
+        zos.putNextEntry(zie);
+        zos.write(data);
+        zos.closeEntry();
+    }
+    
+    /**
+     * Replace file with other (atomic if supported by the file system)
+     * @param source new file
+     * @param target file to replace
+     * @throws IOException 
+     */
+    static void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Generate Experiment (and Samples) XML data, streamed without document
+     * @param model Experiment to save
+     * @param crops samples crops
+     * @return ByteArrayOutputStream
+     * @throws IOException 
+     */
+    private static ByteArrayOutputStream generateXML(Experiment model, Map<Sample,Pair<Rectangle,Rectangle>> crops) throws IOException {
         ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        StreamResult result = new StreamResult(stream);
-        transformer.transform(source, result);
-        //
+        try (XmlWriter xml = new XmlWriter(stream)) {
+            // Root Experiment (format version, name and description)
+            xml.start("experiment");
+            xml.attribute("version", FORMAT_VERSION);
+            xml.attribute("name", model.getName());
+            xml.attribute("description", model.getDescription());
+            // Dates
+            DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ROOT);
+            xml.start("dates");
+            xml.attribute("sample-date", df.format(model.getSampleDate()));
+            xml.attribute("analysis-date", df.format(model.getAnalysisDate()));
+            xml.end();
+            // Experiment Images
+            if (model.hasSourceImage() || model.hasProcessedImage()) {
+                xml.start("images");
+                // Source Image Path
+                if (model.hasSourceImage())
+                    xml.attribute("source-image", IMAGE_FOLDER + SEPARATOR + SOURCE_IMAGE);
+                // Processed Image Path
+                if (model.hasProcessedImage())
+                    xml.attribute("processed-image", IMAGE_FOLDER + SEPARATOR + PROCESSED_IMAGE);
+                xml.end();
+            }
+            // Experiments Parameters (rotation angle and flip)
+            xml.start("parameters");
+            xml.attribute("rotation-angle", model.getRotationAngle());
+            xml.attribute("rotation-flip", model.getFlipAxis().name());
+            // Cut Points
+            if (model.hasCutPoints()) {
+                Pair<Point,Point> points = model.getCutPoints();
+                xml.start("cut-points");
+                xml.attribute("upper-x", points.getFirst().getX());
+                xml.attribute("upper-y", points.getFirst().getY());
+                xml.attribute("lower-x", points.getSecond().getX());
+                xml.attribute("lower-y", points.getSecond().getY());
+                xml.end();
+            }
+            // Comments
+            xml.start("step-comments");
+            xml.attribute("source", model.getSourceImageComments());
+            xml.attribute("cut", model.getCutComments());
+            xml.attribute("rotation", model.getRotationComments());
+            xml.attribute("split", model.getSplitComments());
+            xml.attribute("data", model.getDataComments());
+            xml.attribute("comparation", model.getComparationComments());
+            xml.end();
+            xml.end();
+            // Samples
+            if (model.hasSamples()) {
+                List<Sample> samples = model.getAllSamples();
+                xml.start("samples");
+                xml.attribute("length", samples.size());
+                for (Sample s: samples)
+                    writeSample(xml, s, crops.get(s));
+                xml.end();
+            }
+            xml.end();
+        }
+        return stream;
+    }
+    
+    /**
+     * Write Sample XML element
+     * @param xml XML writer
+     * @param s sample to write
+     * @param crop sample crops
+     * @throws IOException 
+     */
+    private static void writeSample(XmlWriter xml, Sample s, Pair<Rectangle,Rectangle> crop) throws IOException {
+        // Sample element and Id
+        xml.start("sample");
+        xml.attribute("id", s.getId());
+        // Sample Images
+        if (s.hasSourceImage() || s.hasProcessedImage()) {
+            xml.start("images");
+            // Source Image Path (if not a crop of experiment processed image)
+            if (s.hasSourceImage() && crop.getFirst() == null)
+                xml.attribute("source-image", IMAGE_FOLDER + SAMPLE_FOLDER + s.getId() + SEPARATOR + SOURCE_IMAGE);
+            // Processed Image Path (if not a crop of sample source image)
+            if (s.hasProcessedImage() && crop.getSecond() == null)
+                xml.attribute("processed-image", IMAGE_FOLDER + SAMPLE_FOLDER + s.getId() + SEPARATOR + PROCESSED_IMAGE);
+            // Images Crops
+            if (s.hasSourceImage() && crop.getFirst() != null)
+                writeCrop(xml, "source-crop", crop.getFirst());
+            if (s.hasProcessedImage() && crop.getSecond() != null)
+                writeCrop(xml, "processed-crop", crop.getSecond());
+            xml.end();
+        }
+        // Parameters (name, front and seed points, limits, area and linked)
+        Point limits = s.getLimits();
+        xml.start("parameters");
+        xml.attribute("name", s.getName());
+        xml.attribute("front-point", s.getFrontPoint());
+        xml.attribute("seed-point", s.getSeedPoint());
+        xml.attribute("start", limits.getX());
+        xml.attribute("end", limits.getY());
+        if (s.getTotalSurface() != null)
+            xml.attribute("area", s.getTotalSurface());
+        xml.attribute("linked", s.isLinked());
+        xml.end();
+        // Sample comments
+        xml.start("comments");
+        xml.attribute("sample", s.getComments());
+        xml.attribute("analysis", s.getAnalysisComments());
+        xml.attribute("results", s.getResultsComments());
+        xml.end();
+        // Sample mean
+        if (s.hasMean()) {
+            xml.start("mean");
+            xml.attribute("file", DATA_FOLDER + SAMPLE_FOLDER + s.getId() + SEPARATOR + MEAN_FILE);
+            xml.attribute("encoding", ProfileCodec.ENCODING);
+            xml.end();
+        }
+        // Peek Points
+        if (s.hasPeaks()) {
+            List<Peak> speaks = s.getPeaks();
+            xml.start("peaks");
+            xml.attribute("length", speaks.size());
+            for (Peak p: speaks)
+                writePeak(xml, p);
+            xml.end();
+        }
+        xml.end();
+    }
+    
+    /**
+     * Write Peak XML element
+     * @param xml XML writer
+     * @param p peak to write
+     * @throws IOException 
+     */
+    private static void writePeak(XmlWriter xml, Peak p) throws IOException {
+        // Peak element and id
+        xml.start("peak");
+        xml.attribute("id", p.getId());
+        // Peak parameters (limits, name, position and areas)
+        Pair<Float,Float> plimits = p.getLimits();
+        xml.start("parameters");
+        xml.attribute("start", plimits.getFirst());
+        xml.attribute("end", plimits.getSecond());
+        xml.attribute("name", p.getName());
+        xml.attribute("position", p.getPosition());
+        // Peaks surfaces absoultes and relatives
+        if (p.hasSurface() && p.hasRelativeSurface()) {
+            xml.attribute("area", p.getSurface());
+            xml.attribute("relative-area", p.getRelativeSurface());
+        }
+        xml.end();
+        // Baseline Points
+        if (p.hasBaseline()) {
+            List<Pair<Float,Float>> baseline = p.getBaseline();
+            xml.start("baseline");
+            xml.attribute("length", baseline.size());
+            for (Pair<Float,Float> pbase: baseline) {
+                xml.start("line");
+                xml.attribute("start", pbase.getFirst());
+                xml.attribute("end", pbase.getSecond());
+                xml.end();
+            }
+            xml.end();
+        }
+        // Peaks Maximum
+        if (p.hasMaximum()) {
+            Pair<Float, Float> maximum = p.getMaximum();
+            xml.start("maximum");
+            xml.attribute("position", maximum.getFirst());
+            xml.attribute("value", maximum.getSecond());
+            xml.end();
+        }
+        // Peaks Height
+        if (p.hasHeight()) {
+            Pair<Float, Float> height = p.getHeight();
+            xml.start("height");
+            xml.attribute("position", height.getFirst());
+            xml.attribute("value", height.getSecond());
+            xml.end();
+        }
+        xml.end();
+    }
+    
+    /**
+     * Generate Experiment summary XML data (explorer metadata)
+     * @param model Experiment to save
+     * @return ByteArrayOutputStream
+     * @throws IOException 
+     */
+    private static ByteArrayOutputStream generateSummaryXML(Experiment model) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (XmlWriter xml = new XmlWriter(stream)) {
+            // Root Summary (format version, name, description and dates)
+            DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ROOT);
+            xml.start("summary");
+            xml.attribute("version", FORMAT_VERSION);
+            xml.attribute("name", model.getName());
+            xml.attribute("description", model.getDescription());
+            xml.attribute("sample-date", df.format(model.getSampleDate()));
+            xml.attribute("analysis-date", df.format(model.getAnalysisDate()));
+            // Thumbnail Image Path
+            if (model.hasSourceImage())
+                xml.attribute("thumbnail", IMAGE_FOLDER + SEPARATOR + THUMBNAIL_IMAGE);
+            xml.end();
+        }
         return stream;
     }
     
     /**
-     * Save Mean as text to OutputStream
+     * Write crop rectangle XML element
+     * @param xml XML writer
+     * @param name element name
+     * @param rect crop rectangle
+     * @throws IOException 
+     */
+    private static void writeCrop(XmlWriter xml, String name, Rectangle rect) throws IOException {
+        xml.start(name);
+        xml.attribute("x", rect.x);
+        xml.attribute("y", rect.y);
+        xml.attribute("width", rect.width);
+        xml.attribute("height", rect.height);
+        xml.end();
+    }
+    
+    /**
+     * Save Mean as text to OutputStream (export)
      * @param mean Sample mean to save
      * @return ByteArrayOutputStream
      * @throws IOException 
      */
-    private static ByteArrayOutputStream saveMean(List<Pair<Float, Float>> mean) throws IOException {
-        ByteArrayOutputStream ops = new ByteArrayOutputStream();
-        for (Pair<Float,Float> p: mean) {
-            String line = "";
+    private static ByteArrayOutputStream saveMean(DensityProfile mean) throws IOException {
+        ByteArrayOutputStream ops = new ByteArrayOutputStream(mean.size() * 24);
+        StringBuilder line = new StringBuilder(32);
+        for (int i = 0; i < mean.size(); i++) {
+            line.setLength(0);
             // X
-            line += String.valueOf(p.getFirst());
-            line += "\t";
+            line.append(mean.getX(i));
+            line.append('\t');
             // Y
-            line += String.valueOf(p.getSecond());
-            line += "\n";
+            line.append(mean.getY(i));
+            line.append('\n');
             // Write
-            ops.write(line.getBytes()); 
+            ops.write(line.toString().getBytes()); 
         }
         ops.close();
         return ops;
@@ -515,7 +788,7 @@ public class ModelSaver {
      * @param mean sample mean to save
      * @return saved or error
      */
-    public static boolean saveMean(File file, List<Pair<Float, Float>> mean) {
+    public static boolean saveMean(File file, DensityProfile mean) {
         try (FileOutputStream fos = new FileOutputStream(file)) {
             ByteArrayOutputStream outs = saveMean(mean);
             fos.write(outs.toByteArray());
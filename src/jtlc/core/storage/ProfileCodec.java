@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+//
+import jtlc.main.common.DensityProfile;
+
+/**
+ * Binary density profile encoding.
+ * A fixed header (magic, version, values count, x-axis origin and step)
+ * followed by the y-values as a little-endian float32 array, so a profile
+ * is copied in bulk instead of parsed value by value.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+class ProfileCodec {
+    // Encoding name (project xml mean attribute)
+    static final String ENCODING = "float32-le";
+    // Header: magic "JTLP", version, count, origin and step
+    static final int HEADER_SIZE = 24;
+    private static final int MAGIC = 0x4A544C50;
+    private static final int VERSION = 1;
+    
+    /**
+     * Encode profile
+     * @param profile profile to encode
+     * @return encoded profile data
+     */
+    static byte[] encode(DensityProfile profile) {
+        float[] values = profile.getValues();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        // Header
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(values.length);
+        buffer.putFloat(profile.getMinX());
+        buffer.putDouble(profile.getStep());
+        // Values
+        buffer.asFloatBuffer().put(values);
+        return buffer.array();
+    }
+    
+    /**
+     * Decode profile from buffer (position to limit, buffer order is not changed)
+     * @param data encoded profile data
+     * @return decoded profile
+     * @throws IOException if data is not a valid encoded profile
+     */
+    static DensityProfile decode(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+            throw new IOException("Invalid binary profile data");
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported binary profile version: " + version);
+        // Header
+        int count = buffer.getInt();
+        float origin = buffer.getFloat();
+        double step = buffer.getDouble();
+        if (count < 0 || buffer.remaining() < (long) count * Float.BYTES)
+            throw new IOException("Truncated binary profile data");
+        // Values
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        return new DensityProfile(values, origin, step);
+    }
+}
\ No newline at end of file
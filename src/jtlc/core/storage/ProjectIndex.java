@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+//
+import jtlc.core.model.ExperimentSummary;
+
+/**
+ * Projects folder index.
+ * Keeps in each projects folder an index file with the summary of every
+ * project (name, dates, description, thumbnail and file modified time and
+ * size), so the explorer only reads the projects that changed.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ProjectIndex {
+    // Index file (inside projects folder)
+    public static final String INDEX_FILE = ".jtlc-index";
+    // Index file format version
+    private static final int INDEX_VERSION = 1;
+    // Error logger
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectIndex.class);
+    
+    /**
+     * Read folder index
+     * @param folder projects folder
+     * @return summaries by file name (empty if no valid index)
+     */
+    static Map<String,ExperimentSummary> readIndex(File folder) {
+        Map<String,ExperimentSummary> summaries = new HashMap<>();
+        File index = new File(folder, INDEX_FILE);
+        if (!index.isFile())
+            return summaries;
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+            // Version
+            if (dis.readInt() != INDEX_VERSION)
+                return summaries;
+            // Summaries
+            int size = dis.readInt();
+            for (int i = 0; i < size; i++) {
+                String fileName = dis.readUTF();
+                long modified = dis.readLong();
+                long length = dis.readLong();
+                String name = dis.readUTF();
+                String description = dis.readUTF();
+                Date sampleDate = new Date(dis.readLong());
+                Date analysisDate = new Date(dis.readLong());
+                // Thumbnail (-1 without thumbnail)
+                byte[] thumbnail = null;
+                int thumbnailSize = dis.readInt();
+                if (thumbnailSize >= 0) {
+                    thumbnail = new byte[thumbnailSize];
+                    dis.readFully(thumbnail);
+                }
+                File file = new File(folder, fileName);
+                summaries.put(fileName, new ExperimentSummary(file, modified, length, name, description, sampleDate, analysisDate, thumbnail));
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOG.warn("Invalid projects index file : " + index, ex);
+            summaries.clear();
+        }
+        return summaries;
+    }
+    
+    /**
+     * Write folder index (temporal file and rename)
+     * @param folder projects folder
+     * @param summaries projects summaries
+     */
+    static void writeIndex(File folder, List<ExperimentSummary> summaries) {
+        File temp = null;
+        try {
+            temp = File.createTempFile(INDEX_FILE, ".tmp", folder);
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp, false)))) {
+                // Version
+                dos.writeInt(INDEX_VERSION);
+                // Summaries
+                dos.writeInt(summaries.size());
+                for (ExperimentSummary summary: summaries) {
+                    dos.writeUTF(summary.getFile().getName());
+                    dos.writeLong(summary.getFileModified());
+                    dos.writeLong(summary.getFileSize());
+                    dos.writeUTF(limit(summary.getName()));
+                    dos.writeUTF(limit(summary.getDescription()));
+                    dos.writeLong(summary.getSampleDate().getTime());
+                    dos.writeLong(summary.getAnalysisDate().getTime());
+                    // Thumbnail (-1 without thumbnail)
+                    if (summary.hasThumbnail()) {
+                        dos.writeInt(summary.getThumbnail().length);
+                        dos.write(summary.getThumbnail());
+                    } else {
+                        dos.writeInt(-1);
+                    }
+                }
+            }
+            // Replace index file
+            ModelSaver.replaceFile(temp, new File(folder, INDEX_FILE));
+        } catch (IOException ex) {
+            // Read only folders are explored without index
+            LOG.warn("Can't write projects index file in folder : " + folder, ex);
+        } finally {
+            if (temp != null && temp.exists())
+                temp.delete();
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Limit text to modified UTF-8 max length (index strings)
+     * @param text text to limit
+     * @return limited text (empty if null)
+     */
+    private static String limit(String text) {
+        if (text == null)
+            return "";
+        // At most 3 bytes per char
+        return (text.length() > 21845)? text.substring(0, 21845) : text;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,497 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import ij.ImagePlus;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+//
+import jtlc.main.common.Pair;
+import jtlc.main.common.Point;
+import jtlc.core.model.Experiment;
+import jtlc.core.model.Peak;
+import jtlc.core.model.Sample;
+import jtlc.core.processing.AnalysisProcessing;
+import jtlc.core.processing.AnalysisProcessing.Axis;
+import jtlc.core.processing.ImageProcessing;
+
+/**
+ * Active experiment autosave journal.
+ * Keeps the manual edits of the working experiment (cut points, rotation,
+ * samples limits and names, peaks limits and names) as compact text records
+ * appended to a local log file, so they can be recovered after a crash.
+ * Records are written by a low priority thread some time after the last
+ * change, and only records that changed since the last write are appended.
+ * Images are never written, the experiment is rebuilt on recovery from its
+ * project file (or source image) and the journal records.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ProjectJournal implements Closeable {
+    // Error logger
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectJournal.class);
+    // Journal format header
+    private static final String HEADER = "jtlc-journal 1";
+    // Wait for more changes before writing (ms)
+    private static final long DEBOUNCE = 1000;
+    // Journal size to rewrite it compacted (bytes)
+    private static final long COMPACT_SIZE = 64 * 1024;
+    // Journal file
+    private final File file;
+    // Journal writer
+    private final ScheduledExecutorService writer;
+    // State of the experiment as saved (no journal needed)
+    private volatile Map<String,String> baseline = Collections.emptyMap();
+    // Records to write (empty to drop the journal) and scheduled write
+    private Map<String,String> pending;
+    private ScheduledFuture<?> scheduled;
+    // Written records by key (writer thread only)
+    private final Map<String,String> written = new HashMap<>();
+    
+    /**
+     * Create journal.
+     * @param file journal file
+     */
+    public ProjectJournal(File file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jtlc-journal");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    /**
+     * Get journal file
+     * @return journal file
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Record experiment current state. Only takes the experiment edits on the
+     * caller thread, the journal is written later in background.
+     * @param model working experiment (or null)
+     */
+    public void record(Experiment model) {
+        Map<String,String> records = (model != null && model.isChanged())? records(model) : null;
+        // Unchanged or unrecoverable experiment, journal not needed
+        if (records == null || records.equals(baseline))
+            records = Collections.emptyMap();
+        schedule(records);
+    }
+    
+    /**
+     * Reset journal to a saved (or loaded) experiment, drops current journal.
+     * @param model saved experiment (or null)
+     */
+    public void reset(Experiment model) {
+        Map<String,String> records = (model != null)? records(model) : null;
+        baseline = (records != null)? records : Collections.emptyMap();
+        schedule(Collections.emptyMap());
+    }
+    
+    /**
+     * Write pending records and stop journal writer.
+     */
+    @Override
+    public void close() {
+        // Pending records are written now
+        synchronized (this) {
+            if (scheduled != null)
+                scheduled.cancel(false);
+            if (!writer.isShutdown())
+                writer.execute(this::flush);
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(DEBOUNCE * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Check if there is a journal to recover
+     * @param file journal file
+     * @return true/false
+     */
+    public static boolean hasRecovery(File file) {
+        return file != null && file.isFile() && file.length() > HEADER.length();
+    }
+    
+    /**
+     * Recover experiment from journal. The experiment is loaded from its
+     * project file (or built from its source image) and the journal edits
+     * are applied, computing again only the data that depends on them.
+     * @param file journal file
+     * @return recovered experiment or null if can't be recovered
+     */
+    public static Experiment recover(File file) {
+        try {
+            Map<String,String[]> state = readJournal(file);
+            if (state == null)
+                return null;
+            Experiment model = loadBase(state);
+            if (model == null)
+                return null;
+            applyTransform(model, state);
+            applySamples(model, state);
+            return model;
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Error recovering project journal : " + file, ex);
+            return null;
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Schedule journal write, replacing pending one
+     * @param records records to write
+     */
+    private synchronized void schedule(Map<String,String> records) {
+        pending = records;
+        if (scheduled != null)
+            scheduled.cancel(false);
+        if (!writer.isShutdown())
+            scheduled = writer.schedule(this::flush, DEBOUNCE, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Write pending records (writer thread)
+     */
+    private void flush() {
+        Map<String,String> records;
+        synchronized (this) {
+            records = pending;
+            pending = null;
+        }
+        if (records == null)
+            return;
+        try {
+            // Saved experiment, drop journal
+            if (records.isEmpty()) {
+                written.clear();
+                Files.deleteIfExists(file.toPath());
+                return;
+            }
+            // Other experiment, removed records (less samples, no cut points) or big journal, write it again
+            boolean rewrite = written.isEmpty() || !file.isFile() || file.length() > COMPACT_SIZE
+                    || !Objects.equals(written.get("F"), records.get("F")) || !Objects.equals(written.get("I"), records.get("I"))
+                    || !records.keySet().containsAll(written.keySet());
+            if (rewrite)
+                written.clear();
+            try (FileOutputStream fos = new FileOutputStream(file, !rewrite)) {
+                Writer out = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
+                if (rewrite)
+                    out.write(HEADER + "\n");
+                // Only changed records
+                for (Map.Entry<String,String> record: records.entrySet()) {
+                    if (!record.getValue().equals(written.get(record.getKey())))
+                        out.write(record.getValue() + "\n");
+                }
+                out.flush();
+                fos.getFD().sync();
+            }
+            written.putAll(records);
+        } catch (IOException ex) {
+            written.clear();
+            LOG.warn("Error writing project journal : " + file, ex);
+        }
+    }
+    
+    /**
+     * Take experiment edits as journal records
+     * @param model experiment
+     * @return records by key, or null if the experiment can't be rebuilt (no file or source image)
+     */
+    private static Map<String,String> records(Experiment model) {
+        Map<String,String> records = new LinkedHashMap<>();
+        // Experiment base, project file or source image and project info
+        if (model.hasFile()) {
+            records.put("F", record("F", model.getFile().getAbsolutePath()));
+        } else {
+            ImagePlus img = model.peekSourceImage();
+            if (img == null || img.getOriginalFileInfo() == null || img.getOriginalFileInfo().fileName == null)
+                return null;
+            File source = new File(img.getOriginalFileInfo().directory, img.getOriginalFileInfo().fileName);
+            records.put("I", record("I", source.getAbsolutePath()));
+            Date sample = model.getSampleDate();
+            Date analysis = model.getAnalysisDate();
+            records.put("N", record("N", model.getName(), model.getDescription(), (sample != null)? sample.getTime() : null, (analysis != null)? analysis.getTime() : null));
+        }
+        // Cut points, rotation and flip
+        if (model.hasCutPoints()) {
+            Pair<Point,Point> cut = model.getCutPoints();
+            records.put("C", record("C", cut.getFirst().getX(), cut.getFirst().getY(), cut.getSecond().getX(), cut.getSecond().getY()));
+        }
+        records.put("R", record("R", model.getRotationAngle(), model.getFlipAxis().name()));
+        // Samples limits and names, peaks limits and names
+        List<Sample> samples = model.hasSamples()? model.getAllSamples() : Collections.emptyList();
+        records.put("S", record("S", samples.size()));
+        for (int i = 0; i < samples.size(); i++) {
+            Sample sample = samples.get(i);
+            Point limits = sample.getLimits();
+            records.put("L" + i, record("L", i, limits.getX(), limits.getY(), sample.getFrontPoint(), sample.getSeedPoint(), sample.getName()));
+            // Always written (no peaks as count 0), so cleared peaks aren't replayed
+            List<Peak> peaks = sample.hasPeaks()? sample.getPeaks() : Collections.emptyList();
+            List<Object> fields = new ArrayList<>();
+            fields.add(i);
+            fields.add(peaks.size());
+            for (Peak peak: peaks) {
+                fields.add(peak.getLimits().getFirst());
+                fields.add(peak.getLimits().getSecond());
+                fields.add(peak.getName());
+            }
+            records.put("K" + i, record("K", fields.toArray()));
+        }
+        return records;
+    }
+    
+    /**
+     * Build journal record line (tab separated, without line break)
+     * @param type record type
+     * @param fields record fields
+     * @return record line
+     */
+    private static String record(String type, Object... fields) {
+        StringBuilder line = new StringBuilder(type);
+        for (Object field: fields) {
+            String value = (field != null)? field.toString() : "";
+            line.append('\t').append(value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r"));
+        }
+        return line.toString();
+    }
+    
+    /**
+     * Read journal records, last record of each key wins
+     * @param file journal file
+     * @return records fields by key or null if not a journal
+     * @throws IOException 
+     */
+    private static Map<String,String[]> readJournal(File file) throws IOException {
+        String data = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        String[] lines = data.split("\n", -1);
+        if (!lines[0].equals(HEADER))
+            return null;
+        Map<String,String[]> state = new HashMap<>();
+        // Last line is incomplete (or empty)
+        for (int i = 1; i < lines.length - 1; i++) {
+            String[] fields = lines[i].split("\t", -1);
+            for (int j = 1; j < fields.length; j++)
+                fields[j] = unescape(fields[j]);
+            String key = fields[0];
+            if (key.equals("L") || key.equals("K"))
+                key += fields[1];
+            state.put(key, fields);
+        }
+        return state;
+    }
+    
+    /**
+     * Unescape record field
+     * @param value escaped field
+     * @return field value
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0)
+            return value;
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+                c = (c == 't')? '\t' : (c == 'n')? '\n' : (c == 'r')? '\r' : c;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Load journal base experiment, from project file or source image
+     * @param state journal records
+     * @return base experiment or null
+     */
+    private static Experiment loadBase(Map<String,String[]> state) {
+        // Saved project
+        String[] project = state.get("F");
+        if (project != null)
+            return ModelLoader.loadExperiment(new File(project[1]));
+        // New project from source image
+        String[] source = state.get("I");
+        String[] info = state.get("N");
+        if (source == null || info == null)
+            return null;
+        ImagePlus img = ImageStore.openImage(source[1]);
+        if (img == null)
+            return null;
+        Date sample = info[3].isEmpty()? null : new Date(Long.parseLong(info[3]));
+        Date analysis = info[4].isEmpty()? null : new Date(Long.parseLong(info[4]));
+        Experiment model = new Experiment(info[1], info[2], sample, analysis);
+        model.setSourceImage(img);
+        model.setCutPoints(AnalysisProcessing.searchCutPoints(img));
+        return model;
+    }
+    
+    /**
+     * Apply journal cut points, rotation and flip (samples are removed if changed)
+     * @param model experiment
+     * @param state journal records
+     */
+    private static void applyTransform(Experiment model, Map<String,String[]> state) {
+        String[] cut = state.get("C");
+        String[] transform = state.get("R");
+        if (cut == null || transform == null)
+            return;
+        Pair<Point,Point> points = new Pair<>(new Point(Integer.parseInt(cut[1]), Integer.parseInt(cut[2])), new Point(Integer.parseInt(cut[3]), Integer.parseInt(cut[4])));
+        double angle = Double.parseDouble(transform[1]);
+        Axis axis = Axis.valueOf(transform[2]);
+        // Unchanged experiment image
+        if (model.hasProcessedImage() && points.equals(model.getCutPoints()) && angle == model.getRotationAngle() && axis == model.getFlipAxis())
+            return;
+        // Cut, flip and rotate source image
+        ImagePlus img = ImageProcessing.transformImage(model.getSourceImage(), points, axis, angle);
+        model.setCutPoints(points);
+        model.setProcessedImage(img);
+        model.setFlipAxis(axis);
+        model.setRotationAngle(angle);
+        model.removeAllSamples();
+    }
+    
+    /**
+     * Apply journal samples limits and names, computing changed samples data
+     * @param model experiment
+     * @param state journal records
+     */
+    private static void applySamples(Experiment model, Map<String,String[]> state) {
+        String[] count = state.get("S");
+        if (count == null || !model.hasProcessedImage())
+            return;
+        ImagePlus plate = model.getProcessedImage();
+        // Samples lanes limits
+        List<String[]> lanes = new ArrayList<>();
+        for (int i = 0; i < Integer.parseInt(count[1]); i++) {
+            String[] lane = state.get("L" + i);
+            if (lane == null)
+                return;
+            lanes.add(lane);
+        }
+        boolean same = model.hasSamples() && model.getAllSamples().size() == lanes.size();
+        for (int i = 0; same && i < lanes.size(); i++)
+            same = model.getAllSamples().get(i).getLimits().equals(new Point(Integer.parseInt(lanes.get(i)[2]), Integer.parseInt(lanes.get(i)[3])));
+        if (!same) {
+            model.removeAllSamples();
+            for (String[] lane: lanes)
+                model.addSample(new Sample(new Point(Integer.parseInt(lane[2]), Integer.parseInt(lane[3]))));
+        }
+        for (int i = 0; i < lanes.size(); i++) {
+            Sample sample = model.getAllSamples().get(i);
+            String[] lane = lanes.get(i);
+            // Sample lane image
+            if (!sample.hasSourceImage()) {
+                Point limits = sample.getLimits();
+                ImagePlus img = ImageProcessing.cutImage(plate, new Point(limits.getX(), 0), new Point(limits.getY(), plate.getHeight()));
+                sample.setSourceImage(img);
+                sample.setFrontPoint(0);
+                sample.setSeedPoint(img.getHeight());
+            }
+            // Front and seed points
+            int front = Integer.parseInt(lane[4]);
+            int seed = Integer.parseInt(lane[5]);
+            if (front != sample.getFrontPoint() || seed != sample.getSeedPoint() || !sample.hasProcessedImage()) {
+                ImagePlus ip = sample.getSourceImage();
+                sample.setFrontPoint(front);
+                sample.setSeedPoint(seed);
+                sample.clearMean();
+                sample.clearPeaks();
+                sample.setProcessedImage(ImageProcessing.cutImage(ip, new Point(0, front), new Point(ip.getWidth(), seed)));
+            }
+            if (!sample.hasMean())
+                sample.setMean(AnalysisProcessing.computeGIM(sample.getProcessedImage()));
+            sample.setName(lane[6]);
+            // Sample peaks
+            String[] peaks = state.get("K" + i);
+            if (peaks != null)
+                applyPeaks(sample, peaks);
+        }
+    }
+    
+    /**
+     * Apply journal peaks limits and names, integrating changed peaks
+     * @param sample sample
+     * @param record journal peaks record
+     */
+    private static void applyPeaks(Sample sample, String[] record) {
+        int count = Integer.parseInt(record[2]);
+        List<Pair<Float,Float>> limits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            limits.add(new Pair<>(Float.valueOf(record[3 + i * 3]), Float.valueOf(record[4 + i * 3])));
+        boolean same = sample.hasPeaks() && sample.getPeaks().size() == count;
+        for (int i = 0; same && i < count; i++)
+            same = limits.get(i).equals(sample.getPeaks().get(i).getLimits());
+        if (!same) {
+            sample.clearPeaks();
+            if (count == 0)
+                return;
+            for (Pair<Float,Float> limit: limits) {
+                Peak peak = new Peak(limit);
+                peak.setBaseline(AnalysisProcessing.searchBaseline(sample, peak));
+                sample.addPeak(peak);
+            }
+            // Peaks surfaces, maximums and heights
+            for (Peak peak: sample.getPeaks()) {
+                peak.setSurface(AnalysisProcessing.integratePeak(sample, peak));
+                peak.setMaximum(AnalysisProcessing.computeMaximum(sample, peak));
+                peak.setHeight(AnalysisProcessing.computeHeight(sample, peak));
+                peak.setPosition(peak.getId() + 1);
+            }
+            sample.setTotalSurface(AnalysisProcessing.computeTotalSurface(sample));
+            if (sample.getTotalSurface() != 0)
+                for (Peak peak: sample.getPeaks())
+                    peak.setRelativeSurface(AnalysisProcessing.relativizeSurface(sample, peak));
+        }
+        // Peaks names
+        for (int i = 0; i < count; i++)
+            sample.getPeaks().get(i).setName(record[5 + i * 3]);
+    }
+}
\ No newline at end of file
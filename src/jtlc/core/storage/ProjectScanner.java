@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+//
+import jtlc.core.model.ExperimentSummary;
+
+/**
+ * Projects folder scanner.
+ * Reads the summaries of all projects in a folder in parallel and reports
+ * each one as soon as it is read. Unchanged projects come from the folder
+ * index, re-scans only read projects whose modified time or size changed,
+ * and broken projects are reported and skipped until they change. While
+ * watching, folder changes are applied as they happen.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ProjectScanner implements Closeable {
+    
+    /**
+     * Scanner results listener (called from scanner threads).
+     */
+    public interface Listener {
+        
+        /**
+         * New or changed project.
+         * @param summary project summary
+         */
+        default void projectFound(ExperimentSummary summary) {}
+        
+        /**
+         * Removed (or now broken) project.
+         * @param file project file
+         */
+        default void projectRemoved(File file) {}
+        
+        /**
+         * Project that can't be read.
+         * @param file project file
+         */
+        default void projectBroken(File file) {}
+    }
+    
+    // Error logger
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectScanner.class);
+    // Wait for more events before applying folder changes (ms)
+    private static final long WATCH_DEBOUNCE = 300;
+    // Projects folder
+    private final File folder;
+    // Results listener
+    private final Listener listener;
+    // Projects readers
+    private final ExecutorService workers;
+    // Current summaries by file name
+    private final Map<String,ExperimentSummary> summaries = new ConcurrentHashMap<>();
+    // Broken projects by file name (modified time and size)
+    private final Map<String,String> broken = new ConcurrentHashMap<>();
+    // Index needs to be written
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    // Folder watcher
+    private WatchService watcher;
+    private Thread watchThread;
+    
+    /**
+     * Create projects scanner.
+     * @param folder projects folder
+     * @param listener results listener (or null)
+     */
+    public ProjectScanner(File folder, Listener listener) {
+        this.folder = folder;
+        this.listener = (listener != null)? listener : new Listener() {};
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "jtlc-projects");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Scan folder. Indexed and unchanged projects are reported before returning,
+     * changed ones in parallel; the folder index is updated when done.
+     * @return scan completion
+     */
+    public CompletableFuture<Void> scan() {
+        // Indexed summaries (only first scan)
+        Map<String,ExperimentSummary> indexed = summaries.isEmpty()? ProjectIndex.readIndex(folder) : summaries;
+        // Current projects files
+        File[] files = folder.listFiles((File file, String name) -> name.endsWith(".jtlc"));
+        if (files == null) files = new File[0];
+        Set<String> names = new HashSet<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (File file: files) {
+            if (!file.isFile())
+                continue;
+            names.add(file.getName());
+            // Unchanged project
+            ExperimentSummary summary = indexed.get(file.getName());
+            if (summary != null && !summary.isOutdated()) {
+                if (summaries.put(file.getName(), summary) != summary)
+                    listener.projectFound(summary);
+                continue;
+            }
+            // Read project
+            tasks.add(CompletableFuture.runAsync(() -> read(file), workers));
+        }
+        // Removed projects
+        for (String name: new ArrayList<>(summaries.keySet())) {
+            if (!names.contains(name))
+                remove(new File(folder, name));
+        }
+        if (indexed != summaries && indexed.size() != summaries.size())
+            dirty.set(true);
+        // Update index when all projects were read
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).thenRun(this::writeIndex);
+    }
+    
+    /**
+     * Start watching folder changes (after a first scan).
+     * @throws IOException 
+     */
+    public synchronized void watch() throws IOException {
+        if (watcher != null)
+            return;
+        watcher = FileSystems.getDefault().newWatchService();
+        folder.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchThread = new Thread(this::watchLoop, "jtlc-projects-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+    
+    /**
+     * Get current summaries, sorted by file name.
+     * @return projects summaries
+     */
+    public List<ExperimentSummary> getSummaries() {
+        return summaries.values().stream().sorted(Comparator.comparing(s -> s.getFile().getName())).collect(Collectors.toList());
+    }
+    
+    /**
+     * Stop watching and reading projects.
+     */
+    @Override
+    public synchronized void close() {
+        workers.shutdownNow();
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ex) {
+                LOG.warn("Error closing projects folder watcher", ex);
+            }
+            watchThread.interrupt();
+            watcher = null;
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Read project summary and report it
+     * @param file project file
+     */
+    private void read(File file) {
+        // Broken and unchanged project
+        String state = file.lastModified() + ":" + file.length();
+        if (state.equals(broken.get(file.getName())))
+            return;
+        ExperimentSummary summary = ModelLoader.loadSummary(file);
+        dirty.set(true);
+        if (summary != null) {
+            broken.remove(file.getName());
+            summaries.put(file.getName(), summary);
+            listener.projectFound(summary);
+        } else {
+            broken.put(file.getName(), state);
+            if (summaries.remove(file.getName()) != null)
+                listener.projectRemoved(file);
+            listener.projectBroken(file);
+        }
+    }
+    
+    /**
+     * Remove project and report it
+     * @param file project file
+     */
+    private void remove(File file) {
+        broken.remove(file.getName());
+        if (summaries.remove(file.getName()) != null) {
+            dirty.set(true);
+            listener.projectRemoved(file);
+        }
+    }
+    
+    /**
+     * Write folder index if changed
+     */
+    private void writeIndex() {
+        if (dirty.getAndSet(false))
+            ProjectIndex.writeIndex(folder, getSummaries());
+    }
+    
+    /**
+     * Folder watcher loop, applies changed projects in groups
+     */
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watcher.take();
+                Set<String> changed = new HashSet<>();
+                boolean overflow = false;
+                // Wait for more events (projects are written and renamed)
+                do {
+                    for (WatchEvent<?> event: key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                            overflow = true;
+                        else
+                            changed.add(((Path) event.context()).getFileName().toString());
+                    }
+                    key.reset();
+                } while ((key = watcher.poll(WATCH_DEBOUNCE, TimeUnit.MILLISECONDS)) != null);
+                // Apply changes
+                if (overflow) {
+                    scan();
+                    continue;
+                }
+                List<CompletableFuture<Void>> tasks = new ArrayList<>();
+                for (String name: changed) {
+                    if (!name.endsWith(".jtlc"))
+                        continue;
+                    File file = new File(folder, name);
+                    ExperimentSummary summary = summaries.get(name);
+                    if (!file.isFile())
+                        remove(file);
+                    else if (summary == null || summary.isOutdated())
+                        tasks.add(CompletableFuture.runAsync(() -> read(file), workers));
+                }
+                CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).thenRun(this::writeIndex);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // Scanner closed
+        }
+    }
+}
\ No newline at end of file
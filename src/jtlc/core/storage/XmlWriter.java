@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Streaming XML writer.
+ * Writes indented XML elements and attributes straight to a stream,
+ * without building a document. Elements without children are written as
+ * empty elements. Attribute values are escaped as the DOM serializer does,
+ * line breaks and tabs as character references (so they survive attribute
+ * values normalization when read).
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+class XmlWriter implements AutoCloseable {
+    // Indentation
+    private static final String INDENT = "    ";
+    // Output writer
+    private final Writer writer;
+    // Open elements names
+    private final Deque<String> elements = new ArrayDeque<>();
+    // Last started element tag not closed yet (attributes can be added)
+    private boolean pending;
+    
+    /**
+     * Create XML writer and write document start (UTF-8)
+     * @param output output stream
+     * @throws IOException 
+     */
+    XmlWriter(OutputStream output) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    }
+    
+    /**
+     * Start element
+     * @param name element name
+     * @return this writer
+     * @throws IOException 
+     */
+    XmlWriter start(String name) throws IOException {
+        closePending(false);
+        newLine(elements.size());
+        writer.write('<');
+        writer.write(name);
+        elements.push(name);
+        pending = true;
+        return this;
+    }
+    
+    /**
+     * Add attribute to started element (null values are written empty)
+     * @param name attribute name
+     * @param value attribute value
+     * @return this writer
+     * @throws IOException 
+     */
+    XmlWriter attribute(String name, Object value) throws IOException {
+        if (!pending)
+            throw new IllegalStateException("Attribute outside element start: " + name);
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+        if (value != null)
+            escape(value.toString());
+        writer.write('"');
+        return this;
+    }
+    
+    /**
+     * End current element
+     * @return this writer
+     * @throws IOException 
+     */
+    XmlWriter end() throws IOException {
+        String name = elements.pop();
+        if (pending) {
+            closePending(true);
+        } else {
+            newLine(elements.size());
+            writer.write("</");
+            writer.write(name);
+            writer.write('>');
+        }
+        return this;
+    }
+    
+    /**
+     * End open elements and flush (the output stream is not closed)
+     * @throws IOException 
+     */
+    @Override
+    public void close() throws IOException {
+        while (!elements.isEmpty())
+            end();
+        writer.write('\n');
+        writer.flush();
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Close pending started element tag
+     * @param empty element without children
+     * @throws IOException 
+     */
+    private void closePending(boolean empty) throws IOException {
+        if (!pending)
+            return;
+        writer.write(empty? "/>" : ">");
+        pending = false;
+    }
+    
+    /**
+     * Write escaped attribute value
+     * @param value attribute value
+     * @throws IOException 
+     */
+    private void escape(String value) throws IOException {
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String reference;
+            switch (value.charAt(i)) {
+                case '&': reference = "&amp;"; break;
+                case '<': reference = "&lt;"; break;
+                case '>': reference = "&gt;"; break;
+                case '"': reference = "&quot;"; break;
+                case '\n': reference = "&#10;"; break;
+                case '\r': reference = "&#13;"; break;
+                case '\t': reference = "&#9;"; break;
+                default: continue;
+            }
+            writer.write(value, from, i - from);
+            writer.write(reference);
+            from = i + 1;
+        }
+        writer.write(value, from, value.length() - from);
+    }
+    
+    /**
+     * Write new line and indentation
+     * @param level indentation level
+     * @throws IOException 
+     */
+    private void newLine(int level) throws IOException {
+        writer.write('\n');
+        for (int i = 0; i < level; i++)
+            writer.write(INDENT);
+    }
+}
\ No newline at end of file
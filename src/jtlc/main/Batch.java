@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.main;
+
+import java.io.File;
+import jtlc.core.processing.AnalysisProcessing;
+import jtlc.core.processing.AnalysisProcessing.Axis;
+import jtlc.core.processing.BatchProcessing;
+import jtlc.core.processing.PeakDetector;
+import jtlc.core.processing.ProfileExtractor;
+
+/**
+ * jTLC headless batch entry point.
+ * Usage: Batch input-folder [output-folder] [workers] [rotation-angle] [flip-axis] [peak-detector] [profile-band] [background-radius]
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class Batch {
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String args[]) {
+        // No windows at all
+        System.setProperty("java.awt.headless", "true");
+        // Check arguments
+        if (args.length < 1) {
+            System.err.println("Usage: Batch input-folder [output-folder] [workers] [rotation-angle] [flip-axis] [peak-detector] [profile-band] [background-radius]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = (args.length > 1)? new File(args[1]) : new File(input, "jtlc-batch");
+        int workers = (args.length > 2)? Integer.valueOf(args[2]) : Runtime.getRuntime().availableProcessors();
+        // Batch processor
+        BatchProcessing batch = new BatchProcessing(workers);
+        if (args.length > 3)
+            batch.setTransform(Double.valueOf(args[3]), (args.length > 4)? Axis.valueOf(args[4]) : Axis.NONE);
+        // Peak detection method (PROMINENCE or LEGACY)
+        if (args.length > 5)
+            AnalysisProcessing.setPeakDetector(PeakDetector.Method.valueOf(args[5]).create());
+        // Profile band width relative to lane width (0..1], full width mean by default
+        if (args.length > 6 && Float.valueOf(args[6]) < 1)
+            AnalysisProcessing.setProfileExtractor(new ProfileExtractor(Float.valueOf(args[6])));
+        // Rolling ball background radius in pixels, no subtraction by default
+        if (args.length > 7)
+            AnalysisProcessing.setBackgroundRadius(Double.valueOf(args[7]));
+        // Process all plates and print timing report
+        batch.processFolder(input, output);
+        System.out.print(batch.getReport());
+        System.exit(batch.getFailedCount() > 0? 2 : 0);
+    }
+}
@@ -18,9 +18,14 @@ package jtlc.main;
 
 import com.alee.laf.WebLookAndFeel;
 import com.alee.managers.language.LanguageManager;
+import jtlc.core.processing.AnalysisProcessing;
+import jtlc.core.processing.PeakDetector;
+import jtlc.core.processing.ProfileExtractor;
 import jtlc.main.common.Settings;
 import jtlc.main.controller.Controller;
 import jtlc.view.MainView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * System Start
@@ -28,6 +33,8 @@ import jtlc.view.MainView;
  * @author Baldani Sergio - Tardivo Cristian
  */
 public class Start {
+    // Error logger
+    private static final Logger LOG = LoggerFactory.getLogger(Start.class);
     
     /**
      * @param args the command line arguments
@@ -40,10 +47,32 @@ public class Start {
         WebLookAndFeel.setAllowLinuxTransparency(true);
         // Set initial language for WebLookAndFeel
         LanguageManager.setLanguage(Settings.getLocale());
+        // Set peak detection method (keep default if unknown)
+        try {
+            AnalysisProcessing.setPeakDetector(PeakDetector.Method.valueOf(Settings.getPeakDetector()).create());
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Unknown peak detector: " + Settings.getPeakDetector());
+        }
+        // Set profile extraction band (full width mean if not narrower)
+        try {
+            float band = Settings.getProfileBand();
+            if (band < 1)
+                AnalysisProcessing.setProfileExtractor(new ProfileExtractor(band));
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Invalid profile band: " + ex.getMessage());
+        }
+        // Set background subtraction radius (no subtraction by default)
+        try {
+            AnalysisProcessing.setBackgroundRadius(Settings.getBackgroundRadius());
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Invalid background radius: " + ex.getMessage());
+        }
         // Initialize jTLC main view and controller
         MainView view = new MainView();
         Controller controller = new Controller(view);
         // Set observer for main view
         view.addObserver(controller);
+        // Offer unsaved changes recovery
+        controller.checkRecovery();
     }
 }
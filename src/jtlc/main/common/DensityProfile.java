@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.main.common;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Class DensityProfile
+ * Implements a densitometry profile (evenly spaced function) as
+ * a primitive float array of y-values plus x-axis origin and step.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class DensityProfile {
+    // Function y-values
+    private final float[] values;
+    // X-Axis origin (x-value of first element)
+    private final float origin;
+    // X-Axis step between two elements
+    private final double step;
+    
+    /**
+     * Specialized constructor
+     * @param values function y-values (not copied)
+     * @param origin x-value of first element
+     * @param step x-distance between two elements
+     */
+    public DensityProfile(float[] values, float origin, double step) {
+        if (values == null)
+            throw new NullPointerException("Profile values can't be null");
+        this.values = values;
+        this.origin = origin;
+        this.step = step;
+    }
+    
+    /**
+     * Clone constructor
+     * @param other profile to clone
+     */
+    public DensityProfile(DensityProfile other) {
+        this(other.values.clone(), other.origin, other.step);
+    }
+    
+    /**
+     * Create a relative profile, x-values between [0..1]
+     * @param values function y-values (not copied)
+     * @return relative profile
+     */
+    public static DensityProfile relative(float[] values) {
+        return new DensityProfile(values, 0f, (values.length > 1)? 1.0 / (values.length - 1) : 0);
+    }
+    
+    /**
+     * Create profile from legacy pair list (evenly spaced and ascending x-values)
+     * @param fn list of pair (float,float) as x-y cordinated values
+     * @return profile
+     */
+    public static DensityProfile fromList(List<Pair<Float,Float>> fn) {
+        float[] y = new float[fn.size()];
+        int i = 0;
+        for (Pair<Float,Float> p: fn)
+            y[i++] = p.getSecond();
+        // X-Axis
+        float first = fn.isEmpty()? 0f : fn.get(0).getFirst();
+        float last = fn.isEmpty()? 0f : fn.get(fn.size() - 1).getFirst();
+        return new DensityProfile(y, first, (y.length > 1)? ((double)last - first) / (y.length - 1) : 0);
+    }
+    
+    /**
+     * Get profile elements count
+     * @return size
+     */
+    public int size() {
+        return values.length;
+    }
+    
+    /**
+     * Check if profile has no elements
+     * @return true/false
+     */
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+    
+    /**
+     * Get x-value of element i
+     * @param i element index
+     * @return x-value
+     */
+    public float getX(int i) {
+        return (float)(origin + i * step);
+    }
+    
+    /**
+     * Get y-value of element i
+     * @param i element index
+     * @return y-value
+     */
+    public float getY(int i) {
+        return values[i];
+    }
+    
+    /**
+     * Set y-value of element i
+     * @param i element index
+     * @param y new y-value
+     */
+    public void setY(int i, float y) {
+        values[i] = y;
+    }
+    
+    /**
+     * Get x-value of first element
+     * @return min x-value
+     */
+    public float getMinX() {
+        return origin;
+    }
+    
+    /**
+     * Get x-value of last element
+     * @return max x-value
+     */
+    public float getMaxX() {
+        return getX(values.length - 1);
+    }
+    
+    /**
+     * Get x-axis step
+     * @return step
+     */
+    public double getStep() {
+        return step;
+    }
+    
+    /**
+     * Get nearest element index for a x-value
+     * @param x x-value
+     * @return element index
+     */
+    public int indexOf(float x) {
+        float span = getMaxX() - origin;
+        if (span == 0) return 0;
+        return Math.round((values.length - 1) * ((x - origin) / span));
+    }
+    
+    /**
+     * Get profile y-values (backing array, not a copy)
+     * @return y-values
+     */
+    public float[] getValues() {
+        return values;
+    }
+    
+    /**
+     * Legacy view as pair list (x-y values created on access)
+     * @return read only list of pair (float,float)
+     */
+    public List<Pair<Float,Float>> asList() {
+        return new AbstractList<Pair<Float,Float>>() {
+            @Override
+            public Pair<Float,Float> get(int index) {
+                return new Pair<>(getX(index), getY(index));
+            }
+    
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.main.common;
+
+/**
+ * Class ProfileIndex
+ * Implements constant time range queries over a density profile: prefix
+ * sums of y-values (area under a straight baseline) and sparse tables of
+ * range maximum positions. Build time and memory are O(n log n).
+ * The profile values must not change after the index is built.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ProfileIndex {
+    // Indexed profile
+    private final DensityProfile profile;
+    // Prefix sums of y-values, sums[i] = y[0] + .. + y[i-1]
+    private final double[] sums;
+    // Leftmost and rightmost maximum position of each 2^k elements range
+    private final int[][] firstMax;
+    private final int[][] lastMax;
+    
+    /**
+     * Create index of profile
+     * @param profile profile to index
+     */
+    public ProfileIndex(DensityProfile profile) {
+        this.profile = profile;
+        float[] y = profile.getValues();
+        int n = y.length;
+        // Prefix sums
+        sums = new double[n + 1];
+        for (int i = 0; i < n; i++)
+            sums[i + 1] = sums[i] + y[i];
+        // Sparse tables levels
+        int levels = (n > 0)? 32 - Integer.numberOfLeadingZeros(n) : 0;
+        firstMax = new int[levels][];
+        lastMax = new int[levels][];
+        if (levels == 0) return;
+        // Single element ranges
+        firstMax[0] = new int[n];
+        for (int i = 0; i < n; i++)
+            firstMax[0][i] = i;
+        lastMax[0] = firstMax[0];
+        // Each level joins two ranges of the previous level
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int count = n - (1 << k) + 1;
+            int[] pf = firstMax[k - 1], pl = lastMax[k - 1];
+            int[] cf = new int[count], cl = new int[count];
+            for (int i = 0; i < count; i++) {
+                int a = pf[i], b = pf[i + half];
+                cf[i] = (y[a] >= y[b])? a : b;
+                a = pl[i]; b = pl[i + half];
+                cl[i] = (y[b] >= y[a])? b : a;
+            }
+            firstMax[k] = cf;
+            lastMax[k] = cl;
+        }
+    }
+    
+    /**
+     * Get indexed profile
+     * @return profile
+     */
+    public DensityProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Sum of y-values between [from-to)
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @return sum
+     */
+    public double sum(int from, int to) {
+        return (from < to)? sums[to] - sums[from] : 0;
+    }
+    
+    /**
+     * Sum of y-values over a straight baseline between [from-to), baseline
+     * defined by points (x1,y1) and (x2,y2)
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param x1 left x-coordinate of the baseline
+     * @param x2 right x-coordinate of the baseline
+     * @param y1 left y-coordinate of the baseline
+     * @param y2 right y-coordinate of the baseline
+     * @return area over the baseline
+     */
+    public double area(int from, int to, float x1, float x2, float y1, float y2) {
+        if (from >= to || x1 == x2) return sum(from, to);
+        int count = to - from;
+        // Baseline equation
+        double p = ((double)y2 - y1) / ((double)x2 - x1);
+        double b = y1 - p * x1;
+        // Sum of x-values (evenly spaced)
+        double sumX = count * (double)profile.getMinX() + profile.getStep() * ((double)from + to - 1) * count / 2;
+        // Sum of y-values minus sum of baseline values
+        return sum(from, to) - (p * sumX + b * count);
+    }
+    
+    /**
+     * Position of maximum y-value between [from-to). If the maximum is
+     * repeated, the middle one of them (only repeated maximums are scanned)
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @return maximum position (-1 if empty range)
+     */
+    public int maximum(int from, int to) {
+        if (from >= to) return -1;
+        float[] y = profile.getValues();
+        // Leftmost and rightmost maximum positions
+        int first = query(firstMax, from, to, true);
+        int last = query(lastMax, from, to, false);
+        if (first == last) return first;
+        // Count repeated maximums and return the middle one
+        float max = y[first];
+        int count = 0;
+        for (int i = first; i <= last; i++)
+            if (y[i] == max) count++;
+        int mid = count / 2;
+        for (int i = first; i <= last; i++)
+            if (y[i] == max && mid-- == 0)
+                return i;
+        return first;
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Sparse table query, joins the two (overlapped) ranges that cover [from-to)
+     * @param table sparse table
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param leftmost prefer leftmost position on equal values
+     * @return maximum position
+     */
+    private int query(int[][] table, int from, int to, boolean leftmost) {
+        float[] y = profile.getValues();
+        int k = 31 - Integer.numberOfLeadingZeros(to - from);
+        int a = table[k][from];
+        int b = table[k][to - (1 << k)];
+        if (leftmost)
+            return (y[a] >= y[b])? a : b;
+        return (y[b] >= y[a])? b : a;
+    }
+}
\ No newline at end of file
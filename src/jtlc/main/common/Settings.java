@@ -35,6 +35,8 @@ import jtlc.main.Start;
 public class Settings {
     // Default Settings file
     private static final String SETTINGS_FILE = "jtlc.settings.props";
+    // Autosave journal file
+    private static final String JOURNAL_FILE = "jtlc.recovery.journal";
     // Settings properties
     private static Properties properties;
     // Properties List
@@ -44,6 +46,9 @@ public class Settings {
     private static final String WINDOW_STATE = "extended";
     private static final String WINDOW_SIZE = "size";
     private static final String WINDOW_LOCATION = "location";
+    private static final String PEAK_DETECTOR = "peaks";
+    private static final String PROFILE_BAND = "band";
+    private static final String BACKGROUND_RADIUS = "background";
     
     // Window states enum
     private static enum State {
@@ -87,6 +92,17 @@ public class Settings {
             return null;
         }
     }
+    
+    /**
+     * Get autosave journal file path (next to settings file, or user home)
+     * @return journal file path
+     */
+    public static String getJournalPath() {
+        String settings = getSettingsPath();
+        String path = (settings != null)? new File(settings).getParent() : FileUtils.getUserHomePath();
+        return path + File.separator + JOURNAL_FILE;
+    }
+    
     /**
      * Load Settings from file
      * @return true/false if settings was loaded correctly
@@ -135,6 +151,12 @@ public class Settings {
                 properties.setProperty(WINDOW_LOCATION, "0 0");
                 // Default Stended State
                 properties.setProperty(WINDOW_STATE, "NORMAL");
+                // Default Peak Detector
+                properties.setProperty(PEAK_DETECTOR, "PROMINENCE");
+                // Default Profile Band (full width)
+                properties.setProperty(PROFILE_BAND, "1.0");
+                // Default Background Radius (no subtraction)
+                properties.setProperty(BACKGROUND_RADIUS, "0");
             }
         }
         return properties;
@@ -237,4 +259,52 @@ public class Settings {
     public static void setWindowLocation(Point location) {
         getSettings().setProperty(WINDOW_LOCATION, (int)location.getX() + " " + (int)location.getY());
     }
+    
+    /**
+     * Get peak detection method name
+     * @return 
+     */
+    public static String getPeakDetector() {
+        return getSettings().getProperty(PEAK_DETECTOR, "PROMINENCE");
+    }
+    
+    /**
+     * Set peak detection method name
+     * @param method 
+     */
+    public static void setPeakDetector(String method) {
+        getSettings().setProperty(PEAK_DETECTOR, method);
+    }
+    
+    /**
+     * Get profile band width (relative to lane width)
+     * @return 
+     */
+    public static float getProfileBand() {
+        return Float.valueOf(getSettings().getProperty(PROFILE_BAND, "1.0"));
+    }
+    
+    /**
+     * Set profile band width (relative to lane width)
+     * @param band 
+     */
+    public static void setProfileBand(float band) {
+        getSettings().setProperty(PROFILE_BAND, String.valueOf(band));
+    }
+    
+    /**
+     * Get background subtraction radius (pixels, 0 for none)
+     * @return 
+     */
+    public static double getBackgroundRadius() {
+        return Double.valueOf(getSettings().getProperty(BACKGROUND_RADIUS, "0"));
+    }
+    
+    /**
+     * Set background subtraction radius (pixels, 0 for none)
+     * @param radius 
+     */
+    public static void setBackgroundRadius(double radius) {
+        getSettings().setProperty(BACKGROUND_RADIUS, String.valueOf(radius));
+    }
 }
\ No newline at end of file
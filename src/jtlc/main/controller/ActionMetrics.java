@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.main.controller;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+//
+import jtlc.main.common.Triplet;
+
+/**
+ * Controller actions metrics.
+ * Counts invocations and latency (total and max) of every action command.
+ * Safe to record from the view and background threads at the same time.
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ActionMetrics {
+    // Counters by command
+    private final Map<String,Counter> counters = new ConcurrentHashMap<>();
+    
+    /**
+     * Record an action invocation.
+     * @param command action command
+     * @param nanos invocation latency in nanoseconds
+     */
+    public void record(String command, long nanos) {
+        Counter counter = counters.computeIfAbsent(command, c -> new Counter());
+        counter.count.increment();
+        counter.total.add(nanos);
+        counter.max.accumulate(nanos);
+    }
+    
+    /**
+     * Get metrics snapshot, sorted by command.
+     * @return map of command to triplet (invocations, total nanos, max nanos)
+     */
+    public Map<String,Triplet<Long,Long,Long>> snapshot() {
+        Map<String,Triplet<Long,Long,Long>> snapshot = new TreeMap<>();
+        counters.forEach((command, c) -> snapshot.put(command, new Triplet<>(c.count.sum(), c.total.sum(), c.max.get())));
+        return Collections.unmodifiableMap(snapshot);
+    }
+    
+    /**
+     * Clear all counters.
+     */
+    public void reset() {
+        counters.clear();
+    }
+    
+    /**
+     * Get metrics report as text
+     * @return metrics report
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        snapshot().forEach((command, t) -> {
+            double mean = (t.getFirst() > 0)? t.getSecond() / 1e6 / t.getFirst() : 0;
+            sb.append(String.format(Locale.ROOT, "  %-28s %6d calls  %10.2f ms mean  %10.2f ms max%n", command, t.getFirst(), mean, t.getThird() / 1e6));
+        });
+        return sb.toString();
+    }
+    
+    /**
+     * Single command counters.
+     */
+    private static class Counter {
+        // Invocations count
+        private final LongAdder count = new LongAdder();
+        // Total latency
+        private final LongAdder total = new LongAdder();
+        // Max latency
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    }
+}
\ No newline at end of file
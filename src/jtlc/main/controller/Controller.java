@@ -18,17 +18,26 @@ package jtlc.main.controller;
 
 import com.alee.managers.language.LanguageManager;
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Observable;
 import java.util.Observer;
 import org.slf4j.LoggerFactory;
 import ij.ImagePlus;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
 import org.jopendocument.dom.ODSingleXMLDocument;
 //
 import jtlc.core.processing.ImageProcessing;
@@ -40,11 +49,14 @@ import jtlc.main.common.Point;
 import jtlc.main.common.Settings;
 import jtlc.core.storage.ModelSaver;
 import jtlc.core.model.Experiment;
+import jtlc.core.model.ExperimentSummary;
 import jtlc.core.model.Peak;
 import jtlc.core.model.Sample;
 import jtlc.core.processing.AnalysisProcessing.Axis;
 import jtlc.core.reports.Reporter;
 import jtlc.core.storage.ImageStore;
+import jtlc.core.storage.ProjectJournal;
+import jtlc.core.storage.ProjectScanner;
 import jtlc.view.panels.dto.CuttingDTO;
 import jtlc.view.panels.dto.DropDTO;
 import jtlc.view.panels.dto.GalleryDTO;
@@ -58,6 +70,7 @@ import jtlc.view.dialogs.dto.ImageExportDTO;
 import jtlc.view.dialogs.dto.InfoDTO;
 import jtlc.view.dialogs.dto.ProjectDTO;
 import jtlc.view.dialogs.dto.SettingsDTO;
+import jtlc.view.dto.AbstractDTO;
 import jtlc.view.dto.ExportDTO;
 import jtlc.view.panels.dto.ReportsDTO;
 import jtlc.view.panels.dto.ResultsDTO;
@@ -65,6 +78,9 @@ import jtlc.view.panels.dto.ResultsDTO;
 /**
  * jTLC main system controller.
  * Controls interactions between models, persistence and views.
+ * Actions run in the event dispatch thread, they only read the view and
+ * show dialogs. Every model change runs in the tasks scheduler (single
+ * writer) and the view follows through the event dispatch thread.
  * 
  * @author Baldani Sergio - Tardivo Cristian
  */
@@ -84,25 +100,55 @@ public class Controller implements Observer {
     private final MainView view;
     
     /**
-     * Current analysis step.
+     * Current analysis step (tasks scheduler only).
      */
     private Step step;
     
+    /**
+     * Step shown in the view (event dispatch thread only).
+     */
+    private Step viewStep;
+    
     /**
      * Current working experiment.
      */
-    private Experiment experiment;
+    private volatile Experiment experiment;
     
     /**
      * Loaded experiments list for gallery/explorer and source folder.
      */
-    private List<Experiment> experiments;
-    private File folder;
+    private volatile List<ExperimentSummary> experiments;
+    private volatile File folder;
+    
+    /**
+     * Explored folder scanner (watches folder changes while open).
+     */
+    private ProjectScanner scanner;
+    
+    /**
+     * Actions handlers mapped to action (resolved once).
+     */
+    private HashMap<String,ActionHandler> actionsMap;
+    
+    /**
+     * Actions invocations and latency metrics.
+     */
+    private final ActionMetrics metrics = new ActionMetrics();
+    
+    /**
+     * Samples (lanes) analysis pool.
+     */
+    private final ForkJoinPool lanesPool = new ForkJoinPool();
+    
+    /**
+     * Background tasks scheduler (model mutations).
+     */
+    private final TaskScheduler scheduler;
     
     /**
-     * Actions Methods mapped to action.
+     * Working experiment autosave journal.
      */
-    private HashMap<String,Method> methodsMap;
+    private final ProjectJournal journal;
     
     /**
      * Default controller constructor.
@@ -111,22 +157,67 @@ public class Controller implements Observer {
     public Controller(MainView view) {
         this.view = view;
         this.step = Step.START_SYSTEM;
+        this.viewStep = Step.START_SYSTEM;
+        this.scheduler = new TaskScheduler(view);
+        this.journal = new ProjectJournal(new File(Settings.getJournalPath()));
         initMethodsMap();
     }
     
     /**
-     * Init Methods map to action
+     * Offer recovery of the unsaved changes journal left by a session that
+     * was not closed correctly.
+     */
+    public void checkRecovery() {
+        // Journal to recover
+        if (!ProjectJournal.hasRecovery(journal.getFile()))
+            return;
+        onView(() -> {
+            // Check for recovery confirm, drop journal if not
+            if (!view.showConfirmDialog(Assets.getString("RECOVER_PROJECT"))) {
+                scheduler.execute(() -> journal.reset(null));
+                return;
+            }
+            // Recover project in background
+            scheduler.execute(() -> {
+                Experiment recovered = ProjectJournal.recover(journal.getFile());
+                if (recovered != null) {
+                    experiment = recovered;
+                    experiment.setSaved(false);
+                    onView(() -> view.showMessage(Assets.getString("PROJECT_RECOVERED")));
+                    updateViewStep(Step.LOAD_IMAGE);
+                } else {
+                    journal.reset(null);
+                    onView(() -> view.showWarningMessage(Assets.getString("PROJECT_RECOVER_ERROR")));
+                }
+            });
+        });
+    }
+    
+    /**
+     * Init actions handlers map.
+     * Each action method is resolved and bound to this controller only once,
+     * as a method handle of type (Object)void.
      */
     private void initMethodsMap() {
-        // Init methods map
-        methodsMap = new HashMap<>();
-        Class controller = this.getClass();
-        Method[] methods = controller.getDeclaredMethods();
+        // Init handlers map
+        actionsMap = new HashMap<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType type = MethodType.methodType(void.class, Object.class);
+        Method[] methods = Controller.class.getDeclaredMethods();
         // for all methods in this class with declared Action annotation
         for (Method method: methods) {
             Action annotation = method.getAnnotation(Action.class);
-            if (annotation != null)
-                methodsMap.put(annotation.value(), method);
+            if (annotation == null) continue;
+            try {
+                MethodHandle handle = lookup.unreflect(method).bindTo(this);
+                // With out parameters, ignore given one
+                if (method.getParameterCount() == 0)
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                // Uniform type, parameter cast included (only 1 parameter allowed)
+                actionsMap.put(annotation.value(), new ActionHandler(handle.asType(type)));
+            } catch (IllegalAccessException | RuntimeException ex) {
+                LoggerFactory.getLogger(Controller.class).error("Invalid action method: " + method, ex);
+            }
         }
     }
     
@@ -151,22 +242,47 @@ public class Controller implements Observer {
             return;
         }
         // Excute method
-        Method method = methodsMap.get(command);
-        if (method != null) {
-            try {
-                // With out parameters
-                if (method.getParameterCount() == 0)
-                    method.invoke(this);
-                else // Parameterized invoke (only 1 parameter allowed)
-                    method.invoke(this, method.getParameterTypes()[0].cast(params));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                LoggerFactory.getLogger(Controller.class).error(command, ex);
-            }
+        ActionHandler handler = actionsMap.get(command);
+        if (handler != null) {
+            invokeAction(command, handler, params);
         } else {
             LoggerFactory.getLogger(Controller.class).error("Unknow method for command: " + command + " in controller update");
         }
     }
     
+    /**
+     * Invoke action method.
+     * @param command action command
+     * @param handler action handler
+     * @param params action parameters
+     */
+    private void invokeAction(String command, ActionHandler handler, Object params) {
+        long start = System.nanoTime();
+        try {
+            handler.handle.invokeExact(params);
+        } catch (Throwable ex) {
+            LoggerFactory.getLogger(Controller.class).error(command, ex);
+        } finally {
+            metrics.record(command, System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Pre-resolved action handler.
+     */
+    private static class ActionHandler {
+        // Bound action method
+        private final MethodHandle handle;
+    
+        /**
+         * Create new action handler
+         * @param handle bound method handle of type (Object)void
+         */
+        private ActionHandler(MethodHandle handle) {
+            this.handle = handle;
+        }
+    }
+    
     /***************************
      *                         *
      * Actions Update Methods. *
@@ -178,24 +294,19 @@ public class Controller implements Observer {
      */
     @Action("NEW_PROJECT")
     private void newProject() {
-        boolean clear = false;
         // Check for previous experiment
-        if (experiment != null) {
-            if (view.showConfirmDialog(Assets.getString("OVERRIDE_PROJECT")))
-                clear = true;
-            else
-                return;
-        }
+        if (experiment != null && !view.showConfirmDialog(Assets.getString("OVERRIDE_PROJECT")))
+            return;
         // Show new project dialog
         ProjectDTO dto = view.showNewProjectDialog();
         if (dto.hasChanged()) {
-            if (clear) {
-                experiment.clear();
-                view.restartView();
-                step = Step.START_SYSTEM;
-            }
-            experiment = new Experiment(dto.getName(), dto.getDescription(), dto.getSampleDate(), dto.getAnalysisDate());
-            updateViewStep(Step.LOAD_IMAGE);
+            scheduler.execute(() -> {
+                // Clear old project
+                clearExperiment();
+                experiment = new Experiment(dto.getName(), dto.getDescription(), dto.getSampleDate(), dto.getAnalysisDate());
+                journal.reset(experiment);
+                updateViewStep(Step.LOAD_IMAGE);
+            });
         }
     }
     
@@ -204,36 +315,25 @@ public class Controller implements Observer {
      */
     @Action("LOAD_PROJECT")
     private void loadProject() {
-        boolean clear = false;
         // Check for previous experiment
-        if (experiment != null) {
-            if (view.showConfirmDialog(Assets.getString("OVERRIDE_PROJECT")))
-                clear = true;
-            else
-                return;
-        }
+        if (experiment != null && !view.showConfirmDialog(Assets.getString("OVERRIDE_PROJECT")))
+            return;
         // Load other project
         File selectedFile = view.showLoadProject("jtlc");
         if (selectedFile != null) {
-            // Clear old project
-            if (clear) {
-                experiment.clear();
-                view.restartView();
-                step = Step.START_SYSTEM;
-            }
-            // Load new project
-            view.showProgress(true);
-            new Thread(() -> {
+            scheduler.execute(() -> {
+                // Clear old project
+                clearExperiment();
+                // Load new project
                 experiment = ModelLoader.loadExperiment(selectedFile);
+                journal.reset(experiment);
                 if (experiment != null) {
-                    view.showProgress(false);
-                    view.showMessage(Assets.getString("PROJECT_LOADED"));
+                    onView(() -> view.showMessage(Assets.getString("PROJECT_LOADED")));
                     updateViewStep(Step.LOAD_IMAGE);
                 } else {
-                    view.showProgress(false);
-                    view.showWarningMessage(Assets.getString("PROJECT_LOAD_ERROR"));
+                    onView(() -> view.showWarningMessage(Assets.getString("PROJECT_LOAD_ERROR")));
                 }
-            }).start();
+            });
         }
     }
     
@@ -242,51 +342,36 @@ public class Controller implements Observer {
      */ 
     @Action("EXPLORE_PROJECTS")
     private void exploreProjects() {
-        boolean clear = false;
         boolean previous = false;
         // Check for previous experiment
-        if (experiment != null) {
-            if (view.showConfirmDialog(Assets.getString("OVERRIDE_PROJECT")))
-                clear = true;
-            else
-                return;
-        }
+        if (experiment != null && !view.showConfirmDialog(Assets.getString("OVERRIDE_PROJECT")))
+            return;
         // Check for previous explored floder
         if (experiments != null && !view.showConfirmDialog(Assets.getString("EXPLORE_OTHER_FOLDER"))) {
             previous = true;
         }
         // If explore new folder, show folder chooser
+        File selectedFolder = null;
         if (!previous) {
-            folder = view.showDirectoryChooser();
-            if (folder == null) return;
-        }
-        // Clear old project
-        if (clear) {
-            experiment.clear();
-            view.restartView();
-            step = Step.START_SYSTEM;
+            selectedFolder = view.showDirectoryChooser();
+            if (selectedFolder == null) return;
         }
-        // Show progress bar
-        view.showProgress(true);
-        // Load new folder
-        final boolean loadFolder = !previous;
         // Open Files
-        new Thread(() -> {
-            if (loadFolder && folder != null) experiments = ModelLoader.loadExperiments(folder);
-            // Create Gallery dto from experiments list
-            GalleryDTO dto = new GalleryDTO(experiments);
-            // Check open project results and show galery panel
-            if (!dto.isEmpty()) {
-                step = Step.EXPLORE_PROJECTS;
-                view.showImageGaleryPanel(dto, false);
-                view.updateButtons(true, false, false, false);
-            } else {
-                view.showWarningMessage(Assets.getString("EMPTY_FOLDER"));
-                folder = null;
+        final File projectsFolder = selectedFolder;
+        scheduler.execute(() -> {
+            // Clear old project
+            if (experiment != null)
+                journal.reset(null);
+            clearExperiment();
+            if (projectsFolder != null) {
+                // Load new folder
+                folder = projectsFolder;
+                scanFolder(projectsFolder);
+            } else if (experiments != null) {
+                // Show previous explored folder
+                showGallery(new GalleryDTO(new ArrayList<>(experiments)));
             }
-            // Hide progress bar
-            view.showProgress(false);
-        }).start();
+        });
     }
     
     /**
@@ -303,12 +388,17 @@ public class Controller implements Observer {
         // Validate file
         if (file == null) return;
         // Save experiment
-        if (!ModelSaver.saveExperiment(experiment, file)) {
-            view.showWarningMessage(Assets.getString("PROJECT_SAVE_ERROR", file.getName()));
-        } else {
-            view.showMessage(Assets.getString("PROJECT_SAVED_MESSAGE", file.getName()));
-            view.updateMenu(true, true, true);
-        }
+        scheduler.execute(() -> {
+            if (!ModelSaver.saveExperiment(experiment, file)) {
+                onView(() -> view.showWarningMessage(Assets.getString("PROJECT_SAVE_ERROR", file.getName())));
+            } else {
+                journal.reset(experiment);
+                onView(() -> {
+                    view.showMessage(Assets.getString("PROJECT_SAVED_MESSAGE", file.getName()));
+                    view.updateMenu(true, true, true);
+                });
+            }
+        });
     }
     
     /**
@@ -325,10 +415,14 @@ public class Controller implements Observer {
         // Check for replace
         if (file.exists() && !view.showConfirmDialog(Assets.getString("OVERWRITE_FILE") + "\n" + Assets.getString("FILE") + ": " + file.getName())) return;
         // Save experiment
-        if (!ModelSaver.saveExperiment(experiment, file))
-            view.showWarningMessage(Assets.getString("PROJECT_SAVE_ERROR", file.getName()));
-        else
-            view.showMessage(Assets.getString("PROJECT_SAVED_MESSAGE", file.getName()));
+        scheduler.execute(() -> {
+            if (!ModelSaver.saveExperiment(experiment, file)) {
+                onView(() -> view.showWarningMessage(Assets.getString("PROJECT_SAVE_ERROR", file.getName())));
+            } else {
+                journal.reset(experiment);
+                onView(() -> view.showMessage(Assets.getString("PROJECT_SAVED_MESSAGE", file.getName())));
+            }
+        });
     }
     
     /**
@@ -346,7 +440,16 @@ public class Controller implements Observer {
             Settings.setWindowSize(view.getWindowSize());
             Settings.setWindowLocation(view.getWindowLocation());
             Settings.saveSettings();
-            System.exit(0);
+            // Stop steps tasks, but let waiting saves and exports finish
+            scheduler.cancel();
+            scheduler.execute(() -> {
+                // Unsaved changes discarded
+                journal.reset(null);
+                journal.close();
+                // Session actions metrics
+                LoggerFactory.getLogger(Controller.class).info("Actions metrics:\n" + metrics.getReport());
+                System.exit(0);
+            });
         }
     }
     
@@ -360,12 +463,15 @@ public class Controller implements Observer {
         //
         InfoDTO dto = view.showEditProjectDialog(new InfoDTO(experiment));
         if (dto.hasChanged()) {
-            experiment.setName(dto.getName());
-            experiment.setDescription(dto.getDescription());
-            experiment.setAnalysisDate(dto.getAnalysisDate());
-            experiment.setSampleDate(dto.getSampleDate());
-            // Show Project update message
-            view.showMessage(Assets.getString("PROJECT_UPDATED"));
+            scheduler.execute(() -> {
+                experiment.setName(dto.getName());
+                experiment.setDescription(dto.getDescription());
+                experiment.setAnalysisDate(dto.getAnalysisDate());
+                experiment.setSampleDate(dto.getSampleDate());
+                journal.record(experiment);
+                // Show Project update message
+                onView(() -> view.showMessage(Assets.getString("PROJECT_UPDATED")));
+            });
         }
     }
     
@@ -392,98 +498,36 @@ public class Controller implements Observer {
     
     /**
      * Advances to the next step.
+     * Step panel values are read here, the step is processed in the tasks
+     * scheduler (repeated commands are coalesced).
      */
     @Action("NEXT_STEP")
     private void nextStep() {
-        // Step is the current step
-        switch (step) {
-            case EXPLORE_PROJECTS: // Explore Porjects -> Load Image
-                    if (processExploreProjects())
-                        updateViewStep(Step.LOAD_IMAGE);
-                    else
-                        view.showWarningMessage(Assets.getString("PROJECT_WARNING"));
-                    break;
-            case LOAD_IMAGE: // Load Image -> Cut Image
-                    if (processImageDrop())
-                        updateViewStep(Step.CUT_IMAGE);
-                    else
-                        view.showWarningMessage(Assets.getString("IMAGE_WARNING"));
-                    break;                    
-            case CUT_IMAGE: // Cut Image -> Rotate Image
-                    processImageCutting();
-                    updateViewStep(Step.ROTATE_IMAGE);
-                    break;
-            case ROTATE_IMAGE: // Rotate Image -> Samples select
-                    processImageRotation();
-                    updateViewStep(Step.SAMPLES_SELECT);
-                    break;
-            case SAMPLES_SELECT: // Samples Select -> Special Points
-                    if (processSamplesSplit())
-                        updateViewStep(Step.SPECIAL_POINTS);
-                    else
-                        view.showWarningMessage(Assets.getString("SAMPLES_WARNING"));
-                    break;
-            case SPECIAL_POINTS: // Special Points -> Analize Samples
-                    processSpecialPointsSelection();
-                    updateViewStep(Step.ANALIZE_SAMPLES);
-                    break;
-            case ANALIZE_SAMPLES: // Analize Samples -> Analize Results
-                    if (processSamplesAnalysis())
-                        updateViewStep(Step.SAMPLES_ANALYSIS_RESULTS);
-                    break;
-            case SAMPLES_ANALYSIS_RESULTS: // Analize Results -> 
-                    processSamplesAnalysisResults();
-                    updateViewStep(Step.ANALYSIS_REPORTS);
-                    break;
-            default: // Debug
-                System.err.println("Invalid Step at next step call :: " + step);
+        // Step shown in the view
+        Step current = viewStep;
+        if (current == Step.START_SYSTEM || current == Step.ANALYSIS_REPORTS) {
+            System.err.println("Invalid Step at next step call :: " + current);
+            return;
         }
+        // Current panel values
+        AbstractDTO dto = view.getValues();
+        scheduler.submit("NEXT_STEP", () -> processNextStep(current, dto));
     }
     
     /**
      * Go backward to the previous step.
+     * Running and waiting steps tasks are cancelled.
      */
     @Action("PREV_STEP")
     private void previousStep() {
-        // Step is the current step
-        switch (step) {
-            case LOAD_IMAGE: // Load Image -> Explore Projects
-                    if (!experiment.isSaved() && !view.showConfirmDialog(Assets.getString("LOSE_UNSAVED_CHANGES")))
-                        break;
-                    view.removeBreadcrumb(Panels.LOAD_IMAGE);
-                    updateViewStep(Step.EXPLORE_PROJECTS);
-                    break;
-            case CUT_IMAGE: // Cut Image -> Load Image
-                    view.removeBreadcrumb(Panels.CUT_IMAGE);
-                    updateViewStep(Step.LOAD_IMAGE);
-                    break;
-            case ROTATE_IMAGE: // Rotate Image -> Cut Image
-                    view.removeBreadcrumb(Panels.ROTATE_IMAGE);
-                    updateViewStep(Step.CUT_IMAGE);
-                    break;
-            case SAMPLES_SELECT: // Samples Select -> Rotate Image
-                    view.removeBreadcrumb(Panels.SAMPLES_SELECT);
-                    updateViewStep(Step.ROTATE_IMAGE);
-                    break;
-            case SPECIAL_POINTS: // Special Points -> Samples Select
-                    view.removeBreadcrumb(Panels.SAMPLES_POINTS);
-                    updateViewStep(Step.SAMPLES_SELECT);
-                    break;
-            case ANALIZE_SAMPLES: // Analize Samples -> Special Points
-                    view.removeBreadcrumb(Panels.SAMPLES_ANALYSIS);
-                    updateViewStep(Step.SPECIAL_POINTS);
-                    break;
-            case SAMPLES_ANALYSIS_RESULTS: // Analize Results -> Analize Samples
-                    view.removeBreadcrumb(Panels.SAMPLES_ANALYSIS_RESULTS);
-                    updateViewStep(Step.ANALIZE_SAMPLES);
-                    break;
-            case ANALYSIS_REPORTS: // Analize Reports -> Analize Results
-                    view.removeBreadcrumb(Panels.ANALYSIS_REPORTS);
-                    updateViewStep(Step.SAMPLES_ANALYSIS_RESULTS);
-                    break;
-            default: // Debug
-                System.err.println("Invalid Step at previous step call :: " + step);
-        }
+        // Step shown in the view
+        Step current = viewStep;
+        // Check for unsaved changes when leaving the project
+        if (current == Step.LOAD_IMAGE && experiment != null && !experiment.isSaved() && !view.showConfirmDialog(Assets.getString("LOSE_UNSAVED_CHANGES")))
+            return;
+        // Cancel running and waiting steps
+        scheduler.cancel();
+        scheduler.submit("PREV_STEP", () -> processPreviousStep(current));
     }
    
     /**
@@ -492,8 +536,10 @@ public class Controller implements Observer {
      */ 
     @Action("RESTART_STEP")
     private void restartStep() {
-        if (view.showConfirmDialog(Assets.getString("RESTART_STEP")))
-            resetViewStep();
+        if (view.showConfirmDialog(Assets.getString("RESTART_STEP"))) {
+            Step current = viewStep;
+            scheduler.execute(() -> resetViewStep(current));
+        }
     }
    
     /**
@@ -579,14 +625,12 @@ public class Controller implements Observer {
             File file = view.showFileSave("TXT", "txt", expName + "-" + smpName + "-sample_data");
             // Check file and save
             if (file != null) {
-                view.showProgress(true);
-                new Thread(() -> {
+                scheduler.execute(() -> {
                     if (ModelSaver.saveSampleData(file, sample))
-                        view.showMessage(Assets.getString("SAMPLE_DATA_SAVED"));
+                        onView(() -> view.showMessage(Assets.getString("SAMPLE_DATA_SAVED")));
                     else
-                        view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE"));
-                    view.showProgress(false);
-                }).start();
+                        onView(() -> view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE")));
+                });
             } else {
                 view.showWarningMessage(Assets.getString("INVALID_SELECTED_FILE"));
             }
@@ -594,14 +638,12 @@ public class Controller implements Observer {
             File file = view.showFileSave("TXT", "txt", expName + "-experiment_data");
             // Check file and save
             if (file != null) {
-                view.showProgress(true);
-                new Thread(() -> {
+                scheduler.execute(() -> {
                     if (ModelSaver.saveExperimentData(file, experiment))
-                        view.showMessage(Assets.getString("EXPERIMENT_DATA_SAVED"));
+                        onView(() -> view.showMessage(Assets.getString("EXPERIMENT_DATA_SAVED")));
                     else
-                        view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE"));
-                    view.showProgress(false);
-                }).start();
+                        onView(() -> view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE")));
+                });
             } else {
                 view.showWarningMessage(Assets.getString("INVALID_SELECTED_FILE"));
             }
@@ -620,14 +662,12 @@ public class Controller implements Observer {
         Sample sample = experiment.getSampleById(id);
         File file = view.showFileSave("TXT", "txt", expName + "-" + smpName + "-sample_mean");
         if (file != null) {
-            view.showProgress(true);
-            new Thread(() -> {
+            scheduler.execute(() -> {
                 if (ModelSaver.saveMean(file, sample.getMean()))
-                    view.showMessage(Assets.getString("SAMPLE_MEAN_SAVED"));
+                    onView(() -> view.showMessage(Assets.getString("SAMPLE_MEAN_SAVED")));
                 else 
-                    view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE"));
-                view.showProgress(false);
-            }).start();
+                    onView(() -> view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE")));
+            });
         } else {
             view.showWarningMessage(Assets.getString("INVALID_SELECTED_FILE"));
         }
@@ -659,20 +699,18 @@ public class Controller implements Observer {
         ImageExportDTO result = view.showImageExportDialog(new ImageExportDTO(image.duplicate(), true));
         // If accepted export image
         if (result.hasChanged()) {
-            // duplicate to preserve original
-            ImagePlus resized = image.duplicate();
-            // resize if necessary
-            ImageProcessing.resizeImage(resized, result.getWidth(), result.getHeight());
             // show image file selector
             File file = view.showFileSave("JPG", "jpg", name);
             // Save image and show saved message
             if (file != null) {
-                view.showProgress(true);
-                new Thread(() -> {
+                scheduler.execute(() -> {
+                    // duplicate to preserve original
+                    ImagePlus resized = image.duplicate();
+                    // resize if necessary
+                    ImageProcessing.resizeImage(resized, result.getWidth(), result.getHeight());
                     ImageStore.saveImage(resized, file.getPath());
-                    view.showMessage(Assets.getString("IMAGE_SAVED"));
-                    view.showProgress(false);
-                }).start();
+                    onView(() -> view.showMessage(Assets.getString("IMAGE_SAVED")));
+                });
             } else {
                 view.showWarningMessage(Assets.getString("INVALID_SELECTED_FILE"));
             }
@@ -717,7 +755,7 @@ public class Controller implements Observer {
                 if (format.equals("HTML") || format.equals("PDF") || format.equals("ODT"))
                     throw new Exception();
             } catch (Exception ex) {
-                view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE"));
+                onView(() -> view.showWarningMessage(Assets.getString("ERROR_SAVING_FILE")));
             }
             // if can't save report document as selected file
             return false;
@@ -730,26 +768,22 @@ public class Controller implements Observer {
             if (id >= 0) { // sample
                 Sample sample = experiment.getSampleById(id);
                 // Save and show saved message
-                view.showProgress(true);
-                new Thread(() -> {
+                scheduler.execute(() -> {
                     if (format.equals("CSV") && reporter.saveSampleCSVReport(sample, file)) {
-                        view.showMessage(Assets.getString("SAMPLE_REPORT_SAVED"));
+                        onView(() -> view.showMessage(Assets.getString("SAMPLE_REPORT_SAVED")));
                     } else if (saver.apply(reporter.createSampleReport(sample), file)) {
-                        view.showMessage(Assets.getString("SAMPLE_REPORT_SAVED"));
+                        onView(() -> view.showMessage(Assets.getString("SAMPLE_REPORT_SAVED")));
                     }
-                    view.showProgress(false);
-                }).start();
+                });
             } else { // experiment
                 // Save and show saved message
-                view.showProgress(true);
-                new Thread(() -> {
+                scheduler.execute(() -> {
                     if (format.equals("CSV") && reporter.saveExperimentCSVReport(experiment, file)) {
-                        view.showMessage(Assets.getString("EXPERIMENT_REPORT_SAVED"));
+                        onView(() -> view.showMessage(Assets.getString("EXPERIMENT_REPORT_SAVED")));
                     } else if (saver.apply(reporter.createExperimentReport(experiment, true), file)) {
-                        view.showMessage(Assets.getString("EXPERIMENT_REPORT_SAVED"));
+                        onView(() -> view.showMessage(Assets.getString("EXPERIMENT_REPORT_SAVED")));
                     }
-                    view.showProgress(false);
-                }).start();
+                });
             }
         } else {
             view.showWarningMessage(Assets.getString("INVALID_SELECTED_FILE"));
@@ -761,17 +795,119 @@ public class Controller implements Observer {
      * Next Step Methods. *
      *                    *
      **********************/
+    
+    /**
+     * Process current step and advance to the next one (tasks scheduler).
+     * @param current step shown when the command was issued
+     * @param dto step panel values
+     */
+    private void processNextStep(Step current, AbstractDTO dto) {
+        // Ignore stale command (step changed since panel values were read)
+        if (current != step)
+            return;
+        // Step is the current step
+        switch (step) {
+            case EXPLORE_PROJECTS: // Explore Porjects -> Load Image
+                    if (processExploreProjects((GalleryDTO) dto))
+                        advanceToStep(Step.LOAD_IMAGE);
+                    else
+                        onView(() -> view.showWarningMessage(Assets.getString("PROJECT_WARNING")));
+                    break;
+            case LOAD_IMAGE: // Load Image -> Cut Image
+                    if (processImageDrop((DropDTO) dto))
+                        advanceToStep(Step.CUT_IMAGE);
+                    else
+                        onView(() -> view.showWarningMessage(Assets.getString("IMAGE_WARNING")));
+                    break;                    
+            case CUT_IMAGE: // Cut Image -> Rotate Image
+                    processImageCutting((CuttingDTO) dto);
+                    advanceToStep(Step.ROTATE_IMAGE);
+                    break;
+            case ROTATE_IMAGE: // Rotate Image -> Samples select
+                    processImageRotation((RotationDTO) dto);
+                    advanceToStep(Step.SAMPLES_SELECT);
+                    break;
+            case SAMPLES_SELECT: // Samples Select -> Special Points
+                    if (processSamplesSplit((SplitDTO) dto))
+                        advanceToStep(Step.SPECIAL_POINTS);
+                    else
+                        onView(() -> view.showWarningMessage(Assets.getString("SAMPLES_WARNING")));
+                    break;
+            case SPECIAL_POINTS: // Special Points -> Analize Samples
+                    processSpecialPointsSelection((DataDTO) dto);
+                    advanceToStep(Step.ANALIZE_SAMPLES);
+                    break;
+            case ANALIZE_SAMPLES: // Analize Samples -> Analize Results
+                    if (processSamplesAnalysis((AnalysisDTO) dto))
+                        advanceToStep(Step.SAMPLES_ANALYSIS_RESULTS);
+                    break;
+            case SAMPLES_ANALYSIS_RESULTS: // Analize Results -> 
+                    processSamplesAnalysisResults((ResultsDTO) dto);
+                    advanceToStep(Step.ANALYSIS_REPORTS);
+                    break;
+            default: // Debug
+                System.err.println("Invalid Step at next step call :: " + step);
+        }
+        // Journal step changes
+        journal.record(experiment);
+    }
+    
+    /**
+     * Go backward to the previous step (tasks scheduler).
+     * @param current step shown when the command was issued
+     */
+    private void processPreviousStep(Step current) {
+        // Ignore stale command (step changed since it was issued)
+        if (current != step)
+            return;
+        // Step is the current step
+        switch (step) {
+            case LOAD_IMAGE: // Load Image -> Explore Projects
+                    journal.reset(null);
+                    backToStep(Panels.LOAD_IMAGE, Step.EXPLORE_PROJECTS);
+                    break;
+            case CUT_IMAGE: // Cut Image -> Load Image
+                    backToStep(Panels.CUT_IMAGE, Step.LOAD_IMAGE);
+                    break;
+            case ROTATE_IMAGE: // Rotate Image -> Cut Image
+                    backToStep(Panels.ROTATE_IMAGE, Step.CUT_IMAGE);
+                    break;
+            case SAMPLES_SELECT: // Samples Select -> Rotate Image
+                    backToStep(Panels.SAMPLES_SELECT, Step.ROTATE_IMAGE);
+                    break;
+            case SPECIAL_POINTS: // Special Points -> Samples Select
+                    backToStep(Panels.SAMPLES_POINTS, Step.SAMPLES_SELECT);
+                    break;
+            case ANALIZE_SAMPLES: // Analize Samples -> Special Points
+                    backToStep(Panels.SAMPLES_ANALYSIS, Step.SPECIAL_POINTS);
+                    break;
+            case SAMPLES_ANALYSIS_RESULTS: // Analize Results -> Analize Samples
+                    backToStep(Panels.SAMPLES_ANALYSIS_RESULTS, Step.ANALIZE_SAMPLES);
+                    break;
+            case ANALYSIS_REPORTS: // Analize Reports -> Analize Results
+                    backToStep(Panels.ANALYSIS_REPORTS, Step.SAMPLES_ANALYSIS_RESULTS);
+                    break;
+            default: // Debug
+                System.err.println("Invalid Step at previous step call :: " + step);
+        }
+    }
 
     /**
      * Open selected proyect from proyect explorer gallery.
+     * @param dto gallery panel values
      * @return true if was selected one proyect.
      */
-    private boolean processExploreProjects() {
-        GalleryDTO dto = view.getValues();
-        Experiment selected = dto.getSelectedExperiment();
-        // Clone Experiment
+    private boolean processExploreProjects(GalleryDTO dto) {
+        ExperimentSummary selected = dto.getSelectedExperiment();
+        // Load only the selected Experiment
         if (selected != null) {
-            experiment = new Experiment(selected);
+            Experiment loaded = ModelLoader.loadExperiment(selected.getFile());
+            if (loaded == null) {
+                onView(() -> view.showWarningMessage(Assets.getString("PROJECT_LOAD_ERROR")));
+                return false;
+            }
+            experiment = loaded;
+            journal.reset(experiment);
             return true;
         }
         return false;
@@ -779,11 +915,11 @@ public class Controller implements Observer {
     
     /**
      * Retrieves drops panel loaded image.
+     * @param dto drop panel values
      * @return true if image was loaded.
      */
-    private boolean processImageDrop() {
+    private boolean processImageDrop(DropDTO dto) {
         // Get Image from drop component
-        DropDTO dto = view.getValues();
         ImagePlus img = dto.getImage();
         // Check for valid source image
         if (img == null)
@@ -807,10 +943,9 @@ public class Controller implements Observer {
     
     /**
      * Retrieves cutting panel cuts points and cut experiment image.
+     * @param dto cutting panel values
      */
-    private void processImageCutting() {
-        // Get view cut points and cut image
-        CuttingDTO dto = view.getValues();
+    private void processImageCutting(CuttingDTO dto) {
         // Check for changes and update experiment
         if (dto.hasChanged()) {
             experiment.setCutPoints(dto.getUpperPoint(), dto.getLowerPoint());
@@ -832,19 +967,13 @@ public class Controller implements Observer {
     
     /**
      * Retrieves rotation angle, flip axis and rotate/flip experiment image.
+     * @param dto rotation panel values
      */
-    private void processImageRotation() {
-        // Get view transforms values
-        RotationDTO dto = view.getValues();
+    private void processImageRotation(RotationDTO dto) {
         // Check for changes and update experiment
         if (dto.hasChanged()) {
-            // Rotation distorsion fix
-            ImagePlus img = experiment.getSourceImage();
-            Pair<Point,Point> points = experiment.getCutPoints();
-            img = ImageProcessing.cutImage(img, points.getFirst(),  points.getSecond());
-            // Process experiment processed image
-            img = ImageProcessing.flipImage(img, dto.getFlipAxis());
-            img = ImageProcessing.rotateImage(img, dto.getRotationAngle(), true);
+            // Rotation distorsion fix (cut, flip and rotate source image in one pass)
+            ImagePlus img = ImageProcessing.transformImage(experiment.getSourceImage(), experiment.getCutPoints(), dto.getFlipAxis(), dto.getRotationAngle());
             // Save processed image
             experiment.setProcessedImage(img);
             experiment.setFlipAxis(dto.getFlipAxis());
@@ -868,10 +997,9 @@ public class Controller implements Observer {
     
     /**
      * Retrieves split points and split experiment image in sub-samples.
+     * @param dto split panel values
      */
-    private boolean processSamplesSplit() {
-        // Get view samples points
-        SplitDTO dto = view.getValues();
+    private boolean processSamplesSplit(SplitDTO dto) {
         // Check for valid split points
         if (dto.getSamplesPoints().isEmpty())
             return false;
@@ -911,10 +1039,9 @@ public class Controller implements Observer {
     
     /**
      * Retrieces special points selection data and update sub-samples.
+     * @param dto special points panel values
      */
-    private void processSpecialPointsSelection() {
-        // Get view data
-        DataDTO dto = view.getValues();
+    private void processSpecialPointsSelection(DataDTO dto) {
         // Check for changes and update experiment
         if (dto.hasChanged()) {
             for (Sample sample: experiment.getAllSamples()) {
@@ -928,8 +1055,8 @@ public class Controller implements Observer {
                 }
             }
         }
-        // Check for changes and update experiment && process samples
-        for (Sample sample: experiment.getAllSamples()) {
+        // Check for changes and update experiment && process samples (each sample in parallel)
+        processSamples(sample -> {
             // process sub sample image
             if (dto.hasChanged(sample.getId()) || !sample.hasProcessedImage()) {
                 // Cut Sample image to seed and front point
@@ -961,7 +1088,7 @@ public class Controller implements Observer {
                     sample.addPeak(peak);
                 }
             }
-        }
+        });
         // Update name, comments and sample linked status
         for (Sample sample: experiment.getAllSamples()) {
             sample.setName(dto.getSampleName(sample.getId()));
@@ -976,10 +1103,9 @@ public class Controller implements Observer {
     
     /**
      * Process Samples Analysis, integration areas selection.
+     * @param dto analysis panel values
      */
-    private boolean processSamplesAnalysis() {
-        // Get view data
-        AnalysisDTO dto = view.getValues();
+    private boolean processSamplesAnalysis(AnalysisDTO dto) {
         // Check for changes and update experiment
         if (dto.hasChanged()) {
             for (Sample sample: experiment.getAllSamples()) {
@@ -1002,13 +1128,14 @@ public class Controller implements Observer {
                 }
                 // Avoid samples without peaks
                 if (!sample.hasPeaks()) {
-                    view.showWarningMessage(Assets.getString("SELECT_AT_LEAST_ONE_PEAK", sample.getName()));
+                    String message = Assets.getString("SELECT_AT_LEAST_ONE_PEAK", sample.getName());
+                    onView(() -> view.showWarningMessage(message));
                     return false;
                 }
             }
         }
-        // Check for changes and update experiment && process samples
-        for (Sample sample: experiment.getAllSamples()) {
+        // Check for changes and update experiment && process samples (each sample in parallel)
+        processSamples(sample -> {
             // For each peak in sample
             for (Peak peak: sample.getPeaks()) {
                 // Compute if necessary sample peaks surfaces
@@ -1040,9 +1167,12 @@ public class Controller implements Observer {
                 if (dto.hasChanged(sample.getId()) || !peak.hasRelativeSurface())
                     peak.setRelativeSurface(AnalysisProcessing.relativizeSurface(sample, peak));
             }
-            // Check for empty peaks (no sample surface)
+        });
+        // Check for empty peaks (no sample surface), in samples order
+        for (Sample sample: experiment.getAllSamples()) {
             if (sample.getTotalSurface() == 0) {
-                view.showWarningMessage(Assets.getString("SELECT_AT_LEAST_ONE_PEAK", sample.getName()));
+                String message = Assets.getString("SELECT_AT_LEAST_ONE_PEAK", sample.getName());
+                onView(() -> view.showWarningMessage(message));
                 return false;
             }
         }
@@ -1058,12 +1188,36 @@ public class Controller implements Observer {
         return true;
     }
     
+    /**
+     * Run a task for each experiment sample concurrently (samples lanes pool).
+     * Each task only changes his own sample, so results stay in samples order.
+     * Progress is reported to the view after every finished sample.
+     * @param task sample task
+     */
+    private void processSamples(Consumer<Sample> task) {
+        List<Sample> samples = experiment.getAllSamples();
+        AtomicInteger done = new AtomicInteger(0);
+        view.showProgress(0, samples.size());
+        // Submit one task per sample
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(samples.size());
+        for (Sample sample: samples)
+            tasks.add(lanesPool.submit(() -> {
+                // Skip sample if step was cancelled
+                if (scheduler.isCancelled()) return;
+                task.accept(sample);
+                view.showProgress(done.incrementAndGet(), samples.size());
+            }));
+        // Wait for all samples (rethrows samples errors)
+        tasks.forEach(ForkJoinTask::join);
+        // Stop step if cancelled
+        scheduler.checkCancelled();
+    }
+    
     /**
      * Process samples analysis results.
+     * @param dto results panel values
      */
-    private void processSamplesAnalysisResults() {
-        // get panel results
-        ResultsDTO dto = view.getValues();
+    private void processSamplesAnalysisResults(ResultsDTO dto) {
         // If dto has changed, can change peaks names and comments
         if (dto.hasChanged()) {
             for (Sample sample: experiment.getAllSamples()) {
@@ -1086,100 +1240,270 @@ public class Controller implements Observer {
      *                      *
      ***********************/
     
-    private void resetViewStep() {
+    /**
+     * Reset current step view (tasks scheduler).
+     * @param current step shown when the command was issued
+     */
+    private void resetViewStep(Step current) {
+        // Ignore stale command (step changed since it was issued)
+        if (current != step)
+            return;
+        // Only analysis steps panels can be reset
+        if (current == Step.START_SYSTEM || current == Step.EXPLORE_PROJECTS || current == Step.ANALYSIS_REPORTS) {
+            System.err.println("Invalid Step at update view call :: " + current);
+            return;
+        }
         // Reset main view panel
-        switch (step) {
-            case LOAD_IMAGE: // Reset Drop Panel
-                view.showImageDropPanel(new DropDTO(experiment), true);
-                break;
-            case CUT_IMAGE: // Reset Cut Panel
-                view.showCutPanel(new CuttingDTO(experiment), true);
-                break;
-            case ROTATE_IMAGE: // Reset Rotation Panel
-                view.showRotionPanel(new RotationDTO(experiment), true);
-                break;
-            case SAMPLES_SELECT: // Reset Samples Selector Panel
-                view.showSamplesSelector(new SplitDTO(experiment), true);
-                break;
-            case SPECIAL_POINTS: // Reset Special Points Selection Panel
-                view.showSamplesSpecialPoints(new DataDTO(experiment), true);
-                break;
-            case ANALIZE_SAMPLES: // Reset Sample Analysis Tabs Panel
-                view.showAnalysisPanel(new AnalysisDTO(experiment), true);
-                break;
-            case SAMPLES_ANALYSIS_RESULTS: // Reset Sample Analysis Results Tabs Panel
-                view.showAnalysisResultsPanel(new ResultsDTO(experiment), true);
-                break;
-            default: // Debug
-                System.err.println("Invalid Step at update view call :: " + step);
+        AbstractDTO dto = createStepDTO(current);
+        onView(() -> showStepPanel(current, dto, true));
+    }
+    
+    /**
+     * Update view to next step, unless current task was cancelled
+     * (user went back while this step was processed).
+     * @param next next step
+     */
+    private void advanceToStep(Step next) {
+        if (scheduler.isCancelled())
+            return;
+        updateViewStep(next);
+    }
+    
+    /**
+     * Go back to previous step, removing current step breadcrumb.
+     * @param panel current step panel
+     * @param previous previous step
+     */
+    private void backToStep(Panels panel, Step previous) {
+        onView(() -> view.removeBreadcrumb(panel));
+        updateViewStep(previous);
+    }
+    
+    /**
+     * Clear current experiment (if any) and restart view.
+     */
+    private void clearExperiment() {
+        if (experiment == null)
+            return;
+        experiment.clear();
+        restartViewStep();
+    }
+    
+    /**
+     * Restart view to the start step.
+     */
+    private void restartViewStep() {
+        step = Step.START_SYSTEM;
+        onView(() -> {
+            viewStep = Step.START_SYSTEM;
+            view.restartView();
+        });
+    }
+    
+    /**
+     * Show projects gallery step.
+     * @param dto gallery projects
+     */
+    private void showGallery(GalleryDTO dto) {
+        step = Step.EXPLORE_PROJECTS;
+        onView(() -> {
+            viewStep = Step.EXPLORE_PROJECTS;
+            view.showImageGaleryPanel(dto, false);
+            view.updateButtons(true, false, false, false);
+        });
+    }
+    
+    /**
+     * Apply view changes in the event dispatch thread.
+     * Model data shown by the changes must be read before (tasks scheduler).
+     * @param update view changes
+     */
+    private void onView(Runnable update) {
+        SwingUtilities.invokeLater(update);
+    }
+    
+    /**
+     * Scan projects folder, projects are added to gallery as they are read
+     * and the folder is watched for changes while it's explored.
+     * @param projectsFolder projects folder
+     */
+    private void scanFolder(File projectsFolder) {
+        // Close previous folder scanner
+        if (scanner != null)
+            scanner.close();
+        // Explored projects (ignore late results of previous folder)
+        List<ExperimentSummary> explored = new CopyOnWriteArrayList<>();
+        experiments = explored;
+        List<String> broken = new CopyOnWriteArrayList<>();
+        scanner = new ProjectScanner(projectsFolder, new ProjectScanner.Listener() {
+            @Override
+            public void projectFound(ExperimentSummary summary) {
+                synchronized (explored) {
+                    if (experiments != explored) return;
+                    // Replace changed project or add new one
+                    int index = indexOf(explored, summary.getFile());
+                    if (index >= 0)
+                        explored.set(index, summary);
+                    else
+                        explored.add(summary);
+                }
+                view.updateGalleryProject(summary);
+            }
+            @Override
+            public void projectRemoved(File file) {
+                synchronized (explored) {
+                    if (experiments != explored) return;
+                    int index = indexOf(explored, file);
+                    if (index >= 0)
+                        explored.remove(index);
+                }
+                view.removeGalleryProject(file);
+            }
+            @Override
+            public void projectBroken(File file) {
+                broken.add(file.getName());
+            }
+        });
+        // Show empty gallery, filled while scanning
+        showGallery(new GalleryDTO(new ArrayList<>()));
+        scanner.scan().join();
+        // Check scan results
+        if (explored.isEmpty()) {
+            onView(() -> view.showWarningMessage(Assets.getString("EMPTY_FOLDER")));
+            scanner.close();
+            scanner = null;
+            experiments = null;
+            folder = null;
+            restartViewStep();
+            return;
+        }
+        if (!broken.isEmpty())
+            onView(() -> view.showWarningMessage(Assets.getString("BROKEN_PROJECTS", String.join(", ", broken))));
+        // Watch folder changes
+        try {
+            scanner.watch();
+        } catch (IOException ex) {
+            LoggerFactory.getLogger(Controller.class).warn("Can't watch projects folder : " + projectsFolder, ex);
         }
     }
     
+    /**
+     * Find explored project by file
+     * @param projects explored projects
+     * @param file project file
+     * @return project index or -1 if not found
+     */
+    private static int indexOf(List<ExperimentSummary> projects, File file) {
+        for (int i = 0; i < projects.size(); i++)
+            if (projects.get(i).getFile().equals(file))
+                return i;
+        return -1;
+    }
+    
     /**
      * Update view to specific step
-     * @param step 
+     * @param next 
      */
     private void updateViewStep(Step next) {
         // Save next step
         step = next;
+        // Step panel and menus data
+        AbstractDTO dto = createStepDTO(next);
+        ExportDTO export = (next != Step.EXPLORE_PROJECTS)? new ExportDTO(experiment, next == Step.ANALYSIS_REPORTS) : null;
+        boolean hasFile = experiment != null && experiment.hasFile();
+        boolean explored = experiments != null;
         // Update main view components
-        switch (step) {
+        onView(() -> {
+            viewStep = next;
+            showStepPanel(next, dto, false);
+            view.updateExportMenu(export);
+            switch (next) {
+                case EXPLORE_PROJECTS: // Gallery Panel
+                    view.updateButtons(true, false, false, false);
+                    view.updateMenu(false, false, false);
+                    break;
+                case LOAD_IMAGE: // Drop Panel
+                    view.updateButtons(!explored, true, explored, explored);
+                    view.updateMenu(true, hasFile, true);
+                    break;
+                case ANALYSIS_REPORTS: // Samples Analysis Reports Panel
+                    view.updateButtons(false, false, true, false);
+                    view.updateMenu(false, hasFile, true);
+                    break;
+                default: // Analysis steps panels
+                    view.updateButtons(false, true, true, true);
+                    view.updateMenu(true, hasFile, true);
+            }
+        });
+    }
+    
+    /**
+     * Create step panel data from current experiment
+     * @param current step
+     * @return step panel data
+     */
+    private AbstractDTO createStepDTO(Step current) {
+        switch (current) {
+            case EXPLORE_PROJECTS: // Gallery Panel
+                return new GalleryDTO(new ArrayList<>(experiments));
+            case LOAD_IMAGE: // Drop Panel
+                return new DropDTO(experiment);
+            case CUT_IMAGE: // Cut Panel
+                return new CuttingDTO(experiment);
+            case ROTATE_IMAGE: // Rotation Panel
+                return new RotationDTO(experiment);
+            case SAMPLES_SELECT: // Samples Selector Panel
+                return new SplitDTO(experiment);
+            case SPECIAL_POINTS: // Special Points Selection Panel
+                return new DataDTO(experiment);
+            case ANALIZE_SAMPLES: // Sample Analysis Tabs Panel
+                return new AnalysisDTO(experiment);
+            case SAMPLES_ANALYSIS_RESULTS: // Sample Analysis Results Tabs Panel
+                return new ResultsDTO(experiment);
+            case ANALYSIS_REPORTS: // Samples Analysis Reports Panel
+                return new ReportsDTO(experiment);
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Show step panel (event dispatch thread)
+     * @param current step
+     * @param dto step panel data
+     * @param restart if call is a for a restart
+     */
+    private void showStepPanel(Step current, AbstractDTO dto, boolean restart) {
+        switch (current) {
             case EXPLORE_PROJECTS: // Show Gallery Panel
-                view.showImageGaleryPanel(new GalleryDTO(experiments), false);
-                view.updateButtons(true, false, false, false);
-                view.updateMenu(false, false, false);
-                view.updateExportMenu(null);
+                view.showImageGaleryPanel((GalleryDTO) dto, restart);
                 break;
             case LOAD_IMAGE: // Show Drop Panel
-                view.showImageDropPanel(new DropDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(experiments == null, true, experiments != null, experiments != null);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showImageDropPanel((DropDTO) dto, restart);
                 break;
             case CUT_IMAGE: // Show Cut Panel
-                view.showCutPanel(new CuttingDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(false, true, true, true);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showCutPanel((CuttingDTO) dto, restart);
                 break;
             case ROTATE_IMAGE: // Show Rotation Panel
-                view.showRotionPanel(new RotationDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(false, true, true, true);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showRotionPanel((RotationDTO) dto, restart);
                 break;
             case SAMPLES_SELECT: // Show Samples Selector Panel
-                view.showSamplesSelector(new SplitDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(false, true, true, true);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showSamplesSelector((SplitDTO) dto, restart);
                 break;
             case SPECIAL_POINTS: // Show Special Points Selection Panel
-                view.showSamplesSpecialPoints(new DataDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(false, true, true, true);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showSamplesSpecialPoints((DataDTO) dto, restart);
                 break;
             case ANALIZE_SAMPLES: // Show Sample Analysis Tabs Panel
-                view.showAnalysisPanel(new AnalysisDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(false, true, true, true);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showAnalysisPanel((AnalysisDTO) dto, restart);
                 break;
             case SAMPLES_ANALYSIS_RESULTS: // Show Sample Analysis Results Tabs Panel
-                view.showAnalysisResultsPanel(new ResultsDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment));
-                view.updateButtons(false, true, true, true);
-                view.updateMenu(true, experiment.hasFile(), true);
+                view.showAnalysisResultsPanel((ResultsDTO) dto, restart);
                 break;
             case ANALYSIS_REPORTS: // Show Samples Analysis Reports Panel
-                view.showAnalysisReportsPanel(new ReportsDTO(experiment), false);
-                view.updateExportMenu(new ExportDTO(experiment, true));
-                view.updateButtons(false, false, true, false);
-                view.updateMenu(false, experiment.hasFile(), true);
+                view.showAnalysisReportsPanel((ReportsDTO) dto, restart);
                 break;
             default: // Debug
-                System.err.println("Invalid Step at update view call :: " + step);
+                System.err.println("Invalid Step at update view call :: " + current);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.main.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+//
+import jtlc.view.MainView;
+
+/**
+ * Controller tasks scheduler.
+ * Runs all model tasks in a single background (writer) thread, so the
+ * view stays responsive and model mutations never overlap. Repeated
+ * commands are coalesced while waiting or running, and all pending
+ * tasks can be cancelled (e.g. when the user goes back a step).
+ * Tasks never touch view components: view changes are posted to the
+ * event dispatch thread (progress is the only thread-safe view call).
+ *
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class TaskScheduler {
+    // Logger
+    private static final Logger LOG = LoggerFactory.getLogger(TaskScheduler.class);
+    // Single writer thread
+    private final ExecutorService writer;
+    // Waiting or running tasks by command (coalescing)
+    private final Map<String,Task> active;
+    // Current running task
+    private volatile Task running;
+    // View to show progress
+    private final MainView view;
+    
+    /**
+     * Create new tasks scheduler.
+     * @param view view to show tasks progress
+     */
+    public TaskScheduler(MainView view) {
+        this.view = view;
+        this.active = new HashMap<>();
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "jtlc-tasks");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Submit a command task. If the same command is already waiting or
+     * running the new one is dropped.
+     * @param command task command
+     * @param action task to run
+     * @return true if scheduled, false if coalesced
+     */
+    public synchronized boolean submit(String command, Runnable action) {
+        if (active.containsKey(command))
+            return false;
+        Task task = new Task(command, action);
+        active.put(command, task);
+        writer.execute(task);
+        return true;
+    }
+    
+    /**
+     * Submit a task without coalescing.
+     * @param action task to run
+     */
+    public void execute(Runnable action) {
+        writer.execute(new Task(null, action));
+    }
+    
+    /**
+     * Cancel all waiting tasks and flag the running one as cancelled.
+     * Running tasks stop at next cancellation check.
+     */
+    public synchronized void cancel() {
+        active.values().forEach(t -> t.cancelled = true);
+        active.clear();
+    }
+    
+    /**
+     * Check if current running task was cancelled.
+     * Can be called from any thread working for the running task.
+     * @return true/false
+     */
+    public boolean isCancelled() {
+        Task task = running;
+        return task != null && task.cancelled;
+    }
+    
+    /**
+     * Throws CancellationException if current running task was cancelled.
+     */
+    public void checkCancelled() {
+        Task task = running;
+        if (task != null && task.cancelled)
+            throw new CancellationException("Task cancelled: " + task.command);
+    }
+    
+    /**
+     * Single scheduled task.
+     */
+    private class Task implements Runnable {
+        // Task command (null for not coalesced tasks)
+        private final String command;
+        // Task action
+        private final Runnable action;
+        // Cancelled flag
+        private volatile boolean cancelled;
+    
+        /**
+         * Create new task
+         * @param command task command
+         * @param action task action
+         */
+        private Task(String command, Runnable action) {
+            this.command = command;
+            this.action = action;
+        }
+    
+        @Override
+        public void run() {
+            if (cancelled) return;
+            running = this;
+            view.showProgress(true);
+            try {
+                action.run();
+            } catch (CancellationException ex) {
+                LOG.info(ex.getMessage());
+            } catch (RuntimeException ex) {
+                LOG.error(command, ex);
+            } finally {
+                running = null;
+                view.showProgress(false);
+                // Task done, same command can run again
+                if (command != null) {
+                    synchronized (TaskScheduler.this) {
+                        active.remove(command, this);
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -76,11 +76,13 @@ import java.awt.event.WindowStateListener;
 import javax.swing.BorderFactory;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 import javax.swing.filechooser.FileNameExtensionFilter;
 // Java IO
 import java.io.File;
 // Panels
+import jtlc.core.model.ExperimentSummary;
 import jtlc.view.panels.IPanel;
 import jtlc.view.panels.DropPanel;
 import jtlc.view.panels.SplitPanel;
@@ -593,6 +595,9 @@ public class MainView extends Observable {
      * @param npanel new panel to show
      */
     private void updatePanel(JComponent npanel, boolean restart) {
+        // Stop replaced panel live analyses
+        if (centerPanel instanceof AnalysisPanel)
+            ((AnalysisPanel) centerPanel).cancelLiveAnalyses();
         centerPanel = npanel;
         // If transition is enabled
         if (transitionEnabled) {
@@ -781,11 +786,33 @@ public class MainView extends Observable {
 
     /**
      * Show/Hide indeterminate progress bar on the status bar
+     * Can be called from any thread.
      * @param status show/hide
      */
     public void showProgress(boolean status) {
-        progressBar.setVisible(status);
-        statusBar.repaint();
+        SwingUtilities.invokeLater(() -> {
+            progressBar.setIndeterminate(true);
+            progressBar.setString(Assets.getString("PLEASE_WAIT"));
+            progressBar.setVisible(status);
+            statusBar.repaint();
+        });
+    }
+    
+    /**
+     * Show determinate progress bar on the status bar (hidden when done)
+     * Can be called from any thread.
+     * @param value finished tasks
+     * @param total total tasks
+     */
+    public void showProgress(int value, int total) {
+        SwingUtilities.invokeLater(() -> {
+            progressBar.setIndeterminate(false);
+            progressBar.setMaximum(total);
+            progressBar.setValue(value);
+            progressBar.setString(value + " / " + total);
+            progressBar.setVisible(value < total);
+            statusBar.repaint();
+        });
     }
     
     /**
@@ -924,6 +951,32 @@ public class MainView extends Observable {
         stepPanel = Panels.GALERY_PANEL;
     }
     
+    /**
+     * Add or update project in gallery panel (if created)
+     * Can be called from any thread.
+     * @param summary project summary
+     */
+    public void updateGalleryProject(ExperimentSummary summary) {
+        SwingUtilities.invokeLater(() -> {
+            JComponent panel = mainPanels.get(Panels.GALERY_PANEL);
+            if (panel != null)
+                ((GalleryPanel) panel).updateExperiment(summary);
+        });
+    }
+    
+    /**
+     * Remove project from gallery panel (if created)
+     * Can be called from any thread.
+     * @param file project file
+     */
+    public void removeGalleryProject(File file) {
+        SwingUtilities.invokeLater(() -> {
+            JComponent panel = mainPanels.get(Panels.GALERY_PANEL);
+            if (panel != null)
+                ((GalleryPanel) panel).removeExperiment(file);
+        });
+    }
+    
     /**
      * Show Image Drop Panel.
      * @param dto panel data
@@ -224,7 +224,7 @@ public class CustomWebGallery extends JComponent {
         //            
         images.add(index, previewIcon);
         descriptions.add(index, description);
-        dates.add(date);
+        dates.add(index, date);
         titles.add(index, title);
         //
         recalcualteMaxSizes();
@@ -239,6 +239,7 @@ public class CustomWebGallery extends JComponent {
             images.remove(index);
             descriptions.remove(index);
             dates.remove(index);
+            titles.remove(index);
             recalcualteMaxSizes();
             updateContainer();
 
@@ -252,6 +253,7 @@ public class CustomWebGallery extends JComponent {
         images.clear();
         descriptions.clear();
         dates.clear();
+        titles.clear();
         //
         recalcualteMaxSizes();
         updateContainer();
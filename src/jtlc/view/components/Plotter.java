@@ -51,6 +51,7 @@ import ij.ImagePlus;
 import java.awt.geom.AffineTransform;
 //
 import jtlc.assets.Assets;
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Triplet;
 
@@ -64,7 +65,7 @@ public class Plotter extends JComponent {
     private double maxX = 0, minX = Double.MAX_VALUE, xScale = 1;
     private double maxY = 0, minY = Double.MIN_VALUE, yScale = 1;
     // Functions to plot
-    private List<Pair<Float,Float>>[] functions;
+    private DensityProfile[] functions;
     // Functions names
     private String[] names;
     // Functions visibility
@@ -128,7 +129,7 @@ public class Plotter extends JComponent {
      * @param nm functions names
      * @param fn functions to plot
      */
-    private Plotter(List<Pair<Float,Float>> lp, String[] nm, List<Pair<Float,Float>> ... fn) {
+    private Plotter(List<Pair<Float,Float>> lp, String[] nm, DensityProfile ... fn) {
         // Save functions
         functions = fn;
         // Save functions names
@@ -157,7 +158,7 @@ public class Plotter extends JComponent {
      * @param fn function to plot
      * @param nm function name
      */
-    public Plotter(List<Pair<Float,Float>> fn, String nm) {
+    public Plotter(DensityProfile fn, String nm) {
         this(null, new String[]{nm}, fn);
     }
     
@@ -167,7 +168,7 @@ public class Plotter extends JComponent {
      * @param fn function to plot
      * @param nm function name
      */
-    public Plotter(List<Pair<Float,Float>> fn, List<Pair<Float,Float>> lp, String nm) {
+    public Plotter(DensityProfile fn, List<Pair<Float,Float>> lp, String nm) {
         this(lp, new String[]{nm}, fn);
     }
     
@@ -178,7 +179,7 @@ public class Plotter extends JComponent {
      * @param nm function name
      * @param peaksData peaks data
      */
-    public Plotter(List<Pair<Float,Float>> fn, List<Pair<Float,Float>> lp, String nm, List<Triplet<Float,Float,Integer>> peaksData) {
+    public Plotter(DensityProfile fn, List<Pair<Float,Float>> lp, String nm, List<Triplet<Float,Float,Integer>> peaksData) {
         this(lp, new String[]{nm}, fn);
         this.peaksData = peaksData;
     }
@@ -188,7 +189,7 @@ public class Plotter extends JComponent {
      * @param fn functions to plot
      * @param nm functions names
      */
-    public Plotter(List<Pair<Float,Float>>[] fn, String[] nm) {
+    public Plotter(DensityProfile[] fn, String[] nm) {
         this(null, nm, fn);
     }
     
@@ -197,20 +198,19 @@ public class Plotter extends JComponent {
      */    
     private void initPanel() {
         // Search max-values
-        for (List<Pair<Float,Float>> fn : functions) {
+        for (DensityProfile fn : functions) {
             // Check  x order values
             if (!checkOrder(fn))
                 throw  new IllegalArgumentException("Invalid functions: not ascending order");
             // Max X-Value
-            float x = fn.get(fn.size() - 1).getFirst();
+            float x = fn.getMaxX();
             if (x > maxX)
                 maxX = x;
-            x = fn.get(0).getFirst();
+            x = fn.getMinX();
             if (x < minX)
                 minX = x;
             // Max Y-Value
-            for (Pair<Float,Float> p: fn) {
-                float y = p.getSecond();
+            for (float y: fn.getValues()) {
                 if (y > maxY)
                     maxY = y;
                 if (y < minY)
@@ -624,14 +624,13 @@ public class Plotter extends JComponent {
      * @param color curve line and fill color
      * @param fill enable/disable curve fill
      */
-    private void drawCurve(Graphics g, List<Pair<Float,Float>> fn, int xOffset, int yOffset, Color color, boolean fill) {
+    private void drawCurve(Graphics g, DensityProfile fn, int xOffset, int yOffset, Color color, boolean fill) {
         // Integer x-values/y-values
         int xPoints[] = new int[fn.size() + (fill? 2 : 0)];
         int yPoints[] = new int[fn.size() + (fill? 2 : 0)];
         for (int i = 0; i < fn.size(); i++) {
-            Pair<Float, Float> pair = fn.get(i);
-            xPoints[i + (fill? 1 : 0)] = xOffset + (int)((pair.getFirst() - minX) * xScale);
-            yPoints[i + (fill? 1 : 0)] = yOffset - (int)((pair.getSecond() - minY) * yScale);
+            xPoints[i + (fill? 1 : 0)] = xOffset + (int)((fn.getX(i) - minX) * xScale);
+            yPoints[i + (fill? 1 : 0)] = yOffset - (int)((fn.getY(i) - minY) * yScale);
         }
         // Extends X/Y to fill polygon
         if (fill) {
@@ -656,27 +655,22 @@ public class Plotter extends JComponent {
      */
     private void drawIntegrationAreasAndBaseline(Graphics2D g, Color color) {
         // Baseline relative values (between 0..1)
-        List<Pair<Float,Float>> fn = functions[0];
+        DensityProfile fn = functions[0];
         // Quick fix, check indexs (for a bug when load other proyect and plotter is in the panel)
         if (fn.size() - 1 < 0) return;
-        // Max X-Value
-        float max_x = fn.get(fn.size() - 1).getFirst();
         // Draw Integration Areas Polygons and Baseline
         for (Pair<Float,Float> p: integrationArea) {
             // Avoid empty areas
             if (p.getSecond() - p.getFirst() == 0) continue;
             // Compute Indexs
-            int i = Math.round(((fn.size() - 1) * (p.getFirst() / max_x)));
-            int j = Math.round(((fn.size() - 1) * (p.getSecond() / max_x)));
-            // Pair's
-            Pair<Float, Float> pi = fn.get(i);
-            Pair<Float, Float> pj = fn.get(j);
+            int i = fn.indexOf(p.getFirst());
+            int j = fn.indexOf(p.getSecond());
             // X Points
-            int x1 = LEFT_MARGIN + (int)(pi.getFirst() * xScale);
-            int x2 = LEFT_MARGIN + (int)(pj.getFirst() * xScale);
+            int x1 = LEFT_MARGIN + (int)(fn.getX(i) * xScale);
+            int x2 = LEFT_MARGIN + (int)(fn.getX(j) * xScale);
             // Y Points
-            int y1 = (height - BOTTOM_MARGIN) - (int)(pi.getSecond() * yScale);
-            int y2 = (height - BOTTOM_MARGIN) - (int)(pj.getSecond() * yScale);
+            int y1 = (height - BOTTOM_MARGIN) - (int)(fn.getY(i) * yScale);
+            int y2 = (height - BOTTOM_MARGIN) - (int)(fn.getY(j) * yScale);
             // Draw if need the curve integration areas
             if (drawIntegrationArea) {
                 // Curve Fill Polygon
@@ -684,9 +678,8 @@ public class Plotter extends JComponent {
                 int[] yPoints = new int[j - i + 3];
                 // Compute Values
                 for (int n = i; n <= j; n++) {
-                    Pair<Float, Float> pair = fn.get(n);
-                    xPoints[n - i + 1] = LEFT_MARGIN + (int)((pair.getFirst() - minX) * xScale);
-                    yPoints[n - i + 1] = height - BOTTOM_MARGIN - (int)((pair.getSecond() - minY) * yScale);
+                    xPoints[n - i + 1] = LEFT_MARGIN + (int)((fn.getX(n) - minX) * xScale);
+                    yPoints[n - i + 1] = height - BOTTOM_MARGIN - (int)((fn.getY(n) - minY) * yScale);
                 }
                 // Limits Values
                 xPoints[0] = xPoints[1];
@@ -753,11 +746,10 @@ public class Plotter extends JComponent {
      * @param g 
      */
     private void drawYValue(Graphics g) {
-        // Max X-Value
-        float max_x = functions[0].get(functions[0].size() - 1).getFirst();
-        Pair<Float, Float> point = functions[0].get(Math.round(((functions[0].size() - 1) * (yValueXPos / max_x))));
+        // Y-Value at x-pos
+        float point = functions[0].getY(functions[0].indexOf(yValueXPos));
         // Y-Value
-        double yvalue = Math.round(point.getSecond() * 100.0) / 100.0;
+        double yvalue = Math.round(point * 100.0) / 100.0;
         // Text
         String value = String.valueOf(yvalue);
         int yp = height - BOTTOM_MARGIN - Math.round((float)(yvalue * yScale));
@@ -1018,11 +1010,7 @@ public class Plotter extends JComponent {
      * @param array
      * @return 
      */
-    private boolean checkOrder(List<Pair<Float,Float>> fn) {
-        for (int i = 0; i < fn.size() - 1; i++) {
-            if (fn.get(i).getFirst() > fn.get(i + 1).getFirst())
-                return false;
-        }
-        return true;
+    private boolean checkOrder(DensityProfile fn) {
+        return fn.getStep() >= 0;
     }
 }
\ No newline at end of file
@@ -50,14 +50,20 @@ import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.stream.Collectors;
 import static javax.swing.JLayeredPane.DRAG_LAYER;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import jtlc.assets.Assets;
 //
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Settings;
+import jtlc.main.common.Triplet;
+import jtlc.core.model.Peak;
 import jtlc.core.processing.AnalysisProcessing;
+import jtlc.core.processing.IncrementalAnalysis;
 import jtlc.core.processing.ImageProcessing;
+import jtlc.core.processing.ImagePreview;
 import jtlc.core.storage.ImageStore;
 import jtlc.view.dto.AbstractDTO;
 import jtlc.view.panels.dto.AnalysisDTO;
@@ -87,6 +93,8 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
     private final List<ImagePlus> samples;
     private final List<WebTextArea> comments;
     private final List<WebToolBar> toolbars;
+    private final List<WebLabel> liveResults;
+    private final List<IncrementalAnalysis> analyses;
     private final WebToolBar comparationToolBar;
     // Comparation Components
     private final JLayeredPane comparationTab;
@@ -110,6 +118,8 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
         tabs = new ArrayList<>(samples.size());
         comments = new ArrayList<>(samples.size());
         toolbars = new ArrayList<>(samples.size());
+        liveResults = new ArrayList<>(samples.size());
+        analyses = new ArrayList<>(samples.size());
         baselinePoints = new HashMap<>(samples.size());
         // Configure Tab Panel
         WebTabbedPaneUI panelUI = new WebTabbedPaneUI();
@@ -125,11 +135,11 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
         // Create Tabs
         for (ImagePlus img: samples) {
             // Main Data
-            List<Pair<Float,Float>> function = data.getSampleMean(img);
+            DensityProfile function = data.getSampleMean(img);
             List<Pair<Float,Float>> positions = data.getSamplePeaks(img);
             List<Pair<Float,Float>> baseline = data.getSampleBaseline(img);
             // Function Maximum X value
-            float max_x = function.get(function.size() - 1).getFirst();
+            float max_x = function.getMaxX();
             // Basic transform to relative values (between 0...1)
             float fpositions[] = new float[positions.size() * 2];
               for (int i = 0; i < positions.size(); i++) {
@@ -144,8 +154,7 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
                 System.err.println("Invalid Thumbs Positions for sample " + data.getSampleName(img));
             }
             // Resize Image
-            ImagePlus resizedImg = img.duplicate();
-            ImageProcessing.resizeImage(resizedImg, -1, size.height - 60);
+            ImagePlus resizedImg = ImagePreview.get(img, -1, size.height - 60).duplicate();
             // Plot Size
             int plotWidth = size.width - resizedImg.getWidth() - 85;
             int plotHeight = size.height - 40;
@@ -225,6 +234,12 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
             sliderV.setTickStart(-3);
             sliderV.setSquareLength(resizedImg.getWidth());
             sliderV.setSquareStart(0);
+            // Live peaks results (surfaces, maximums and heights)
+            WebLabel liveLabel = new WebLabel();
+            liveLabel.setFocusable(false);
+            int tabIndex = plotPanels.size();
+            IncrementalAnalysis analysis = new IncrementalAnalysis(function, peaks -> showLiveResults(tabIndex, peaks));
+            analysis.update(fpositions);
             /**
              * Change Listeners
              */
@@ -242,6 +257,8 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
                 baselinePoints.put(img, points);
                 // Update BaselinePoints
                 plotPanel.setIntegrationAreas(points);
+                // Update live results
+                analysis.update(thumbs);
                 // Update Y-Value pos to draw
                 int thumb = sliderH.getSelectedThumb();
                 if (thumb != -1 && sliderH.hasFocus()) {
@@ -262,6 +279,8 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
                 baselinePoints.put(img, points);
                 // Update BaseLinePoints
                 plotPanel.setIntegrationAreas(points);
+                // Update live results
+                analysis.update(sliderV.getThumbPositions());
             });
             sliderH.addPropertyChangeListener((PropertyChangeEvent evt) -> {
                 String name = evt.getPropertyName();
@@ -391,6 +410,7 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
             tab.add(sampleImageComponet, JLayeredPane.FRAME_CONTENT_LAYER);
             tab.add(sliderH, JLayeredPane.MODAL_LAYER);
             tab.add(sliderV, JLayeredPane.MODAL_LAYER);
+            tab.add(liveLabel, JLayeredPane.PALETTE_LAYER);
             
             /**
              * Save Componets
@@ -401,6 +421,8 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
             verticalSliders.add(sliderV);
             comments.add(textArea);
             toolbars.add(commandsTB);
+            liveResults.add(liveLabel);
+            analyses.add(analysis);
             tabs.add(tab);
             baselinePoints.put(img, baseline);
             /**
@@ -409,7 +431,7 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
             this.addTab(Assets.shortString(data.getSampleName(img), 25, true), tab);
         }
         // Comparation Panel        
-        List<Pair<Float,Float>>[] values = new List[samples.size()];
+        DensityProfile[] values = new DensityProfile[samples.size()];
         String[] names = new String[samples.size()];
         for (int i = 0; i < samples.size(); i++) {
             values[i] = data.getSampleMean(samples.get(i));
@@ -533,8 +555,7 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
         for (int i = 0; i < samples.size(); i++) {
             // Resize Image
             ImagePlus img = samples.get(i);
-            ImagePlus resizedImg = img.duplicate();
-            ImageProcessing.resizeImage(resizedImg, -1, size.height - 60);
+            ImagePlus resizedImg = ImagePreview.get(img, -1, size.height - 60).duplicate();
             // Use sample seed/front points to compute the size of the vertical slider
             float pdiff = (float)resizedImg.getHeight() / (float)img.getHeight();
             int offset = (int)((float)data.getSampleFrontPoint(img) * pdiff + 0.5f);
@@ -572,6 +593,8 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
             sampleImageComponet.setLocation(plotPanel.getLocation().x + plotPanel.getSize().width + 24, 20);
             sliderV.setLocation(plotPanel.getLocation().x + plotPanel.getSize().width - 3, offset);
             commandsTB.setLocation(0, size.height - commandsTB.getSize().height - 23);
+            // Live results
+            locateLiveResults(i);
         }
         // Update Comparation tab size
         comparationPlot.setSize(size.width, size.height - 20);
@@ -651,6 +674,66 @@ public class AnalysisPanel extends WebTabbedPane implements IPanel {
         throw new UnsupportedOperationException("Not supported yet.");
     }
     
+    /**
+     * Cancel samples live analyses, no more results are shown (panel replaced)
+     */
+    public void cancelLiveAnalyses() {
+        analyses.forEach(IncrementalAnalysis::cancel);
+    }
+    
+    /**
+     * Show sample live peaks results: maximums over the plot and a table of
+     * surfaces, relative surfaces, maximums and heights
+     * @param index sample tab index
+     * @param peaks computed peaks
+     */
+    private void showLiveResults(int index, List<Peak> peaks) {
+        // Maximums and peaks numbers
+        Plotter plotPanel = plotPanels.get(index);
+        plotPanel.setPeaksData(peaks.stream().map(p -> new Triplet<>(p.getMaximum(), p.getPosition())).collect(Collectors.toList()));
+        plotPanel.repaint();
+        // Results table
+        StringBuilder html = new StringBuilder("<html><table bgcolor=#ffffff cellspacing=0 cellpadding=1><tr><th></th>");
+        for (String key: new String[]{"SURFACE", "RELATIVE", "MAXIMUM", "HEIGHT"})
+            html.append("<th>").append(Assets.getString(key)).append("</th>");
+        html.append("</tr>");
+        for (Peak peak: peaks) {
+            html.append("<tr><td>").append(peak.getPosition()).append("</td>");
+            html.append("<td align=right>").append(round(peak.getSurface())).append("</td>");
+            html.append("<td align=right>").append(round(peak.getRelativeSurface())).append("%</td>");
+            html.append("<td align=right>").append(round(peak.getMaximum().getSecond())).append("</td>");
+            html.append("<td align=right>").append(round(peak.getHeight().getSecond())).append("</td></tr>");
+        }
+        html.append("</table></html>");
+        WebLabel liveLabel = liveResults.get(index);
+        liveLabel.setText(html.toString());
+        liveLabel.setVisible(!peaks.isEmpty());
+        locateLiveResults(index);
+    }
+    
+    /**
+     * Locate sample live results table at the plot top-right corner
+     * @param index sample tab index
+     */
+    private void locateLiveResults(int index) {
+        Plotter plotPanel = plotPanels.get(index);
+        WebLabel liveLabel = liveResults.get(index);
+        liveLabel.setSize(liveLabel.getPreferredSize());
+        int x = plotPanel.getX() + plotPanel.getWidth() - plotPanel.RIGHT_MARGIN - liveLabel.getWidth() - 4;
+        liveLabel.setLocation(x, plotPanel.getY() + plotPanel.TOP_MARGIN + 4);
+    }
+    
+    /**
+     * Round value to 3 decimals for display
+     * @param value value to round
+     * @return rounded value text ("-" if not a number)
+     */
+    private String round(Float value) {
+        if (value == null || value.isNaN())
+            return "-";
+        return String.valueOf(Math.round(value * 1000.0) / 1000.0);
+    }
+    
     /**
      * Check if array is valid for thumbs positions
      * @param array float array to check
@@ -36,7 +36,7 @@ import java.util.Arrays;
 import javax.swing.*;
 import jtlc.main.common.Point;
 import jtlc.assets.Assets;
-import jtlc.core.processing.ImageProcessing;
+import jtlc.core.processing.ImagePreview;
 import jtlc.view.dto.AbstractDTO;
 import jtlc.view.panels.dto.CuttingDTO;
 import jtlc.view.components.slider.CustomSlider;
@@ -82,11 +82,8 @@ public class CutPanel extends JLayeredPane implements IPanel {
             positionsH = new float[]{0,1};
         if (!checkArray(positionsV))
             positionsV = new float[]{0,1};
-        // Resize Image Resized
-        resizedImg = samplesImg.duplicate();
-        ImageProcessing.resizeImage(resizedImg, -1, size.height - 60);
-        if (resizedImg.getWidth() > size.width - 100)
-            ImageProcessing.resizeImage(resizedImg, size.width - 100, -1);
+        // Cached preview image
+        resizedImg = ImagePreview.get(samplesImg, size.width - 100, size.height - 60);
         // Init Background Image
         bgImage = new WebDecoratedImage(resizedImg.getImage());
         bgImage.setSize(resizedImg.getWidth() + 4, resizedImg.getHeight() + 4);
@@ -207,11 +204,8 @@ public class CutPanel extends JLayeredPane implements IPanel {
      */
     @Override
     public void setSize(Dimension size) {
-        // Update Background Image Size - Resize Image
-        resizedImg = samplesImg.duplicate();
-        ImageProcessing.resizeImage(resizedImg, -1, size.height - 60);
-        if (resizedImg.getWidth() > size.width - 100)
-            ImageProcessing.resizeImage(resizedImg, size.width - 100, -1);
+        // Update Background Image Size - Cached preview image
+        resizedImg = ImagePreview.get(samplesImg, size.width - 100, size.height - 60);
         // Re-init Background Image
         bgImage.setImage(resizedImg.getImage());
         bgImage.setSize(resizedImg.getWidth() + 4, resizedImg.getHeight() + 4);
@@ -271,12 +265,9 @@ public class CutPanel extends JLayeredPane implements IPanel {
         textArea.setText(data.getComments());
         // Save Image
         samplesImg = data.getImage();
-        // Resize Image Resized
-        resizedImg = samplesImg.duplicate();
+        // Cached preview image
         Dimension size = this.getSize();
-        ImageProcessing.resizeImage(resizedImg, -1, size.height - 60);
-        if (resizedImg.getWidth() > size.width - 100)
-            ImageProcessing.resizeImage(resizedImg, size.width - 100, -1);
+        resizedImg = ImagePreview.get(samplesImg, size.width - 100, size.height - 60);
         // Init Background Image
         bgImage.setImage(resizedImg.getImage());
         bgImage.setSize(resizedImg.getWidth() + 4, resizedImg.getHeight() + 4);
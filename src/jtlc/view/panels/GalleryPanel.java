@@ -20,11 +20,16 @@ package jtlc.view.panels;
 import com.alee.laf.scroll.WebScrollPane;
 import java.awt.Dimension;
 import java.awt.Image;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.List;
+import javax.imageio.ImageIO;
 import javax.swing.JLayeredPane;
 import jtlc.assets.Assets;
-import jtlc.core.model.Experiment;
+import jtlc.core.model.ExperimentSummary;
 import jtlc.view.dto.AbstractDTO;
 import jtlc.view.panels.dto.GalleryDTO;
 import jtlc.view.components.CustomWebGallery;
@@ -56,8 +61,8 @@ public class GalleryPanel extends JLayeredPane implements IPanel {
         webGallery.setSize(size);
         DateFormat df = new SimpleDateFormat(Assets.getString("DATE_FORMAT"));
         // Add Images to galery
-        for (Experiment exp : data.getExperiments()) {
-            Image image = exp.hasSourceImage()? exp.getSourceImage().getImage() : Assets.loadImage("logo_jtlc");
+        for (ExperimentSummary exp : data.getExperiments()) {
+            Image image = loadThumbnail(exp);
             webGallery.addImage(image, exp.getName(), exp.getDescription(), df.format(exp.getSampleDate()));
         }
         // Add Galery to panel
@@ -112,8 +117,8 @@ public class GalleryPanel extends JLayeredPane implements IPanel {
         webGallery.setSize(this.getSize());
         DateFormat df = new SimpleDateFormat(Assets.getString("DATE_FORMAT"));
         // Add Images to galery
-        for (Experiment exp : data.getExperiments()) {
-            Image image = exp.hasSourceImage()? exp.getSourceImage().getImage() : Assets.loadImage("logo_jtlc");
+        for (ExperimentSummary exp : data.getExperiments()) {
+            Image image = loadThumbnail(exp);
             webGallery.addImage(image, exp.getName(), exp.getDescription(), df.format(exp.getSampleDate()));
         }
         // Add Galery to panel
@@ -123,4 +128,68 @@ public class GalleryPanel extends JLayeredPane implements IPanel {
         galeryComponent.requestFocus();
         this.add(galeryComponent, JLayeredPane.DEFAULT_LAYER);
     }
+    
+    /**
+     * Add new project or replace changed one (same file)
+     * @param exp project summary
+     */
+    public void updateExperiment(ExperimentSummary exp) {
+        List<ExperimentSummary> experiments = data.getExperiments();
+        int index = indexOf(exp.getFile());
+        DateFormat df = new SimpleDateFormat(Assets.getString("DATE_FORMAT"));
+        Image image = loadThumbnail(exp);
+        if (index >= 0) {
+            // Replace changed project
+            experiments.set(index, exp);
+            webGallery.removeImage(index);
+            webGallery.addImage(index, image, exp.getName(), exp.getDescription(), df.format(exp.getSampleDate()));
+        } else {
+            // Add new project
+            experiments.add(exp);
+            webGallery.addImage(image, exp.getName(), exp.getDescription(), df.format(exp.getSampleDate()));
+        }
+    }
+    
+    /**
+     * Remove project from gallery
+     * @param file project file
+     */
+    public void removeExperiment(File file) {
+        int index = indexOf(file);
+        if (index >= 0) {
+            data.getExperiments().remove(index);
+            webGallery.removeImage(index);
+        }
+    }
+    
+    /**
+     * Find project index in gallery
+     * @param file project file
+     * @return project index or -1 if not found
+     */
+    private int indexOf(File file) {
+        List<ExperimentSummary> experiments = data.getExperiments();
+        for (int i = 0; i < experiments.size(); i++)
+            if (experiments.get(i).getFile().equals(file))
+                return i;
+        return -1;
+    }
+    
+    /**
+     * Decode project thumbnail image
+     * @param exp project summary
+     * @return thumbnail image or default logo
+     */
+    private static Image loadThumbnail(ExperimentSummary exp) {
+        try {
+            if (exp.hasThumbnail()) {
+                Image image = ImageIO.read(new ByteArrayInputStream(exp.getThumbnail()));
+                if (image != null)
+                    return image;
+            }
+        } catch (IOException ex) {
+            // Invalid thumbnail, use default image
+        }
+        return Assets.loadImage("logo_jtlc");
+    }
 }
\ No newline at end of file
@@ -50,6 +50,7 @@ import static javax.swing.JLayeredPane.DRAG_LAYER;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import jtlc.assets.Assets;
 //
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Settings;
 import jtlc.main.common.Triplet;
@@ -106,12 +107,12 @@ public class ResultsPanel extends JTabbedPane implements IPanel {
         // Create Tabs
         for (Integer sample: samples) {
             // Main Data
-            List<Pair<Float,Float>> function = data.getSampleMean(sample);
+            DensityProfile function = data.getSampleMean(sample);
             List<Pair<Float,Float>> positions = data.getSamplePeaks(sample);
             List<Pair<Float,Float>> baseline = data.getSampleBaseline(sample);
             List<Integer> samplePeaksIds = data.getSamplePeaksIds(sample);
             // Function Maximum X value
-            float max_x = function.get(function.size() - 1).getFirst();
+            float max_x = function.getMaxX();
             // Basic transform to relative values (between 0...1)
             float fpositions[] = new float[positions.size() * 2];
               for (int i = 0; i < positions.size(); i++) {
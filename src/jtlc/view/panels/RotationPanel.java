@@ -38,7 +38,7 @@ import java.awt.event.ActionEvent;
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import jtlc.core.processing.AnalysisProcessing.Axis;
-import jtlc.core.processing.ImageProcessing;
+import jtlc.core.processing.ImagePreview;
 import java.awt.event.ActionListener;
 import javax.swing.event.ChangeListener;
 import jtlc.view.dto.AbstractDTO;
@@ -58,7 +58,7 @@ public class RotationPanel extends JLayeredPane implements IPanel {
     private WebSpinner rotSpinner;
     private final WebToolBar commandsTB;
     private final WebTextArea textArea;
-    private ImagePlus samplesImg, resizedImg, oldResizedImg;
+    private ImagePlus samplesImg, resizedImg;
     private Axis flipAxis;
     private Dimension prefSize;
     private final WebDecoratedImage bgImage;
@@ -76,22 +76,12 @@ public class RotationPanel extends JLayeredPane implements IPanel {
         data = dto;
         samplesImg = data.getImage();
         prefSize = size;
-        // Resize Image Resized
-        resizedImg = samplesImg.duplicate();
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-        if (resizedImg.getWidth() > size.width - 200)
-            ImageProcessing.resizeImage(resizedImg, size.width - 200, -1);
-        oldResizedImg = resizedImg.duplicate();
         /**
          * Apply old rotation (image distorsion fix)
          */
         flipAxis = data.getFlipAxis();
-        resizedImg = ImageProcessing.flipImage(resizedImg, flipAxis);
-        oldResizedImg = resizedImg.duplicate();
-        resizedImg = ImageProcessing.rotateImage(resizedImg, data.getRotationAngle(), true);
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-        if (resizedImg.getWidth() > size.width - 200)
-            ImageProcessing.resizeImage(resizedImg, size.width - 200, -1);
+        // Cached preview image
+        resizedImg = ImagePreview.get(samplesImg, flipAxis, data.getRotationAngle(), size.width - 200, prefSize.height - 60);
         // Init Background Image
         bgImage = new WebDecoratedImage(resizedImg.getImage());
         bgImage.setSize(resizedImg.getWidth() + 4, resizedImg.getHeight() + 4);
@@ -281,23 +271,8 @@ public class RotationPanel extends JLayeredPane implements IPanel {
         }
         // Set panel size
         prefSize = size;
-        // Update Background Image Size 
-        resizedImg = samplesImg.duplicate();
-        // Resize Image
-        resizedImg = samplesImg.duplicate();
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-        if (resizedImg.getWidth() > size.width - 200)
-            ImageProcessing.resizeImage(resizedImg, size.width - 200, -1);
-        oldResizedImg = resizedImg.duplicate();
-        // Flip Image
-        resizedImg = ImageProcessing.flipImage(oldResizedImg, getFlipAxis());
-        oldResizedImg = resizedImg.duplicate();
-        // Rotate old resized image
-        resizedImg = ImageProcessing.rotateImage(oldResizedImg, getRotationAngle(), true);
-        // Resize image if image canvas has resized
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-        if (resizedImg.getWidth() > size.width - 200)
-            ImageProcessing.resizeImage(resizedImg, size.width - 200, -1);
+        // Update Background Image Size (flipped and rotated cached preview)
+        updatePreview();
         // Update main panel size
         super.setSize(prefSize.width, prefSize.height);
         // Re-init Elements Size & Positions
@@ -340,26 +315,16 @@ public class RotationPanel extends JLayeredPane implements IPanel {
         samplesImg = data.getImage();
         prefSize = this.getSize();
         Dimension size = this.getSize();
-        // Resize Image Resized
-        resizedImg = samplesImg.duplicate();
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-        if (resizedImg.getWidth() > size.width - 200)
-            ImageProcessing.resizeImage(resizedImg, size.width - 200, -1);
-        oldResizedImg = resizedImg.duplicate();
         /**
          * Apply old rotation (image distorsion fix)
          */
         flipAxis = data.getFlipAxis();
-        resizedImg = ImageProcessing.flipImage(resizedImg, flipAxis);
-        oldResizedImg = resizedImg.duplicate();
-        resizedImg = ImageProcessing.rotateImage(resizedImg, data.getRotationAngle(), true);
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-        if (resizedImg.getWidth() > size.width - 200)
-            ImageProcessing.resizeImage(resizedImg, size.width - 200, -1);
         // RotSpinner value
         rotSpinner.removeChangeListener(changeListener);
         rotSpinner.setValue(data.getRotationAngle());
         rotSpinner.addChangeListener(changeListener);
+        // Cached preview image
+        updatePreview();
         // Reset Sliders
         Character chrs[] = new Character[]{'A'};
         float positionsX[] = new float[]{0};
@@ -371,6 +336,13 @@ public class RotationPanel extends JLayeredPane implements IPanel {
         updateSizeAndPosition();
     }
         
+    /**
+     * Update preview image to current flip and rotation (cached preview).
+     */
+    private void updatePreview() {
+        resizedImg = ImagePreview.get(samplesImg, getFlipAxis(), getRotationAngle(), prefSize.width - 200, prefSize.height - 60);
+    }
+    
     /**
      * Update Elemnts Size and Positions.
      */
@@ -397,10 +369,8 @@ public class RotationPanel extends JLayeredPane implements IPanel {
      * Spinner Change Listener.
      */
     private final ChangeListener changeListener = (ChangeEvent e) -> {
-        // Rotate old resized image
-        resizedImg = ImageProcessing.rotateImage(oldResizedImg, getRotationAngle(), true);
-        // Resize image if image canvas has resized
-        ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
+        // Rotated cached preview
+        updatePreview();
         // Update Panel Components
         updateSizeAndPosition();
     };
@@ -419,26 +389,22 @@ public class RotationPanel extends JLayeredPane implements IPanel {
         }
         // Flip Horizontal
         if (e.getActionCommand().equals("FLIP_H")) {
-            // Flip Image
-            resizedImg = ImageProcessing.flipImage(oldResizedImg, Axis.AXIS_X);
-            oldResizedImg = resizedImg.duplicate();
-            // Update Rotation
-            rotSpinner.setValue(-getRotationAngle());
             // Save Flip result
             setFlipAxis(Axis.AXIS_X);
+            // Update Rotation
+            rotSpinner.setValue(-getRotationAngle());
             // Update view
+            updatePreview();
             updateSizeAndPosition();
         }
         // Flip Vertical
         if (e.getActionCommand().equals("FLIP_V")) {
-            // Flip Image
-            resizedImg = ImageProcessing.flipImage(oldResizedImg, Axis.AXIS_Y);
-            oldResizedImg = resizedImg.duplicate();
-            // Update Rotation
-            rotSpinner.setValue(-getRotationAngle());
             // Save Flip result
             setFlipAxis(Axis.AXIS_Y);
+            // Update Rotation
+            rotSpinner.setValue(-getRotationAngle());
             // Update view
+            updatePreview();
             updateSizeAndPosition();
         }
         // Reset Image
@@ -450,9 +416,7 @@ public class RotationPanel extends JLayeredPane implements IPanel {
             rotSpinner.setValue(0.0);
             rotSpinner.addChangeListener(changeListener);
             // Re-init Images
-            resizedImg = samplesImg.duplicate();
-            ImageProcessing.resizeImage(resizedImg, -1, prefSize.height - 60);
-            oldResizedImg = resizedImg.duplicate();
+            updatePreview();
             // Update view
             updateSizeAndPosition();
         }
@@ -503,6 +467,14 @@ public class RotationPanel extends JLayeredPane implements IPanel {
             flipAxis = Axis.AXIS_Y;
             return;
         }
+        if (flipAxis == Axis.AXIS_XY && axis == Axis.AXIS_Y) {
+            flipAxis = Axis.AXIS_X;
+            return;
+        }
+        if (flipAxis == Axis.AXIS_YX && axis == Axis.AXIS_X) {
+            flipAxis = Axis.AXIS_Y;
+            return;
+        }
         if (flipAxis == Axis.AXIS_YX && axis == Axis.AXIS_Y) {
             flipAxis = Axis.AXIS_X;
         }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 import jtlc.view.dto.AbstractDTO;
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.core.model.Experiment;
 import jtlc.core.model.Sample;
@@ -36,7 +37,7 @@ import jtlc.core.model.Sample;
 public class AnalysisDTO extends AbstractDTO {
     private final HashMap<ImagePlus,Integer> samplesImageId;
     private final HashMap<Integer,String> samplesNames;
-    private final HashMap<Integer,List<Pair<Float,Float>>> samplesMeans;
+    private final HashMap<Integer,DensityProfile> samplesMeans;
     private final HashMap<Integer,List<Pair<Float,Float>>> samplesPeaksPoints;
     private final HashMap<Integer,List<Pair<Float,Float>>> samplesBaselinePoints;
     private final HashMap<Integer,Integer> samplesSeedPoints;
@@ -171,7 +172,7 @@ public class AnalysisDTO extends AbstractDTO {
      * @param sampleId
      * @return 
      */
-    public List<Pair<Float,Float>> getSampleMean(int sampleId) {
+    public DensityProfile getSampleMean(int sampleId) {
         return samplesMeans.get(sampleId);
     }
     
@@ -180,7 +181,7 @@ public class AnalysisDTO extends AbstractDTO {
      * @param img
      * @return 
      */
-    public List<Pair<Float,Float>> getSampleMean(ImagePlus img) {
+    public DensityProfile getSampleMean(ImagePlus img) {
         return samplesMeans.get(samplesImageId.get(img));
     }
     
@@ -189,7 +190,7 @@ public class AnalysisDTO extends AbstractDTO {
      * @param sampleId
      * @param mean 
      */
-    public void setSampleMean(int sampleId, List<Pair<Float,Float>> mean) {
+    public void setSampleMean(int sampleId, DensityProfile mean) {
         samplesMeans.put(sampleId, mean);
     }
     
@@ -198,7 +199,7 @@ public class AnalysisDTO extends AbstractDTO {
      * @param img
      * @param mean 
      */
-    public void setSampleMean(ImagePlus img, List<Pair<Float,Float>> mean) {
+    public void setSampleMean(ImagePlus img, DensityProfile mean) {
         samplesMeans.put(samplesImageId.get(img), mean);
     }
     
@@ -19,7 +19,7 @@ package jtlc.view.panels.dto;
 import java.util.LinkedList;
 import java.util.List;
 import jtlc.view.dto.AbstractDTO;
-import jtlc.core.model.Experiment;
+import jtlc.core.model.ExperimentSummary;
 
 /**
  * GalleryDTO implements DTO for GaleryPanel
@@ -28,7 +28,7 @@ import jtlc.core.model.Experiment;
  * @author Cristian Tardivo
  */
 public class GalleryDTO extends AbstractDTO {
-    private final List<Experiment> experiments;
+    private final List<ExperimentSummary> experiments;
     private int selectedIndex = -1;
     
     /**
@@ -40,17 +40,17 @@ public class GalleryDTO extends AbstractDTO {
     
     /**
      * Create new GaleryDto.
-     * @param experiments
+     * @param experiments projects summaries
      */
-    public GalleryDTO(List<Experiment> experiments) {
+    public GalleryDTO(List<ExperimentSummary> experiments) {
         this.experiments = experiments;
     }
     
     /**
      * Add Galery Element
-     * @param experiment loaded Experiment to add
+     * @param experiment project summary to add
      */
-    public void addExperiment(Experiment experiment) {
+    public void addExperiment(ExperimentSummary experiment) {
         experiments.add(experiment);
     }
     
@@ -58,7 +58,7 @@ public class GalleryDTO extends AbstractDTO {
      * Get Experiment list
      * @return 
      */
-    public List<Experiment> getExperiments() {
+    public List<ExperimentSummary> getExperiments() {
         return experiments;
     }
     
@@ -82,7 +82,7 @@ public class GalleryDTO extends AbstractDTO {
      * Get selected experiment from gallery
      * @return 
      */
-    public Experiment getSelectedExperiment() {
+    public ExperimentSummary getSelectedExperiment() {
         if (selectedIndex >= 0 && selectedIndex < experiments.size())
             return experiments.get(selectedIndex);
         return null;
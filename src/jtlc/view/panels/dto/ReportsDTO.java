@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 import jtlc.view.dto.AbstractDTO;
+import jtlc.main.common.DensityProfile;
 import jtlc.main.common.Pair;
 import jtlc.main.common.Point;
 import jtlc.core.model.Experiment;
@@ -45,7 +46,7 @@ public class ReportsDTO extends AbstractDTO {
     private final HashMap<Integer,String> samplesResultsComments;
     private final HashMap<Integer,Integer> samplesSeedPoints;
     private final HashMap<Integer,Integer> samplesFrontPoints;
-    private final HashMap<Integer,List<Pair<Float,Float>>> samplesMeans;
+    private final HashMap<Integer,DensityProfile> samplesMeans;
     private final HashMap<Integer,List<Pair<Float,Float>>> samplesPeaksPoints;
     private final HashMap<Integer,List<Pair<Float,Float>>> samplesBaselinePoints;
     private final List<Integer> samplesIds;
@@ -259,7 +260,7 @@ public class ReportsDTO extends AbstractDTO {
      * @param sampleId
      * @return 
      */
-    public List<Pair<Float,Float>> getSampleMean(int sampleId) {
+    public DensityProfile getSampleMean(int sampleId) {
         return samplesMeans.get(sampleId);
     }
     
@@ -268,7 +269,7 @@ public class ReportsDTO extends AbstractDTO {
      * @param sampleId
      * @param mean 
      */
-    public void setSampleMean(int sampleId, List<Pair<Float,Float>> mean) {
+    public void setSampleMean(int sampleId, DensityProfile mean) {
         samplesMeans.put(sampleId, mean);
     }
     
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jtlc.main.common.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Image projections benchmark (JMH).
+ * Compares the single pass rows and columns sums kernel with the previous
+ * getIntArray path (one copy and one column-major walk per axis, as
+ * computeMean and computeCrush did), over thresholded plate sized images.
+ * Run with the main method (test classpath with JMH library).
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class ImageProjectionsBenchmark {
+    // Plate size (width x height)
+    @Param({"2000x6000", "8000x12000"})
+    public String size;
+    
+    private ImagePlus img;
+    
+    @Setup
+    public void createPlate() {
+        String[] dims = size.split("x");
+        int width = Integer.parseInt(dims[0]);
+        int height = Integer.parseInt(dims[1]);
+        // Thresholded plate, white background with dark spots and noise
+        byte[] pixels = new byte[width * height];
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++) {
+                boolean spot = (x / 200) % 2 == 1 && (y / 300) % 3 == 1;
+                pixels[y * width + x] = (byte) ((spot || random.nextInt(100) == 0)? 0 : 255);
+            }
+        img = new ImagePlus("plate", new ByteProcessor(width, height, pixels));
+    }
+    
+    @Benchmark
+    public Pair<long[],long[]> projections() {
+        return ImageProcessing.getImageProjections(img);
+    }
+    
+    @Benchmark
+    public Pair<long[],long[]> intArrayProjections() {
+        return new Pair<>(intArraySums(img, true), intArraySums(img, false));
+    }
+    
+    /**
+     * Run benchmark
+     * @param args the command line arguments
+     * @throws RunnerException 
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ImageProjectionsBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Previous projection path: image copied with getIntArray and walked
+     * column-major with the axis selected in the inner loop
+     * @param img image to process
+     * @param rows rows sums (axis-x) or columns sums (axis-y)
+     * @return sums
+     */
+    private static long[] intArraySums(ImagePlus img, boolean rows) {
+        int[][] imgArray = ImageProcessing.getImageArray(img);
+        int size = rows? img.getHeight() : img.getWidth();
+        int length = rows? img.getWidth() : img.getHeight();
+        long[] sums = new long[size];
+        for (int i = 0; i < size; i++) {
+            long sum = 0;
+            for (int j = 0; j < length; j++)
+                sum += rows? imgArray[j][i] : imgArray[i][j];
+            sums[i] = sum;
+        }
+        return sums;
+    }
+}
\ No newline at end of file
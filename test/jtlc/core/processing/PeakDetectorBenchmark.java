@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jtlc.main.common.DensityProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Peak detectors benchmark (JMH).
+ * Compares the prominence and legacy detectors over the golden regression
+ * profiles (real plate lanes) and over synthetic crowded lanes.
+ * Run with the main method (test classpath with JMH library).
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PeakDetectorBenchmark {
+    // Golden lanes count
+    private static final int GOLDEN_LANES = 6;
+    
+    private static final PeakDetector prominence = PeakDetector.Method.PROMINENCE.create();
+    private static final PeakDetector legacy = PeakDetector.Method.LEGACY.create();
+    
+    /**
+     * Golden regression profiles (same as PeakDetectorTest).
+     */
+    @State(Scope.Benchmark)
+    public static class Golden {
+        private final DensityProfile[] profiles = new DensityProfile[GOLDEN_LANES];
+        
+        @Setup
+        public void readProfiles() throws IOException {
+            for (int lane = 1; lane <= GOLDEN_LANES; lane++) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        PeakDetectorBenchmark.class.getResourceAsStream("golden/lane-" + lane + ".txt"), StandardCharsets.UTF_8))) {
+                    // Skip expected peaks, read profile values
+                    reader.readLine();
+                    String[] tokens = reader.readLine().trim().split(" ");
+                    float[] values = new float[tokens.length - 1];
+                    for (int i = 1; i < tokens.length; i++)
+                        values[i - 1] = Float.parseFloat(tokens[i]);
+                    profiles[lane - 1] = DensityProfile.relative(values);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Synthetic crowded lane, 20 gaussian spots over a noisy baseline.
+     */
+    @State(Scope.Benchmark)
+    public static class Crowded {
+        // Profile values count (lane height)
+        @Param({"1000", "12000"})
+        public int length;
+        
+        private DensityProfile profile;
+        
+        @Setup
+        public void createProfile() {
+            Random random = new Random(42);
+            float[] values = new float[length];
+            float sd = length / 160f;
+            for (int i = 0; i < length; i++) {
+                values[i] = random.nextFloat() * 2;
+                for (int k = 0; k < 20; k++)
+                    values[i] += (60 + 8 * (k % 5)) * Math.exp(-0.5 * Math.pow((i - (k + 0.5) * length / 20f) / sd, 2));
+            }
+            profile = DensityProfile.relative(values);
+        }
+    }
+    
+    @Benchmark
+    public void prominenceGolden(Golden golden, Blackhole bh) {
+        for (DensityProfile fn: golden.profiles)
+            bh.consume(prominence.searchAreas(fn));
+    }
+    
+    @Benchmark
+    public void legacyGolden(Golden golden, Blackhole bh) {
+        for (DensityProfile fn: golden.profiles)
+            bh.consume(legacy.searchAreas(fn));
+    }
+    
+    @Benchmark
+    public Object prominenceCrowded(Crowded crowded) {
+        return prominence.searchAreas(crowded.profile);
+    }
+    
+    @Benchmark
+    public Object legacyCrowded(Crowded crowded) {
+        return legacy.searchAreas(crowded.profile);
+    }
+    
+    /**
+     * Run benchmark
+     * @param args the command line arguments
+     * @throws RunnerException 
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PeakDetectorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
\ No newline at end of file
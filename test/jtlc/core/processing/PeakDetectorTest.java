@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.processing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Pair;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Peak detectors regression tests.
+ * Golden profiles are the blurred means of real plate lanes (as received by
+ * the detector in searchPeaks), with the expected peaks limits. Limits were
+ * recorded from the prominence detector output and reviewed against the
+ * legacy detector: same peaks, limits within MAX_LIMIT_SHIFT after areas
+ * validation (checked on every run by testGoldenProfilesAgainstLegacy).
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class PeakDetectorTest {
+    // Golden lanes count
+    private static final int GOLDEN_LANES = 6;
+    // Maximum limits shift between detectors, after areas validation (indexs)
+    private static final int MAX_LIMIT_SHIFT = 2;
+    
+    private final PeakDetector prominence = PeakDetector.Method.PROMINENCE.create();
+    private final PeakDetector legacy = PeakDetector.Method.LEGACY.create();
+    
+    @Test
+    public void testGoldenProfiles() throws IOException {
+        for (int lane = 1; lane <= GOLDEN_LANES; lane++) {
+            List<int[]> expected = new ArrayList<>();
+            DensityProfile fn = readGolden(lane, expected);
+            List<int[]> found = toIndexs(fn, prominence.searchAreas(fn));
+            assertEquals("lane " + lane + " peaks count", expected.size(), found.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals("lane " + lane + " peak " + i + " start", expected.get(i)[0], found.get(i)[0]);
+                assertEquals("lane " + lane + " peak " + i + " end", expected.get(i)[1], found.get(i)[1]);
+            }
+        }
+    }
+    
+    @Test
+    public void testGoldenProfilesAgainstLegacy() throws IOException {
+        for (int lane = 1; lane <= GOLDEN_LANES; lane++) {
+            DensityProfile fn = readGolden(lane, new ArrayList<>());
+            // Compare validated areas (as searchPeaks does)
+            List<int[]> p = toIndexs(fn, AnalysisProcessing.validateAreas(fn, toArray(prominence.searchAreas(new DensityProfile(fn)))));
+            List<int[]> l = toIndexs(fn, AnalysisProcessing.validateAreas(fn, toArray(legacy.searchAreas(new DensityProfile(fn)))));
+            assertEquals("lane " + lane + " peaks count", l.size(), p.size());
+            for (int i = 0; i < l.size(); i++) {
+                assertTrue("lane " + lane + " peak " + i + " start", Math.abs(l.get(i)[0] - p.get(i)[0]) <= MAX_LIMIT_SHIFT);
+                assertTrue("lane " + lane + " peak " + i + " end", Math.abs(l.get(i)[1] - p.get(i)[1]) <= MAX_LIMIT_SHIFT);
+            }
+        }
+    }
+    
+    @Test
+    public void testShortProfilesWithEndMaxima() {
+        float[][] profiles = {
+            {10, 5, 20, 5},
+            {5, 20, 5, 10},
+            {60, 50, 40, 35, 33, 32, 31, 40, 70, 90, 70, 40, 32, 31, 30}
+        };
+        for (float[] values: profiles) {
+            // Too narrow to keep any peak, but must not fail
+            assertTrue(prominence.searchAreas(DensityProfile.relative(values)).isEmpty());
+            assertTrue(legacy.searchAreas(DensityProfile.relative(values)).isEmpty());
+        }
+    }
+    
+    @Test
+    public void testEndMaxima() {
+        // Lane starting high (below minimum peak height), lower than the spot
+        float[] values = lane(200, new float[]{120}, new float[]{90}, 8);
+        for (int i = 0; i < 20; i++)
+            values[i] += 20 - i;
+        List<int[]> found = toIndexs(DensityProfile.relative(values), prominence.searchAreas(DensityProfile.relative(values)));
+        assertEquals(1, found.size());
+        assertTrue(found.get(0)[0] < 120 && found.get(0)[1] > 120);
+        // Same lane ending high
+        float[] reversed = new float[values.length];
+        for (int i = 0; i < values.length; i++)
+            reversed[i] = values[values.length - 1 - i];
+        found = toIndexs(DensityProfile.relative(reversed), prominence.searchAreas(DensityProfile.relative(reversed)));
+        assertEquals(1, found.size());
+        assertTrue(found.get(0)[0] < 79 && found.get(0)[1] > 79);
+    }
+    
+    @Test
+    public void testConstantAndEmptyProfiles() {
+        assertTrue(prominence.searchAreas(DensityProfile.relative(new float[0])).isEmpty());
+        assertTrue(prominence.searchAreas(DensityProfile.relative(new float[]{7})).isEmpty());
+        assertTrue(prominence.searchAreas(DensityProfile.relative(new float[]{7, 7, 7, 7, 7})).isEmpty());
+        assertTrue(prominence.searchAreas(DensityProfile.relative(new float[500])).isEmpty());
+    }
+    
+    @Test
+    public void testCrowdedLane() {
+        // More spots than legacy peaks limit
+        int spots = 15;
+        float[] centers = new float[spots];
+        float[] heights = new float[spots];
+        for (int i = 0; i < spots; i++) {
+            centers[i] = 80 + i * 75;
+            heights[i] = 60 + (i % 3) * 30;
+        }
+        DensityProfile fn = DensityProfile.relative(lane(1300, centers, heights, 14));
+        assertEquals(spots, prominence.searchAreas(fn).size());
+        assertTrue(legacy.searchAreas(DensityProfile.relative(lane(1300, centers, heights, 14))).size() <= 10);
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Read golden profile resource
+     * @param lane golden lane number
+     * @param peaks output expected peaks limits (indexs)
+     * @return lane profile
+     */
+    private DensityProfile readGolden(int lane, List<int[]> peaks) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("golden/lane-" + lane + ".txt"), StandardCharsets.UTF_8))) {
+            // Expected peaks (start-end)
+            String[] limits = reader.readLine().trim().split(" ");
+            for (int i = 1; i < limits.length; i++) {
+                String[] limit = limits[i].split("-");
+                peaks.add(new int[]{Integer.parseInt(limit[0]), Integer.parseInt(limit[1])});
+            }
+            // Profile values
+            String[] tokens = reader.readLine().trim().split(" ");
+            float[] values = new float[tokens.length - 1];
+            for (int i = 1; i < tokens.length; i++)
+                values[i - 1] = Float.parseFloat(tokens[i]);
+            return DensityProfile.relative(values);
+        }
+    }
+    
+    /**
+     * Synthetic gaussian spots lane profile
+     * @param size values count
+     * @param centers spots centers (indexs)
+     * @param heights spots heights
+     * @param sd spots standard deviation (indexs)
+     * @return lane profile values
+     */
+    private static float[] lane(int size, float[] centers, float[] heights, float sd) {
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++)
+            for (int k = 0; k < centers.length; k++)
+                values[i] += heights[k] * Math.exp(-0.5 * Math.pow((i - centers[k]) / sd, 2));
+        return values;
+    }
+    
+    /**
+     * Convert areas x-values to profile indexs
+     * @param fn profile
+     * @param areas areas limits
+     * @return start-end indexs
+     */
+    private static List<int[]> toIndexs(DensityProfile fn, List<Pair<Float,Float>> areas) {
+        List<int[]> result = new ArrayList<>();
+        for (Pair<Float,Float> area: areas)
+            result.add(new int[]{fn.indexOf(area.getFirst()), fn.indexOf(area.getSecond())});
+        return result;
+    }
+    
+    /**
+     * Flatten areas limits
+     * @param areas areas limits
+     * @return start and end x-values
+     */
+    private static float[] toArray(List<Pair<Float,Float>> areas) {
+        float[] result = new float[areas.size() * 2];
+        for (int i = 0; i < areas.size(); i++) {
+            result[2 * i] = areas.get(i).getFirst();
+            result[2 * i + 1] = areas.get(i).getSecond();
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import jtlc.core.model.Experiment;
+import jtlc.core.model.Peak;
+import jtlc.core.model.Sample;
+import jtlc.core.processing.AnalysisProcessing;
+import jtlc.core.processing.ImageProcessing;
+import jtlc.main.common.DensityProfile;
+import jtlc.main.common.Point;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Project loader tests, data only (mapped archive) loads against full loads.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class ModelLoaderTest {
+    // Plate size and samples lanes (x limits)
+    private static final int WIDTH = 120;
+    private static final int HEIGHT = 300;
+    private static final int[][] LANES = {{20, 45}, {70, 95}};
+    
+    private File file;
+    
+    @Before
+    public void saveProject() throws IOException {
+        file = File.createTempFile("jtlc-test", ".jtlc");
+        assertTrue(ModelSaver.saveExperiment(createExperiment(), file));
+    }
+    
+    @After
+    public void deleteProject() {
+        file.delete();
+    }
+    
+    @Test
+    public void testDataLoadAsFullLoad() {
+        Experiment expected = ModelLoader.loadExperiment(file);
+        Experiment data = ModelLoader.loadExperimentData(file);
+        assertNotNull(expected);
+        assertNotNull(data);
+        // Project info
+        assertEquals(expected.getName(), data.getName());
+        assertEquals(expected.getDescription(), data.getDescription());
+        assertEquals(expected.getSampleDate(), data.getSampleDate());
+        assertEquals(expected.getAnalysisDate(), data.getAnalysisDate());
+        assertEquals(file, data.getFile());
+        // Samples, means and peaks
+        List<Sample> samples = expected.getAllSamples();
+        assertEquals(LANES.length, samples.size());
+        assertEquals(samples.size(), data.getAllSamples().size());
+        for (int i = 0; i < samples.size(); i++) {
+            Sample sample = samples.get(i);
+            Sample loaded = data.getAllSamples().get(i);
+            assertEquals(sample.getName(), loaded.getName());
+            assertEquals(sample.getLimits(), loaded.getLimits());
+            DensityProfile mean = sample.getMean();
+            assertEquals(mean.size(), loaded.getMean().size());
+            for (int j = 0; j < mean.size(); j++) {
+                assertEquals(mean.getX(j), loaded.getMean().getX(j), 0);
+                assertEquals(mean.getY(j), loaded.getMean().getY(j), 0);
+            }
+            assertTrue(sample.hasPeaks());
+            assertEquals(sample.getPeaks().size(), loaded.getPeaks().size());
+            for (int j = 0; j < sample.getPeaks().size(); j++) {
+                Peak peak = sample.getPeaks().get(j);
+                Peak other = loaded.getPeaks().get(j);
+                assertEquals(peak.getName(), other.getName());
+                assertEquals(peak.getLimits(), other.getLimits());
+                assertEquals(peak.getSurface(), other.getSurface());
+            }
+            // Images are not loaded
+            assertFalse(loaded.hasSourceImage());
+            assertFalse(loaded.hasProcessedImage());
+        }
+        assertFalse(data.hasSourceImage());
+        assertFalse(data.hasProcessedImage());
+    }
+    
+    @Test
+    public void testDataLoadOfBrokenFiles() throws IOException {
+        // Missing file
+        assertNull(ModelLoader.loadExperimentData(new File(file.getPath() + ".missing")));
+        // Truncated file
+        File truncated = File.createTempFile("jtlc-test", ".jtlc");
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            Files.write(truncated.toPath(), Arrays.copyOf(data, data.length / 2));
+            assertNull(ModelLoader.loadExperimentData(truncated));
+        } finally {
+            truncated.delete();
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Create analyzed experiment of a synthetic plate (dark spots over white lanes)
+     * @return experiment with samples means and peaks
+     */
+    private static Experiment createExperiment() {
+        ByteProcessor ip = new ByteProcessor(WIDTH, HEIGHT);
+        ip.setValue(255);
+        ip.fill();
+        for (int[] lane: LANES)
+            for (int y = 0; y < HEIGHT; y++)
+                for (int x = lane[0]; x < lane[1]; x++) {
+                    double spots = 160 * Math.exp(-0.5 * Math.pow((y - 90) / 8.0, 2)) + 100 * Math.exp(-0.5 * Math.pow((y - 200) / 10.0, 2));
+                    ip.set(x, y, (int) Math.round(255 - spots));
+                }
+        ImagePlus plate = new ImagePlus("plate", ip);
+        Experiment experiment = new Experiment("Plate", "Synthetic\nplate", new Date(0), new Date(86400000L));
+        experiment.setSourceImage(plate);
+        experiment.setProcessedImage(plate.duplicate());
+        int number = 1;
+        for (int[] lane: LANES) {
+            Sample sample = new Sample(new Point(lane[0], lane[1]));
+            experiment.addSample(sample);
+            sample.setName("Sample " + number++);
+            // Sample images and mean
+            ImagePlus img = ImageProcessing.cutImage(experiment.getProcessedImage(), new Point(lane[0], 0), new Point(lane[1], HEIGHT));
+            sample.setSourceImage(img);
+            sample.setFrontPoint(0);
+            sample.setSeedPoint(HEIGHT);
+            sample.setProcessedImage(img.duplicate());
+            sample.setMean(AnalysisProcessing.computeGIM(sample.getProcessedImage()));
+            // Peaks and surfaces
+            for (Peak peak: AnalysisProcessing.searchPeaks(sample.getProcessedImage())) {
+                peak.setBaseline(AnalysisProcessing.searchBaseline(sample, peak));
+                sample.addPeak(peak);
+            }
+            for (Peak peak: sample.getPeaks()) {
+                peak.setSurface(AnalysisProcessing.integratePeak(sample, peak));
+                peak.setName("Peak " + (peak.getId() + 1));
+            }
+        }
+        return experiment;
+    }
+}
\ No newline at end of file
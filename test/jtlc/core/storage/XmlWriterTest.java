@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 Baldani Sergio - Tardivo Cristian
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jtlc.core.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Date;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import jtlc.core.model.Experiment;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streaming XML writer tests, against the DOM serializer output and
+ * through a full project save and load.
+ * 
+ * @author Baldani Sergio - Tardivo Cristian
+ */
+public class XmlWriterTest {
+    // Attribute values (step comments are multi-line texts)
+    private static final String[] VALUES = {
+        "",
+        "plain text",
+        "line1\nline2\n\ttab x",
+        "windows\r\nline\r\n",
+        "  leading and trailing spaces  ",
+        "markup & <tags> \"quoted\" 'single'",
+        "acentos áéíóú ñ µ°"
+    };
+    
+    @Test
+    public void testAttributesAsDom() throws Exception {
+        // Streamed document
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        try (XmlWriter xml = new XmlWriter(streamed)) {
+            xml.start("root");
+            xml.start("values");
+            for (int i = 0; i < VALUES.length; i++)
+                xml.attribute("v" + i, VALUES[i]);
+            xml.end();
+            xml.end();
+        }
+        // Same document through DOM serializer (previous project writer)
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = document.createElement("root");
+        document.appendChild(root);
+        Element values = document.createElement("values");
+        root.appendChild(values);
+        for (int i = 0; i < VALUES.length; i++)
+            values.setAttribute("v" + i, VALUES[i]);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        ByteArrayOutputStream dom = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(dom));
+        // Both read back the same values (DOM and StAX readers)
+        Element streamedValues = parse(streamed.toByteArray());
+        Element domValues = parse(dom.toByteArray());
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(streamed.toByteArray()), "UTF-8");
+        while (reader.next() != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals("values"));
+        for (int i = 0; i < VALUES.length; i++) {
+            assertEquals(VALUES[i], domValues.getAttribute("v" + i));
+            assertEquals(VALUES[i], streamedValues.getAttribute("v" + i));
+            assertEquals(VALUES[i], reader.getAttributeValue(null, "v" + i));
+        }
+    }
+    
+    @Test
+    public void testEmptyAndNestedElements() throws Exception {
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        try (XmlWriter xml = new XmlWriter(streamed)) {
+            xml.start("root").attribute("null", null);
+            xml.start("empty").end();
+            xml.start("parent").start("child").attribute("id", 1);
+            // Open elements are ended on close
+        }
+        String text = new String(streamed.toByteArray(), "UTF-8");
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<root null=\"\">\n"
+                + "    <empty/>\n"
+                + "    <parent>\n"
+                + "        <child id=\"1\"/>\n"
+                + "    </parent>\n"
+                + "</root>\n", text);
+    }
+    
+    @Test
+    public void testProjectRoundTrip() throws Exception {
+        File file = File.createTempFile("jtlc-test", ".jtlc");
+        try {
+            // Project with multi-line texts
+            Experiment experiment = new Experiment(VALUES[5], VALUES[2], new Date(0), new Date(86400000L));
+            experiment.setSourceImageComments(VALUES[3]);
+            experiment.setCutComments(VALUES[2]);
+            experiment.setRotationComments(VALUES[4]);
+            experiment.setSplitComments(VALUES[6]);
+            experiment.setDataComments(VALUES[2]);
+            experiment.setComparationComments(VALUES[3]);
+            assertTrue(ModelSaver.saveExperiment(experiment, file));
+            // Loaded project
+            Experiment loaded = ModelLoader.loadExperiment(file);
+            assertNotNull(loaded);
+            assertEquals(experiment.getName(), loaded.getName());
+            assertEquals(experiment.getDescription(), loaded.getDescription());
+            assertEquals(experiment.getSourceImageComments(), loaded.getSourceImageComments());
+            assertEquals(experiment.getCutComments(), loaded.getCutComments());
+            assertEquals(experiment.getRotationComments(), loaded.getRotationComments());
+            assertEquals(experiment.getSplitComments(), loaded.getSplitComments());
+            assertEquals(experiment.getDataComments(), loaded.getDataComments());
+            assertEquals(experiment.getComparationComments(), loaded.getComparationComments());
+            // Explorer summary
+            assertEquals(experiment.getDescription(), ModelLoader.loadSummary(file).getDescription());
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /*******************/
+    /* Private Methods */
+    /*******************/
+    
+    /**
+     * Parse document with DOM and get values element
+     * @param data XML document
+     * @return values element
+     */
+    private static Element parse(byte[] data) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(data));
+        return (Element) document.getElementsByTagName("values").item(0);
+    }
+}
\ No newline at end of file